@@ -7,7 +7,10 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import com.rms.app.service.IArtifactPersistenceService;
 import com.rms.app.service.IViewManager;
+import com.rms.app.service.IProjectWatcherService;
+import com.rms.app.service.ISqliteIndexRepository;
 import javafx.stage.Stage;
 
 import java.io.IOException;
@@ -32,6 +35,16 @@ public class MainApplication extends Application {
         viewManager.showWelcomeView();
     }
 
+    /**
+     * Ghi hết hàng đợi lưu nền, dừng Project Watcher và đóng các kết nối dài hạn tới CSDL Chỉ mục khi thoát ứng dụng.
+     */
+    @Override
+    public void stop() {
+        injector.getInstance(IArtifactPersistenceService.class).flushAll();
+        injector.getInstance(IProjectWatcherService.class).stopWatching();
+        injector.getInstance(ISqliteIndexRepository.class).closeDatabase();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
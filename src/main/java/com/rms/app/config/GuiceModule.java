@@ -2,7 +2,13 @@ package com.rms.app.config;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
+import com.rms.app.repository.DocumentStoreArtifactRepository;
+import com.rms.app.repository.FieldBlobStore;
 import com.rms.app.repository.JsonFileRepository;
+import com.rms.app.repository.ProjectSnapshotRepository;
+import com.rms.app.repository.RoutingArtifactRepository;
+import com.rms.app.repository.SqliteConnectionManager;
+import com.rms.app.repository.SqliteDocumentStore;
 import com.rms.app.repository.SqliteIndexRepository;
 import com.rms.app.service.*;
 import com.rms.app.service.impl.*;
@@ -52,16 +58,27 @@ public class GuiceModule extends AbstractModule {
         bind(IRenderService.class).to(RenderServiceImpl.class).in(Singleton.class);
         bind(ISearchService.class).to(SearchServiceImpl.class).in(Singleton.class);
         bind(IIndexService.class).to(IndexServiceImpl.class).in(Singleton.class);
+        bind(IAutocompleteService.class).to(AutocompleteServiceImpl.class).in(Singleton.class);
+        bind(ISerializationService.class).to(SerializationServiceImpl.class).in(Singleton.class);
+        bind(IArtifactPersistenceService.class).to(ArtifactPersistenceServiceImpl.class).in(Singleton.class);
+        bind(IProjectWatcherService.class).to(ProjectWatcherServiceImpl.class).in(Singleton.class);
         bind(IDiagramRenderService.class).to(DiagramRenderServiceImpl.class).in(Singleton.class);
         bind(IExportService.class).to(ExportServiceImpl.class).in(Singleton.class);
+        bind(IPandocRunner.class).to(PandocRunnerImpl.class).in(Singleton.class);
         bind(IImportService.class).to(ImportServiceImpl.class).in(Singleton.class);
         bind(IApiService.class).to(ApiServiceImpl.class).in(Singleton.class);
 
         /**
          * Repositories
          */
-        bind(IArtifactRepository.class).to(JsonFileRepository.class).in(Singleton.class);
+        bind(IArtifactRepository.class).to(RoutingArtifactRepository.class).in(Singleton.class);
+        bind(JsonFileRepository.class).in(Singleton.class);
+        bind(DocumentStoreArtifactRepository.class).in(Singleton.class);
+        bind(IArtifactDocumentStore.class).to(SqliteDocumentStore.class).in(Singleton.class);
+        bind(IFieldBlobStore.class).to(FieldBlobStore.class).in(Singleton.class);
         bind(ISqliteIndexRepository.class).to(SqliteIndexRepository.class).in(Singleton.class);
+        bind(SqliteConnectionManager.class).in(Singleton.class);
+        bind(IProjectSnapshotRepository.class).to(ProjectSnapshotRepository.class).in(Singleton.class);
 
         bind(IGlobalConfigService.class).to(GlobalConfigServiceImpl.class).in(Singleton.class);
     }
@@ -0,0 +1,102 @@
+package com.rms.app.model;
+
+import java.util.List;
+
+/**
+ * POJO (Model) chứa phần "đầu" (header) của một artifact: các cột mà CSDL Chỉ mục cần
+ * (id, tên, loại, template, trạng thái), đọc bằng streaming parser
+ * mà không dựng toàn bộ Map 'fields'.
+ * Khi dùng cho lập chỉ mục, header còn mang vị trí (relativePath, folderId),
+ * các ID được liên kết (@ID) và văn bản đã làm phẳng cho Tìm kiếm Toàn văn.
+ */
+public class ArtifactHeader {
+
+    /**
+     * Tên trường (trong 'fields') chứa trạng thái của artifact.
+     */
+    public static final String STATUS_FIELD = "Trạng thái";
+
+    private String id;
+    private String name;
+    private String artifactType;
+    private String templateId;
+    private String status;
+    private String relativePath;
+    private String folderId;
+    private List<String> links; // (null nếu không quét liên kết)
+    private String searchText; // (null nếu không trích văn bản)
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getArtifactType() {
+        return artifactType;
+    }
+
+    public void setArtifactType(String artifactType) {
+        this.artifactType = artifactType;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public void setRelativePath(String relativePath) {
+        this.relativePath = relativePath;
+    }
+
+    public String getFolderId() {
+        return folderId;
+    }
+
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+
+    public List<String> getLinks() {
+        return links;
+    }
+
+    public void setLinks(List<String> links) {
+        this.links = links;
+    }
+
+    public String getSearchText() {
+        return searchText;
+    }
+
+    public void setSearchText(String searchText) {
+        this.searchText = searchText;
+    }
+}
@@ -0,0 +1,19 @@
+package com.rms.app.model;
+
+/**
+ * Nơi lưu trữ (backend) nội dung các artifact của dự án.
+ * Cấu hình trong .config/project.json (trường "storageMode").
+ * Cây thư mục của dự án luôn là thư mục vật lý, bất kể chế độ nào.
+ */
+public enum ArtifactStorageMode {
+    /**
+     * Mỗi artifact là một file .json (kèm bản sao .md) trong thư mục dự án (mặc định, hành vi cũ).
+     */
+    FILES,
+    /**
+     * Toàn bộ artifact được lưu dạng tài liệu (document) trong một file SQLite duy nhất
+     * (.config/artifacts.db). Phù hợp cho dự án có rất nhiều artifact nhỏ:
+     * tránh chi phí metadata của hệ thống file. Không sinh file .md.
+     */
+    SQLITE
+}
@@ -0,0 +1,65 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) bất biến chứa số liệu của bộ đệm (cache) Artifact đã parse.
+ */
+public class CacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int entryCount;
+    private final long sizeBytes; // (tổng kích thước file .json đang được đệm)
+    private final long capacityBytes;
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, int entryCount,
+                           long sizeBytes, long capacityBytes) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.sizeBytes = sizeBytes;
+        this.capacityBytes = capacityBytes;
+    }
+
+    // --- Getters ---
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * @return Tỉ lệ trúng (0..1)
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache %d trúng/%d trượt (%.0f%%), %d bị loại, %d mục, %d/%d KB",
+                hitCount, missCount, getHitRate() * 100, evictionCount, entryCount,
+                sizeBytes / 1024, capacityBytes / 1024);
+    }
+}
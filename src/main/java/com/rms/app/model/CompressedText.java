@@ -0,0 +1,220 @@
+package com.rms.app.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Giá trị chuỗi lớn của một trường (ví dụ: BPMN XML) được lưu NGOÀI file .json,
+ * trong một blob nén đánh địa chỉ theo nội dung (content-addressed):
+ * file .json chỉ giữ {"$blob": "<sha256 của chuỗi gốc>"}, nên dòng này chỉ đổi khi nội dung đổi.
+ * Blob (gzip) nằm ở .config/blobs/<sha256>.gz (FILES) hoặc bảng 'blobs' của artifacts.db (SQLITE).
+ *
+ * Chuỗi gốc chỉ được đọc và giải nén (lazy) khi trường thực sự được hiển thị / xuất,
+ * rồi được giữ trong một SoftReference: các lần gọi getText()/toString() sau không giải nén lại,
+ * và GC vẫn thu hồi được khi thiếu bộ nhớ.
+ * Dạng nhúng cũ {"$gzip": "<base64>"} vẫn đọc được; lần lưu kế tiếp sẽ chuyển nó ra blob.
+ */
+public final class CompressedText {
+
+    /**
+     * Khóa duy nhất của đối tượng JSON tham chiếu tới một blob
+     */
+    public static final String JSON_KEY = "$blob";
+
+    /**
+     * Khóa của dạng nhúng cũ (gzip + base64 ngay trong .json)
+     */
+    public static final String LEGACY_JSON_KEY = "$gzip";
+
+    /**
+     * Đọc nội dung (gzip) của một blob theo hash.
+     */
+    @FunctionalInterface
+    public interface BlobLoader {
+        /**
+         * @param hash SHA-256 (hex) của chuỗi gốc
+         * @return Nội dung gzip của blob
+         * @throws IOException Nếu blob không tồn tại hoặc lỗi I/O
+         */
+        byte[] load(String hash) throws IOException;
+    }
+
+    private volatile String hash;
+    /**
+     * Nội dung gzip đã có trong bộ nhớ (vừa nén, hoặc đọc từ dạng nhúng cũ); null nếu chỉ là tham chiếu
+     */
+    private final byte[] gzipped;
+    private final BlobLoader loader;
+    private volatile SoftReference<String> decoded;
+
+    private CompressedText(String hash, byte[] gzipped, BlobLoader loader, String text) {
+        this.hash = hash;
+        this.gzipped = gzipped;
+        this.loader = loader;
+        this.decoded = (text != null) ? new SoftReference<>(text) : null;
+    }
+
+    /**
+     * Nén một chuỗi (blob chưa được lưu; nơi ghi artifact sẽ lưu nó).
+     * Nén là tất định (header gzip không chứa mtime).
+     *
+     * @param text Chuỗi gốc
+     * @return Giá trị đã nén
+     */
+    public static CompressedText compress(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, utf8.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(utf8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CompressedText(sha256Hex(utf8), buffer.toByteArray(), null, text);
+    }
+
+    /**
+     * Tham chiếu tới một blob đã lưu.
+     *
+     * @param hash   SHA-256 (hex) của chuỗi gốc
+     * @param loader Nơi đọc blob (gắn với dự án đã đọc artifact)
+     * @return Giá trị đã nén
+     */
+    public static CompressedText reference(String hash, BlobLoader loader) {
+        return new CompressedText(hash, null, loader, null);
+    }
+
+    /**
+     * Nhận diện giá trị thô (do Jackson tạo) có dạng {"$blob": "..."} hoặc dạng cũ {"$gzip": "..."}.
+     *
+     * @param rawValue Giá trị thô của một trường
+     * @param loader   Nơi đọc blob
+     * @return Giá trị đã nén, hoặc null nếu rawValue không phải dạng nén
+     */
+    public static CompressedText fromRawValue(Object rawValue, BlobLoader loader) {
+        if (rawValue instanceof Map<?, ?> map && map.size() == 1) {
+            if (map.get(JSON_KEY) instanceof String blobHash) {
+                return reference(blobHash, loader);
+            }
+            if (map.get(LEGACY_JSON_KEY) instanceof String encoded) {
+                return fromEncoded(encoded);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dạng nhúng cũ.
+     *
+     * @param encoded Chuỗi base64 của dữ liệu gzip
+     * @return Giá trị đã nén
+     * @throws UncheckedIOException Nếu chuỗi base64 không hợp lệ
+     */
+    public static CompressedText fromEncoded(String encoded) {
+        try {
+            return new CompressedText(null, Base64.getDecoder().decode(encoded), null, null);
+        } catch (IllegalArgumentException e) {
+            throw new UncheckedIOException(new IOException("Dữ liệu nén của trường bị hỏng: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Chuỗi gốc (đọc blob và giải nén ở lần gọi đầu, sau đó lấy từ SoftReference).
+     *
+     * @return Chuỗi gốc
+     * @throws UncheckedIOException Nếu blob không đọc được hoặc dữ liệu nén bị hỏng
+     */
+    public String getText() {
+        SoftReference<String> ref = decoded;
+        String text = (ref != null) ? ref.get() : null;
+        if (text == null) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(getGzipped()))) {
+                text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(new IOException("Dữ liệu nén của trường bị hỏng: " + e.getMessage(), e));
+            }
+            decoded = new SoftReference<>(text);
+        }
+        return text;
+    }
+
+    /**
+     * @return SHA-256 (hex) của chuỗi gốc, tên của blob
+     */
+    public String getHash() {
+        String value = hash;
+        if (value == null) {
+            value = sha256Hex(getText().getBytes(StandardCharsets.UTF_8));
+            hash = value;
+        }
+        return value;
+    }
+
+    /**
+     * Nội dung gzip của blob (đọc qua BlobLoader nếu chưa có trong bộ nhớ).
+     *
+     * @return Nội dung gzip
+     * @throws UncheckedIOException Nếu blob không đọc được
+     */
+    public byte[] getGzipped() {
+        if (gzipped != null) {
+            return gzipped;
+        }
+        if (loader == null) {
+            throw new UncheckedIOException(new IOException("Không có nơi đọc blob " + hash));
+        }
+        try {
+            return loader.load(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dạng JSON: {"$blob": "<sha256>"}
+     */
+    @JsonValue
+    public Map<String, String> toJson() {
+        return Map.of(JSON_KEY, getHash());
+    }
+
+    /**
+     * Chuỗi gốc (giải nén), để mọi chỗ đang dùng value.toString()
+     * (Markdown, FTS, liên kết @ID) nhận đúng nội dung của trường.
+     */
+    @Override
+    public String toString() {
+        return getText();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompressedText that && getHash().equals(that.getHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return getHash().hashCode();
+    }
+
+    private static String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM không hỗ trợ SHA-256", e);
+        }
+    }
+}
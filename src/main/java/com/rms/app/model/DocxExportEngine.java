@@ -0,0 +1,19 @@
+package com.rms.app.model;
+
+/**
+ * Cách dựng file .docx khi Xuất bản tài liệu (UC-PUB-01).
+ * Cấu hình trong .config/project.json (trường "docxExportEngine").
+ */
+public enum DocxExportEngine {
+    /**
+     * Dựng Markdown trung gian rồi chuyển bằng Pandoc (hành vi cũ).
+     * Dùng khi cần cú pháp Markdown mà trình ghi NATIVE không hỗ trợ (ví dụ: danh sách lồng nhau, chú thích).
+     */
+    PANDOC,
+    /**
+     * Dựng trực tiếp bằng Apache POI trong tiến trình (mặc định: không cần Pandoc, nhanh hơn nhiều).
+     * Chương tĩnh hỗ trợ đề mục, danh sách, khối mã, bảng dạng ống và định dạng inline
+     * (đậm, nghiêng, mã, liên kết).
+     */
+    NATIVE
+}
@@ -0,0 +1,58 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) đại diện cho trạng thái của một file artifact (.json)
+ * tại thời điểm được lập chỉ mục, lưu trong bảng 'file_state' của CSDL Chỉ mục.
+ * Dùng để phát hiện các file đã thêm, sửa, hoặc xóa khi mở lại dự án
+ * (lập chỉ mục tăng dần - incremental).
+ */
+public class IndexedFileState {
+
+    private String relativePath;
+    private String artifactId;
+    private long fileSize;
+    private long lastModified; // (epoch millis)
+    private String contentHash; // (SHA-256, dạng hex)
+
+    // --- Getters and Setters ---
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public void setRelativePath(String relativePath) {
+        this.relativePath = relativePath;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
@@ -0,0 +1,20 @@
+package com.rms.app.model;
+
+/**
+ * Chế độ sinh file Markdown (.md) - bản sao "Git-Friendly" của file .json.
+ * Cấu hình trong .config/project.json (trường "markdownMirrorMode").
+ */
+public enum MarkdownMirrorMode {
+    /**
+     * Sinh .md ngay trong mỗi lần lưu (mặc định, hành vi cũ).
+     */
+    EAGER,
+    /**
+     * Sinh .md hàng loạt trên luồng nền, sau một khoảng yên lặng kể từ lần lưu cuối.
+     */
+    DEFERRED,
+    /**
+     * Chỉ sinh .md khi cần đọc (ví dụ: khi Export), rồi giữ lại trên đĩa làm bộ đệm.
+     */
+    ON_DEMAND
+}
@@ -0,0 +1,73 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) bất biến chứa số liệu của hàng đợi lưu nền (write-behind)
+ * tại một thời điểm. Dùng để theo dõi áp lực ghi (backpressure):
+ * hàng đợi dài hoặc thời gian chờ lớn nghĩa là đĩa không theo kịp tốc độ chỉnh sửa.
+ */
+public class PersistenceQueueMetrics {
+
+    private final int queueDepth; // (số artifact đang chờ ghi)
+    private final int maxQueueDepth; // (độ sâu lớn nhất từng ghi nhận)
+    private final long enqueuedCount; // (số lần yêu cầu lưu)
+    private final long coalescedCount; // (số yêu cầu được gộp vào một lần ghi đang chờ)
+    private final long writtenCount; // (số lần ghi thành công)
+    private final long failedCount; // (số lần ghi thất bại)
+    private final double averageWriteMillis; // (thời gian ghi trung bình)
+    private final long maxQueueWaitMillis; // (thời gian chờ trong hàng đợi lớn nhất)
+
+    public PersistenceQueueMetrics(int queueDepth, int maxQueueDepth, long enqueuedCount, long coalescedCount,
+                                   long writtenCount, long failedCount, double averageWriteMillis,
+                                   long maxQueueWaitMillis) {
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.enqueuedCount = enqueuedCount;
+        this.coalescedCount = coalescedCount;
+        this.writtenCount = writtenCount;
+        this.failedCount = failedCount;
+        this.averageWriteMillis = averageWriteMillis;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+    }
+
+    // --- Getters ---
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public double getAverageWriteMillis() {
+        return averageWriteMillis;
+    }
+
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queue=%d (max %d), enqueued=%d, coalesced=%d, written=%d, failed=%d, " +
+                        "avgWrite=%.1fms, maxWait=%dms",
+                queueDepth, maxQueueDepth, enqueuedCount, coalescedCount, writtenCount, failedCount,
+                averageWriteMillis, maxQueueWaitMillis);
+    }
+}
@@ -25,6 +25,31 @@ public class ProjectConfig {
     @JsonProperty("geminiApiKey")
     private String geminiApiKey;
 
+    /**
+     * Chế độ sinh file .md (EAGER, DEFERRED, ON_DEMAND). Null = EAGER.
+     */
+    @JsonProperty("markdownMirrorMode")
+    private MarkdownMirrorMode markdownMirrorMode;
+
+    /**
+     * Nơi lưu trữ artifact (FILES, SQLITE). Null = FILES.
+     */
+    @JsonProperty("storageMode")
+    private ArtifactStorageMode storageMode;
+
+    /**
+     * Ngưỡng (số ký tự) để nén giá trị chuỗi của một trường khi lưu artifact
+     * ra blob riêng (.config/blobs hoặc bảng 'blobs', xem CompressedText). Null hoặc <= 0 = không nén.
+     */
+    @JsonProperty("fieldCompressionThreshold")
+    private Integer fieldCompressionThreshold;
+
+    /**
+     * Cách dựng file .docx khi xuất tài liệu (PANDOC, NATIVE). Null = NATIVE.
+     */
+    @JsonProperty("docxExportEngine")
+    private DocxExportEngine docxExportEngine;
+
     // getters and setters
     public String getProjectName() {
         return projectName;
@@ -57,4 +82,36 @@ public class ProjectConfig {
     public void setGeminiApiKey(String geminiApiKey) {
         this.geminiApiKey = geminiApiKey;
     }
+
+    public MarkdownMirrorMode getMarkdownMirrorMode() {
+        return markdownMirrorMode;
+    }
+
+    public void setMarkdownMirrorMode(MarkdownMirrorMode markdownMirrorMode) {
+        this.markdownMirrorMode = markdownMirrorMode;
+    }
+
+    public ArtifactStorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public void setStorageMode(ArtifactStorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    public Integer getFieldCompressionThreshold() {
+        return fieldCompressionThreshold;
+    }
+
+    public void setFieldCompressionThreshold(Integer fieldCompressionThreshold) {
+        this.fieldCompressionThreshold = fieldCompressionThreshold;
+    }
+
+    public DocxExportEngine getDocxExportEngine() {
+        return docxExportEngine;
+    }
+
+    public void setDocxExportEngine(DocxExportEngine docxExportEngine) {
+        this.docxExportEngine = docxExportEngine;
+    }
 }
\ No newline at end of file
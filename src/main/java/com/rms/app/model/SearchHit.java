@@ -0,0 +1,71 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) đại diện cho một kết quả Tìm kiếm Toàn văn (Full-text Search)
+ * trên bảng FTS5 'artifacts_fts' của CSDL Chỉ mục.
+ */
+public class SearchHit {
+
+    /**
+     * Ký hiệu đánh dấu (highlight) từ khớp trong snippet.
+     */
+    public static final String HIGHLIGHT_START = "<mark>";
+    public static final String HIGHLIGHT_END = "</mark>";
+
+    private String id;
+    private String name;
+    private String artifactType;
+    private String relativePath;
+    private String snippet; // (đoạn trích có đánh dấu HIGHLIGHT_START/HIGHLIGHT_END)
+    private double score; // (bm25: càng NHỎ càng liên quan)
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getArtifactType() {
+        return artifactType;
+    }
+
+    public void setArtifactType(String artifactType) {
+        this.artifactType = artifactType;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public void setRelativePath(String relativePath) {
+        this.relativePath = relativePath;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,38 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) bất biến mô tả một tài liệu (document) artifact trong kho lưu trữ một-file.
+ * 'content' là null khi chỉ liệt kê / lấy thông tin (không đọc nội dung).
+ */
+public class StoredDocument {
+
+    private final String relativePath; // Ví dụ: "UC/Tài Khoản/UC001.json"
+    private final long size;
+    private final long lastModified; // (epoch millis, tăng dần sau mỗi lần ghi)
+    private final byte[] content;
+
+    public StoredDocument(String relativePath, long size, long lastModified, byte[] content) {
+        this.relativePath = relativePath;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.content = content;
+    }
+
+    // --- Getters ---
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+}
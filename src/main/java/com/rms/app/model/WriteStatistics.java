@@ -0,0 +1,57 @@
+package com.rms.app.model;
+
+/**
+ * POJO (Model) bất biến chứa bộ đếm số lần ghi đã thực hiện và đã bỏ qua
+ * (vì nội dung không đổi) cho từng nơi lưu trữ của Triple-Write.
+ */
+public class WriteStatistics {
+
+    private final long jsonWritten;
+    private final long jsonSkipped;
+    private final long markdownWritten;
+    private final long markdownSkipped;
+    private final long indexWritten;
+    private final long indexSkipped;
+
+    public WriteStatistics(long jsonWritten, long jsonSkipped, long markdownWritten, long markdownSkipped,
+                           long indexWritten, long indexSkipped) {
+        this.jsonWritten = jsonWritten;
+        this.jsonSkipped = jsonSkipped;
+        this.markdownWritten = markdownWritten;
+        this.markdownSkipped = markdownSkipped;
+        this.indexWritten = indexWritten;
+        this.indexSkipped = indexSkipped;
+    }
+
+    // --- Getters ---
+
+    public long getJsonWritten() {
+        return jsonWritten;
+    }
+
+    public long getJsonSkipped() {
+        return jsonSkipped;
+    }
+
+    public long getMarkdownWritten() {
+        return markdownWritten;
+    }
+
+    public long getMarkdownSkipped() {
+        return markdownSkipped;
+    }
+
+    public long getIndexWritten() {
+        return indexWritten;
+    }
+
+    public long getIndexSkipped() {
+        return indexSkipped;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("json %d ghi/%d bỏ qua, md %d ghi/%d bỏ qua, index %d ghi/%d bỏ qua",
+                jsonWritten, jsonSkipped, markdownWritten, markdownSkipped, indexWritten, indexSkipped);
+    }
+}
@@ -0,0 +1,129 @@
+package com.rms.app.repository;
+
+import com.rms.app.model.Artifact;
+import com.rms.app.model.CacheStatistics;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bộ đệm (cache) LRU các Artifact đã parse, giới hạn theo tổng kích thước file .json.
+ * Một mục chỉ hợp lệ khi kích thước và mtime của file trên đĩa vẫn khớp
+ * (nên thay đổi từ bên ngoài - git pull, trình soạn thảo khác - tự động làm mục cũ mất hiệu lực).
+ * Sao chép khi đọc (copy-on-read): người gọi nhận một bản sao sâu (deep copy),
+ * nên việc sửa đổi Artifact trả về không làm hỏng bản trong cache.
+ */
+class ArtifactCache {
+
+    private record Entry(Artifact artifact, long size, long lastModified) {
+    }
+
+    private final long capacityBytes;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long sizeBytes = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * @param capacityBytes Tổng kích thước file .json tối đa được đệm
+     */
+    ArtifactCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * @param path         File .json
+     * @param size         Kích thước hiện tại của file trên đĩa
+     * @param lastModified mtime hiện tại của file trên đĩa
+     * @return Bản sao của Artifact đã đệm, hoặc null nếu không có/đã cũ (được tính là trượt)
+     */
+    synchronized Artifact get(Path path, long size, long lastModified) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size() != size || entry.lastModified() != lastModified) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copyOf(entry.artifact());
+    }
+
+    /**
+     * Đệm một Artifact vừa parse (lưu bản sao, người gọi giữ bản gốc).
+     * File lớn hơn 1/8 dung lượng không được đệm.
+     */
+    synchronized void put(Path path, Artifact artifact, long size, long lastModified) {
+        if (size > capacityBytes / 8) {
+            return;
+        }
+        Entry previous = entries.put(path, new Entry(copyOf(artifact), size, lastModified));
+        if (previous != null) {
+            sizeBytes -= previous.size();
+        }
+        sizeBytes += size;
+
+        Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > capacityBytes && eldest.hasNext()) {
+            sizeBytes -= eldest.next().getValue().size();
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Bỏ mục của một file (khi lưu hoặc xóa).
+     */
+    synchronized void invalidate(Path path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            sizeBytes -= removed.size();
+        }
+    }
+
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hitCount, missCount, evictionCount, entries.size(), sizeBytes, capacityBytes);
+    }
+
+    /**
+     * Sao chép sâu: Map/List (cấu trúc do Jackson tạo) được sao chép đệ quy,
+     * các giá trị lá (String, Number, Boolean) là bất biến nên dùng chung.
+     */
+    private static Artifact copyOf(Artifact source) {
+        Artifact copy = new Artifact();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setArtifactType(source.getArtifactType());
+        copy.setRelativePath(source.getRelativePath());
+        copy.setFolderId(source.getFolderId());
+        copy.setTemplateId(source.getTemplateId());
+        if (source.getFields() != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fields = (Map<String, Object>) copyValue(source.getFields());
+            copy.setFields(fields);
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 2));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                copy.add(copyValue(item));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
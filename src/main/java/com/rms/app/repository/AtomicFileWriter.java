@@ -0,0 +1,154 @@
+package com.rms.app.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ghi file an toàn khi sập nguồn/crash (crash-safe):
+ * nội dung được ghi vào file tạm (temp) cùng thư mục, rồi đổi tên (rename) nguyên tử đè lên file đích.
+ * Người đọc (hoặc lần mở dự án sau crash) chỉ bao giờ thấy file CŨ hoặc file MỚI hoàn chỉnh,
+ * không bao giờ thấy file bị cắt cụt (truncate) giữa chừng.
+ * File tạm bắt đầu bằng "." nên bị Indexer và Project Watcher bỏ qua.
+ * Mỗi lần ghi có file tạm riêng (".<tên>.<ngẫu nhiên>.tmp"): nhiều luồng cùng ghi một file đích
+ * (ví dụ: lưu artifact, flush .md trì hoãn, xuất bản tạo lại .md) không bao giờ ghi đè
+ * hay xóa file tạm của nhau; lần rename sau cùng thắng.
+ */
+public final class AtomicFileWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AtomicFileWriter.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Chính sách fsync (đẩy dữ liệu xuống đĩa vật lý).
+     */
+    public enum FsyncPolicy {
+        /**
+         * Không fsync (dữ liệu dẫn xuất, có thể tạo lại, ví dụ: file .md).
+         */
+        NONE,
+        /**
+         * fsync nội dung file tạm trước khi rename: sau crash, file đích là bản cũ hoặc bản mới đầy đủ.
+         */
+        FILE,
+        /**
+         * Như FILE, và fsync cả thư mục sau khi rename: bản mới chắc chắn còn sau crash.
+         */
+        FILE_AND_DIRECTORY
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Ghi nguyên tử nội dung vào file đích (tạo thư mục cha nếu cần).
+     *
+     * @param target  File đích
+     * @param content Nội dung
+     * @param policy  Chính sách fsync
+     * @throws IOException Nếu lỗi I/O (file đích giữ nguyên nội dung cũ)
+     */
+    public static void write(Path target, byte[] content, FsyncPolicy policy) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = createTempFileFor(target);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (policy != FsyncPolicy.NONE) {
+                    channel.force(true);
+                }
+            }
+            moveIntoPlace(temp, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (policy == FsyncPolicy.FILE_AND_DIRECTORY) {
+            forceDirectory(directory);
+        }
+    }
+
+    /**
+     * Xóa các file tạm còn sót lại của một file đích (sau crash): ".<tên>*.tmp".
+     * Chỉ gọi khi không có lần ghi nào đang diễn ra (lúc mở dự án).
+     *
+     * @param target File đích
+     * @return true nếu có file tạm bị xóa
+     * @throws IOException Nếu lỗi I/O
+     */
+    public static boolean deleteLeftoverTempFile(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        String prefix = "." + target.getFileName();
+        boolean deleted = false;
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(directory, path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(prefix) && name.endsWith(TEMP_SUFFIX)
+                    && (name.length() == prefix.length() + TEMP_SUFFIX.length() || name.charAt(prefix.length()) == '.');
+        })) {
+            for (Path temp : siblings) {
+                deleted |= Files.deleteIfExists(temp);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Tạo file tạm rỗng, tên chưa từng tồn tại, cho một lần ghi.
+     * (Files.createFile giữ quyền mặc định theo umask, khác với Files.createTempFile chỉ cho chủ sở hữu đọc)
+     */
+    private static Path createTempFileFor(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling("." + target.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                /**
+                 * Trùng tên ngẫu nhiên (rất hiếm): thử tên khác
+                 */
+            }
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Hệ thống file không hỗ trợ rename nguyên tử cho {}. Dùng rename thường.", target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * fsync thư mục để phép rename được ghi bền vững.
+     * (Không được hỗ trợ trên Windows: bỏ qua)
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Không thể fsync thư mục {}: {}", directory, e.getMessage());
+        }
+    }
+}
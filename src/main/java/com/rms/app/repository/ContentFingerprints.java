@@ -0,0 +1,95 @@
+package com.rms.app.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bộ nhớ "dấu vân tay" (fingerprint: SHA-256 + kích thước + mtime) của nội dung
+ * mà JsonFileRepository đã ghi cho mỗi file.
+ * Cho phép bỏ qua lần ghi khi nội dung mới giống hệt nội dung trên đĩa,
+ * tránh thay đổi mtime vô ích (git, Project Watcher).
+ * Fingerprint chỉ được tin khi kích thước và mtime của file trên đĩa vẫn khớp
+ * (file bị sửa từ bên ngoài sẽ được so sánh lại trực tiếp với nội dung trên đĩa).
+ */
+class ContentFingerprints {
+
+    private record Fingerprint(byte[] digest, long size, long lastModified) {
+    }
+
+    private final Map<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * @param path    File đích
+     * @param content Nội dung sắp ghi
+     * @return true nếu file trên đĩa đã chứa đúng nội dung này (có thể bỏ qua việc ghi)
+     * @throws IOException Nếu lỗi đọc file
+     */
+    boolean isUnchanged(Path path, byte[] content) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            fingerprints.remove(path);
+            return false;
+        }
+        if (attributes.size() != content.length) {
+            return false;
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Fingerprint known = fingerprints.get(path);
+        if (known != null && known.size() == attributes.size() && known.lastModified() == lastModified) {
+            return MessageDigest.isEqual(known.digest(), digest(content));
+        }
+
+        /**
+         * Chưa có (hoặc đã cũ): so sánh trực tiếp với nội dung trên đĩa
+         */
+        boolean unchanged = Arrays.equals(Files.readAllBytes(path), content);
+        if (unchanged) {
+            fingerprints.put(path, new Fingerprint(digest(content), attributes.size(), lastModified));
+        }
+        return unchanged;
+    }
+
+    /**
+     * Ghi nhớ nội dung vừa được ghi xuống file.
+     *
+     * @param path    File vừa ghi
+     * @param content Nội dung đã ghi
+     */
+    void record(Path path, byte[] content) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            fingerprints.put(path, new Fingerprint(digest(content), attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+        } catch (IOException e) {
+            fingerprints.remove(path);
+        }
+    }
+
+    /**
+     * Quên fingerprint (khi file bị xóa).
+     *
+     * @param path File
+     */
+    void forget(Path path) {
+        fingerprints.remove(path);
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM không hỗ trợ SHA-256", e);
+        }
+    }
+}
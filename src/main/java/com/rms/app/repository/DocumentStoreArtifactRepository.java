@@ -0,0 +1,181 @@
+package com.rms.app.repository;
+
+import com.google.inject.Inject;
+import com.rms.app.model.Artifact;
+import com.rms.app.model.CacheStatistics;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.model.WriteStatistics;
+import com.rms.app.service.IArtifactDocumentStore;
+import com.rms.app.service.IArtifactRepository;
+import com.rms.app.service.IIndexService;
+import com.rms.app.service.IProjectService;
+import com.rms.app.service.ISerializationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Triển khai IArtifactRepository trên một kho lưu trữ một-file (IArtifactDocumentStore),
+ * dùng cho chế độ ArtifactStorageMode.SQLITE.
+ * Khác với JsonFileRepository:
+ * - Không có file .md: Markdown được sinh khi đọc (loadMarkdown).
+ * - Không cần nhật ký ý định: mỗi lần ghi tài liệu là một giao dịch SQLite nguyên tử;
+ *   CSDL Chỉ mục hội tụ ở lượt đồng bộ tăng dần khi mở dự án.
+ */
+public class DocumentStoreArtifactRepository implements IArtifactRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentStoreArtifactRepository.class);
+
+    private static final long CACHE_CAPACITY_BYTES = 32L * 1024 * 1024;
+
+    private final IArtifactDocumentStore documentStore;
+    private final ISerializationService serializationService;
+    private final IIndexService indexService;
+    private final IProjectService projectService;
+    private final ArtifactCache cache = new ArtifactCache(CACHE_CAPACITY_BYTES);
+    private final MarkdownMirror markdownRenderer;
+
+    private final AtomicLong documentsWritten = new AtomicLong();
+    private final AtomicLong documentsSkipped = new AtomicLong();
+
+    @Inject
+    public DocumentStoreArtifactRepository(IArtifactDocumentStore documentStore,
+                                           ISerializationService serializationService,
+                                           IIndexService indexService,
+                                           IProjectService projectService) {
+        this.documentStore = documentStore;
+        this.serializationService = serializationService;
+        this.indexService = indexService;
+        this.projectService = projectService;
+        this.markdownRenderer = new MarkdownMirror(serializationService, new ContentFingerprints(),
+                AtomicFileWriter.FsyncPolicy.NONE);
+    }
+
+    @Override
+    public void save(Artifact artifact) throws IOException {
+        if (artifact == null || artifact.getId() == null) {
+            throw new IOException("Artifact hoặc Artifact ID không được null.");
+        }
+        if (artifact.getRelativePath() == null || artifact.getRelativePath().isEmpty()) {
+            throw new IOException("Không thể lưu artifact: relativePath là null hoặc rỗng.");
+        }
+
+        byte[] content = serializationService.writeArtifact(artifact,
+                RoutingArtifactRepository.fieldCompressionThresholdOf(projectService.getCurrentProjectConfig()));
+        Path key = cacheKey(artifact.getRelativePath());
+        cache.invalidate(key);
+        if (!documentStore.write(artifact.getRelativePath(), content)) {
+            documentsSkipped.incrementAndGet();
+            logger.debug("Bỏ qua lưu {}: nội dung không đổi.", artifact.getId());
+            return;
+        }
+        documentsWritten.incrementAndGet();
+        StoredDocument info = documentStore.stat(artifact.getRelativePath());
+        long size = info != null ? info.getSize() : content.length;
+        long lastModified = info != null ? info.getLastModified() : System.currentTimeMillis();
+        indexService.updateArtifactInIndex(artifact,
+                new StoredDocument(artifact.getRelativePath(), size, lastModified, content));
+    }
+
+    @Override
+    public Artifact load(String relativePath) throws IOException {
+        Path key = cacheKey(relativePath);
+        StoredDocument info = documentStore.stat(relativePath);
+        if (info == null) {
+            cache.invalidate(key);
+            throw new IOException("File không tồn tại: " + relativePath);
+        }
+        Artifact cached = cache.get(key, info.getSize(), info.getLastModified());
+        if (cached != null) {
+            return cached;
+        }
+
+        StoredDocument document = documentStore.read(relativePath);
+        if (document == null) {
+            throw new IOException("File không tồn tại: " + relativePath);
+        }
+        Artifact artifact = serializationService.readArtifact(document.getContent());
+        cache.put(key, artifact, document.getSize(), document.getLastModified());
+        return artifact;
+    }
+
+    @Override
+    public StoredDocument stat(String relativePath) throws IOException {
+        return documentStore.stat(relativePath);
+    }
+
+    @Override
+    public void delete(String relativePath) throws IOException {
+        String id = artifactIdOf(relativePath);
+
+        /**
+         * Kiểm tra Toàn vẹn (F-DEV-10, F-DEV-11)
+         */
+        if (indexService.hasBacklinks(id)) {
+            logger.warn("Ngăn chặn xóa {}: Artifact đang có liên kết ngược.", id);
+            throw new IOException("Không thể xóa " + id + ". Đối tượng đang được liên kết bởi các artifact khác.");
+        }
+
+        documentStore.delete(relativePath);
+        cache.invalidate(cacheKey(relativePath));
+        indexService.deleteArtifactFromIndex(id);
+    }
+
+    @Override
+    public List<String> deleteFolderArtifacts(String folderRelativePath) throws IOException {
+        List<String> deletedIds = new ArrayList<>();
+        for (String relativePath : documentStore.deleteFolder(folderRelativePath)) {
+            String id = artifactIdOf(relativePath);
+            cache.invalidate(cacheKey(relativePath));
+            indexService.deleteArtifactFromIndex(id);
+            deletedIds.add(id);
+        }
+        logger.debug("Đã xóa {} artifact trong thư mục {}", deletedIds.size(), folderRelativePath);
+        return deletedIds;
+    }
+
+    @Override
+    public String loadMarkdown(String relativePath) throws IOException {
+        Artifact artifact = load(relativePath.replace(".md", ".json"));
+        return new String(markdownRenderer.render(artifact), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int recoverPendingWrites() {
+        return 0;
+    }
+
+    @Override
+    public void flushDeferredWrites() {
+        /**
+         * Không có ghi trễ (không sinh file .md)
+         */
+    }
+
+    @Override
+    public WriteStatistics getWriteStatistics() {
+        long written = documentsWritten.get();
+        long skipped = documentsSkipped.get();
+        return new WriteStatistics(written, skipped, 0, 0, written, skipped);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    private static Path cacheKey(String relativePath) {
+        return Path.of(relativePath);
+    }
+
+    private static String artifactIdOf(String relativePath) {
+        return new File(relativePath).getName().replace(".json", "");
+    }
+}
@@ -0,0 +1,149 @@
+package com.rms.app.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.rms.app.model.ArtifactStorageMode;
+import com.rms.app.model.CompressedText;
+import com.rms.app.service.IArtifactDocumentStore;
+import com.rms.app.service.IFieldBlobStore;
+import com.rms.app.service.IProjectService;
+import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.impl.ProjectServiceImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Kho blob của các giá trị trường lớn đã nén, theo chế độ lưu trữ của dự án đang mở:
+ * file .config/blobs/<sha256>.gz (FILES) hoặc bảng 'blobs' của SqliteDocumentStore (SQLITE).
+ * Blob không bao giờ bị ghi đè (cùng hash là cùng nội dung); blob không còn được tham chiếu
+ * hiện được giữ lại.
+ */
+@Singleton
+public class FieldBlobStore implements IFieldBlobStore {
+
+    static final String BLOB_DIR = "blobs";
+    private static final String BLOB_EXTENSION = ".gz";
+    /**
+     * Hash đọc từ file .json được dùng làm tên file: chỉ chấp nhận đúng dạng SHA-256 (hex)
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final IProjectStateService projectStateService;
+    private final Provider<IProjectService> projectServiceProvider;
+    private final IArtifactDocumentStore documentStore;
+
+    @Inject
+    public FieldBlobStore(IProjectStateService projectStateService,
+                          Provider<IProjectService> projectServiceProvider,
+                          IArtifactDocumentStore documentStore) {
+        this.projectStateService = projectStateService;
+        this.projectServiceProvider = projectServiceProvider;
+        this.documentStore = documentStore;
+    }
+
+    @Override
+    public void store(CompressedText value) throws IOException {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            throw new IOException("Không có dự án nào đang mở.");
+        }
+        String hash = checkHash(value.getHash());
+        if (isDocumentStore()) {
+            if (!documentStore.hasBlob(hash)) {
+                documentStore.writeBlob(hash, gzippedOf(value));
+            }
+            return;
+        }
+        Path blob = blobDirectory(projectRoot).resolve(hash + BLOB_EXTENSION);
+        if (!Files.exists(blob)) {
+            Files.createDirectories(blob.getParent());
+            AtomicFileWriter.write(blob, gzippedOf(value), AtomicFileWriter.FsyncPolicy.FILE_AND_DIRECTORY);
+        }
+    }
+
+    @Override
+    public CompressedText.BlobLoader loaderForCurrentProject() {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            return hash -> {
+                throw new IOException("Không có dự án nào đang mở, không đọc được blob " + hash);
+            };
+        }
+        if (isDocumentStore()) {
+            return hash -> {
+                /**
+                 * SqliteDocumentStore luôn làm việc trên dự án đang mở
+                 */
+                if (!projectRoot.equals(projectStateService.getCurrentProjectDirectory())) {
+                    throw new IOException("Dự án chứa blob " + hash + " đã được đóng.");
+                }
+                byte[] content = documentStore.readBlob(checkHash(hash));
+                if (content == null) {
+                    throw new NoSuchFileException("Không tìm thấy blob " + hash + " trong kho lưu trữ artifact.");
+                }
+                return content;
+            };
+        }
+        Path directory = blobDirectory(projectRoot);
+        return hash -> Files.readAllBytes(directory.resolve(checkHash(hash) + BLOB_EXTENSION));
+    }
+
+    @Override
+    public int importFileBlobs() throws IOException {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            throw new IOException("Không có dự án nào đang mở.");
+        }
+        Path directory = blobDirectory(projectRoot);
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int imported = 0;
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path blob : stream.toList()) {
+                String fileName = blob.getFileName().toString();
+                if (!fileName.endsWith(BLOB_EXTENSION)) {
+                    continue;
+                }
+                String hash = fileName.substring(0, fileName.length() - BLOB_EXTENSION.length());
+                if (HASH_PATTERN.matcher(hash).matches() && !documentStore.hasBlob(hash)) {
+                    documentStore.writeBlob(hash, Files.readAllBytes(blob));
+                    imported++;
+                }
+            }
+        }
+        return imported;
+    }
+
+    private boolean isDocumentStore() {
+        return RoutingArtifactRepository.storageModeOf(projectServiceProvider.get().getCurrentProjectConfig())
+                == ArtifactStorageMode.SQLITE;
+    }
+
+    private static Path blobDirectory(File projectRoot) {
+        return projectRoot.toPath().resolve(ProjectServiceImpl.CONFIG_DIR).resolve(BLOB_DIR);
+    }
+
+    private static String checkHash(String hash) throws IOException {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IOException("Tham chiếu blob không hợp lệ: " + hash);
+        }
+        return hash;
+    }
+
+    private static byte[] gzippedOf(CompressedText value) throws IOException {
+        try {
+            return value.getGzipped();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
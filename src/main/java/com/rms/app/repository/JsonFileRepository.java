@@ -1,25 +1,30 @@
 package com.rms.app.repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.inject.Inject;
 import com.rms.app.model.Artifact;
-import com.rms.app.model.FlowStep;
+import com.rms.app.model.CacheStatistics;
+import com.rms.app.model.MarkdownMirrorMode;
+import com.rms.app.model.ProjectConfig;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.model.WriteStatistics;
 import com.rms.app.service.IArtifactRepository;
 import com.rms.app.service.IIndexService;
+import com.rms.app.service.IProjectService;
+import com.rms.app.service.IProjectSnapshotRepository;
 import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISerializationService;
 import com.rms.app.service.impl.ProjectServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Triển khai logic I/O.
@@ -30,16 +35,46 @@ public class JsonFileRepository implements IArtifactRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(JsonFileRepository.class);
 
-    private final ObjectMapper objectMapper;
+    private final ISerializationService serializationService;
     private final IProjectStateService projectStateService;
     private final IIndexService indexService;
+    private final IProjectService projectService;
+    private final IProjectSnapshotRepository snapshotRepository;
+    private final WriteJournal journal = new WriteJournal();
+    private final ContentFingerprints fingerprints = new ContentFingerprints();
+
+    /**
+     * Bộ đệm Artifact đã parse (LRU, tối đa CACHE_CAPACITY_BYTES tổng kích thước file .json).
+     */
+    private static final long CACHE_CAPACITY_BYTES = 32L * 1024 * 1024;
+    private final ArtifactCache cache = new ArtifactCache(CACHE_CAPACITY_BYTES);
+
+    private final AtomicLong jsonWritten = new AtomicLong();
+    private final AtomicLong jsonSkipped = new AtomicLong();
+    private final AtomicLong indexWritten = new AtomicLong();
+    private final AtomicLong indexSkipped = new AtomicLong();
+
+    /**
+     * Chính sách fsync: file .json (nguồn sự thật) được fsync trước khi rename, và thư mục được fsync
+     * sau rename, để bản mới chắc chắn đã bền vững trước khi dòng END (hoặc việc làm rỗng nhật ký,
+     * có fsync) được ghi: nhật ký không bao giờ báo "xong" cho một lần ghi còn có thể mất sau crash.
+     * File .md là dữ liệu dẫn xuất (tạo lại được từ .json khi khôi phục) nên không fsync.
+     */
+    private static final AtomicFileWriter.FsyncPolicy JSON_FSYNC_POLICY = AtomicFileWriter.FsyncPolicy.FILE_AND_DIRECTORY;
+    private static final AtomicFileWriter.FsyncPolicy MARKDOWN_FSYNC_POLICY = AtomicFileWriter.FsyncPolicy.NONE;
+
+    private final MarkdownMirror markdownMirror;
 
     @Inject
-    public JsonFileRepository(IProjectStateService projectStateService, IIndexService indexService) {
+    public JsonFileRepository(IProjectStateService projectStateService, IIndexService indexService,
+                              IProjectService projectService, ISerializationService serializationService,
+                              IProjectSnapshotRepository snapshotRepository) {
         this.projectStateService = projectStateService;
+        this.snapshotRepository = snapshotRepository;
         this.indexService = indexService;
-        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-        this.objectMapper.findAndRegisterModules();
+        this.projectService = projectService;
+        this.serializationService = serializationService;
+        this.markdownMirror = new MarkdownMirror(serializationService, fingerprints, MARKDOWN_FSYNC_POLICY);
     }
 
     /**
@@ -78,126 +113,164 @@ public class JsonFileRepository implements IArtifactRepository {
             throw new IOException("Không thể lưu artifact: relativePath là null hoặc rỗng.");
         }
 
-        File jsonFile = getArtifactFile(artifact.getRelativePath());
-
-        /**
-         * Đảm bảo các thư mục cha (parent directory) tồn tại
-         */
-        File parentDir = jsonFile.getParentFile();
-        if (!parentDir.exists()) {
-            parentDir.mkdirs();
-        }
-
-        Path jsonPath = jsonFile.toPath();
+        Path projectRoot = getArtifactsRoot().toPath();
+        Path jsonPath = projectRoot.resolve(artifact.getRelativePath());
         logger.debug("Đang lưu file: {}", jsonPath);
 
-        objectMapper.writeValue(jsonPath.toFile(), artifact);
+        Path mdPath = jsonPath.resolveSibling(artifact.getId() + ".md");
+        byte[] jsonContent = serializationService.writeArtifact(artifact,
+                RoutingArtifactRepository.fieldCompressionThresholdOf(projectService.getCurrentProjectConfig()));
+        MarkdownMirrorMode mirrorMode = getMirrorMode();
 
         /**
-         * Lưu file .md tương ứng
+         * Bỏ qua nơi lưu trữ có nội dung giống hệt (ví dụ: lưu lại khi đóng tab mà không sửa gì).
+         * CSDL Chỉ mục được dẫn xuất từ .json, nên chỉ cập nhật khi .json thay đổi.
+         * File .md chỉ được sinh ở đây trong chế độ EAGER.
          */
-        Path mdPath = new File(parentDir, artifact.getId() + ".md").toPath();
-        String mdContent = generateMarkdown(artifact);
-        Files.writeString(mdPath, mdContent);
+        boolean jsonChanged = !fingerprints.isUnchanged(jsonPath, jsonContent);
+        byte[] mdContent = null;
+        boolean mdChanged = false;
+        if (mirrorMode == MarkdownMirrorMode.EAGER) {
+            mdContent = markdownMirror.render(artifact);
+            mdChanged = !markdownMirror.isCurrent(mdPath, mdContent);
+            if (!mdChanged) {
+                markdownMirror.countSkipped();
+            }
+        }
+        (jsonChanged ? jsonWritten : jsonSkipped).incrementAndGet();
+        (jsonChanged ? indexWritten : indexSkipped).incrementAndGet();
+        if (!jsonChanged && !mdChanged) {
+            logger.debug("Bỏ qua lưu {}: nội dung không đổi.", artifact.getId());
+            return;
+        }
 
         /**
-         * Hoàn thành Triple-Write (F-DEV-05)
-         * (indexService sẽ đọc relativePath từ artifact)
+         * Ghi ý định (intent) trước, rồi mới thay đổi file.
+         * Mỗi file được ghi nguyên tử (temp + rename), không bao giờ bị cắt cụt tại chỗ.
          */
-        indexService.updateArtifactInIndex(artifact);
-    }
+        String txId = journal.begin(projectRoot, WriteJournal.Operation.SAVE, artifact.getRelativePath());
+        boolean completed = false;
+        try {
+            if (jsonChanged) {
+                cache.invalidate(jsonPath);
+                AtomicFileWriter.write(jsonPath, jsonContent, JSON_FSYNC_POLICY);
+                fingerprints.record(jsonPath, jsonContent);
+            }
 
-    /**
-     * [KHÔNG THAY ĐỔI] Helper tạo nội dung Markdown.
-     */
-    private String generateMarkdown(Artifact artifact) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("# ").append(artifact.getId()).append(": ").append(artifact.getName()).append("\n\n");
-
-        for (Map.Entry<String, Object> entry : artifact.getFields().entrySet()) {
-            sb.append("## ").append(entry.getKey()).append("\n");
-
-            Object value = entry.getValue();
-
-            if (value instanceof List) {
-                List<?> list = (List<?>) value;
-                if (!list.isEmpty()) {
-                    try {
-                        List<FlowStep> steps = objectMapper.convertValue(
-                                list,
-                                new TypeReference<List<FlowStep>>() {}
-                        );
-
-                        if (steps != null && !steps.isEmpty() && (steps.get(0).getActor() != null || steps.get(0).getAction() != null)) {
-                            sb.append(formatFlowStepsToMarkdown(steps));
-                        } else {
-                            sb.append(value.toString());
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Không thể convert List sang FlowStep, in ra giá trị thô: {}", e.getMessage());
-                        sb.append(value.toString());
-                    }
-                } else {
-                    sb.append(value.toString());
-                }
-            } else {
-                sb.append(value != null ? value.toString() : "*N/A*");
+            /**
+             * Lưu file .md tương ứng
+             */
+            if (mdChanged) {
+                markdownMirror.write(mdPath, mdContent);
+            } else if (mdContent != null) {
+                markdownMirror.markCurrent(mdPath, mdContent, jsonPath);
+            }
+
+            /**
+             * Hoàn thành Triple-Write (F-DEV-05)
+             * (indexService sẽ đọc relativePath từ artifact)
+             */
+            if (jsonChanged) {
+                BasicFileAttributes attrs = Files.readAttributes(jsonPath, BasicFileAttributes.class);
+                indexService.updateArtifactInIndex(artifact, new StoredDocument(projectRoot.relativize(jsonPath).toString(),
+                        attrs.size(), attrs.lastModifiedTime().toMillis(), jsonContent));
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                journal.abandon(projectRoot, txId);
             }
+        }
+        journal.end(projectRoot, txId);
 
-            sb.append("\n\n");
+        if (jsonChanged && mirrorMode == MarkdownMirrorMode.DEFERRED) {
+            markdownMirror.scheduleDeferred(jsonPath, mdPath);
         }
-        return sb.toString();
     }
 
     /**
-     * [KHÔNG THAY ĐỔI] Helper (hàm phụ) để định dạng (format)
-     * một danh sách FlowStep thành bảng Markdown.
-     *
-     * @param steps Danh sách các bước (FlowStep)
-     * @return Chuỗi (String) Markdown đã định dạng
+     * Chế độ sinh .md của dự án đang mở (mặc định: EAGER).
      */
-    private String formatFlowStepsToMarkdown(List<FlowStep> steps) {
-        try {
-            StringBuilder sb = new StringBuilder();
-            sb.append("| Actor / Logic | Action / Condition |\n");
-            sb.append("|:---|:---|\n");
-
-            for (FlowStep step : steps) {
-                String actor = (step.getActor() != null) ? step.getActor() : "";
-                String action = (step.getAction() != null) ? step.getAction() : "";
-
-                if ("IF".equalsIgnoreCase(step.getLogicType()) || "ELSE".equalsIgnoreCase(step.getLogicType())) {
-                    sb.append("| **").append(actor).append("** | **").append(action).append("** |\n");
-                    if (step.getNestedSteps() != null) {
-                        for (FlowStep nestedStep : step.getNestedSteps()) {
-                            String nestedActor = (nestedStep.getActor() != null) ? nestedStep.getActor() : "";
-                            String nestedAction = (nestedStep.getAction() != null) ? nestedStep.getAction() : "";
-                            sb.append("| *&nbsp;&nbsp;&nbsp;&nbsp; ").append(nestedActor).append("* | *").append(nestedAction).append("* |\n");
-                        }
-                    }
-                } else {
-                    sb.append("| ").append(actor).append(" | ").append(action).append(" |\n");
-                }
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            logger.warn("Lỗi khi định dạng (format) FlowSteps sang Markdown", e);
-            try {
-                return this.objectMapper.writeValueAsString(steps);
-            } catch (Exception ex) {
-                return "[Lỗi định dạng Flow]";
-            }
+    private MarkdownMirrorMode getMirrorMode() {
+        ProjectConfig config = projectService.getCurrentProjectConfig();
+        if (config == null || config.getMarkdownMirrorMode() == null) {
+            return MarkdownMirrorMode.EAGER;
         }
+        return config.getMarkdownMirrorMode();
     }
 
+    @Override
+    public void flushDeferredWrites() {
+        markdownMirror.flushDeferred();
+    }
+
+    @Override
+    public WriteStatistics getWriteStatistics() {
+        return new WriteStatistics(jsonWritten.get(), jsonSkipped.get(), markdownMirror.getWrittenCount(),
+                markdownMirror.getSkippedCount(), indexWritten.get(), indexSkipped.get());
+    }
 
     @Override
     public Artifact load(String relativePath) throws IOException {
         File fileToLoad = getArtifactFile(relativePath);
-        if (!fileToLoad.exists()) {
+        Path path = fileToLoad.toPath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            cache.invalidate(path);
             throw new IOException("File không tồn tại: " + relativePath);
         }
-        return objectMapper.readValue(fileToLoad, Artifact.class);
+
+        /**
+         * Dùng bản đã parse nếu file trên đĩa không đổi (kích thước + mtime)
+         */
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Artifact cached = cache.get(path, attributes.size(), lastModified);
+        if (cached != null) {
+            return cached;
+        }
+
+        Artifact artifact = readFromSnapshot(relativePath, attributes.size(), lastModified);
+        if (artifact == null) {
+            artifact = serializationService.readArtifact(fileToLoad);
+        }
+        cache.put(path, artifact, attributes.size(), lastModified);
+        return artifact;
+    }
+
+    @Override
+    public StoredDocument stat(String relativePath) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(getArtifactFile(relativePath).toPath(), BasicFileAttributes.class);
+            return new StoredDocument(relativePath, attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Đường nhanh: đọc từ snapshot nhị phân của dự án (memory-mapped)
+     * nếu file nguồn không đổi kể từ lúc chụp.
+     *
+     * @return Artifact, hoặc null nếu snapshot không có mục hợp lệ (đọc file nguồn)
+     */
+    private Artifact readFromSnapshot(String relativePath, long size, long lastModified) {
+        byte[] content = snapshotRepository.readArtifact(relativePath, size, lastModified);
+        if (content == null) {
+            return null;
+        }
+        try {
+            return serializationService.readArtifact(content);
+        } catch (IOException e) {
+            logger.warn("Mục snapshot của {} không đọc được, dùng file nguồn: {}", relativePath, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
     }
 
     @Override
@@ -214,23 +287,89 @@ public class JsonFileRepository implements IArtifactRepository {
         }
 
         File mdFile = getArtifactFile(relativePath.replace(".json", ".md"));
+        Path projectRoot = getArtifactsRoot().toPath();
+        String txId = journal.begin(projectRoot, WriteJournal.Operation.DELETE, relativePath);
 
-        Files.deleteIfExists(jsonFile.toPath());
-        Files.deleteIfExists(mdFile.toPath());
-        logger.debug("Đã xóa file: {} (và file .md)", jsonFile.getPath());
+        boolean completed = false;
+        try {
+            Files.deleteIfExists(jsonFile.toPath());
+            Files.deleteIfExists(mdFile.toPath());
+            markdownMirror.cancelDeferred(mdFile.toPath());
+            fingerprints.forget(jsonFile.toPath());
+            cache.invalidate(jsonFile.toPath());
+            fingerprints.forget(mdFile.toPath());
+            logger.debug("Đã xóa file: {} (và file .md)", jsonFile.getPath());
+
+            /**
+             * Xóa khỏi CSDL Chỉ mục
+             */
+            indexService.deleteArtifactFromIndex(id);
+            completed = true;
+        } finally {
+            if (!completed) {
+                journal.abandon(projectRoot, txId);
+            }
+        }
+        journal.end(projectRoot, txId);
+    }
 
+    @Override
+    public List<String> deleteFolderArtifacts(String folderRelativePath) {
         /**
-         * Xóa khỏi CSDL Chỉ mục
+         * Các file .json/.md bị xóa cùng thư mục vật lý
+         * (mục cache của chúng tự mất hiệu lực khi file không còn)
          */
-        indexService.deleteArtifactFromIndex(id);
+        return List.of();
+    }
+
+    @Override
+    public int recoverPendingWrites() throws IOException {
+        Path projectRoot = getArtifactsRoot().toPath();
+        List<WriteJournal.Intent> pending = journal.readPending(projectRoot);
+
+        for (WriteJournal.Intent intent : pending) {
+            Path jsonPath = projectRoot.resolve(intent.relativePath());
+            String id = jsonPath.getFileName().toString().replace(".json", "");
+            Path mdPath = jsonPath.resolveSibling(id + ".md");
+            AtomicFileWriter.deleteLeftoverTempFile(jsonPath);
+            AtomicFileWriter.deleteLeftoverTempFile(mdPath);
+
+            if (intent.operation() == WriteJournal.Operation.DELETE || !Files.exists(jsonPath)) {
+                /**
+                 * Hoàn tất lần xóa dở dang, hoặc hủy (roll back) lần tạo mới chưa kịp ghi .json
+                 */
+                Files.deleteIfExists(jsonPath);
+                Files.deleteIfExists(mdPath);
+                cache.invalidate(jsonPath);
+                logger.info("Khôi phục nhật ký: {} {} -> đã xóa", intent.operation(), intent.relativePath());
+            } else {
+                /**
+                 * File .json (nguồn sự thật) đã được ghi nguyên tử: tạo lại .md từ nó (roll forward)
+                 */
+                try {
+                    markdownMirror.regenerate(jsonPath, mdPath);
+                    logger.info("Khôi phục nhật ký: {} {} -> đã tạo lại .md", intent.operation(), intent.relativePath());
+                } catch (IOException e) {
+                    logger.error("Không thể khôi phục {} từ nhật ký: {}", intent.relativePath(), e.getMessage());
+                }
+            }
+        }
+
+        journal.reset(projectRoot);
+        return pending.size();
     }
 
     @Override
     public String loadMarkdown(String relativePath) throws IOException {
         File fileToLoad = getArtifactFile(relativePath);
-        if (!fileToLoad.exists()) {
+        Path jsonPath = fileToLoad.toPath().resolveSibling(fileToLoad.getName().replace(".md", ".json"));
+        if (!fileToLoad.exists() && !Files.exists(jsonPath)) {
             throw new IOException("File không tồn tại: " + relativePath);
         }
-        return Files.readString(fileToLoad.toPath(), StandardCharsets.UTF_8);
+
+        /**
+         * Sinh (lại) .md nếu nó chưa có hoặc cũ hơn .json (chế độ DEFERRED/ON_DEMAND)
+         */
+        return markdownMirror.loadFresh(jsonPath, fileToLoad.toPath());
     }
 }
\ No newline at end of file
@@ -0,0 +1,320 @@
+package com.rms.app.repository;
+
+import com.rms.app.model.Artifact;
+import com.rms.app.model.FlowStep;
+import com.rms.app.service.ISerializationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh và ghi file Markdown (.md) - bản sao "Git-Friendly" của file .json.
+ * Hỗ trợ ba chế độ (MarkdownMirrorMode): ghi ngay (EAGER), ghi trễ hàng loạt (DEFERRED)
+ * trên luồng "markdown-mirror" sau QUIET_PERIOD_MS yên lặng, và sinh khi cần đọc (ON_DEMAND).
+ * Ở chế độ trễ/khi cần, .md luôn được sinh lại từ file .json trên đĩa (nguồn sự thật).
+ */
+class MarkdownMirror {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarkdownMirror.class);
+
+    /**
+     * Thời gian yên lặng (không có lần lưu mới) trước khi ghi các .md đang chờ (DEFERRED).
+     */
+    private static final long QUIET_PERIOD_MS = 3000;
+    private static final int REGENERATE_LOCK_STRIPES = 64;
+
+    private final ISerializationService serializationService;
+    private final ContentFingerprints fingerprints;
+    private final AtomicFileWriter.FsyncPolicy fsyncPolicy;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * Các .md đang chờ ghi (DEFERRED): đường dẫn .md -> đường dẫn .json (được bảo vệ bởi 'this')
+     */
+    private final Map<Path, Path> deferred = new LinkedHashMap<>();
+    private ScheduledFuture<?> deferredFlush = null;
+
+    /**
+     * Khóa phân dải (striped) theo đường dẫn .md, dùng khi sinh lại trong loadFresh()
+     */
+    private final Object[] regenerateLocks = new Object[REGENERATE_LOCK_STRIPES];
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "markdown-mirror");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    MarkdownMirror(ISerializationService serializationService, ContentFingerprints fingerprints,
+                   AtomicFileWriter.FsyncPolicy fsyncPolicy) {
+        for (int i = 0; i < regenerateLocks.length; i++) {
+            regenerateLocks[i] = new Object();
+        }
+        this.serializationService = serializationService;
+        this.fingerprints = fingerprints;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * @param artifact Artifact
+     * @return Nội dung .md (UTF-8)
+     */
+    byte[] render(Artifact artifact) {
+        return generateMarkdown(artifact).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true nếu file .md đã chứa đúng nội dung này
+     */
+    boolean isCurrent(Path mdPath, byte[] content) throws IOException {
+        return fingerprints.isUnchanged(mdPath, content);
+    }
+
+    /**
+     * Một lần lưu không cần ghi .md (nội dung không đổi): được tính là một lần bỏ qua.
+     */
+    void countSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+    /**
+     * .md đã đúng nội dung nhưng .json vừa được ghi lại (ví dụ: đổi folderId/templateId,
+     * hoặc bật nén trường): đẩy mtime của .md lên (không sớm hơn .json),
+     * nếu không loadFresh() sẽ coi .md là cũ và sinh lại nó mãi mãi.
+     *
+     * @param mdPath   File .md
+     * @param content  Nội dung hiện tại của .md
+     * @param jsonPath File .json tương ứng
+     * @throws IOException Nếu lỗi I/O
+     */
+    void markCurrent(Path mdPath, byte[] content, Path jsonPath) throws IOException {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        FileTime jsonTime = Files.getLastModifiedTime(jsonPath);
+        Files.setLastModifiedTime(mdPath, jsonTime.compareTo(now) > 0 ? jsonTime : now);
+        fingerprints.record(mdPath, content);
+    }
+
+    void write(Path mdPath, byte[] content) throws IOException {
+        AtomicFileWriter.write(mdPath, content, fsyncPolicy);
+        fingerprints.record(mdPath, content);
+        writtenCount.incrementAndGet();
+    }
+
+    /**
+     * Sinh lại .md từ file .json trên đĩa (chỉ ghi nếu nội dung khác).
+     *
+     * @param jsonPath File .json (nguồn sự thật)
+     * @param mdPath   File .md
+     * @throws IOException Nếu lỗi đọc .json hoặc ghi .md
+     */
+    void regenerate(Path jsonPath, Path mdPath) throws IOException {
+        Artifact artifact = serializationService.readArtifact(jsonPath.toFile());
+        byte[] content = render(artifact);
+        if (!isCurrent(mdPath, content)) {
+            write(mdPath, content);
+        } else if (isStale(jsonPath, mdPath)) {
+            markCurrent(mdPath, content, jsonPath);
+        }
+    }
+
+    /**
+     * Đọc .md, sinh lại trước nếu nó chưa có hoặc cũ hơn .json (chế độ ON_DEMAND/DEFERRED,
+     * hoặc .json bị sửa từ bên ngoài).
+     *
+     * @param jsonPath File .json tương ứng
+     * @param mdPath   File .md
+     * @return Nội dung .md
+     * @throws IOException Nếu không có cả .json lẫn .md
+     */
+    String loadFresh(Path jsonPath, Path mdPath) throws IOException {
+        if (Files.exists(jsonPath) && isStale(jsonPath, mdPath)) {
+            /**
+             * Nhiều luồng (xuất bản song song) có thể cùng đọc một .md cũ: chỉ một luồng sinh lại
+             */
+            synchronized (regenerateLocks[Math.floorMod(mdPath.hashCode(), regenerateLocks.length)]) {
+                if (isStale(jsonPath, mdPath)) {
+                    synchronized (this) {
+                        deferred.remove(mdPath);
+                    }
+                    regenerate(jsonPath, mdPath);
+                }
+            }
+        }
+        return Files.readString(mdPath, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isStale(Path jsonPath, Path mdPath) throws IOException {
+        try {
+            return Files.getLastModifiedTime(mdPath).compareTo(Files.getLastModifiedTime(jsonPath)) < 0;
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Xếp .md vào hàng chờ ghi trễ (DEFERRED); mỗi lần gọi dời lịch ghi thêm QUIET_PERIOD_MS.
+     */
+    synchronized void scheduleDeferred(Path jsonPath, Path mdPath) {
+        deferred.put(mdPath, jsonPath);
+        if (deferredFlush != null) {
+            deferredFlush.cancel(false);
+        }
+        deferredFlush = scheduler.schedule(this::writeDeferred, QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Bỏ .md khỏi hàng chờ (khi artifact bị xóa).
+     */
+    synchronized void cancelDeferred(Path mdPath) {
+        deferred.remove(mdPath);
+    }
+
+    /**
+     * Ghi ngay mọi .md đang chờ và chờ tới khi xong (khi đổi dự án hoặc thoát ứng dụng).
+     */
+    void flushDeferred() {
+        synchronized (this) {
+            if (deferred.isEmpty()) {
+                return;
+            }
+            if (deferredFlush != null) {
+                deferredFlush.cancel(false);
+                deferredFlush = null;
+            }
+        }
+        try {
+            scheduler.submit(this::writeDeferred).get();
+        } catch (ExecutionException e) {
+            logger.error("Lỗi khi ghi các file .md đang chờ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Chạy trên luồng "markdown-mirror".
+     */
+    private void writeDeferred() {
+        Map<Path, Path> batch;
+        synchronized (this) {
+            batch = new LinkedHashMap<>(deferred);
+            deferred.clear();
+        }
+        for (Map.Entry<Path, Path> entry : batch.entrySet()) {
+            try {
+                regenerate(entry.getValue(), entry.getKey());
+            } catch (NoSuchFileException e) {
+                logger.debug("Bỏ qua .md của file đã bị xóa: {}", entry.getValue());
+            } catch (IOException e) {
+                logger.error("Không thể sinh file .md: {}", entry.getKey(), e);
+            }
+        }
+        if (!batch.isEmpty()) {
+            logger.debug("Đã ghi trễ {} file .md.", batch.size());
+        }
+    }
+
+    long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * [KHÔNG THAY ĐỔI] Helper tạo nội dung Markdown.
+     */
+    private String generateMarkdown(Artifact artifact) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(artifact.getId()).append(": ").append(artifact.getName()).append("\n\n");
+
+        for (Map.Entry<String, Object> entry : artifact.getFields().entrySet()) {
+            sb.append("## ").append(entry.getKey()).append("\n");
+
+            Object value = entry.getValue();
+
+            if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                if (!list.isEmpty()) {
+                    try {
+                        List<FlowStep> steps = serializationService.toFlowSteps(list);
+
+                        if (steps != null && !steps.isEmpty() && (steps.get(0).getActor() != null || steps.get(0).getAction() != null)) {
+                            sb.append(formatFlowStepsToMarkdown(steps));
+                        } else {
+                            sb.append(value.toString());
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Không thể convert List sang FlowStep, in ra giá trị thô: {}", e.getMessage());
+                        sb.append(value.toString());
+                    }
+                } else {
+                    sb.append(value.toString());
+                }
+            } else {
+                sb.append(value != null ? value.toString() : "*N/A*");
+            }
+
+            sb.append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * [KHÔNG THAY ĐỔI] Helper (hàm phụ) để định dạng (format)
+     * một danh sách FlowStep thành bảng Markdown.
+     *
+     * @param steps Danh sách các bước (FlowStep)
+     * @return Chuỗi (String) Markdown đã định dạng
+     */
+    private String formatFlowStepsToMarkdown(List<FlowStep> steps) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            sb.append("| Actor / Logic | Action / Condition |\n");
+            sb.append("|:---|:---|\n");
+
+            for (FlowStep step : steps) {
+                String actor = (step.getActor() != null) ? step.getActor() : "";
+                String action = (step.getAction() != null) ? step.getAction() : "";
+
+                if ("IF".equalsIgnoreCase(step.getLogicType()) || "ELSE".equalsIgnoreCase(step.getLogicType())) {
+                    sb.append("| **").append(actor).append("** | **").append(action).append("** |\n");
+                    if (step.getNestedSteps() != null) {
+                        for (FlowStep nestedStep : step.getNestedSteps()) {
+                            String nestedActor = (nestedStep.getActor() != null) ? nestedStep.getActor() : "";
+                            String nestedAction = (nestedStep.getAction() != null) ? nestedStep.getAction() : "";
+                            sb.append("| *&nbsp;&nbsp;&nbsp;&nbsp; ").append(nestedActor).append("* | *").append(nestedAction).append("* |\n");
+                        }
+                    }
+                } else {
+                    sb.append("| ").append(actor).append(" | ").append(action).append(" |\n");
+                }
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            logger.warn("Lỗi khi định dạng (format) FlowSteps sang Markdown", e);
+            try {
+                return this.serializationService.writeCompactString(steps);
+            } catch (Exception ex) {
+                return "[Lỗi định dạng Flow]";
+            }
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.rms.app.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.rms.app.model.IndexedFileState;
+import com.rms.app.service.IProjectSnapshotRepository;
+import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISerializationService;
+import com.rms.app.service.impl.ProjectServiceImpl;
+import com.rms.app.service.impl.TemplateServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Triển khai Ảnh chụp (snapshot) nhị phân toàn dự án, lưu tại .config/snapshot/project-<thế hệ>.snapshot.
+ * Định dạng (big-endian, mọi chuỗi/khối dữ liệu đều có tiền tố độ dài):
+ * - Vùng dữ liệu: nội dung JSON dạng gọn của từng mục, nối tiếp nhau.
+ * - Bảng offset: mỗi mục gồm loại (artifact/template), khóa (ID artifact hoặc tên file template),
+ *   đường dẫn nguồn, kích thước + mtime của file nguồn lúc chụp, offset và độ dài dữ liệu.
+ * - Phần đuôi (trailer) cố định: offset của bảng, số mục, phiên bản định dạng, magic.
+ * Mỗi lần làm mới ghi ra một file thế hệ MỚI (rồi rename nguyên tử), không ghi đè file đang được
+ * ánh xạ bộ nhớ (Windows không cho thay thế file đang được map); các thế hệ cũ được xóa khi có thể.
+ */
+@Singleton
+public class ProjectSnapshotRepository implements IProjectSnapshotRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectSnapshotRepository.class);
+
+    static final String SNAPSHOT_DIR = "snapshot";
+    private static final String FILE_PREFIX = "project-";
+    private static final String FILE_SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x524D5350; // "RMSP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int TRAILER_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+    private static final byte KIND_ARTIFACT = 1;
+    private static final byte KIND_TEMPLATE = 2;
+
+    private final IProjectStateService projectStateService;
+    private final ISerializationService serializationService;
+
+    private final Object lock = new Object();
+    private volatile MappedSnapshot snapshot;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Một mục trong bảng offset.
+     */
+    private record Entry(byte kind, String key, String sourcePath, long sourceSize, long sourceModified,
+                         long offset, int length) {
+
+        boolean matches(long size, long lastModified) {
+            return sourceSize == size && sourceModified == lastModified;
+        }
+    }
+
+    /**
+     * Một file nguồn cần có trong snapshot (kèm thuộc tính đọc được lúc lập kế hoạch).
+     */
+    private record Source(byte kind, String key, String sourcePath, Path path, long size, long lastModified) {
+    }
+
+    /**
+     * Snapshot đã được ánh xạ bộ nhớ của một dự án ('buffer' null nếu dự án chưa có snapshot).
+     */
+    private static final class MappedSnapshot {
+        private final File projectRoot;
+        private final long generation;
+        private final ByteBuffer buffer;
+        private final Map<String, Entry> artifacts = new HashMap<>();
+        private final Map<String, Entry> templates = new HashMap<>();
+
+        private MappedSnapshot(File projectRoot, long generation, ByteBuffer buffer) {
+            this.projectRoot = projectRoot;
+            this.generation = generation;
+            this.buffer = buffer;
+        }
+
+        private Entry find(byte kind, String sourcePath) {
+            return (kind == KIND_ARTIFACT ? artifacts : templates).get(sourcePath);
+        }
+
+        private int size() {
+            return artifacts.size() + templates.size();
+        }
+
+        /**
+         * Vùng dữ liệu của một mục (đọc tuyệt đối, an toàn khi nhiều luồng cùng đọc).
+         */
+        private ByteBuffer slice(Entry entry) {
+            return buffer.slice((int) entry.offset(), entry.length());
+        }
+    }
+
+    @Inject
+    public ProjectSnapshotRepository(IProjectStateService projectStateService, ISerializationService serializationService) {
+        this.projectStateService = projectStateService;
+        this.serializationService = serializationService;
+    }
+
+    @Override
+    public byte[] readArtifact(String relativePath, long size, long lastModified) {
+        return read(KIND_ARTIFACT, normalize(relativePath), size, lastModified);
+    }
+
+    @Override
+    public byte[] readTemplate(String fileName, long size, long lastModified) {
+        return read(KIND_TEMPLATE, fileName, size, lastModified);
+    }
+
+    private byte[] read(byte kind, String sourcePath, long size, long lastModified) {
+        MappedSnapshot current = current();
+        if (current == null || current.buffer == null) {
+            return null;
+        }
+        Entry entry = current.find(kind, sourcePath);
+        if (entry == null || !entry.matches(size, lastModified)) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        byte[] content = new byte[entry.length()];
+        current.buffer.get((int) entry.offset(), content);
+        return content;
+    }
+
+    /**
+     * Snapshot của dự án đang mở (mở file thế hệ mới nhất ở lần truy cập đầu tiên).
+     *
+     * @return Snapshot, hoặc null nếu chưa mở dự án
+     */
+    private MappedSnapshot current() {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            return null;
+        }
+        MappedSnapshot current = snapshot;
+        if (current != null && current.projectRoot.equals(projectRoot)) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (current == null || !current.projectRoot.equals(projectRoot)) {
+                current = openLatest(projectRoot);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Mở file snapshot hợp lệ có thế hệ cao nhất (file hỏng được bỏ qua).
+     */
+    private MappedSnapshot openLatest(File projectRoot) {
+        List<Path> files = listSnapshotFiles(getSnapshotDirectory(projectRoot));
+        long maxGeneration = files.isEmpty() ? 0 : generationOf(files.get(0));
+        for (Path file : files) {
+            try {
+                MappedSnapshot opened = map(projectRoot, file);
+                logger.info("Đã mở snapshot dự án {} ({} mục).", file.getFileName(), opened.size());
+                return opened;
+            } catch (IOException e) {
+                logger.warn("Bỏ qua snapshot không hợp lệ {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        return new MappedSnapshot(projectRoot, maxGeneration, null);
+    }
+
+    /**
+     * Ánh xạ bộ nhớ một file snapshot và đọc bảng offset.
+     */
+    private static MappedSnapshot map(File projectRoot, Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < TRAILER_BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Kích thước file không hợp lệ: " + fileSize);
+            }
+            /**
+             * Vùng ánh xạ vẫn hợp lệ sau khi đóng channel
+             */
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+
+        int trailer = buffer.limit() - TRAILER_BYTES;
+        long tableOffset = buffer.getLong(trailer);
+        int entryCount = buffer.getInt(trailer + Long.BYTES);
+        int version = buffer.getInt(trailer + Long.BYTES + Integer.BYTES);
+        int magic = buffer.getInt(trailer + Long.BYTES + 2 * Integer.BYTES);
+        if (magic != MAGIC || version != FORMAT_VERSION || tableOffset < 0 || tableOffset > trailer || entryCount < 0) {
+            throw new IOException("Phần đuôi (trailer) không hợp lệ.");
+        }
+
+        MappedSnapshot opened = new MappedSnapshot(projectRoot, generationOf(file), buffer);
+        ByteBuffer table = buffer.duplicate().position((int) tableOffset).limit(trailer);
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                byte kind = table.get();
+                String key = readString(table);
+                String sourcePath = readString(table);
+                Entry entry = new Entry(kind, key, sourcePath, table.getLong(), table.getLong(), table.getLong(), table.getInt());
+                if (entry.offset() < 0 || entry.length() < 0 || entry.offset() + entry.length() > tableOffset) {
+                    throw new IOException("Offset của mục " + key + " nằm ngoài vùng dữ liệu.");
+                }
+                if (kind == KIND_ARTIFACT) {
+                    opened.artifacts.put(sourcePath, entry);
+                } else if (kind == KIND_TEMPLATE) {
+                    opened.templates.put(sourcePath, entry);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Bảng offset bị hỏng: " + e.getMessage(), e);
+        }
+        return opened;
+    }
+
+    @Override
+    public int refresh(Map<String, IndexedFileState> indexedFiles) throws IOException {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            throw new IOException("Không có dự án nào đang mở.");
+        }
+
+        synchronized (lock) {
+            long startedAt = System.nanoTime();
+            MappedSnapshot previous = current();
+            List<Source> sources = collectSources(projectRoot, indexedFiles);
+
+            /**
+             * Không ghi lại nếu mọi file nguồn vẫn khớp với snapshot hiện có
+             */
+            int stale = 0;
+            for (Source source : sources) {
+                Entry old = previous.buffer == null ? null : previous.find(source.kind(), source.sourcePath());
+                if (old == null || !old.key().equals(source.key()) || !old.matches(source.size(), source.lastModified())) {
+                    stale++;
+                }
+            }
+            if (previous.buffer != null && stale == 0 && sources.size() == previous.size()) {
+                logger.debug("Snapshot dự án vẫn còn mới ({} mục).", sources.size());
+                return 0;
+            }
+
+            Path directory = getSnapshotDirectory(projectRoot);
+            Files.createDirectories(directory);
+            Path target = directory.resolve(FILE_PREFIX + (previous.generation + 1) + FILE_SUFFIX);
+            Path temp = directory.resolve("." + target.getFileName() + ".tmp");
+            int reread = 0;
+            try {
+                reread = writeSnapshot(temp, sources, previous);
+                moveIntoPlace(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            MappedSnapshot refreshed = map(projectRoot, target);
+            snapshot = refreshed;
+            deleteOlderGenerations(directory, target);
+
+            logger.info("Đã làm mới snapshot dự án {}: {} mục ({} đọc lại từ file nguồn), {} KB, {} ms. Đọc từ snapshot: {} trúng / {} trượt.",
+                    target.getFileName(), refreshed.size(), reread, refreshed.buffer.limit() / 1024,
+                    (System.nanoTime() - startedAt) / 1_000_000, hitCount.get(), missCount.get());
+            return reread;
+        }
+    }
+
+    /**
+     * Liệt kê các file nguồn (artifact đã lập chỉ mục + Form template trong .config).
+     */
+    private static List<Source> collectSources(File projectRoot, Map<String, IndexedFileState> indexedFiles) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        Path rootPath = projectRoot.toPath();
+        for (IndexedFileState state : indexedFiles.values()) {
+            if (state.getArtifactId() == null) {
+                continue;
+            }
+            Path path = rootPath.resolve(state.getRelativePath());
+            addSource(sources, KIND_ARTIFACT, state.getArtifactId(), normalize(state.getRelativePath()), path);
+        }
+
+        Path configDir = rootPath.resolve(ProjectServiceImpl.CONFIG_DIR);
+        if (Files.isDirectory(configDir)) {
+            try (DirectoryStream<Path> templates = Files.newDirectoryStream(configDir,
+                    "*" + TemplateServiceImpl.FORM_TEMPLATE_SUFFIX)) {
+                for (Path path : templates) {
+                    String fileName = path.getFileName().toString();
+                    addSource(sources, KIND_TEMPLATE, fileName, fileName, path);
+                }
+            }
+        }
+        sources.sort(Comparator.comparing(Source::kind).thenComparing(Source::sourcePath));
+        return sources;
+    }
+
+    private static void addSource(List<Source> sources, byte kind, String key, String sourcePath, Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            sources.add(new Source(kind, key, sourcePath, path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+        } catch (IOException e) {
+            /**
+             * File đã bị xóa sau khi lập chỉ mục: không đưa vào snapshot
+             */
+            logger.debug("Bỏ qua {} khi tạo snapshot: {}", sourcePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi vùng dữ liệu (chép lại từ snapshot cũ các mục không đổi), bảng offset và phần đuôi.
+     *
+     * @return Số mục phải đọc lại từ file nguồn
+     */
+    private int writeSnapshot(Path temp, List<Source> sources, MappedSnapshot previous) throws IOException {
+        List<Entry> entries = new ArrayList<>(sources.size());
+        int reread = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (Source source : sources) {
+                Entry old = previous.buffer == null ? null : previous.find(source.kind(), source.sourcePath());
+                ByteBuffer payload;
+                if (old != null && old.key().equals(source.key()) && old.matches(source.size(), source.lastModified())) {
+                    payload = previous.slice(old);
+                } else {
+                    payload = readSource(source);
+                    if (payload == null) {
+                        continue;
+                    }
+                    reread++;
+                }
+                int length = payload.remaining();
+                writeFully(out, payload);
+                entries.add(new Entry(source.kind(), source.key(), source.sourcePath(),
+                        source.size(), source.lastModified(), offset, length));
+                offset += length;
+            }
+
+            ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+            DataOutputStream table = new DataOutputStream(tableBytes);
+            for (Entry entry : entries) {
+                table.writeByte(entry.kind());
+                writeString(table, entry.key());
+                writeString(table, entry.sourcePath());
+                table.writeLong(entry.sourceSize());
+                table.writeLong(entry.sourceModified());
+                table.writeLong(entry.offset());
+                table.writeInt(entry.length());
+            }
+            table.writeLong(offset);
+            table.writeInt(entries.size());
+            table.writeInt(FORMAT_VERSION);
+            table.writeInt(MAGIC);
+            writeFully(out, ByteBuffer.wrap(tableBytes.toByteArray()));
+
+            /**
+             * fsync trước khi rename: sau crash không bao giờ thấy snapshot có trailer hợp lệ nhưng dữ liệu rỗng
+             */
+            out.force(true);
+        }
+        return reread;
+    }
+
+    /**
+     * Đọc một file nguồn và chuyển sang JSON dạng gọn.
+     *
+     * @return Dữ liệu, hoặc null nếu file lỗi / bị sửa trong lúc đọc
+     */
+    private ByteBuffer readSource(Source source) {
+        try {
+            byte[] compact = serializationService.compactJson(Files.readAllBytes(source.path()));
+            BasicFileAttributes after = Files.readAttributes(source.path(), BasicFileAttributes.class);
+            if (after.size() != source.size() || after.lastModifiedTime().toMillis() != source.lastModified()) {
+                return null;
+            }
+            return ByteBuffer.wrap(compact);
+        } catch (IOException e) {
+            logger.warn("Không thể đưa {} vào snapshot: {}", source.sourcePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Xóa các thế hệ cũ. Trên Windows, file còn đang được ánh xạ không xóa được:
+     * khi đó chỉ ghi log và thử lại ở lần làm mới sau.
+     */
+    private static void deleteOlderGenerations(Path directory, Path keep) {
+        for (Path file : listSnapshotFiles(directory)) {
+            if (file.equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Chưa thể xóa snapshot cũ {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Các file snapshot, thế hệ mới nhất trước
+     */
+    private static List<Path> listSnapshotFiles(Path directory) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                if (generationOf(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Không thể liệt kê thư mục snapshot {}: {}", directory, e.getMessage());
+        }
+        files.sort(Comparator.comparingLong(ProjectSnapshotRepository::generationOf).reversed());
+        return files;
+    }
+
+    /**
+     * @return Số thế hệ trong tên file, hoặc -1 nếu tên không đúng định dạng
+     */
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static Path getSnapshotDirectory(File projectRoot) {
+        return projectRoot.toPath().resolve(ProjectServiceImpl.CONFIG_DIR).resolve(SNAPSHOT_DIR);
+    }
+
+    /**
+     * Chuẩn hóa dấu phân cách đường dẫn (Windows / Unix) cho khóa tra cứu.
+     */
+    private static String normalize(String relativePath) {
+        return relativePath.replace('\\', '/');
+    }
+}
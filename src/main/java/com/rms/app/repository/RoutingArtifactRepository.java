@@ -0,0 +1,121 @@
+package com.rms.app.repository;
+
+import com.google.inject.Inject;
+import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactStorageMode;
+import com.rms.app.model.CacheStatistics;
+import com.rms.app.model.ProjectConfig;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.model.WriteStatistics;
+import com.rms.app.service.IArtifactRepository;
+import com.rms.app.service.IProjectService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * IArtifactRepository được bind cho toàn ứng dụng: chuyển mỗi lời gọi tới backend
+ * theo chế độ lưu trữ (storageMode) của dự án đang mở.
+ * - FILES: JsonFileRepository (một file .json + một file .md cho mỗi artifact).
+ * - SQLITE: DocumentStoreArtifactRepository trên SqliteDocumentStore.
+ */
+public class RoutingArtifactRepository implements IArtifactRepository {
+
+    private final IProjectService projectService;
+    private final JsonFileRepository fileRepository;
+    private final DocumentStoreArtifactRepository documentRepository;
+
+    @Inject
+    public RoutingArtifactRepository(IProjectService projectService, JsonFileRepository fileRepository,
+                                     DocumentStoreArtifactRepository documentRepository) {
+        this.projectService = projectService;
+        this.fileRepository = fileRepository;
+        this.documentRepository = documentRepository;
+    }
+
+    /**
+     * Chế độ lưu trữ của dự án đang mở (mặc định: FILES).
+     *
+     * @param config Cấu hình dự án (có thể null)
+     * @return Chế độ lưu trữ
+     */
+    public static ArtifactStorageMode storageModeOf(ProjectConfig config) {
+        if (config == null || config.getStorageMode() == null) {
+            return ArtifactStorageMode.FILES;
+        }
+        return config.getStorageMode();
+    }
+
+    /**
+     * Ngưỡng nén giá trị trường của dự án đang mở (0 = không nén).
+     *
+     * @param config Cấu hình dự án (có thể null)
+     * @return Ngưỡng (số ký tự)
+     */
+    public static int fieldCompressionThresholdOf(ProjectConfig config) {
+        if (config == null || config.getFieldCompressionThreshold() == null) {
+            return 0;
+        }
+        return Math.max(0, config.getFieldCompressionThreshold());
+    }
+
+    private IArtifactRepository backend() {
+        return storageModeOf(projectService.getCurrentProjectConfig()) == ArtifactStorageMode.SQLITE
+                ? documentRepository
+                : fileRepository;
+    }
+
+    @Override
+    public void save(Artifact artifact) throws IOException {
+        backend().save(artifact);
+    }
+
+    @Override
+    public Artifact load(String relativePath) throws IOException {
+        return backend().load(relativePath);
+    }
+
+    @Override
+    public StoredDocument stat(String relativePath) throws IOException {
+        return backend().stat(relativePath);
+    }
+
+    @Override
+    public void delete(String relativePath) throws IOException {
+        backend().delete(relativePath);
+    }
+
+    @Override
+    public List<String> deleteFolderArtifacts(String folderRelativePath) throws IOException {
+        return backend().deleteFolderArtifacts(folderRelativePath);
+    }
+
+    @Override
+    public String loadMarkdown(String relativePath) throws IOException {
+        return backend().loadMarkdown(relativePath);
+    }
+
+    @Override
+    public int recoverPendingWrites() throws IOException {
+        return backend().recoverPendingWrites();
+    }
+
+    @Override
+    public void flushDeferredWrites() {
+        /**
+         * Các .md ghi trễ có thể thuộc dự án trước (đã đổi chế độ): luôn đẩy ở backend FILES
+         */
+        fileRepository.flushDeferredWrites();
+        documentRepository.flushDeferredWrites();
+    }
+
+    @Override
+    public WriteStatistics getWriteStatistics() {
+        return backend().getWriteStatistics();
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return backend().getCacheStatistics();
+    }
+}
@@ -0,0 +1,322 @@
+package com.rms.app.repository;
+
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quản lý vòng đời kết nối (connection) tới CSDL Chỉ mục (index.db).
+ * Giữ MỘT kết nối ghi (writer) dùng chung (tuần tự hóa bằng khóa)
+ * và một pool nhỏ các kết nối chỉ đọc (read-only) chạy song song nhờ WAL.
+ * Mỗi kết nối có bộ đệm (cache) PreparedStatement riêng.
+ * Kết nối được mở trong initializeDatabase() và đóng khi đổi dự án.
+ */
+@Singleton
+public class SqliteConnectionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqliteConnectionManager.class);
+
+    /**
+     * Số kết nối chỉ đọc tối đa trong pool.
+     */
+    private static final int READER_POOL_SIZE = 4;
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final long BORROW_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Công việc (unit of work) thực thi trên một kết nối đã được cấp phát.
+     *
+     * @param <T> Kiểu kết quả trả về
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        /**
+         * Thực thi công việc.
+         *
+         * @param conn Kết nối (chỉ hợp lệ trong phạm vi lời gọi này)
+         * @return Kết quả
+         * @throws SQLException Nếu lỗi CSDL
+         */
+        T execute(PooledConnection conn) throws SQLException;
+    }
+
+    /**
+     * Kết nối được quản lý, kèm bộ đệm PreparedStatement theo câu SQL.
+     * Các PreparedStatement được cache KHÔNG được đóng bởi nơi gọi.
+     */
+    public static final class PooledConnection {
+        private final Connection connection;
+        private final long generation;
+        private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+
+        private PooledConnection(Connection connection, long generation) {
+            this.connection = connection;
+            this.generation = generation;
+        }
+
+        /**
+         * Lấy (hoặc tạo và cache) PreparedStatement cho câu SQL.
+         *
+         * @param sql Câu SQL
+         * @return PreparedStatement (đã xóa tham số cũ)
+         * @throws SQLException Nếu lỗi CSDL
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement pstmt = statementCache.get(sql);
+            if (pstmt == null || pstmt.isClosed()) {
+                pstmt = connection.prepareStatement(sql);
+                statementCache.put(sql, pstmt);
+            } else {
+                pstmt.clearParameters();
+            }
+            return pstmt;
+        }
+
+        /**
+         * @return Kết nối JDBC gốc (dùng cho Statement/DDL không cần cache)
+         */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        private void close() {
+            for (PreparedStatement pstmt : statementCache.values()) {
+                try {
+                    pstmt.close();
+                } catch (SQLException e) {
+                    logger.warn("Không thể đóng PreparedStatement: {}", e.getMessage());
+                }
+            }
+            statementCache.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("Không thể đóng kết nối SQLite: {}", e.getMessage());
+            }
+        }
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<PooledConnection> idleReaders = new LinkedBlockingQueue<>();
+    private final Object stateLock = new Object();
+
+    private String connectionString = null;
+    private PooledConnection writer = null;
+    private int createdReaders = 0;
+    private long generation = 0;
+
+    /**
+     * Mở kết nối tới file CSDL. Nếu đang mở một file khác (đổi dự án),
+     * các kết nối cũ sẽ được đóng trước.
+     *
+     * @param dbFile File index.db
+     * @throws SQLException Nếu không thể kết nối
+     */
+    public void open(File dbFile) throws SQLException {
+        String newConnectionString = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        writeLock.lock();
+        try {
+            synchronized (stateLock) {
+                if (newConnectionString.equals(connectionString) && writer != null) {
+                    return;
+                }
+            }
+            close();
+
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            config.setBusyTimeout(BUSY_TIMEOUT_MS);
+            Connection conn = config.createConnection(newConnectionString);
+
+            synchronized (stateLock) {
+                this.connectionString = newConnectionString;
+                this.writer = new PooledConnection(conn, generation);
+            }
+            logger.info("Đã mở kết nối CSDL Chỉ mục (WAL): {}", dbFile.getAbsolutePath());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Đóng toàn bộ kết nối (writer và pool reader).
+     * Các reader đang được mượn sẽ bị đóng khi được trả về.
+     */
+    public void close() {
+        writeLock.lock();
+        try {
+            synchronized (stateLock) {
+                if (writer == null) {
+                    return;
+                }
+                generation++;
+                writer.close();
+                writer = null;
+                PooledConnection reader;
+                while ((reader = idleReaders.poll()) != null) {
+                    reader.close();
+                }
+                createdReaders = 0;
+                logger.info("Đã đóng các kết nối CSDL Chỉ mục: {}", connectionString);
+                connectionString = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return true nếu CSDL đang mở
+     */
+    public boolean isOpen() {
+        synchronized (stateLock) {
+            return writer != null;
+        }
+    }
+
+    /**
+     * Thực thi công việc GHI trên kết nối writer duy nhất (tuần tự hóa).
+     *
+     * @param work Công việc
+     * @param <T>  Kiểu kết quả
+     * @return Kết quả của công việc
+     * @throws SQLException Nếu chưa khởi tạo CSDL hoặc lỗi CSDL
+     */
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            PooledConnection conn;
+            synchronized (stateLock) {
+                conn = writer;
+            }
+            if (conn == null) {
+                throw new SQLException("Database chưa được khởi tạo. Phải gọi initializeDatabase() trước.");
+            }
+            return work.execute(conn);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Thực thi công việc GHI trong MỘT giao dịch (transaction) trên kết nối writer.
+     * Commit nếu thành công, rollback nếu có lỗi.
+     * Nếu được gọi lồng bên trong một giao dịch khác (cùng luồng),
+     * công việc tham gia (join) giao dịch bên ngoài.
+     *
+     * @param work Công việc
+     * @param <T>  Kiểu kết quả
+     * @return Kết quả của công việc
+     * @throws SQLException Nếu chưa khởi tạo CSDL hoặc lỗi CSDL
+     */
+    public <T> T writeInTransaction(SqlWork<T> work) throws SQLException {
+        return write(conn -> {
+            Connection connection = conn.getConnection();
+            if (!connection.getAutoCommit()) {
+                return work.execute(conn);
+            }
+            connection.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackEx) {
+                    logger.error("Không thể rollback giao dịch CSDL Chỉ mục", rollbackEx);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Thực thi công việc ĐỌC trên một kết nối chỉ đọc mượn từ pool.
+     *
+     * @param work Công việc
+     * @param <T>  Kiểu kết quả
+     * @return Kết quả của công việc
+     * @throws SQLException Nếu chưa khởi tạo CSDL, hết thời gian chờ, hoặc lỗi CSDL
+     */
+    public <T> T read(SqlWork<T> work) throws SQLException {
+        PooledConnection conn = borrowReader();
+        try {
+            return work.execute(conn);
+        } finally {
+            releaseReader(conn);
+        }
+    }
+
+    /**
+     * Mượn một reader: ưu tiên reader rảnh, tạo mới nếu pool chưa đầy,
+     * ngược lại chờ một reader được trả về.
+     */
+    private PooledConnection borrowReader() throws SQLException {
+        PooledConnection conn = idleReaders.poll();
+        if (conn != null) {
+            return conn;
+        }
+
+        String url;
+        long currentGeneration;
+        synchronized (stateLock) {
+            if (writer == null) {
+                throw new SQLException("Database chưa được khởi tạo. Phải gọi initializeDatabase() trước.");
+            }
+            url = connectionString;
+            currentGeneration = generation;
+            if (createdReaders < READER_POOL_SIZE) {
+                createdReaders++;
+                try {
+                    SQLiteConfig config = new SQLiteConfig();
+                    config.setReadOnly(true);
+                    config.setBusyTimeout(BUSY_TIMEOUT_MS);
+                    return new PooledConnection(config.createConnection(url), currentGeneration);
+                } catch (SQLException e) {
+                    createdReaders--;
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            conn = idleReaders.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Bị ngắt (interrupted) khi chờ kết nối đọc.", e);
+        }
+        if (conn == null) {
+            throw new SQLException("Hết thời gian chờ kết nối đọc tới CSDL Chỉ mục.");
+        }
+        return conn;
+    }
+
+    /**
+     * Trả reader về pool; đóng nó nếu CSDL đã bị đóng/đổi dự án trong lúc mượn.
+     */
+    private void releaseReader(PooledConnection conn) {
+        synchronized (stateLock) {
+            if (conn.generation == generation && writer != null) {
+                idleReaders.offer(conn);
+                return;
+            }
+        }
+        conn.close();
+    }
+}
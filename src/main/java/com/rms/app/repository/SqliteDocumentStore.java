@@ -0,0 +1,352 @@
+package com.rms.app.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.service.IArtifactDocumentStore;
+import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.impl.ProjectServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kho lưu trữ artifact một-file: toàn bộ tài liệu JSON nằm trong bảng 'documents'
+ * của .config/artifacts.db (tách khỏi index.db, vì CSDL Chỉ mục có thể xóa và tái lập,
+ * còn file này là nguồn sự thật).
+ * Khóa được chuẩn hóa về dấu "/" khi lưu (dự án dùng được trên cả Windows và Unix),
+ * và được trả về với dấu phân cách của hệ điều hành, giống relativePath ở chế độ FILES.
+ * Dùng MỘT kết nối (WAL, synchronous=FULL) được bảo vệ bởi khóa của đối tượng.
+ */
+@Singleton
+public class SqliteDocumentStore implements IArtifactDocumentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqliteDocumentStore.class);
+
+    static final String DB_FILE = "artifacts.db";
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    private static final String STAT_SQL = "SELECT size, lastModified FROM documents WHERE relativePath = ?;";
+    private static final String READ_SQL = "SELECT size, lastModified, content FROM documents WHERE relativePath = ?;";
+    /**
+     * Không ghi (0 dòng bị ảnh hưởng) nếu nội dung giống hệt.
+     * lastModified luôn tăng, kể cả khi hai lần ghi rơi vào cùng một mili-giây,
+     * để bộ đệm (cache) và đồng bộ chỉ mục luôn nhận ra thay đổi.
+     */
+    private static final String UPSERT_SQL = "INSERT INTO documents (relativePath, folderPath, content, size, lastModified)"
+            + " VALUES(?,?,?,?,?)"
+            + " ON CONFLICT(relativePath) DO UPDATE SET content = excluded.content, size = excluded.size,"
+            + " lastModified = MAX(excluded.lastModified, documents.lastModified + 1)"
+            + " WHERE documents.content <> excluded.content;";
+    private static final String DELETE_SQL = "DELETE FROM documents WHERE relativePath = ?;";
+    private static final String LIST_SQL = "SELECT relativePath, size, lastModified FROM documents"
+            + " WHERE folderPath = ? ORDER BY relativePath;";
+    private static final String ANY_DOCUMENT_SQL = "SELECT 1 FROM documents LIMIT 1;";
+    private static final String HAS_BLOB_SQL = "SELECT 1 FROM blobs WHERE hash = ?;";
+    private static final String READ_BLOB_SQL = "SELECT content FROM blobs WHERE hash = ?;";
+    private static final String WRITE_BLOB_SQL = "INSERT OR IGNORE INTO blobs (hash, content) VALUES(?,?);";
+    private static final String SUBTREE_WHERE = " WHERE folderPath = ? OR folderPath LIKE ? ESCAPE '\\';";
+
+    private final IProjectStateService projectStateService;
+
+    private File openedDbFile = null;
+    private Connection connection = null;
+    /**
+     * PreparedStatement được dùng lại cho tới khi đóng kết nối (theo câu SQL)
+     */
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    @Inject
+    public SqliteDocumentStore(IProjectStateService projectStateService) {
+        this.projectStateService = projectStateService;
+    }
+
+    /**
+     * Kết nối tới artifacts.db của dự án đang mở (mở lại nếu đã đổi dự án).
+     * Chỉ gọi khi đang giữ khóa của đối tượng.
+     */
+    private Connection connection() throws SQLException, IOException {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            throw new IOException("Không có dự án nào đang mở.");
+        }
+        File dbFile = new File(new File(projectRoot, ProjectServiceImpl.CONFIG_DIR), DB_FILE);
+        if (connection != null && dbFile.equals(openedDbFile)) {
+            return connection;
+        }
+        close();
+
+        dbFile.getParentFile().mkdirs();
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.FULL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        Connection conn = config.createConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS documents ("
+                    + " relativePath TEXT PRIMARY KEY,"
+                    + " folderPath TEXT NOT NULL,"
+                    + " content BLOB NOT NULL,"
+                    + " size INTEGER NOT NULL,"
+                    + " lastModified INTEGER NOT NULL);");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_documents_folder ON documents(folderPath);");
+            stmt.execute("CREATE TABLE IF NOT EXISTS blobs (hash TEXT PRIMARY KEY, content BLOB NOT NULL);");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        connection = conn;
+        openedDbFile = dbFile;
+        logger.info("Đã mở kho lưu trữ artifact (SQLite): {}", dbFile.getAbsolutePath());
+        return conn;
+    }
+
+    /**
+     * PreparedStatement (đã cache) trên kết nối của dự án đang mở.
+     * Chỉ gọi khi đang giữ khóa của đối tượng.
+     */
+    private PreparedStatement prepare(String sql) throws SQLException, IOException {
+        Connection conn = connection();
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = conn.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        }
+        return pstmt;
+    }
+
+    /**
+     * Đóng kết nối hiện tại (nếu có).
+     */
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            for (PreparedStatement pstmt : statements.values()) {
+                pstmt.close();
+            }
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Lỗi khi đóng kho lưu trữ artifact: {}", e.getMessage());
+        }
+        statements.clear();
+        connection = null;
+        openedDbFile = null;
+    }
+
+    @Override
+    public synchronized StoredDocument stat(String relativePath) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(STAT_SQL);
+            pstmt.setString(1, toKey(relativePath));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new StoredDocument(relativePath, rs.getLong(1), rs.getLong(2), null) : null;
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized StoredDocument read(String relativePath) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(READ_SQL);
+            pstmt.setString(1, toKey(relativePath));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new StoredDocument(relativePath, rs.getLong(1), rs.getLong(2), rs.getBytes(3)) : null;
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean write(String relativePath, byte[] content) throws IOException {
+        try {
+            return upsert(relativePath, content);
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    /**
+     * Chỉ gọi khi đang giữ khóa của đối tượng.
+     */
+    private boolean upsert(String relativePath, byte[] content) throws SQLException, IOException {
+        String key = toKey(relativePath);
+        PreparedStatement pstmt = prepare(UPSERT_SQL);
+        pstmt.setString(1, key);
+        pstmt.setString(2, parentOf(key));
+        pstmt.setBytes(3, content);
+        pstmt.setLong(4, content.length);
+        pstmt.setLong(5, System.currentTimeMillis());
+        return pstmt.executeUpdate() > 0;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() throws IOException {
+        try {
+            try (ResultSet rs = prepare(ANY_DOCUMENT_SQL).executeQuery()) {
+                return !rs.next();
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized void writeAll(List<StoredDocument> documents) throws IOException {
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            try {
+                for (StoredDocument document : documents) {
+                    upsert(document.getRelativePath(), document.getContent());
+                }
+                conn.commit();
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean delete(String relativePath) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(DELETE_SQL);
+            pstmt.setString(1, toKey(relativePath));
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized List<StoredDocument> list(String folderRelativePath) throws IOException {
+        List<StoredDocument> documents = new ArrayList<>();
+        try {
+            PreparedStatement pstmt = prepare(LIST_SQL);
+            pstmt.setString(1, toKey(folderRelativePath));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    documents.add(new StoredDocument(fromKey(rs.getString(1)), rs.getLong(2), rs.getLong(3), null));
+                }
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+        return documents;
+    }
+
+    @Override
+    public synchronized List<String> deleteFolder(String folderRelativePath) throws IOException {
+        String folderKey = toKey(folderRelativePath);
+        String subtreePattern = folderKey.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "/%";
+        List<String> deleted = new ArrayList<>();
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement select = conn.prepareStatement("SELECT relativePath FROM documents" + SUBTREE_WHERE)) {
+                    select.setString(1, folderKey);
+                    select.setString(2, subtreePattern);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(fromKey(rs.getString(1)));
+                        }
+                    }
+                }
+                try (PreparedStatement delete = conn.prepareStatement("DELETE FROM documents" + SUBTREE_WHERE)) {
+                    delete.setString(1, folderKey);
+                    delete.setString(2, subtreePattern);
+                    delete.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized boolean hasBlob(String hash) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(HAS_BLOB_SQL);
+            pstmt.setString(1, hash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized byte[] readBlob(String hash) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(READ_BLOB_SQL);
+            pstmt.setString(1, hash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getBytes(1) : null;
+            }
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    @Override
+    public synchronized void writeBlob(String hash, byte[] content) throws IOException {
+        try {
+            PreparedStatement pstmt = prepare(WRITE_BLOB_SQL);
+            pstmt.setString(1, hash);
+            pstmt.setBytes(2, content);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw storeError(e);
+        }
+    }
+
+    private static IOException storeError(SQLException e) {
+        return new IOException("Lỗi kho lưu trữ artifact (SQLite): " + e.getMessage(), e);
+    }
+
+    private static String toKey(String relativePath) {
+        return relativePath.replace('\\', '/');
+    }
+
+    private static String fromKey(String key) {
+        return key.replace('/', File.separatorChar);
+    }
+
+    /**
+     * @return Thư mục cha của một khóa ("" nếu nằm ở thư mục dự án)
+     */
+    private static String parentOf(String key) {
+        int separator = key.lastIndexOf('/');
+        return separator < 0 ? "" : key.substring(0, separator);
+    }
+}
@@ -1,18 +1,30 @@
 package com.rms.app.repository;
 
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.IndexedFileState;
 import com.rms.app.model.ProjectFolder; // Phải tạo model này
+import com.rms.app.model.SearchHit;
+import com.rms.app.service.IIndexIngestSession;
 import com.rms.app.service.ISqliteIndexRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.sql.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Triển khai (implementation) logic I/O cho CSDL Chỉ mục (SQLite).
@@ -22,81 +34,582 @@ import java.util.Map;
 public class SqliteIndexRepository implements ISqliteIndexRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(SqliteIndexRepository.class);
-    private String connectionString = null;
 
     /**
-     * Tạo kết nối đến CSDL SQLite.
-     *
-     * @return một đối tượng Connection
-     * @throws SQLException Nếu không thể kết nối
+     * Hậu tố của bộ bảng bóng (shadow) dùng khi Tái lập Chỉ mục.
      */
-    private Connection connect() throws SQLException {
-        if (connectionString == null) {
-            throw new SQLException("Database chưa được khởi tạo. Phải gọi initializeDatabase() trước.");
-        }
-        return DriverManager.getConnection(connectionString);
+    private static final String SHADOW_SUFFIX = "_shadow";
+
+    /**
+     * Số dòng tối đa trong một lô (batch) trước khi được đẩy và commit.
+     */
+    private static final int INGEST_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_FTS_SQL = "INSERT INTO artifacts_fts (id, name, content) VALUES(?,?,?);";
+
+    /**
+     * Xóa dòng FTS theo ID: dùng MATCH trên cột id (tra chỉ mục FTS) thay vì quét toàn bảng,
+     * rồi lọc chính xác bằng id = ?.
+     */
+    private static final String DELETE_FTS_SQL = "DELETE FROM artifacts_fts WHERE rowid IN"
+            + " (SELECT rowid FROM artifacts_fts WHERE artifacts_fts MATCH ? AND id = ?);";
+
+    private static final String SELECT_BACKLINKS_SQL = "SELECT a.id, a.name, a.type, a.relativePath FROM artifacts a "
+            + "JOIN links l ON a.id = l.fromId "
+            + "WHERE l.toId = ?;";
+    private static final String SELECT_DEFINED_STATUSES_SQL =
+            "SELECT DISTINCT status FROM artifacts WHERE status IS NOT NULL ORDER BY status;";
+    private static final String SELECT_ARTIFACTS_BY_STATUS_SQL =
+            "SELECT id, name, type, relativePath FROM artifacts WHERE status = ?;";
+    /**
+     * Một truy vấn duy nhất cho toàn bộ bảng Kanban: đọc tuần tự idx_artifacts_status
+     * (đã sắp theo status, id), không cần sắp xếp tạm.
+     */
+    private static final String SELECT_ARTIFACTS_GROUPED_BY_STATUS_SQL =
+            "SELECT status, id, name, type, relativePath FROM artifacts WHERE status IS NOT NULL ORDER BY status, id;";
+    private static final String SELECT_ROOT_FOLDERS_SQL =
+            "SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders WHERE parentId IS NULL ORDER BY name;";
+    private static final String SELECT_FOLDERS_BY_PARENT_SQL =
+            "SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders WHERE parentId = ? ORDER BY name;";
+    private static final String SELECT_ROOT_ARTIFACTS_SQL =
+            "SELECT id, name, type, relativePath FROM artifacts WHERE folderId IS NULL ORDER BY name;";
+    private static final String SELECT_ARTIFACTS_BY_FOLDER_SQL =
+            "SELECT id, name, type, relativePath FROM artifacts WHERE folderId = ? ORDER BY name;";
+    private static final String SELECT_ARTIFACTS_BY_TYPE_SQL =
+            "SELECT id, name, type, relativePath FROM artifacts WHERE type = ?;";
+    private static final String SELECT_DEFINED_TYPES_SQL =
+            "SELECT DISTINCT type FROM artifacts WHERE type IS NOT NULL ORDER BY type;";
+    private static final String DELETE_LINKS_FOR_ARTIFACT_SQL = "DELETE FROM links WHERE fromId = ?;";
+
+    /**
+     * Trọng số bm25 theo cột (id, name, content): khớp ID/tên được ưu tiên hơn nội dung.
+     * Xếp hạng + LIMIT trên bảng FTS trước, rồi mới JOIN để lấy type/relativePath.
+     */
+    private static final String SEARCH_FULL_TEXT_SQL = "SELECT a.id, a.name, a.type, a.relativePath, f.snippet, f.score FROM ("
+            + " SELECT id, snippet(artifacts_fts, -1, ?, ?, '…', 16) AS snippet,"
+            + " bm25(artifacts_fts, 10.0, 5.0, 1.0) AS score"
+            + " FROM artifacts_fts WHERE artifacts_fts MATCH ? ORDER BY score LIMIT ?"
+            + ") f JOIN artifacts a ON a.id = f.id ORDER BY f.score;";
+
+    private static final String UPSERT_FILE_STATE_SQL = "INSERT OR REPLACE INTO file_state"
+            + " (relativePath, artifactId, fileSize, lastModified, contentHash) VALUES(?,?,?,?,?);";
+
+    /**
+     * Kết nối dài hạn (long-lived): 1 writer + pool reader,
+     * thay cho việc mở/đóng kết nối ở mỗi lời gọi.
+     */
+    private final SqliteConnectionManager connectionManager;
+
+    /**
+     * CSDL đã được ghi log kế hoạch truy vấn (chỉ chạy một lần mỗi file index.db).
+     */
+    private volatile String lastExplainedDatabase = null;
+
+    @Inject
+    public SqliteIndexRepository(SqliteConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
     }
 
     @Override
     public void initializeDatabase(File projectConfigDir) throws SQLException {
         File dbFile = new File(projectConfigDir, "index.db");
-        this.connectionString = "jdbc:sqlite:" + dbFile.getAbsolutePath();
         logger.info("Đang khởi tạo CSDL Chỉ mục tại: {}", dbFile.getAbsolutePath());
+        connectionManager.open(dbFile);
+
+        connectionManager.writeInTransaction(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                migrateSchema(stmt);
+            }
+            return null;
+        });
+        logger.info("Khởi tạo bảng 'folders', 'artifacts', 'links', 'file_state' và 'artifacts_fts' thành công.");
+
+        String dbPath = dbFile.getAbsolutePath();
+        if (logger.isDebugEnabled() && !dbPath.equals(lastExplainedDatabase)) {
+            lastExplainedDatabase = dbPath;
+            explainQueryPlans();
+        }
+    }
+
+    /**
+     * Một bước nâng cấp (migration) lược đồ CSDL Chỉ mục.
+     */
+    @FunctionalInterface
+    private interface MigrationStep {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    /**
+     * Phiên bản lược đồ và bước nâng cấp tương ứng (lưu trong PRAGMA user_version).
+     */
+    private record SchemaMigration(int version, String description, MigrationStep step) {
+    }
+
+    /**
+     * Danh sách migration, theo thứ tự phiên bản tăng dần.
+     * KHÔNG sửa một migration đã phát hành; thêm phiên bản mới ở cuối danh sách.
+     */
+    private static final List<SchemaMigration> MIGRATIONS = List.of(
+            new SchemaMigration(1, "Bảng cơ sở: folders, artifacts, links, file_state, artifacts_fts",
+                    SqliteIndexRepository::migrateToV1),
+            new SchemaMigration(2, "Chỉ mục phụ (covering index) cho Kanban, cây thư mục, xuất bản và backlinks",
+                    SqliteIndexRepository::migrateToV2)
+    );
+
+    /**
+     * Áp dụng các migration có phiên bản lớn hơn PRAGMA user_version hiện tại.
+     * Chạy trong giao dịch của initializeDatabase(): lỗi ở bất kỳ bước nào sẽ rollback toàn bộ.
+     *
+     * @param stmt Statement trên kết nối writer
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static void migrateSchema(Statement stmt) throws SQLException {
+        int currentVersion;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version;")) {
+            currentVersion = rs.next() ? rs.getInt(1) : 0;
+        }
+
+        int latestVersion = MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+        if (currentVersion > latestVersion) {
+            logger.warn("CSDL Chỉ mục có phiên bản lược đồ {} mới hơn phiên bản ứng dụng hỗ trợ ({}).",
+                    currentVersion, latestVersion);
+            return;
+        }
+
+        for (SchemaMigration migration : MIGRATIONS) {
+            if (migration.version() <= currentVersion) {
+                continue;
+            }
+            logger.info("Nâng cấp lược đồ CSDL Chỉ mục lên v{}: {}", migration.version(), migration.description());
+            migration.step().apply(stmt);
+            stmt.execute("PRAGMA user_version = " + migration.version() + ";");
+        }
+    }
+
+    /**
+     * v1: Lược đồ cơ sở (trước khi có cơ chế migration, các bảng được tạo bằng IF NOT EXISTS,
+     * nên bước này an toàn cho cả CSDL cũ đã có bảng).
+     */
+    private static void migrateToV1(Statement stmt) throws SQLException {
+        boolean needsFtsBackfill = !tableExists(stmt, "artifacts_fts") && tableExists(stmt, "artifacts");
+        createTables(stmt, "");
+        if (needsFtsBackfill) {
+            /**
+             * Chỉ mục cũ (chưa có FTS): xóa trạng thái file để lần đồng bộ tiếp theo
+             * Tái lập toàn bộ và nạp nội dung các trường vào bảng FTS.
+             */
+            stmt.execute("DELETE FROM file_state;");
+            logger.info("Đã thêm bảng Tìm kiếm Toàn văn (FTS5). Chỉ mục sẽ được tái lập toàn bộ.");
+        }
+    }
+
+    /**
+     * v2: Chỉ mục phụ. Các cột SELECT được đưa vào chỉ mục (covering index)
+     * để truy vấn không phải đọc lại bảng gốc; cột ORDER BY đứng ngay sau cột lọc
+     * để không cần sắp xếp tạm (temp b-tree).
+     */
+    private static void migrateToV2(Statement stmt) throws SQLException {
+        /**
+         * getArtifactsByStatus(), getDefinedStatuses()
+         */
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_artifacts_status"
+                + " ON artifacts (status, id, name, type, relativePath);");
+        /**
+         * getArtifactsByType(), getDefinedTypes(), queryArtifactsByCriteria() (ORDER BY id)
+         */
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_artifacts_type"
+                + " ON artifacts (type, id, status, name, relativePath);");
+        /**
+         * getArtifacts(folderId) (ORDER BY name)
+         */
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_artifacts_folder"
+                + " ON artifacts (folderId, name, id, type, relativePath);");
+        /**
+         * getFolders(parentId) (ORDER BY name)
+         */
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_folders_parent"
+                + " ON folders (parentId, name, id, artifactTypeScope, relativePath);");
+        /**
+         * queryBacklinks(), lọc theo Release trong queryArtifactsByCriteria()
+         */
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_links_to ON links (toId, fromId);");
+    }
+
+    /**
+     * Các truy vấn "nóng" (gọi thường xuyên từ UI) được kiểm tra bằng explainQueryPlans().
+     * Tham số (?) không được gán (NULL) khi EXPLAIN, không ảnh hưởng tới kế hoạch truy vấn.
+     */
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("queryBacklinks", SELECT_BACKLINKS_SQL);
+        HOT_QUERIES.put("getDefinedStatuses", SELECT_DEFINED_STATUSES_SQL);
+        HOT_QUERIES.put("getArtifactsByStatus", SELECT_ARTIFACTS_BY_STATUS_SQL);
+        HOT_QUERIES.put("getArtifactsGroupedByStatus", SELECT_ARTIFACTS_GROUPED_BY_STATUS_SQL);
+        HOT_QUERIES.put("getFolders(null)", SELECT_ROOT_FOLDERS_SQL);
+        HOT_QUERIES.put("getFolders(parentId)", SELECT_FOLDERS_BY_PARENT_SQL);
+        HOT_QUERIES.put("getArtifacts(null)", SELECT_ROOT_ARTIFACTS_SQL);
+        HOT_QUERIES.put("getArtifacts(folderId)", SELECT_ARTIFACTS_BY_FOLDER_SQL);
+        HOT_QUERIES.put("getArtifactsByType", SELECT_ARTIFACTS_BY_TYPE_SQL);
+        HOT_QUERIES.put("getDefinedTypes", SELECT_DEFINED_TYPES_SQL);
+        HOT_QUERIES.put("queryArtifactsByCriteria(type)", buildCriteriaSql(false, false));
+        HOT_QUERIES.put("queryArtifactsByCriteria(type, status, release)", buildCriteriaSql(true, true));
+        HOT_QUERIES.put("searchFullText", SEARCH_FULL_TEXT_SQL);
+        HOT_QUERIES.put("deleteLinksForArtifact", DELETE_LINKS_FOR_ARTIFACT_SQL);
+        HOT_QUERIES.put("deleteFtsRow", DELETE_FTS_SQL);
+    }
+
+    @Override
+    public Map<String, List<String>> explainQueryPlans() throws SQLException {
+        return connectionManager.read(conn -> {
+            Map<String, List<String>> plans = new LinkedHashMap<>();
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                for (Map.Entry<String, String> query : HOT_QUERIES.entrySet()) {
+                    List<String> plan = new ArrayList<>();
+                    try (ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + query.getValue())) {
+                        while (rs.next()) {
+                            plan.add(rs.getString("detail"));
+                        }
+                    }
+                    plans.put(query.getKey(), plan);
+
+                    boolean fullScan = hasFullTableScan(plan);
+                    if (fullScan) {
+                        logger.warn("Truy vấn {} quét toàn bảng (full scan): {}", query.getKey(), plan);
+                    } else {
+                        logger.debug("Kế hoạch truy vấn {}: {}", query.getKey(), plan);
+                    }
+                }
+            }
+            return plans;
+        });
+    }
+
+    /**
+     * Dòng EXPLAIN QUERY PLAN dạng "SCAN <bảng>" (không qua chỉ mục) nghĩa là quét toàn bảng.
+     * Bỏ qua bảng ảo FTS và kết quả trung gian của truy vấn con (CO-ROUTINE / MATERIALIZE).
+     */
+    private static boolean hasFullTableScan(List<String> plan) {
+        Set<String> subqueries = new HashSet<>();
+        for (String detail : plan) {
+            if (detail.startsWith("CO-ROUTINE ") || detail.startsWith("MATERIALIZE ")) {
+                subqueries.add(detail.substring(detail.indexOf(' ') + 1).trim());
+            }
+        }
+        for (String detail : plan) {
+            if (detail.startsWith("SCAN ") && !detail.contains(" USING ") && !detail.contains("VIRTUAL TABLE")
+                    && !subqueries.contains(detail.substring("SCAN ".length()).trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Tạo bộ bảng (folders, artifacts, links) với hậu tố (suffix) tên bảng.
+     * Hậu tố rỗng cho bộ bảng chính, SHADOW_SUFFIX cho bộ bảng bóng (shadow)
+     * dùng khi Tái lập Chỉ mục.
+     *
+     * @param stmt   Statement trên kết nối writer
+     * @param suffix Hậu tố tên bảng
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static void createTables(Statement stmt, String suffix) throws SQLException {
         /**
          * [MỚI] Bảng Folders
          * artifactTypeScope: Loại artifact nào được phép (ví dụ: "UC", "BR"). Null nghĩa là thư mục gốc.
          */
-        String createFoldersTable = "CREATE TABLE IF NOT EXISTS folders ("
+        stmt.execute("CREATE TABLE IF NOT EXISTS folders" + suffix + " ("
                 + " id TEXT PRIMARY KEY,"
                 + " name TEXT NOT NULL,"
                 + " parentId TEXT," // NULL cho thư mục gốc (UC, BR...)
                 + " artifactTypeScope TEXT,"
                 + " relativePath TEXT NOT NULL UNIQUE,"
-                + " FOREIGN KEY(parentId) REFERENCES folders(id) ON DELETE CASCADE"
-                + ");";
+                + " FOREIGN KEY(parentId) REFERENCES folders" + suffix + "(id) ON DELETE CASCADE"
+                + ");");
 
         /**
          * [CẬP NHẬT] Bảng Artifacts
          * folderId: Thư mục cha chứa artifact này.
          * relativePath: Đường dẫn vật lý đầy đủ.
          */
-        String createArtifactsTable = "CREATE TABLE IF NOT EXISTS artifacts ("
+        stmt.execute("CREATE TABLE IF NOT EXISTS artifacts" + suffix + " ("
                 + " id TEXT PRIMARY KEY,"
                 + " name TEXT NOT NULL,"
                 + " type TEXT," // (vẫn giữ để lọc nhanh, ví dụ: "UC")
                 + " status TEXT,"
                 + " folderId TEXT,"
                 + " relativePath TEXT NOT NULL UNIQUE,"
-                + " FOREIGN KEY(folderId) REFERENCES folders(id) ON DELETE SET NULL"
-                + ");";
+                + " FOREIGN KEY(folderId) REFERENCES folders" + suffix + "(id) ON DELETE SET NULL"
+                + ");");
 
-        String createLinksTable = "CREATE TABLE IF NOT EXISTS links ("
+        stmt.execute("CREATE TABLE IF NOT EXISTS links" + suffix + " ("
                 + " fromId TEXT NOT NULL,"
                 + " toId TEXT NOT NULL,"
                 + " PRIMARY KEY (fromId, toId),"
-                + " FOREIGN KEY(fromId) REFERENCES artifacts(id) ON DELETE CASCADE"
-                + ");"; // Bảng Links không đổi
-
-        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
-            stmt.execute(createFoldersTable);
-            stmt.execute(createArtifactsTable);
-            stmt.execute(createLinksTable);
-            logger.info("Khởi tạo bảng 'folders', 'artifacts', và 'links' thành công.");
+                + " FOREIGN KEY(fromId) REFERENCES artifacts" + suffix + "(id) ON DELETE CASCADE"
+                + ");"); // Bảng Links không đổi
+
+        /**
+         * Bảng trạng thái file nguồn (kích thước, mtime, hash)
+         * phục vụ lập chỉ mục tăng dần khi mở lại dự án.
+         */
+        stmt.execute("CREATE TABLE IF NOT EXISTS file_state" + suffix + " ("
+                + " relativePath TEXT PRIMARY KEY,"
+                + " artifactId TEXT,"
+                + " fileSize INTEGER NOT NULL,"
+                + " lastModified INTEGER NOT NULL,"
+                + " contentHash TEXT NOT NULL"
+                + ");");
+
+        /**
+         * Bảng Tìm kiếm Toàn văn (FTS5) trên ID, tên và nội dung (đã làm phẳng) của các trường.
+         * remove_diacritics: tìm "trang thai" khớp "Trạng thái".
+         * prefix: chỉ mục tiền tố cho truy vấn dạng "tu*".
+         */
+        stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS artifacts_fts" + suffix + " USING fts5("
+                + " id, name, content,"
+                + " tokenize = 'unicode61 remove_diacritics 2',"
+                + " prefix = '2 3'"
+                + ");");
+    }
+
+    /**
+     * Kiểm tra một bảng (hoặc bảng ảo) đã tồn tại hay chưa.
+     */
+    private static boolean tableExists(Statement stmt, String tableName) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + tableName + "';")) {
+            return rs.next();
         }
     }
 
+    @Override
+    public void executeInTransaction(IndexTransaction work) throws SQLException {
+        connectionManager.writeInTransaction(conn -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void closeDatabase() {
+        connectionManager.close();
+    }
+
     @Override
     public void clearIndex() throws SQLException {
         String deleteLinks = "DELETE FROM links;";
         String deleteArtifacts = "DELETE FROM artifacts;";
         String deleteFolders = "DELETE FROM folders;";
+        String deleteFileStates = "DELETE FROM file_state;";
+        String deleteFts = "DELETE FROM artifacts_fts;";
+
+        connectionManager.write(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                stmt.execute(deleteLinks);
+                stmt.execute(deleteArtifacts);
+                stmt.execute(deleteFolders);
+                stmt.execute(deleteFileStates);
+                stmt.execute(deleteFts);
+            }
+            return null;
+        });
+        logger.info("Đã xóa sạch (clear) CSDL Chỉ mục.");
+    }
+
+    @Override
+    public IIndexIngestSession beginBulkIngest() throws SQLException {
+        connectionManager.write(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                dropShadowTables(stmt);
+                createTables(stmt, SHADOW_SUFFIX);
+            }
+            return null;
+        });
+        logger.info("Bắt đầu phiên nạp hàng loạt (bulk-ingest) vào bộ bảng bóng.");
+        return new BulkIngestSession();
+    }
+
+    /**
+     * Xóa bộ bảng bóng (nếu còn sót lại từ lần tái lập trước bị gián đoạn).
+     *
+     * @param stmt Statement trên kết nối writer
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static void dropShadowTables(Statement stmt) throws SQLException {
+        stmt.execute("DROP TABLE IF EXISTS artifacts_fts" + SHADOW_SUFFIX + ";");
+        stmt.execute("DROP TABLE IF EXISTS file_state" + SHADOW_SUFFIX + ";");
+        stmt.execute("DROP TABLE IF EXISTS links" + SHADOW_SUFFIX + ";");
+        stmt.execute("DROP TABLE IF EXISTS artifacts" + SHADOW_SUFFIX + ";");
+        stmt.execute("DROP TABLE IF EXISTS folders" + SHADOW_SUFFIX + ";");
+    }
+
+    /**
+     * Triển khai phiên nạp hàng loạt: gom các dòng vào bộ đệm,
+     * đẩy chúng bằng JDBC batch trong một giao dịch mỗi INGEST_CHUNK_SIZE dòng,
+     * và hoán đổi bộ bảng bóng vào bộ bảng chính khi commit().
+     * Writer chỉ bị giữ trong lúc đẩy một khối, nên các lần lưu (save) từ UI
+     * không bị chặn suốt cả quá trình tái lập.
+     */
+    private final class BulkIngestSession implements IIndexIngestSession {
+
+        private final List<ProjectFolder> pendingFolders = new ArrayList<>();
+        private final List<ArtifactHeader> pendingArtifacts = new ArrayList<>();
+        private final List<String[]> pendingLinks = new ArrayList<>();
+        private final List<IndexedFileState> pendingFileStates = new ArrayList<>();
+        private boolean finished = false;
+
+        @Override
+        public void addFolder(ProjectFolder folder) throws SQLException {
+            pendingFolders.add(folder);
+            flushIfFull();
+        }
+
+        @Override
+        public void addArtifact(ArtifactHeader header) throws SQLException {
+            pendingArtifacts.add(header);
+            flushIfFull();
+        }
+
+        @Override
+        public void addLink(String fromId, String toId) throws SQLException {
+            pendingLinks.add(new String[]{fromId, toId});
+            flushIfFull();
+        }
+
+        @Override
+        public void addFileState(IndexedFileState state) throws SQLException {
+            pendingFileStates.add(state);
+            flushIfFull();
+        }
+
+        private void flushIfFull() throws SQLException {
+            int pending = pendingFolders.size() + pendingArtifacts.size() + pendingLinks.size() + pendingFileStates.size();
+            if (pending >= INGEST_CHUNK_SIZE) {
+                connectionManager.writeInTransaction(conn -> {
+                    flushPending(conn);
+                    return null;
+                });
+            }
+        }
+
+        /**
+         * Đẩy các dòng đang chờ vào bộ bảng bóng bằng JDBC batch.
+         */
+        private void flushPending(SqliteConnectionManager.PooledConnection conn) throws SQLException {
+            ensureActive();
+            if (!pendingFolders.isEmpty()) {
+                PreparedStatement pstmt = conn.prepare("INSERT OR REPLACE INTO folders" + SHADOW_SUFFIX
+                        + " (id, name, parentId, artifactTypeScope, relativePath) VALUES(?,?,?,?,?);");
+                for (ProjectFolder folder : pendingFolders) {
+                    pstmt.setString(1, folder.getId());
+                    pstmt.setString(2, folder.getName());
+                    pstmt.setString(3, folder.getParentId());
+                    pstmt.setString(4, folder.getArtifactTypeScope());
+                    pstmt.setString(5, folder.getRelativePath());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                pendingFolders.clear();
+            }
+            if (!pendingArtifacts.isEmpty()) {
+                PreparedStatement pstmt = conn.prepare("INSERT OR REPLACE INTO artifacts" + SHADOW_SUFFIX
+                        + " (id, name, type, status, folderId, relativePath) VALUES(?,?,?,?,?,?);");
+                for (ArtifactHeader header : pendingArtifacts) {
+                    bindArtifactRow(pstmt, header);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                PreparedStatement ftsStmt = conn.prepare(INSERT_FTS_SQL.replace("artifacts_fts", "artifacts_fts" + SHADOW_SUFFIX));
+                for (ArtifactHeader header : pendingArtifacts) {
+                    bindFtsRow(ftsStmt, header);
+                    ftsStmt.addBatch();
+                }
+                ftsStmt.executeBatch();
+                pendingArtifacts.clear();
+            }
+            if (!pendingLinks.isEmpty()) {
+                PreparedStatement pstmt = conn.prepare("INSERT OR IGNORE INTO links" + SHADOW_SUFFIX
+                        + " (fromId, toId) VALUES(?,?);");
+                for (String[] link : pendingLinks) {
+                    pstmt.setString(1, link[0]);
+                    pstmt.setString(2, link[1]);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                pendingLinks.clear();
+            }
+            if (!pendingFileStates.isEmpty()) {
+                PreparedStatement pstmt = conn.prepare(UPSERT_FILE_STATE_SQL.replace("file_state", "file_state" + SHADOW_SUFFIX));
+                for (IndexedFileState state : pendingFileStates) {
+                    bindFileState(pstmt, state);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                pendingFileStates.clear();
+            }
+        }
 
-        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
-            stmt.execute(deleteLinks);
-            stmt.execute(deleteArtifacts);
-            stmt.execute(deleteFolders);
-            logger.info("Đã xóa sạch (clear) CSDL Chỉ mục.");
+        @Override
+        public void commit() throws SQLException {
+            connectionManager.writeInTransaction(conn -> {
+                flushPending(conn);
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    /**
+                     * Hoán đổi (swap) trong cùng giao dịch: các reader (WAL)
+                     * thấy dữ liệu cũ cho tới khi giao dịch này được commit.
+                     */
+                    stmt.execute("DELETE FROM links;");
+                    stmt.execute("DELETE FROM artifacts;");
+                    stmt.execute("DELETE FROM folders;");
+                    stmt.execute("INSERT INTO folders (id, name, parentId, artifactTypeScope, relativePath)"
+                            + " SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders" + SHADOW_SUFFIX + ";");
+                    stmt.execute("INSERT INTO artifacts (id, name, type, status, folderId, relativePath)"
+                            + " SELECT id, name, type, status, folderId, relativePath FROM artifacts" + SHADOW_SUFFIX + ";");
+                    stmt.execute("INSERT INTO links (fromId, toId)"
+                            + " SELECT fromId, toId FROM links" + SHADOW_SUFFIX + ";");
+                    stmt.execute("DELETE FROM file_state;");
+                    stmt.execute("INSERT INTO file_state (relativePath, artifactId, fileSize, lastModified, contentHash)"
+                            + " SELECT relativePath, artifactId, fileSize, lastModified, contentHash FROM file_state" + SHADOW_SUFFIX + ";");
+                    stmt.execute("DELETE FROM artifacts_fts;");
+                    stmt.execute("INSERT INTO artifacts_fts (id, name, content)"
+                            + " SELECT id, name, content FROM artifacts_fts" + SHADOW_SUFFIX + ";");
+                    dropShadowTables(stmt);
+                }
+                return null;
+            });
+            finished = true;
+            logger.info("Đã hoán đổi (swap) bộ bảng bóng vào CSDL Chỉ mục.");
+        }
+
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            pendingFolders.clear();
+            pendingArtifacts.clear();
+            pendingLinks.clear();
+            pendingFileStates.clear();
+            try {
+                connectionManager.write(conn -> {
+                    try (Statement stmt = conn.getConnection().createStatement()) {
+                        dropShadowTables(stmt);
+                    }
+                    return null;
+                });
+                logger.warn("Đã hủy (abort) phiên nạp hàng loạt. CSDL Chỉ mục giữ nguyên dữ liệu cũ.");
+            } catch (SQLException e) {
+                logger.error("Không thể xóa bộ bảng bóng khi hủy phiên nạp hàng loạt", e);
+            }
+        }
+
+        private void ensureActive() throws SQLException {
+            if (finished) {
+                throw new SQLException("Phiên nạp hàng loạt đã kết thúc.");
+            }
         }
     }
 
@@ -107,37 +620,167 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public void insertArtifact(Artifact artifact) throws SQLException {
-        String status = "Draft";
-        if (artifact.getFields() != null && artifact.getFields().containsKey("Trạng thái")) {
-            Object statusObj = artifact.getFields().get("Trạng thái");
-            if (statusObj != null) {
-                status = statusObj.toString();
-            }
-        }
-
-        String name = (artifact.getName() != null) ? artifact.getName() :
-                (artifact.getId() != null ? artifact.getId() : "Untitled");
+        insertArtifact(toIndexHeader(artifact));
+    }
 
+    @Override
+    public void insertArtifact(ArtifactHeader header) throws SQLException {
         // [CẬP NHẬT] Thêm folderId và relativePath
         String sql = "INSERT OR REPLACE INTO artifacts (id, name, type, status, folderId, relativePath) VALUES(?,?,?,?,?,?);";
 
+        connectionManager.writeInTransaction(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            bindArtifactRow(pstmt, header);
+            pstmt.executeUpdate();
+
+            /**
+             * Đồng bộ bảng Tìm kiếm Toàn văn (FTS5)
+             */
+            deleteFtsRow(conn, header.getId());
+            PreparedStatement ftsStmt = conn.prepare(INSERT_FTS_SQL);
+            bindFtsRow(ftsStmt, header);
+            ftsStmt.executeUpdate();
+            return null;
+        });
+    }
+
+    /**
+     * Chuyển một Artifact đầy đủ thành header dùng cho chỉ mục
+     * (trạng thái và văn bản FTS được lấy từ 'fields').
+     *
+     * @param artifact Đối tượng artifact
+     * @return Header tương ứng
+     */
+    private static ArtifactHeader toIndexHeader(Artifact artifact) {
+        ArtifactHeader header = new ArtifactHeader();
+        header.setId(artifact.getId());
+        header.setName(artifact.getName());
+        header.setArtifactType(artifact.getArtifactType());
+        header.setTemplateId(artifact.getTemplateId());
         /**
          * [SỬA LỖI] Lấy (Get) folderId trực tiếp từ
          * đối tượng (object) Artifact,
          * nó đã được ArtifactViewModel gán (set).
          */
-        String folderId = artifact.getFolderId();
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, artifact.getId());
-            pstmt.setString(2, name);
-            pstmt.setString(3, artifact.getArtifactType());
-            pstmt.setString(4, status);
-            pstmt.setString(5, folderId); // <-- ĐÃ SỬA: Sử dụng folderId chính xác
-            pstmt.setString(6, artifact.getRelativePath());
+        header.setFolderId(artifact.getFolderId());
+        header.setRelativePath(artifact.getRelativePath());
+        if (artifact.getFields() != null) {
+            Object statusObj = artifact.getFields().get(ArtifactHeader.STATUS_FIELD);
+            if (statusObj != null) {
+                header.setStatus(statusObj.toString());
+            }
+        }
+        StringBuilder content = new StringBuilder();
+        flattenFieldValue(artifact.getFields(), content);
+        header.setSearchText(content.toString());
+        return header;
+    }
+
+    /**
+     * Helper gán (bind) các tham số của câu INSERT vào bảng artifacts
+     * (id, name, type, status, folderId, relativePath).
+     */
+    private void bindArtifactRow(PreparedStatement pstmt, ArtifactHeader header) throws SQLException {
+        pstmt.setString(1, header.getId());
+        pstmt.setString(2, resolveName(header));
+        pstmt.setString(3, header.getArtifactType());
+        pstmt.setString(4, resolveStatus(header));
+        pstmt.setString(5, header.getFolderId());
+        pstmt.setString(6, header.getRelativePath());
+    }
+
+    /**
+     * Xóa dòng FTS của một artifact.
+     *
+     * @param conn       Kết nối writer
+     * @param artifactId ID của artifact
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static void deleteFtsRow(SqliteConnectionManager.PooledConnection conn, String artifactId) throws SQLException {
+        if (!artifactId.codePoints().anyMatch(Character::isLetterOrDigit)) {
+            /**
+             * ID không có token nào (toàn ký tự đặc biệt): không dùng được MATCH
+             */
+            PreparedStatement pstmt = conn.prepare("DELETE FROM artifacts_fts WHERE id = ?;");
+            pstmt.setString(1, artifactId);
             pstmt.executeUpdate();
+            return;
+        }
+        PreparedStatement pstmt = conn.prepare(DELETE_FTS_SQL);
+        pstmt.setString(1, "id : " + quoteFtsPhrase(artifactId));
+        pstmt.setString(2, artifactId);
+        pstmt.executeUpdate();
+    }
+
+    /**
+     * Đặt một chuỗi trong dấu ngoặc kép (phrase) của cú pháp truy vấn FTS5.
+     *
+     * @param text Chuỗi gốc
+     * @return Chuỗi đã được escape
+     */
+    private static String quoteFtsPhrase(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Helper gán (bind) các tham số của câu INSERT_FTS_SQL.
+     */
+    private void bindFtsRow(PreparedStatement pstmt, ArtifactHeader header) throws SQLException {
+        pstmt.setString(1, header.getId());
+        pstmt.setString(2, resolveName(header));
+        pstmt.setString(3, header.getSearchText() != null ? header.getSearchText() : "");
+    }
+
+    /**
+     * Làm phẳng (flatten) giá trị các trường (kể cả danh sách / map lồng nhau,
+     * ví dụ các bước Flow) thành văn bản cho FTS. Chỉ lấy giá trị, không lấy tên trường.
+     *
+     * @param value Giá trị
+     * @param out   Nơi ghi văn bản
+     */
+    private static void flattenFieldValue(Object value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Map<?, ?> map) {
+            for (Object nested : map.values()) {
+                flattenFieldValue(nested, out);
+            }
+        } else if (value instanceof Collection<?> collection) {
+            for (Object nested : collection) {
+                flattenFieldValue(nested, out);
+            }
+        } else {
+            String text = value.toString();
+            if (!text.isBlank()) {
+                if (!out.isEmpty()) {
+                    out.append('\n');
+                }
+                out.append(text);
+            }
         }
     }
+
+    /**
+     * Helper lấy tên hiển thị (ID hoặc "Untitled" nếu thiếu tên).
+     *
+     * @param header Header của artifact
+     * @return Tên hiển thị
+     */
+    private String resolveName(ArtifactHeader header) {
+        return (header.getName() != null) ? header.getName() :
+                (header.getId() != null ? header.getId() : "Untitled");
+    }
+
+    /**
+     * Helper lấy Trạng thái (mặc định "Draft") từ header của artifact.
+     *
+     * @param header Header của artifact
+     * @return Trạng thái
+     */
+    private String resolveStatus(ArtifactHeader header) {
+        return header.getStatus() != null ? header.getStatus() : "Draft";
+    }
     /**
      * ========================================================================
      * HẾT PHẦN SỬA LỖI
@@ -150,14 +793,16 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
     @Override
     public void insertFolder(ProjectFolder folder) throws SQLException {
         String sql = "INSERT OR REPLACE INTO folders (id, name, parentId, artifactTypeScope, relativePath) VALUES(?,?,?,?,?);";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, folder.getId());
             pstmt.setString(2, folder.getName());
             pstmt.setString(3, folder.getParentId());
             pstmt.setString(4, folder.getArtifactTypeScope());
             pstmt.setString(5, folder.getRelativePath());
             pstmt.executeUpdate();
-        }
+            return null;
+        });
     }
 
 
@@ -165,20 +810,25 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
     public void insertLink(String fromId, String toId) throws SQLException {
         String sql = "INSERT OR IGNORE INTO links (fromId, toId) VALUES(?,?);";
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, fromId);
             pstmt.setString(2, toId);
             pstmt.executeUpdate();
-        }
+            return null;
+        });
     }
 
     @Override
     public void deleteArtifact(String artifactId) throws SQLException {
         String sql = "DELETE FROM artifacts WHERE id = ?;";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connectionManager.writeInTransaction(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, artifactId);
             pstmt.executeUpdate();
-        }
+            deleteFtsRow(conn, artifactId);
+            return null;
+        });
     }
 
     /**
@@ -189,104 +839,198 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
         // CSDL sẽ tự động xóa các folder con (ON DELETE CASCADE)
         // CSDL sẽ tự động set folderId = NULL cho các artifact con (ON DELETE SET NULL)
         String sql = "DELETE FROM folders WHERE id = ?;";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, folderId);
             pstmt.executeUpdate();
-        }
+            return null;
+        });
     }
 
     @Override
     public void deleteLinksForArtifact(String artifactId) throws SQLException {
-        String sql = "DELETE FROM links WHERE fromId = ?;";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(DELETE_LINKS_FOR_ARTIFACT_SQL);
             pstmt.setString(1, artifactId);
             pstmt.executeUpdate();
-        }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, IndexedFileState> getIndexedFileStates() throws SQLException {
+        String sql = "SELECT relativePath, artifactId, fileSize, lastModified, contentHash FROM file_state;";
+
+        return connectionManager.read(conn -> {
+            Map<String, IndexedFileState> results = new HashMap<>();
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    IndexedFileState state = new IndexedFileState();
+                    state.setRelativePath(rs.getString("relativePath"));
+                    state.setArtifactId(rs.getString("artifactId"));
+                    state.setFileSize(rs.getLong("fileSize"));
+                    state.setLastModified(rs.getLong("lastModified"));
+                    state.setContentHash(rs.getString("contentHash"));
+                    results.put(state.getRelativePath(), state);
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public void upsertFileState(IndexedFileState state) throws SQLException {
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(UPSERT_FILE_STATE_SQL);
+            bindFileState(pstmt, state);
+            pstmt.executeUpdate();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteFileState(String relativePath) throws SQLException {
+        String sql = "DELETE FROM file_state WHERE relativePath = ?;";
+        connectionManager.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, relativePath);
+            pstmt.executeUpdate();
+            return null;
+        });
+    }
+
+    /**
+     * Helper gán (bind) các tham số của câu UPSERT_FILE_STATE_SQL.
+     *
+     * @param pstmt Câu lệnh
+     * @param state Trạng thái file
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static void bindFileState(PreparedStatement pstmt, IndexedFileState state) throws SQLException {
+        pstmt.setString(1, state.getRelativePath());
+        pstmt.setString(2, state.getArtifactId());
+        pstmt.setLong(3, state.getFileSize());
+        pstmt.setLong(4, state.getLastModified());
+        pstmt.setString(5, state.getContentHash());
+    }
+
+    @Override
+    public List<ProjectFolder> getAllFolders() throws SQLException {
+        String sql = "SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders;";
+
+        return connectionManager.read(conn -> {
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                return readFolders(rs);
+            }
+        });
     }
 
     @Override
     public List<Artifact> queryArtifacts(String query) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
         // [CẬP NHẬT] Thêm relativePath vào SELECT
         String sql = "SELECT id, name, type, relativePath FROM artifacts "
                 + "WHERE id LIKE ? OR name LIKE ? LIMIT 10;";
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             String wildcardQuery = "%" + query.replace("@", "") + "%";
             pstmt.setString(1, wildcardQuery);
             pstmt.setString(2, wildcardQuery);
+            return readArtifactSummaries(pstmt);
+        });
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
+    @Override
+    public List<SearchHit> searchFullText(String matchExpression, int limit) throws SQLException {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(SEARCH_FULL_TEXT_SQL);
+            pstmt.setString(1, SearchHit.HIGHLIGHT_START);
+            pstmt.setString(2, SearchHit.HIGHLIGHT_END);
+            pstmt.setString(3, matchExpression);
+            pstmt.setInt(4, limit);
+            List<SearchHit> results = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    SearchHit hit = new SearchHit();
+                    hit.setId(rs.getString("id"));
+                    hit.setName(rs.getString("name"));
+                    hit.setArtifactType(rs.getString("type"));
+                    hit.setRelativePath(rs.getString("relativePath"));
+                    hit.setSnippet(rs.getString("snippet"));
+                    hit.setScore(rs.getDouble("score"));
+                    results.add(hit);
+                }
             }
-        }
-        return results;
+            return results;
+        });
+    }
+
+    @Override
+    public List<Artifact> getAllArtifactSummaries() throws SQLException {
+        String sql = "SELECT id, name, type, relativePath FROM artifacts;";
+
+        return connectionManager.read(conn -> readArtifactSummaries(conn.prepare(sql)));
     }
 
     @Override
     public List<Artifact> queryBacklinks(String artifactId) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
         // [CẬP NHẬT] Thêm relativePath vào SELECT
-        String sql = "SELECT a.id, a.name, a.type, a.relativePath FROM artifacts a "
-                + "JOIN links l ON a.id = l.fromId "
-                + "WHERE l.toId = ?;";
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(SELECT_BACKLINKS_SQL);
             pstmt.setString(1, artifactId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
-            }
-        }
-        return results;
+            return readArtifactSummaries(pstmt);
+        });
     }
 
     @Override
     public List<String> getDefinedStatuses() throws SQLException {
-        List<String> results = new ArrayList<>();
-        String sql = "SELECT DISTINCT status FROM artifacts WHERE status IS NOT NULL ORDER BY status;";
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                results.add(rs.getString("status"));
+        return connectionManager.read(conn -> {
+            List<String> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SELECT_DEFINED_STATUSES_SQL).executeQuery()) {
+                while (rs.next()) {
+                    results.add(rs.getString("status"));
+                }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     @Override
     public List<Artifact> getArtifactsByStatus(String status) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
         // [CẬP NHẬT] Thêm relativePath
-        String sql = "SELECT id, name, type, relativePath FROM artifacts WHERE status = ?;";
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(SELECT_ARTIFACTS_BY_STATUS_SQL);
             pstmt.setString(1, status);
-            ResultSet rs = pstmt.executeQuery();
+            return readArtifactSummaries(pstmt);
+        });
+    }
 
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
+    @Override
+    public Map<String, List<Artifact>> getArtifactsGroupedByStatus() throws SQLException {
+        return connectionManager.read(conn -> {
+            Map<String, List<Artifact>> buckets = new LinkedHashMap<>();
+            try (ResultSet rs = conn.prepare(SELECT_ARTIFACTS_GROUPED_BY_STATUS_SQL).executeQuery()) {
+                /**
+                 * Các dòng đến theo thứ tự status: chỉ tra Map khi đổi sang status mới
+                 */
+                String currentStatus = null;
+                List<Artifact> currentBucket = null;
+                while (rs.next()) {
+                    String status = rs.getString("status");
+                    if (!status.equals(currentStatus)) {
+                        currentStatus = status;
+                        currentBucket = buckets.computeIfAbsent(status, key -> new ArrayList<>());
+                    }
+                    Artifact artifact = new Artifact();
+                    artifact.setId(rs.getString("id"));
+                    artifact.setName(rs.getString("name"));
+                    artifact.setArtifactType(rs.getString("type"));
+                    artifact.setRelativePath(rs.getString("relativePath"));
+                    currentBucket.add(artifact);
+                }
             }
-        }
-        return results;
+            return buckets;
+        });
     }
 
     /**
@@ -294,30 +1038,17 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<ProjectFolder> getFolders(String parentFolderId) throws SQLException {
-        List<ProjectFolder> results = new ArrayList<>();
-        String sql;
-        if (parentFolderId == null) {
-            sql = "SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders WHERE parentId IS NULL ORDER BY name;";
-        } else {
-            sql = "SELECT id, name, parentId, artifactTypeScope, relativePath FROM folders WHERE parentId = ? ORDER BY name;";
-        }
+        String sql = (parentFolderId == null) ? SELECT_ROOT_FOLDERS_SQL : SELECT_FOLDERS_BY_PARENT_SQL;
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             if (parentFolderId != null) {
                 pstmt.setString(1, parentFolderId);
             }
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                ProjectFolder folder = new ProjectFolder();
-                folder.setId(rs.getString("id"));
-                folder.setName(rs.getString("name"));
-                folder.setParentId(rs.getString("parentId"));
-                folder.setArtifactTypeScope(rs.getString("artifactTypeScope"));
-                folder.setRelativePath(rs.getString("relativePath"));
-                results.add(folder);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readFolders(rs);
             }
-        }
-        return results;
+        });
     }
 
     /**
@@ -325,29 +1056,15 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<Artifact> getArtifacts(String parentFolderId) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
-        String sql;
-        if (parentFolderId == null) {
-            sql = "SELECT id, name, type, relativePath FROM artifacts WHERE folderId IS NULL ORDER BY name;";
-        } else {
-            sql = "SELECT id, name, type, relativePath FROM artifacts WHERE folderId = ? ORDER BY name;";
-        }
+        String sql = (parentFolderId == null) ? SELECT_ROOT_ARTIFACTS_SQL : SELECT_ARTIFACTS_BY_FOLDER_SQL;
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             if (parentFolderId != null) {
                 pstmt.setString(1, parentFolderId);
             }
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
-            }
-        }
-        return results;
+            return readArtifactSummaries(pstmt);
+        });
     }
 
 
@@ -357,23 +1074,11 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<Artifact> getArtifactsByType(String type) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
-        String sql = "SELECT id, name, type, relativePath FROM artifacts WHERE type = ?;";
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return connectionManager.read(conn -> {
+            PreparedStatement pstmt = conn.prepare(SELECT_ARTIFACTS_BY_TYPE_SQL);
             pstmt.setString(1, type);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
-            }
-        }
-        return results;
+            return readArtifactSummaries(pstmt);
+        });
     }
 
     /**
@@ -381,26 +1086,15 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<String> getDefinedTypes() throws SQLException {
-        List<String> results = new ArrayList<>();
-        String sql = "SELECT DISTINCT type FROM artifacts WHERE type IS NOT NULL ORDER BY type;";
-
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                /**
-                 * ========================================================================
-                 * ĐÃ SỬA LỖI (DÒNG NÀY)
-                 * ========================================================================
-                 */
-                results.add(rs.getString("type")); // Sửa từ "status" thành "type"
-                /**
-                 * ========================================================================
-                 * HẾT PHẦN SỬA LỖI
-                 * ========================================================================
-                 */
+        return connectionManager.read(conn -> {
+            List<String> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SELECT_DEFINED_TYPES_SQL).executeQuery()) {
+                while (rs.next()) {
+                    results.add(rs.getString("type"));
+                }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     /**
@@ -408,49 +1102,54 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<Artifact> queryArtifactsByCriteria(String type, String status, String releaseId) throws SQLException {
-        List<Artifact> results = new ArrayList<>();
-
-        /**
-         * Xây dựng (build) query SQL động
-         */
-        StringBuilder sql = new StringBuilder("SELECT id, name, type, relativePath FROM artifacts a WHERE a.type = ?");
         List<Object> params = new ArrayList<>();
         params.add(type);
 
-        if (status != null && !status.isEmpty()) {
-            sql.append(" AND a.status = ?");
+        boolean hasStatus = status != null && !status.isEmpty();
+        if (hasStatus) {
             params.add(status);
         }
 
-        if (releaseId != null && !releaseId.isEmpty()) {
-            /**
-             * Lọc các artifact (a) có một liên kết (link) TỚI releaseId
-             */
-            sql.append(" AND EXISTS (SELECT 1 FROM links l WHERE l.fromId = a.id AND l.toId = ?)");
+        boolean hasRelease = releaseId != null && !releaseId.isEmpty();
+        if (hasRelease) {
             params.add(releaseId);
         }
 
-        sql.append(" ORDER BY a.id;");
+        String sql = buildCriteriaSql(hasStatus, hasRelease);
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+        return connectionManager.read(conn -> {
             /**
-             * Đặt (set) các tham số (parameter)
+             * Chỉ có 4 biến thể câu SQL (status/release có hoặc không),
+             * nên vẫn có thể cache PreparedStatement.
              */
+            PreparedStatement pstmt = conn.prepare(sql);
             for (int i = 0; i < params.size(); i++) {
                 pstmt.setObject(i + 1, params.get(i));
             }
+            return readArtifactSummaries(pstmt);
+        });
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Artifact artifact = new Artifact();
-                artifact.setId(rs.getString("id"));
-                artifact.setName(rs.getString("name"));
-                artifact.setArtifactType(rs.getString("type"));
-                artifact.setRelativePath(rs.getString("relativePath"));
-                results.add(artifact);
-            }
+    /**
+     * Xây dựng (build) query SQL động cho queryArtifactsByCriteria().
+     *
+     * @param hasStatus  Có lọc theo Trạng thái
+     * @param hasRelease Có lọc theo Release
+     * @return Câu SQL
+     */
+    private static String buildCriteriaSql(boolean hasStatus, boolean hasRelease) {
+        StringBuilder sql = new StringBuilder("SELECT id, name, type, relativePath FROM artifacts a WHERE a.type = ?");
+        if (hasStatus) {
+            sql.append(" AND a.status = ?");
         }
-        return results;
+        if (hasRelease) {
+            /**
+             * Lọc các artifact (a) có một liên kết (link) TỚI releaseId
+             */
+            sql.append(" AND EXISTS (SELECT 1 FROM links l WHERE l.fromId = a.id AND l.toId = ?)");
+        }
+        sql.append(" ORDER BY a.id;");
+        return sql.toString();
     }
 
     /**
@@ -458,23 +1157,24 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<Map<String, String>> getAllNodes() throws SQLException {
-        List<Map<String, String>> results = new ArrayList<>();
         /**
          * 'label' và 'group' là các key (khóa) được vis.js yêu cầu
          */
         String sql = "SELECT id, name AS label, type AS 'group' FROM artifacts;";
 
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Map<String, String> node = new HashMap<>();
-                node.put("id", rs.getString("id"));
-                node.put("label", rs.getString("label"));
-                node.put("group", rs.getString("group"));
-                results.add(node);
+        return connectionManager.read(conn -> {
+            List<Map<String, String>> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    Map<String, String> node = new HashMap<>();
+                    node.put("id", rs.getString("id"));
+                    node.put("label", rs.getString("label"));
+                    node.put("group", rs.getString("group"));
+                    results.add(node);
+                }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     /**
@@ -482,20 +1182,67 @@ public class SqliteIndexRepository implements ISqliteIndexRepository {
      */
     @Override
     public List<Map<String, String>> getAllEdges() throws SQLException {
-        List<Map<String, String>> results = new ArrayList<>();
         /**
          * 'from' và 'to' là các key (khóa) được vis.js yêu cầu
          */
         String sql = "SELECT fromId AS 'from', toId AS 'to' FROM links;";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
+
+        return connectionManager.read(conn -> {
+            List<Map<String, String>> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    Map<String, String> edge = new HashMap<>();
+                    edge.put("from", rs.getString("from"));
+                    edge.put("to", rs.getString("to"));
+                    results.add(edge);
+                }
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Helper ánh xạ các dòng của bảng 'folders' thành ProjectFolder.
+     *
+     * @param rs ResultSet (id, name, parentId, artifactTypeScope, relativePath)
+     * @return Danh sách ProjectFolder
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private static List<ProjectFolder> readFolders(ResultSet rs) throws SQLException {
+        List<ProjectFolder> results = new ArrayList<>();
+        while (rs.next()) {
+            ProjectFolder folder = new ProjectFolder();
+            folder.setId(rs.getString("id"));
+            folder.setName(rs.getString("name"));
+            folder.setParentId(rs.getString("parentId"));
+            folder.setArtifactTypeScope(rs.getString("artifactTypeScope"));
+            folder.setRelativePath(rs.getString("relativePath"));
+            results.add(folder);
+        }
+        return results;
+    }
+
+    /**
+     * Helper thực thi một PreparedStatement (đã cache) và ánh xạ
+     * các dòng (id, name, type, relativePath) thành Artifact tóm tắt.
+     * ResultSet luôn được đóng; PreparedStatement thì KHÔNG (thuộc cache).
+     *
+     * @param pstmt Câu lệnh đã đặt tham số
+     * @return Danh sách Artifact tóm tắt
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private List<Artifact> readArtifactSummaries(PreparedStatement pstmt) throws SQLException {
+        List<Artifact> results = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                Map<String, String> edge = new HashMap<>();
-                edge.put("from", rs.getString("from"));
-                edge.put("to", rs.getString("to"));
-                results.add(edge);
+                Artifact artifact = new Artifact();
+                artifact.setId(rs.getString("id"));
+                artifact.setName(rs.getString("name"));
+                artifact.setArtifactType(rs.getString("type"));
+                artifact.setRelativePath(rs.getString("relativePath"));
+                results.add(artifact);
             }
         }
         return results;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.rms.app.repository;
+
+import com.rms.app.service.impl.ProjectServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Nhật ký ý định (intent journal) cho Triple-Write (.json, .md, CSDL Chỉ mục).
+ * Trước khi ghi, một dòng BEGIN được ghi (và fsync) vào .config/write-journal.log;
+ * sau khi cả ba nơi đã được cập nhật, một dòng END được ghi thêm.
+ * Một BEGIN không có END nghĩa là ứng dụng đã dừng giữa chừng:
+ * khi mở lại dự án, chỉ các file đó cần được xử lý lại (thay vì quét lại toàn bộ).
+ * Định dạng dòng: "BEGIN\t<txId>\t<SAVE|DELETE>\t<relativePath>" hoặc "END\t<txId>".
+ * Giao dịch thất bại giữa chừng (abandon) giữ nguyên dòng BEGIN không có END để được khôi phục;
+ * dòng đó được giữ lại qua các lần làm rỗng (compact) nhật ký.
+ * Trạng thái trong bộ nhớ (giao dịch đang mở / bị bỏ dở) được giữ RIÊNG cho từng dự án (theo thư mục gốc),
+ * nên một lần ghi dở của dự án cũ khi đổi dự án không ảnh hưởng việc làm rỗng nhật ký của dự án mới.
+ */
+class WriteJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteJournal.class);
+
+    static final String JOURNAL_FILE = "write-journal.log";
+
+    /**
+     * Khi không còn giao dịch mở và nhật ký vượt quá kích thước này, nhật ký được làm rỗng.
+     */
+    private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    enum Operation {
+        SAVE,
+        DELETE
+    }
+
+    /**
+     * Một ý định chưa hoàn tất (BEGIN không có END).
+     */
+    record Intent(String txId, Operation operation, String relativePath) {
+    }
+
+    /**
+     * Trạng thái của nhật ký một dự án.
+     */
+    private static final class ProjectJournal {
+        /**
+         * Các giao dịch đang mở: txId -> dòng BEGIN
+         */
+        private final Map<String, String> openTransactions = new LinkedHashMap<>();
+        /**
+         * Dòng BEGIN của các giao dịch bị bỏ dở (chờ khôi phục khi mở lại dự án)
+         */
+        private final List<String> abandonedBegins = new ArrayList<>();
+    }
+
+    /**
+     * Thư mục gốc dự án (chuẩn hóa) -> trạng thái nhật ký của dự án đó
+     */
+    private final Map<Path, ProjectJournal> projects = new HashMap<>();
+
+    /**
+     * Ghi (và fsync) ý định trước khi thay đổi file.
+     *
+     * @param projectRoot  Thư mục gốc dự án
+     * @param operation    Thao tác
+     * @param relativePath Đường dẫn tương đối của file .json
+     * @return ID giao dịch (dùng cho end())
+     * @throws IOException Nếu không ghi được nhật ký (khi đó KHÔNG được ghi file)
+     */
+    synchronized String begin(Path projectRoot, Operation operation, String relativePath) throws IOException {
+        String txId = UUID.randomUUID().toString();
+        String line = "BEGIN\t" + txId + "\t" + operation + "\t" + relativePath + "\n";
+        append(projectRoot, line, true);
+        stateOf(projectRoot).openTransactions.put(txId, line);
+        return txId;
+    }
+
+    /**
+     * Đánh dấu giao dịch đã hoàn tất (không cần fsync: nếu dòng END bị mất,
+     * lần mở sau chỉ xử lý lại một file đã nhất quán - thao tác lặp lại vô hại).
+     *
+     * @param projectRoot Thư mục gốc dự án
+     * @param txId        ID giao dịch
+     */
+    synchronized void end(Path projectRoot, String txId) {
+        ProjectJournal state = stateOf(projectRoot);
+        state.openTransactions.remove(txId);
+        try {
+            Path journal = journalPath(projectRoot);
+            if (state.openTransactions.isEmpty() && Files.size(journal) > COMPACT_THRESHOLD_BYTES) {
+                /**
+                 * Mọi giao dịch đều đã xong: làm rỗng nhật ký thay vì ghi END
+                 * (chỉ giữ lại BEGIN của các giao dịch bị bỏ dở)
+                 */
+                truncate(journal);
+                for (String line : state.abandonedBegins) {
+                    append(projectRoot, line, true);
+                }
+            } else {
+                append(projectRoot, "END\t" + txId + "\n", false);
+            }
+        } catch (IOException e) {
+            logger.warn("Không thể ghi END vào nhật ký ghi: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đánh dấu giao dịch thất bại giữa chừng (ghi file lỗi): KHÔNG ghi END,
+     * để lần mở dự án sau xử lý lại file đó; giao dịch không còn được tính là đang mở
+     * (nhật ký vẫn được làm rỗng định kỳ).
+     *
+     * @param projectRoot Thư mục gốc dự án
+     * @param txId        ID giao dịch
+     */
+    synchronized void abandon(Path projectRoot, String txId) {
+        ProjectJournal state = stateOf(projectRoot);
+        String line = state.openTransactions.remove(txId);
+        if (line != null) {
+            state.abandonedBegins.add(line);
+        }
+    }
+
+    /**
+     * Đọc các ý định chưa hoàn tất (dòng cuối bị ghi dở do crash được bỏ qua).
+     *
+     * @param projectRoot Thư mục gốc dự án
+     * @return Danh sách ý định theo thứ tự ghi
+     * @throws IOException Nếu lỗi đọc
+     */
+    synchronized List<Intent> readPending(Path projectRoot) throws IOException {
+        Map<String, Intent> pending = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalPath(projectRoot), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4 && parts[0].equals("BEGIN")) {
+                    try {
+                        pending.put(parts[1], new Intent(parts[1], Operation.valueOf(parts[2]), parts[3]));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Bỏ qua dòng nhật ký không hợp lệ: {}", line);
+                    }
+                } else if (parts.length == 2 && parts[0].equals("END")) {
+                    pending.remove(parts[1]);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Làm rỗng nhật ký (sau khi đã khôi phục xong).
+     *
+     * @param projectRoot Thư mục gốc dự án
+     * @throws IOException Nếu lỗi I/O
+     */
+    synchronized void reset(Path projectRoot) throws IOException {
+        projects.remove(keyOf(projectRoot));
+        Path journal = journalPath(projectRoot);
+        if (Files.exists(journal)) {
+            truncate(journal);
+        }
+    }
+
+    private ProjectJournal stateOf(Path projectRoot) {
+        return projects.computeIfAbsent(keyOf(projectRoot), key -> new ProjectJournal());
+    }
+
+    private static Path keyOf(Path projectRoot) {
+        return projectRoot.toAbsolutePath().normalize();
+    }
+
+    private static Path journalPath(Path projectRoot) {
+        return projectRoot.resolve(ProjectServiceImpl.CONFIG_DIR).resolve(JOURNAL_FILE);
+    }
+
+    private static void append(Path projectRoot, String line, boolean fsync) throws IOException {
+        Path journal = journalPath(projectRoot);
+        Files.createDirectories(journal.getParent());
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+    }
+
+    private static void truncate(Path journal) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.rms.app.service;
+
+import com.rms.app.model.StoredDocument;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * SPI (Service Provider Interface) cho kho lưu trữ artifact dạng một-file nhúng (embedded),
+ * ví dụ: các bảng SQLite chứa toàn bộ tài liệu JSON của artifact.
+ * Khóa của tài liệu là relativePath logic (giống chế độ FILES, ví dụ "UC/UC001.json"),
+ * nên cây thư mục, CSDL Chỉ mục và UI hoạt động như nhau trên mọi backend.
+ * Mọi phương thức làm việc trên dự án đang mở.
+ */
+public interface IArtifactDocumentStore {
+
+    /**
+     * Đọc thông tin (không có nội dung) của một tài liệu.
+     *
+     * @param relativePath Đường dẫn tương đối
+     * @return Thông tin, hoặc null nếu không tồn tại
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    StoredDocument stat(String relativePath) throws IOException;
+
+    /**
+     * Đọc một tài liệu (kèm nội dung).
+     *
+     * @param relativePath Đường dẫn tương đối
+     * @return Tài liệu, hoặc null nếu không tồn tại
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    StoredDocument read(String relativePath) throws IOException;
+
+    /**
+     * Ghi (tạo mới hoặc thay thế) một tài liệu, nguyên tử.
+     *
+     * @param relativePath Đường dẫn tương đối
+     * @param content      Nội dung JSON
+     * @return true nếu đã ghi, false nếu nội dung giống hệt bản đã lưu (bỏ qua)
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    boolean write(String relativePath, byte[] content) throws IOException;
+
+    /**
+     * @param relativePath Đường dẫn tương đối
+     * @return true nếu tài liệu tồn tại và đã bị xóa
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    boolean delete(String relativePath) throws IOException;
+
+    /**
+     * Liệt kê các tài liệu nằm TRỰC TIẾP trong một thư mục (không đệ quy, không có nội dung).
+     *
+     * @param folderRelativePath Đường dẫn tương đối của thư mục ("" là thư mục dự án)
+     * @return Danh sách tài liệu
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    List<StoredDocument> list(String folderRelativePath) throws IOException;
+
+    /**
+     * Xóa mọi tài liệu trong một thư mục và các thư mục con của nó.
+     *
+     * @param folderRelativePath Đường dẫn tương đối của thư mục
+     * @return relativePath của các tài liệu đã xóa
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    List<String> deleteFolder(String folderRelativePath) throws IOException;
+
+    /**
+     * @return true nếu kho chưa có tài liệu nào
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    boolean isEmpty() throws IOException;
+
+    /**
+     * Ghi nhiều tài liệu trong MỘT giao dịch (dùng khi chuyển dự án từ chế độ FILES sang).
+     *
+     * @param documents Các tài liệu (relativePath + content)
+     * @throws IOException Nếu lỗi kho lưu trữ (không tài liệu nào được ghi)
+     */
+    void writeAll(List<StoredDocument> documents) throws IOException;
+
+    /**
+     * @param hash SHA-256 (hex) của blob (xem CompressedText)
+     * @return true nếu blob đã có trong kho
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    boolean hasBlob(String hash) throws IOException;
+
+    /**
+     * Đọc nội dung (gzip) của một blob.
+     *
+     * @param hash SHA-256 (hex) của blob
+     * @return Nội dung, hoặc null nếu không tồn tại
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    byte[] readBlob(String hash) throws IOException;
+
+    /**
+     * Lưu một blob nếu chưa có (blob đánh địa chỉ theo nội dung: cùng hash là cùng nội dung).
+     *
+     * @param hash    SHA-256 (hex) của blob
+     * @param content Nội dung (gzip)
+     * @throws IOException Nếu lỗi kho lưu trữ
+     */
+    void writeBlob(String hash, byte[] content) throws IOException;
+}
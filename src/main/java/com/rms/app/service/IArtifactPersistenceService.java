@@ -0,0 +1,56 @@
+package com.rms.app.service;
+
+import com.rms.app.model.Artifact;
+import com.rms.app.model.PersistenceQueueMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Interface (cho DIP) của Service lưu nền (write-behind) cho Artifact.
+ * Việc ghi (Triple-Write qua IArtifactRepository) chạy trên luồng nền,
+ * nên luồng UI không bao giờ bị chặn bởi I/O đĩa khi auto-save.
+ * Các yêu cầu lưu cho CÙNG một file (relativePath) chưa kịp ghi được gộp (coalesce):
+ * chỉ trạng thái mới nhất được ghi. Các lần ghi cho cùng một file luôn đúng thứ tự.
+ */
+public interface IArtifactPersistenceService {
+
+    /**
+     * Xếp một bản chụp (snapshot) của artifact vào hàng đợi ghi.
+     * Bản chụp KHÔNG được thay đổi sau khi gọi hàm này.
+     *
+     * @param snapshot Artifact (đã có id và relativePath)
+     * @return Future hoàn tất khi bản chụp này (hoặc một bản mới hơn đã gộp nó) được ghi xuống đĩa
+     */
+    CompletableFuture<Void> enqueueSave(Artifact snapshot);
+
+    /**
+     * Xếp một thay đổi (đọc - sửa - ghi) của artifact vào hàng đợi ghi.
+     * Việc đọc (load), sửa và lưu đều chạy trên luồng ghi, theo đúng thứ tự với
+     * các lần lưu khác của cùng file: nếu còn một bản chụp chưa ghi, thay đổi được áp lên bản chụp đó.
+     *
+     * @param relativePath Đường dẫn tương đối của file .json
+     * @param update       Hàm sửa artifact (được phép sửa trực tiếp và trả về chính đối tượng nhận vào)
+     * @return Future hoàn tất khi artifact đã sửa được ghi xuống đĩa
+     */
+    CompletableFuture<Void> enqueueUpdate(String relativePath, Function<Artifact, Artifact> update);
+
+    /**
+     * Rào chắn (barrier) cho một file: chờ mọi lần ghi đang chờ/đang chạy của file đó hoàn tất.
+     * Dùng trước khi đọc lại (load) hoặc xóa file từ đĩa.
+     *
+     * @param relativePath Đường dẫn tương đối của file .json
+     */
+    void flush(String relativePath);
+
+    /**
+     * Rào chắn cho toàn bộ hàng đợi: chờ mọi lần ghi đã xếp hàng hoàn tất.
+     * Dùng khi đổi dự án hoặc thoát ứng dụng.
+     */
+    void flushAll();
+
+    /**
+     * @return Số liệu hiện tại của hàng đợi (độ sâu, số lần gộp, thời gian ghi/chờ)
+     */
+    PersistenceQueueMetrics getMetrics();
+}
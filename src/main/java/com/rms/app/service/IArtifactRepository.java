@@ -1,11 +1,17 @@
 package com.rms.app.service;
 
 import com.rms.app.model.Artifact;
+import com.rms.app.model.CacheStatistics;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.model.WriteStatistics;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Interface (Giao diện) - Tuân thủ DIP
+ * Mỗi chế độ lưu trữ (ArtifactStorageMode) có một triển khai riêng;
+ * UI và các Service chỉ làm việc qua interface này.
  */
 public interface IArtifactRepository {
 
@@ -20,6 +26,8 @@ public interface IArtifactRepository {
 
     /**
      * Tải một đối tượng (Artifact) từ file system bằng đường dẫn tương đối.
+     * Kết quả có thể đến từ bộ đệm (khi file không đổi); người gọi luôn nhận một bản sao riêng,
+     * được tự do sửa đổi.
      *
      * @param relativePath Đường dẫn tương đối (ví dụ: "UC/UC001.json")
      * @return Artifact đã tải
@@ -27,6 +35,16 @@ public interface IArtifactRepository {
      */
     Artifact load(String relativePath) throws IOException;
 
+    /**
+     * Phiên bản hiện tại của file .json (kích thước + mtime), không đọc nội dung.
+     * Dùng để nhận biết artifact đã thay đổi hay chưa (ví dụ: bộ đệm chương khi xuất bản).
+     *
+     * @param relativePath Đường dẫn tương đối (ví dụ: "UC/UC001.json")
+     * @return StoredDocument (content = null), hoặc null nếu không tồn tại
+     * @throws IOException Nếu lỗi nơi lưu trữ
+     */
+    StoredDocument stat(String relativePath) throws IOException;
+
     /**
      * Xóa một đối tượng (Artifact) bằng đường dẫn tương đối.
      *
@@ -35,6 +53,16 @@ public interface IArtifactRepository {
      */
     void delete(String relativePath) throws IOException;
 
+    /**
+     * Xóa các artifact nằm trong một thư mục (kể cả thư mục con) khỏi nơi lưu trữ,
+     * trước khi thư mục vật lý bị xóa. Ở chế độ FILES, việc xóa thư mục vật lý đã đủ.
+     *
+     * @param folderRelativePath Đường dẫn tương đối của thư mục
+     * @return ID của các artifact đã bị xóa
+     * @throws IOException Nếu lỗi nơi lưu trữ
+     */
+    List<String> deleteFolderArtifacts(String folderRelativePath) throws IOException;
+
     /**
      * Tải nội dung (đã auto-gen) của file Markdown (.md).
      * Tham chiếu UC-PUB-01 (Bước 7.5).
@@ -44,4 +72,31 @@ public interface IArtifactRepository {
      * @throws IOException Nếu không tìm thấy file
      */
     String loadMarkdown(String relativePath) throws IOException;
+
+    /**
+     * Khôi phục các lần ghi/xóa bị gián đoạn (crash) được ghi trong nhật ký ý định
+     * (.config/write-journal.log) của dự án đang mở: file .md được tạo lại từ file .json,
+     * các lần xóa dở dang được hoàn tất, và file tạm còn sót lại bị dọn.
+     * CSDL Chỉ mục sẽ hội tụ ở lượt đồng bộ tăng dần (syncIndex) chạy ngay sau đó.
+     *
+     * @return Số thao tác đã được khôi phục
+     * @throws IOException Nếu không đọc được nhật ký
+     */
+    int recoverPendingWrites() throws IOException;
+
+    /**
+     * Ghi ngay các file .md đang chờ ghi trễ (chế độ DEFERRED) và chờ tới khi xong.
+     * Gọi khi đổi dự án hoặc thoát ứng dụng.
+     */
+    void flushDeferredWrites();
+
+    /**
+     * @return Bộ đếm số lần ghi đã thực hiện / đã bỏ qua (nội dung không đổi) cho .json, .md và CSDL Chỉ mục
+     */
+    WriteStatistics getWriteStatistics();
+
+    /**
+     * @return Số liệu trúng/trượt của bộ đệm Artifact đã parse (dùng bởi load())
+     */
+    CacheStatistics getCacheStatistics();
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.rms.app.service;
+
+import com.rms.app.model.Artifact;
+
+import java.util.List;
+
+/**
+ * Interface (cho DIP) của chỉ mục Autocomplete (@ID) trong bộ nhớ (UC-DEV-02).
+ * Thay cho việc truy vấn SQLite ở mỗi lần di chuyển con trỏ:
+ * tra cứu không khóa (lock-free), đủ nhanh để gọi trực tiếp trên FX thread.
+ */
+public interface IAutocompleteService {
+
+    /**
+     * Tải lại toàn bộ chỉ mục Autocomplete từ CSDL Chỉ mục.
+     * PHẢI gọi từ luồng nền (background thread).
+     */
+    void rebuild();
+
+    /**
+     * Thêm (hoặc cập nhật) một artifact (sau khi lưu).
+     *
+     * @param artifact Artifact (chỉ dùng ID, Name, Type, relativePath)
+     */
+    void put(Artifact artifact);
+
+    /**
+     * Xóa một artifact (sau khi xóa file).
+     *
+     * @param artifactId ID của artifact
+     */
+    void remove(String artifactId);
+
+    /**
+     * Gợi ý các artifact cho đoạn đã gõ sau ký tự '@'.
+     * Xếp hạng: ID khớp chính xác, rồi ID bắt đầu bằng prefix,
+     * rồi Tên có một từ bắt đầu bằng prefix (không phân biệt hoa/thường).
+     *
+     * @param prefix Đoạn đã gõ (ví dụ: "UC0")
+     * @param limit  Số kết quả tối đa (Autocomplete dùng 10)
+     * @return Danh sách các Artifact (chỉ chứa ID, Name, Type, relativePath)
+     */
+    List<Artifact> suggest(String prefix, int limit);
+}
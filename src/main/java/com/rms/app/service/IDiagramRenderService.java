@@ -22,6 +22,16 @@ public interface IDiagramRenderService {
      */
     BufferedImage render(String plantUmlCode) throws IOException;
 
+    /**
+     * Render một chuỗi mã PlantUML thành ảnh PNG (dạng byte, không giải mã thành BufferedImage).
+     * Dùng khi nhúng sơ đồ vào tài liệu xuất bản.
+     *
+     * @param plantUmlCode Chuỗi mã PlantUML
+     * @return Nội dung file PNG
+     * @throws IOException Nếu thư viện PlantUML không thể render mã
+     */
+    byte[] renderPng(String plantUmlCode) throws IOException;
+
     /**
      * Chuyển đổi dữ liệu Flow (List<FlowStep>) thành mã PlantUML.
      * Tham chiếu UC-MOD-01 [vinhtt95/baworkbench/BAWorkbench-c5a6f74b866bd635fc341b1b5b0b13160f7ba9a1/Requirement/UseCases/UC-MOD-01.md]
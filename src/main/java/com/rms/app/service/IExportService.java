@@ -27,14 +27,16 @@ public interface IExportService {
      *
      * @param markdownContent Chuỗi nội dung Markdown (Nguồn)
      * @param outputFile      File .pdf (Đích)
-     * @throws IOException          Nếu lỗi I/O (ghi file temp) hoặc lỗi Pandoc
-     * @throws InterruptedException Nếu luồng (thread) Pandoc bị gián đoạn
+     * @throws IOException          Nếu lỗi Pandoc hoặc Pandoc chạy quá thời gian
+     * @throws InterruptedException Nếu luồng gọi bị gián đoạn (tiến trình Pandoc bị dừng)
      */
     void exportMarkdownToPdf(String markdownContent, File outputFile) throws IOException, InterruptedException;
 
     /**
      * Điều phối (orchestrate) toàn bộ quá trình xuất bản PDF/DOCX.
      * Tuân thủ UC-PUB-01.
+     * PDF đi qua Pandoc (xelatex). DOCX mặc định được dựng trực tiếp trong tiến trình (Apache POI);
+     * nếu dự án chọn docxExportEngine = PANDOC (.config/project.json), DOCX cũng đi qua Pandoc.
      *
      * @param outputFile         File .pdf hoặc .docx (Đích)
      * @param exportTemplateName Tên của Template Xuất bản (ví dụ: "SRS Template Chuẩn")
@@ -0,0 +1,41 @@
+package com.rms.app.service;
+
+import com.rms.app.model.CompressedText;
+
+import java.io.IOException;
+
+/**
+ * Interface (cho DIP) của kho blob chứa các giá trị trường lớn đã nén (xem CompressedText).
+ * Blob được đánh địa chỉ theo nội dung (SHA-256), nên ghi lại cùng nội dung không tạo blob mới.
+ * Nơi lưu theo chế độ lưu trữ của dự án đang mở:
+ * - FILES: .config/blobs/<sha256>.gz (được commit cùng dự án).
+ * - SQLITE: bảng 'blobs' của artifacts.db.
+ */
+public interface IFieldBlobStore {
+
+    /**
+     * Lưu blob của một giá trị vào dự án đang mở (bỏ qua nếu đã có).
+     * Phải được gọi trước khi ghi file .json tham chiếu tới blob.
+     *
+     * @param value Giá trị đã nén
+     * @throws IOException Nếu không có dự án nào đang mở hoặc lỗi I/O
+     */
+    void store(CompressedText value) throws IOException;
+
+    /**
+     * Nơi đọc blob, gắn với dự án đang mở (và chế độ lưu trữ của nó) tại thời điểm gọi,
+     * để một artifact đã đọc vẫn đọc đúng blob của dự án mình.
+     *
+     * @return BlobLoader
+     */
+    CompressedText.BlobLoader loaderForCurrentProject();
+
+    /**
+     * Chép các blob dạng file (.config/blobs, chế độ FILES) của dự án đang mở vào bảng 'blobs'
+     * (dùng khi chuyển dự án sang chế độ SQLITE). Các file blob được giữ nguyên.
+     *
+     * @return Số blob đã chép
+     * @throws IOException Nếu không có dự án nào đang mở hoặc lỗi I/O
+     */
+    int importFileBlobs() throws IOException;
+}
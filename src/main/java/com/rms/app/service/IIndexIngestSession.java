@@ -0,0 +1,67 @@
+package com.rms.app.service;
+
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.IndexedFileState;
+import com.rms.app.model.ProjectFolder;
+
+import java.sql.SQLException;
+
+/**
+ * Phiên (session) nạp hàng loạt (bulk-ingest) vào CSDL Chỉ mục.
+ * Dùng cho Tái lập Chỉ mục (UC-PM-04): các dòng được ghi theo lô (batch)
+ * vào một bộ bảng bóng (shadow) và chỉ được hoán đổi (swap) vào bộ bảng chính
+ * một cách nguyên tử (atomic) khi gọi commit().
+ * Trong suốt quá trình nạp, bộ bảng chính (và cây dự án trên UI) vẫn giữ dữ liệu cũ.
+ */
+public interface IIndexIngestSession extends AutoCloseable {
+
+    /**
+     * Thêm một thư mục vào phiên.
+     *
+     * @param folder Đối tượng Thư mục
+     * @throws SQLException Nếu lỗi CSDL khi đẩy (flush) lô
+     */
+    void addFolder(ProjectFolder folder) throws SQLException;
+
+    /**
+     * Thêm một artifact vào phiên.
+     * Chỉ cần header (có relativePath, folderId và searchText), không cần toàn bộ 'fields'.
+     *
+     * @param header Header của artifact (đọc bằng readArtifactForIndex)
+     * @throws SQLException Nếu lỗi CSDL khi đẩy (flush) lô
+     */
+    void addArtifact(ArtifactHeader header) throws SQLException;
+
+    /**
+     * Thêm một liên kết (link) vào phiên.
+     *
+     * @param fromId ID của artifact nguồn
+     * @param toId   ID của artifact được liên kết
+     * @throws SQLException Nếu lỗi CSDL khi đẩy (flush) lô
+     */
+    void addLink(String fromId, String toId) throws SQLException;
+
+    /**
+     * Ghi nhận trạng thái (kích thước, mtime, hash) của file nguồn
+     * để lần mở dự án sau có thể lập chỉ mục tăng dần.
+     *
+     * @param state Trạng thái file
+     * @throws SQLException Nếu lỗi CSDL khi đẩy (flush) lô
+     */
+    void addFileState(IndexedFileState state) throws SQLException;
+
+    /**
+     * Đẩy các dòng còn lại và hoán đổi bộ bảng bóng vào bộ bảng chính
+     * trong MỘT giao dịch (transaction).
+     *
+     * @throws SQLException Nếu lỗi CSDL (bộ bảng chính không bị thay đổi)
+     */
+    void commit() throws SQLException;
+
+    /**
+     * Kết thúc phiên. Nếu chưa commit(), dữ liệu bóng bị hủy (abort)
+     * và bộ bảng chính giữ nguyên.
+     */
+    @Override
+    void close();
+}
@@ -1,6 +1,10 @@
 package com.rms.app.service;
 
 import com.rms.app.model.Artifact;
+import com.rms.app.model.StoredDocument;
+
+import java.nio.file.Path;
+import java.util.Collection;
 
 /**
  * Interface (cho DIP) của Service Lập Chỉ mục.
@@ -19,11 +23,33 @@ public interface IIndexService {
     void validateAndRebuildIndex();
 
     /**
-     * Cập nhật (Upsert) một artifact duy nhất vào chỉ mục.
+     * Đồng bộ CSDL Chỉ mục với thư mục dự án khi MỞ dự án.
+     * Chỉ phân tích lại các file .json đã thêm/sửa (theo kích thước, mtime, hash nội dung)
+     * và xóa mục của các file đã bị xóa. Nếu chỉ mục chưa có dữ liệu trạng thái file,
+     * thực hiện Tái lập toàn bộ như validateAndRebuildIndex().
+     * PHẢI chạy trên luồng nền (background thread).
+     */
+    void syncIndex();
+
+    /**
+     * Đồng bộ CSDL Chỉ mục cho các thư mục có thay đổi từ bên ngoài ứng dụng
+     * (ví dụ: git pull, script), do Project Watcher phát hiện.
+     * Chỉ quét lại cây con của các thư mục này và áp dụng delta (thư mục, artifact, liên kết).
+     * Chỉ đặt MỘT thông điệp "Hoàn tất." (làm mới cây dự án) nếu có file/thư mục được thêm hoặc xóa.
+     * Chạy ĐỒNG BỘ trên luồng gọi, PHẢI gọi từ luồng nền (background thread).
+     *
+     * @param directories Các thư mục (đường dẫn tuyệt đối) có sự kiện thay đổi
+     */
+    void syncDirectories(Collection<Path> directories);
+
+    /**
+     * Cập nhật (Upsert) một artifact duy nhất vào chỉ mục, ngay sau khi nó được lưu.
+     * Liên kết và văn bản FTS được trích từ nội dung vừa ghi (giống Tái lập / đồng bộ).
      * (Sẽ dùng ở Ngày 20)
      * @param artifact Đối tượng cần cập nhật
+     * @param stored   Tài liệu vừa ghi: nội dung .json, kích thước và mtime
      */
-    void updateArtifactInIndex(Artifact artifact);
+    void updateArtifactInIndex(Artifact artifact, StoredDocument stored);
 
     /**
      * Xóa một artifact khỏi chỉ mục.
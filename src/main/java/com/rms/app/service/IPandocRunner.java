@@ -0,0 +1,28 @@
+package com.rms.app.service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface (cho DIP) của trình chạy Pandoc bất đồng bộ (UC-PUB-01).
+ * Markdown được đẩy thẳng vào stdin của tiến trình (không có file .md trung gian dùng chung);
+ * stdout và stderr được đọc song song để tiến trình không bao giờ bị chặn vì đầy pipe.
+ * Mỗi lần chạy có một thư mục làm việc riêng, nên nhiều lần xuất có thể chạy cùng lúc.
+ */
+public interface IPandocRunner {
+
+    /**
+     * Chạy Pandoc để chuyển một chuỗi Markdown thành file đích (định dạng theo đuôi file).
+     * File đích chỉ được thay thế khi Pandoc thành công.
+     * Hủy (cancel) Future sẽ dừng tiến trình Pandoc (và các tiến trình con như xelatex).
+     *
+     * @param markdownContent Nội dung Markdown (Nguồn)
+     * @param outputFile      File đích (.pdf, .docx, ...)
+     * @param options         Tham số bổ sung cho Pandoc (ví dụ: "--pdf-engine=xelatex")
+     * @param timeout         Thời gian chạy tối đa
+     * @return Future hoàn tất khi file đích đã được tạo; thất bại với IOException nếu Pandoc lỗi / quá thời gian
+     */
+    CompletableFuture<Void> convert(String markdownContent, File outputFile, List<String> options, Duration timeout);
+}
@@ -0,0 +1,47 @@
+package com.rms.app.service;
+
+import com.rms.app.model.IndexedFileState;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Interface (cho DIP) của Ảnh chụp (snapshot) nhị phân toàn dự án.
+ * Snapshot gom mọi artifact và Form template (JSON dạng gọn) vào MỘT file trong .config,
+ * được ánh xạ bộ nhớ (memory-mapped) để đọc nhanh khi xem/xuất tài liệu
+ * thay vì mở hàng nghìn file .json riêng lẻ.
+ * Một mục chỉ được dùng khi file nguồn không đổi kể từ lúc chụp (kích thước + mtime khớp);
+ * ngược lại người gọi phải đọc file nguồn.
+ */
+public interface IProjectSnapshotRepository {
+
+    /**
+     * Tạo mới / làm mới snapshot của dự án đang mở (do Indexer gọi sau khi lập chỉ mục).
+     * Các mục có file nguồn không đổi được chép lại từ snapshot cũ mà không đọc lại file.
+     *
+     * @param indexedFiles Các file artifact đã lập chỉ mục {relativePath -> IndexedFileState}
+     * @return Số mục phải đọc lại từ file nguồn (0 nếu snapshot vẫn còn mới)
+     * @throws IOException Nếu lỗi I/O khi ghi snapshot
+     */
+    int refresh(Map<String, IndexedFileState> indexedFiles) throws IOException;
+
+    /**
+     * Đọc nội dung JSON của một artifact từ snapshot.
+     *
+     * @param relativePath Đường dẫn tương đối của file .json
+     * @param size         Kích thước hiện tại của file nguồn
+     * @param lastModified mtime hiện tại của file nguồn
+     * @return JSON dạng gọn, hoặc null nếu không có mục / mục đã cũ
+     */
+    byte[] readArtifact(String relativePath, long size, long lastModified);
+
+    /**
+     * Đọc nội dung JSON của một Form template (trong .config) từ snapshot.
+     *
+     * @param fileName     Tên file template
+     * @param size         Kích thước hiện tại của file nguồn
+     * @param lastModified mtime hiện tại của file nguồn
+     * @return JSON dạng gọn, hoặc null nếu không có mục / mục đã cũ
+     */
+    byte[] readTemplate(String fileName, long size, long lastModified);
+}
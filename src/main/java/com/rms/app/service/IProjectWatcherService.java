@@ -0,0 +1,27 @@
+package com.rms.app.service;
+
+import java.io.File;
+
+/**
+ * Interface (cho DIP) của Service theo dõi (watch) thư mục dự án.
+ * Phát hiện các thay đổi file/thư mục từ bên ngoài ứng dụng
+ * (ví dụ: git pull, git checkout, script hàng loạt) và giữ CSDL Chỉ mục (index.db) đồng bộ
+ * thông qua IIndexService.syncDirectories().
+ */
+public interface IProjectWatcherService {
+
+    /**
+     * Bắt đầu theo dõi thư mục dự án (đệ quy, bỏ qua .config, target và thư mục ẩn).
+     * Nếu đang theo dõi một dự án khác, dự án cũ sẽ bị dừng theo dõi trước.
+     *
+     * @param projectRoot Thư mục gốc của dự án
+     */
+    void startWatching(File projectRoot);
+
+    /**
+     * Dừng theo dõi (khi đổi dự án hoặc thoát ứng dụng).
+     * Các thay đổi đang chờ (chưa hết thời gian debounce) bị bỏ qua;
+     * chúng sẽ được phát hiện bởi syncIndex() ở lần mở dự án tiếp theo.
+     */
+    void stopWatching();
+}
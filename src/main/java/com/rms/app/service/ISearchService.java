@@ -1,6 +1,7 @@
 package com.rms.app.service;
 
 import com.rms.app.model.Artifact;
+import com.rms.app.model.SearchHit;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,17 @@ public interface ISearchService {
      */
     List<Artifact> search(String query);
 
+    /**
+     * Tìm kiếm Toàn văn trên toàn dự án: ID, tên và nội dung mọi trường của artifact.
+     * Hỗ trợ khớp tiền tố (gõ "đăng nh" khớp "đăng nhập"), không phân biệt dấu,
+     * xếp hạng bm25 và snippet có đánh dấu từ khớp (SearchHit.HIGHLIGHT_START/END).
+     *
+     * @param query Từ khóa (các từ cách nhau bởi khoảng trắng, kết hợp AND)
+     * @param limit Số kết quả tối đa
+     * @return Danh sách kết quả (liên quan nhất trước), rỗng nếu lỗi
+     */
+    List<SearchHit> searchFullText(String query, int limit);
+
     /**
      * Tìm tất cả các artifact liên kết (link) đến artifactId này.
      * Tham chiếu UC-MOD-03.
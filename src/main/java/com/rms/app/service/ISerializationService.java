@@ -0,0 +1,106 @@
+package com.rms.app.service;
+
+import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.ArtifactTemplate;
+import com.rms.app.model.ExportTemplate;
+import com.rms.app.model.FlowStep;
+import com.rms.app.model.ProjectConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface (cho DIP) của Service tuần tự hóa (serialization) JSON dùng chung.
+ * Một cấu hình Jackson duy nhất cho toàn ứng dụng; các ObjectReader/ObjectWriter
+ * cho từng kiểu dữ liệu được tạo một lần và tái sử dụng (thread-safe).
+ * File dự án (.json, template, project.json) được ghi dạng thụt lề (pretty-print).
+ */
+public interface ISerializationService {
+
+    Artifact readArtifact(byte[] content) throws IOException;
+
+    Artifact readArtifact(File file) throws IOException;
+
+    /**
+     * @param artifact Artifact
+     * @return Nội dung file .json (pretty-print, UTF-8)
+     * @throws IOException Nếu lỗi tuần tự hóa
+     */
+    byte[] writeArtifact(Artifact artifact) throws IOException;
+
+    /**
+     * Như writeArtifact(Artifact), nhưng các giá trị chuỗi (ở mức trường) dài hơn ngưỡng
+     * được nén vào một blob của dự án đang mở (IFieldBlobStore, lưu trước khi trả về),
+     * và file .json chỉ giữ tham chiếu {"$blob": "<sha256>"} (CompressedText);
+     * khi tắt nén, các giá trị CompressedText được ghi lại dạng chuỗi thường.
+     * Artifact truyền vào không bị thay đổi.
+     * readArtifact luôn nhận diện dạng nén (kể cả dạng nhúng cũ {"$gzip": "..."}), bất kể cấu hình hiện tại.
+     *
+     * @param artifact             Artifact
+     * @param compressionThreshold Ngưỡng (số ký tự); <= 0 = không nén
+     * @return Nội dung file .json (pretty-print, UTF-8)
+     * @throws IOException Nếu lỗi tuần tự hóa
+     */
+    byte[] writeArtifact(Artifact artifact, int compressionThreshold) throws IOException;
+
+    /**
+     * Đọc header của artifact cho việc lập chỉ mục, trong MỘT lần duyệt token:
+     * ngoài các cột header, còn trích các ID được liên kết (@ID) và
+     * văn bản đã làm phẳng (cho FTS) từ mọi giá trị trong 'fields',
+     * mà không dựng Map/List trung gian nào.
+     *
+     * @param content Nội dung file .json
+     * @return Header (links và searchText luôn khác null)
+     * @throws IOException Nếu JSON không hợp lệ
+     */
+    ArtifactHeader readArtifactForIndex(byte[] content) throws IOException;
+
+    ArtifactTemplate readArtifactTemplate(File file) throws IOException;
+
+    ArtifactTemplate readArtifactTemplate(byte[] content) throws IOException;
+
+    void writeArtifactTemplate(File file, ArtifactTemplate template) throws IOException;
+
+    ExportTemplate readExportTemplate(File file) throws IOException;
+
+    void writeExportTemplate(File file, ExportTemplate template) throws IOException;
+
+    ProjectConfig readProjectConfig(File file) throws IOException;
+
+    void writeProjectConfig(File file, ProjectConfig config) throws IOException;
+
+    /**
+     * Chuyển giá trị thô (List các Map, từ JSON) thành danh sách FlowStep.
+     *
+     * @param rawValue Giá trị thô
+     * @return Danh sách FlowStep
+     * @throws IllegalArgumentException Nếu dữ liệu không đúng cấu trúc
+     */
+    List<FlowStep> toFlowSteps(Object rawValue);
+
+    /**
+     * Chuyển đổi kiểu (ví dụ: giá trị thô sang LocalDate).
+     *
+     * @throws IllegalArgumentException Nếu không chuyển được
+     */
+    <T> T convertValue(Object value, Class<T> type);
+
+    /**
+     * @param value Giá trị bất kỳ
+     * @return Chuỗi JSON gọn (không thụt lề)
+     * @throws IOException Nếu lỗi tuần tự hóa
+     */
+    String writeCompactString(Object value) throws IOException;
+
+    /**
+     * Chép lại một văn bản JSON ở dạng gọn (bỏ thụt lề/khoảng trắng) bằng streaming,
+     * không dựng cây đối tượng. Đồng thời kiểm tra cú pháp.
+     *
+     * @param content Nội dung JSON (thường là file đã pretty-print)
+     * @return Nội dung JSON tương đương ở dạng gọn
+     * @throws IOException Nếu JSON không hợp lệ
+     */
+    byte[] compactJson(byte[] content) throws IOException;
+}
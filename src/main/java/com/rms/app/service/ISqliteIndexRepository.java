@@ -1,7 +1,10 @@
 package com.rms.app.service;
 
 import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.IndexedFileState;
 import com.rms.app.model.ProjectFolder;
+import com.rms.app.model.SearchHit;
 
 import java.io.File;
 import java.sql.SQLException;
@@ -22,6 +25,43 @@ public interface ISqliteIndexRepository {
      */
     void initializeDatabase(File projectConfigFile) throws SQLException;
 
+    /**
+     * Chẩn đoán: chạy EXPLAIN QUERY PLAN cho các truy vấn thường dùng của repository
+     * và ghi log (WARN nếu một truy vấn quét toàn bảng - full table scan).
+     * Tự động chạy (một lần mỗi CSDL) khi bật log DEBUG.
+     *
+     * @return Map (Ánh xạ) {tên truy vấn -> các dòng kế hoạch truy vấn}
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    Map<String, List<String>> explainQueryPlans() throws SQLException;
+
+    /**
+     * Một khối công việc ghi chạy trong một giao dịch (transaction) duy nhất.
+     */
+    @FunctionalInterface
+    interface IndexTransaction {
+        /**
+         * @throws SQLException Nếu lỗi CSDL (giao dịch sẽ bị rollback)
+         */
+        void run() throws SQLException;
+    }
+
+    /**
+     * Thực thi nhiều thao tác GHI (insert/delete) trong MỘT giao dịch.
+     * Các thao tác ghi gọi từ cùng luồng bên trong khối sẽ dùng chung giao dịch;
+     * các thao tác ĐỌC bên trong khối sẽ không thấy dữ liệu chưa commit.
+     *
+     * @param work Khối công việc
+     * @throws SQLException Nếu lỗi CSDL (mọi thay đổi bị rollback)
+     */
+    void executeInTransaction(IndexTransaction work) throws SQLException;
+
+    /**
+     * Đóng tất cả các kết nối (writer và pool reader) tới CSDL hiện tại.
+     * Gọi khi đổi dự án hoặc thoát ứng dụng.
+     */
+    void closeDatabase();
+
     /**
      * Xóa sạch (TRUNCATE) tất cả dữ liệu khỏi các bảng chỉ mục.
      *
@@ -29,6 +69,16 @@ public interface ISqliteIndexRepository {
      */
     void clearIndex() throws SQLException;
 
+    /**
+     * Bắt đầu một phiên nạp hàng loạt (bulk-ingest) cho Tái lập Chỉ mục.
+     * Các dòng được ghi theo lô vào bộ bảng bóng (shadow), commit theo từng khối (chunk),
+     * và chỉ thay thế bộ bảng chính khi phiên được commit().
+     *
+     * @return Phiên nạp (phải được đóng bằng close())
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    IIndexIngestSession beginBulkIngest() throws SQLException;
+
     /**
      * Thêm (hoặc cập nhật) thông tin của một artifact vào bảng chỉ mục.
      *
@@ -37,6 +87,15 @@ public interface ISqliteIndexRepository {
      */
     void insertArtifact(Artifact artifact) throws SQLException;
 
+    /**
+     * Thêm (hoặc cập nhật) một artifact vào bảng chỉ mục chỉ từ header của nó
+     * (không cần dựng toàn bộ 'fields').
+     *
+     * @param header Header của artifact (có relativePath, folderId và searchText)
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    void insertArtifact(ArtifactHeader header) throws SQLException;
+
     /**
      * [MỚI] Thêm (hoặc cập nhật) một thư mục vào bảng chỉ mục.
      *
@@ -54,6 +113,38 @@ public interface ISqliteIndexRepository {
      */
     void insertLink(String fromId, String toId) throws SQLException;
 
+    /**
+     * Lấy trạng thái (kích thước, mtime, hash) đã lập chỉ mục của mọi file artifact.
+     *
+     * @return Map (Ánh xạ) {relativePath -> IndexedFileState}
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    Map<String, IndexedFileState> getIndexedFileStates() throws SQLException;
+
+    /**
+     * Thêm (hoặc cập nhật) trạng thái đã lập chỉ mục của một file artifact.
+     *
+     * @param state Trạng thái file
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    void upsertFileState(IndexedFileState state) throws SQLException;
+
+    /**
+     * Xóa trạng thái đã lập chỉ mục của một file artifact.
+     *
+     * @param relativePath Đường dẫn tương đối của file
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    void deleteFileState(String relativePath) throws SQLException;
+
+    /**
+     * Lấy TẤT CẢ các thư mục trong chỉ mục (mọi cấp).
+     *
+     * @return Danh sách các ProjectFolder
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    List<ProjectFolder> getAllFolders() throws SQLException;
+
     /**
      * Xóa một artifact khỏi bảng 'artifacts'.
      *
@@ -88,6 +179,26 @@ public interface ISqliteIndexRepository {
      */
     List<Artifact> queryArtifacts(String query) throws SQLException;
 
+    /**
+     * Tìm kiếm Toàn văn (FTS5) trên ID, tên và nội dung các trường của artifact,
+     * xếp hạng theo bm25 (liên quan nhất trước), kèm snippet có đánh dấu từ khớp.
+     *
+     * @param matchExpression Biểu thức truy vấn FTS5 (đã được escape, ví dụ: "\"dang\"* AND \"nhap\"*")
+     * @param limit           Số kết quả tối đa
+     * @return Danh sách kết quả
+     * @throws SQLException Nếu lỗi CSDL hoặc biểu thức không hợp lệ
+     */
+    List<SearchHit> searchFullText(String matchExpression, int limit) throws SQLException;
+
+    /**
+     * Lấy thông tin tóm tắt của TẤT CẢ artifact
+     * (dùng để xây dựng chỉ mục Autocomplete trong bộ nhớ).
+     *
+     * @return Danh sách các Artifact (chỉ chứa ID, Name, Type, relativePath)
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    List<Artifact> getAllArtifactSummaries() throws SQLException;
+
     /**
      * Truy vấn chỉ mục (dùng cho Backlinks).
      *
@@ -116,6 +227,16 @@ public interface ISqliteIndexRepository {
      */
     List<Artifact> getArtifactsByStatus(String status) throws SQLException;
 
+    /**
+     * Lấy tất cả các artifact có Trạng thái, nhóm theo Trạng thái, bằng MỘT truy vấn
+     * (dùng cho Kanban, thay cho getDefinedStatuses() + getArtifactsByStatus() cho từng cột).
+     *
+     * @return Map (Ánh xạ) {Status -> Danh sách Artifact (chỉ chứa ID, Name, Type, relativePath), sắp theo ID},
+     *         theo thứ tự tên Trạng thái
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    Map<String, List<Artifact>> getArtifactsGroupedByStatus() throws SQLException;
+
     /**
      * [MỚI] Lấy tất cả các Thư mục con (sub-folder) trực tiếp.
      *
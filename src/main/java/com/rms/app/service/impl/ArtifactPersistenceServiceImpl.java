@@ -0,0 +1,263 @@
+package com.rms.app.service.impl;
+
+import com.google.inject.Inject;
+import com.rms.app.model.Artifact;
+import com.rms.app.model.PersistenceQueueMetrics;
+import com.rms.app.service.IArtifactPersistenceService;
+import com.rms.app.service.IArtifactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Triển khai hàng đợi lưu nền (write-behind) cho Artifact.
+ * Một luồng ghi DUY NHẤT ("artifact-writer") xử lý hàng đợi theo thứ tự FIFO,
+ * nên các lần ghi cho cùng một file luôn đúng thứ tự, và Triple-Write
+ * (JSON, Markdown, CSDL Chỉ mục) không tranh chấp với chính nó.
+ * Một yêu cầu lưu chỉ bị gộp vào yêu cầu trước đó nếu yêu cầu trước CHƯA bắt đầu ghi.
+ */
+public class ArtifactPersistenceServiceImpl implements IArtifactPersistenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactPersistenceServiceImpl.class);
+
+    /**
+     * Độ sâu hàng đợi mà từ đó ghi cảnh báo (đĩa không theo kịp).
+     */
+    private static final int HIGH_WATER_MARK = 32;
+    /**
+     * Thời gian chờ tối đa của flushAll() (tránh treo khi thoát nếu đĩa bị treo).
+     */
+    private static final long FLUSH_ALL_TIMEOUT_SECONDS = 30;
+
+    private final IArtifactRepository artifactRepository;
+    private final ThreadPoolExecutor writer;
+
+    /**
+     * Các lần ghi chưa bắt đầu, theo relativePath (được bảo vệ bởi 'lock').
+     */
+    private final Object lock = new Object();
+    private final Map<String, PendingWrite> pending = new HashMap<>();
+    private PendingWrite running = null;
+
+    private int maxQueueDepth = 0;
+    private long enqueuedCount = 0;
+    private long coalescedCount = 0;
+    private long writtenCount = 0;
+    private long failedCount = 0;
+    private long totalWriteNanos = 0;
+    private long maxQueueWaitNanos = 0;
+
+    /**
+     * Một lần ghi đang chờ cho một file. 'snapshot' được thay bằng bản mới nhất khi gộp.
+     * 'snapshot' là null nếu lần ghi chỉ gồm các thay đổi (enqueueUpdate): artifact được đọc từ đĩa khi ghi.
+     * Các thay đổi được áp (theo thứ tự) lên artifact trước khi lưu.
+     */
+    private static final class PendingWrite {
+        private final String relativePath;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final List<Function<Artifact, Artifact>> updates = new ArrayList<>(1);
+        private Artifact snapshot;
+
+        private PendingWrite(String relativePath, Artifact snapshot) {
+            this.relativePath = relativePath;
+            this.snapshot = snapshot;
+        }
+    }
+
+    @Inject
+    public ArtifactPersistenceServiceImpl(IArtifactRepository artifactRepository) {
+        this.artifactRepository = artifactRepository;
+        this.writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "artifact-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public CompletableFuture<Void> enqueueSave(Artifact snapshot) {
+        if (snapshot == null || snapshot.getRelativePath() == null || snapshot.getRelativePath().isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new IOException("Không thể lưu artifact: relativePath là null hoặc rỗng."));
+        }
+        String relativePath = snapshot.getRelativePath();
+
+        synchronized (lock) {
+            enqueuedCount++;
+            PendingWrite existing = pending.get(relativePath);
+            if (existing != null) {
+                /**
+                 * Chưa bắt đầu ghi: chỉ thay bằng trạng thái mới nhất
+                 * (bản chụp đầy đủ mới hơn cũng thay thế các thay đổi xếp hàng trước nó)
+                 */
+                existing.snapshot = snapshot;
+                existing.updates.clear();
+                coalescedCount++;
+                return existing.done;
+            }
+            return schedule(new PendingWrite(relativePath, snapshot));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> enqueueUpdate(String relativePath, Function<Artifact, Artifact> update) {
+        if (relativePath == null || relativePath.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new IOException("Không thể cập nhật artifact: relativePath là null hoặc rỗng."));
+        }
+
+        synchronized (lock) {
+            enqueuedCount++;
+            PendingWrite existing = pending.get(relativePath);
+            if (existing != null) {
+                /**
+                 * Chưa bắt đầu ghi: áp thay đổi lên lần ghi đang chờ (sau các thay đổi trước nó)
+                 */
+                existing.updates.add(update);
+                coalescedCount++;
+                return existing.done;
+            }
+            PendingWrite write = new PendingWrite(relativePath, null);
+            write.updates.add(update);
+            return schedule(write);
+        }
+    }
+
+    /**
+     * Gọi khi đang giữ 'lock'.
+     */
+    private CompletableFuture<Void> schedule(PendingWrite write) {
+        pending.put(write.relativePath, write);
+        maxQueueDepth = Math.max(maxQueueDepth, pending.size());
+        if (pending.size() == HIGH_WATER_MARK) {
+            logger.warn("Hàng đợi lưu nền đạt {} artifact đang chờ ghi. {}", HIGH_WATER_MARK, getMetricsLocked());
+        }
+        writer.execute(() -> write(write));
+        return write.done;
+    }
+
+    /**
+     * Chạy trên luồng "artifact-writer".
+     */
+    private void write(PendingWrite write) {
+        Artifact snapshot;
+        List<Function<Artifact, Artifact>> updates;
+        long startedAt = System.nanoTime();
+        synchronized (lock) {
+            pending.remove(write.relativePath);
+            running = write;
+            snapshot = write.snapshot;
+            updates = List.copyOf(write.updates);
+            maxQueueWaitNanos = Math.max(maxQueueWaitNanos, startedAt - write.enqueuedAt);
+        }
+
+        Exception failure = null;
+        try {
+            Artifact artifact = (snapshot != null) ? snapshot : artifactRepository.load(write.relativePath);
+            for (Function<Artifact, Artifact> update : updates) {
+                artifact = update.apply(artifact);
+            }
+            artifactRepository.save(artifact);
+        } catch (Exception e) {
+            failure = e;
+            logger.error("Lỗi khi lưu nền artifact {}", write.relativePath, e);
+        }
+
+        synchronized (lock) {
+            running = null;
+            totalWriteNanos += System.nanoTime() - startedAt;
+            if (failure == null) {
+                writtenCount++;
+            } else {
+                failedCount++;
+            }
+        }
+
+        if (failure == null) {
+            write.done.complete(null);
+        } else {
+            write.done.completeExceptionally(failure);
+        }
+    }
+
+    @Override
+    public void flush(String relativePath) {
+        if (relativePath == null) {
+            return;
+        }
+        List<CompletableFuture<Void>> waits = new ArrayList<>(2);
+        synchronized (lock) {
+            if (running != null && running.relativePath.equals(relativePath)) {
+                waits.add(running.done);
+            }
+            PendingWrite queued = pending.get(relativePath);
+            if (queued != null) {
+                waits.add(queued.done);
+            }
+        }
+        for (CompletableFuture<Void> wait : waits) {
+            try {
+                wait.get();
+            } catch (ExecutionException e) {
+                /**
+                 * Lỗi đã được ghi log (và báo cho người gọi enqueueSave)
+                 */
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void flushAll() {
+        /**
+         * Luồng ghi xử lý FIFO: một tác vụ rỗng chỉ chạy sau mọi lần ghi đã xếp hàng trước nó
+         */
+        Future<?> barrier = writer.submit(() -> { });
+        try {
+            barrier.get(FLUSH_ALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            artifactRepository.flushDeferredWrites(); // (Các file .md ghi trễ)
+        } catch (TimeoutException e) {
+            logger.error("Hết thời gian chờ hàng đợi lưu nền ({}s). {}", FLUSH_ALL_TIMEOUT_SECONDS, getMetrics());
+            return;
+        } catch (ExecutionException e) {
+            logger.error("Lỗi khi chờ hàng đợi lưu nền", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        logger.info("Hàng đợi lưu nền đã ghi hết. {}; {}; {}", getMetrics(),
+                artifactRepository.getWriteStatistics(), artifactRepository.getCacheStatistics());
+    }
+
+    @Override
+    public PersistenceQueueMetrics getMetrics() {
+        synchronized (lock) {
+            return getMetricsLocked();
+        }
+    }
+
+    private PersistenceQueueMetrics getMetricsLocked() {
+        long completed = writtenCount + failedCount;
+        double averageWriteMillis = completed == 0 ? 0 : totalWriteNanos / 1_000_000.0 / completed;
+        return new PersistenceQueueMetrics(pending.size(), maxQueueDepth, enqueuedCount, coalescedCount,
+                writtenCount, failedCount, averageWriteMillis, TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos));
+    }
+}
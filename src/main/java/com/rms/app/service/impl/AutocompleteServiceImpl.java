@@ -0,0 +1,240 @@
+package com.rms.app.service.impl;
+
+import com.google.inject.Inject;
+import com.rms.app.model.Artifact;
+import com.rms.app.service.IAutocompleteService;
+import com.rms.app.service.ISqliteIndexRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Triển khai chỉ mục Autocomplete bằng các mảng khóa đã sắp xếp (sorted array):
+ * một mảng cho ID, một mảng cho các từ trong Tên. Tra cứu = tìm nhị phân (binary search)
+ * tới khóa đầu tiên >= prefix rồi đọc tuần tự tới khi hết khớp.
+ * Dữ liệu là ảnh chụp (snapshot) bất biến, được thay thế nguyên khối (copy-on-write)
+ * khi cập nhật, nên luồng đọc (FX thread) không bao giờ phải chờ khóa.
+ */
+public class AutocompleteServiceImpl implements IAutocompleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteServiceImpl.class);
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[\\s\\p{Punct}]+");
+
+    private final ISqliteIndexRepository indexRepository;
+    private final Object writeLock = new Object();
+    /**
+     * {ID -> artifact} hiện có trong snapshot (chỉ truy cập khi giữ writeLock).
+     */
+    private final Map<String, Artifact> byId = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Inject
+    public AutocompleteServiceImpl(ISqliteIndexRepository indexRepository) {
+        this.indexRepository = indexRepository;
+    }
+
+    @Override
+    public void rebuild() {
+        try {
+            List<Artifact> artifacts = indexRepository.getAllArtifactSummaries();
+            synchronized (writeLock) {
+                byId.clear();
+                List<Entry> idEntries = new ArrayList<>(artifacts.size());
+                List<Entry> wordEntries = new ArrayList<>(artifacts.size() * 3);
+                for (Artifact artifact : artifacts) {
+                    if (artifact.getId() != null) {
+                        byId.put(artifact.getId(), artifact);
+                        addEntries(artifact, idEntries, wordEntries);
+                    }
+                }
+                snapshot = new Snapshot(SortedKeys.of(idEntries), SortedKeys.of(wordEntries));
+            }
+            logger.debug("Đã xây dựng chỉ mục Autocomplete: {} artifact", artifacts.size());
+        } catch (SQLException e) {
+            logger.error("Lỗi SQL khi xây dựng chỉ mục Autocomplete: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void put(Artifact artifact) {
+        if (artifact == null || artifact.getId() == null) {
+            return;
+        }
+        Artifact summary = new Artifact();
+        summary.setId(artifact.getId());
+        summary.setName(artifact.getName() != null ? artifact.getName() : artifact.getId());
+        summary.setArtifactType(artifact.getArtifactType());
+        summary.setRelativePath(artifact.getRelativePath());
+
+        List<Entry> idEntries = new ArrayList<>(1);
+        List<Entry> wordEntries = new ArrayList<>();
+        addEntries(summary, idEntries, wordEntries);
+
+        synchronized (writeLock) {
+            Artifact previous = byId.put(summary.getId(), summary);
+            Snapshot current = snapshot;
+            snapshot = new Snapshot(current.idKeys.replace(previous, idEntries),
+                    current.wordKeys.replace(previous, wordEntries));
+        }
+    }
+
+    @Override
+    public void remove(String artifactId) {
+        if (artifactId == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            Artifact previous = byId.remove(artifactId);
+            if (previous == null) {
+                return;
+            }
+            Snapshot current = snapshot;
+            snapshot = new Snapshot(current.idKeys.replace(previous, new ArrayList<>()),
+                    current.wordKeys.replace(previous, new ArrayList<>()));
+        }
+    }
+
+    /**
+     * Tạo các khóa tra cứu của một artifact: ID, và từng từ trong Tên (chữ thường).
+     */
+    private static void addEntries(Artifact artifact, List<Entry> idEntries, List<Entry> wordEntries) {
+        idEntries.add(new Entry(artifact.getId().toLowerCase(Locale.ROOT), artifact));
+        if (artifact.getName() != null) {
+            for (String word : WORD_SEPARATOR.split(artifact.getName().toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    wordEntries.add(new Entry(word, artifact));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Artifact> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        String key = (prefix == null) ? "" : prefix.toLowerCase(Locale.ROOT);
+
+        Set<Artifact> results = new LinkedHashSet<>();
+        current.idKeys.collect(key, limit, results);
+        if (results.size() < limit) {
+            current.wordKeys.collect(key, limit, results);
+        }
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Ảnh chụp bất biến của chỉ mục.
+     */
+    private record Snapshot(SortedKeys idKeys, SortedKeys wordKeys) {
+        private static final Snapshot EMPTY = new Snapshot(SortedKeys.of(new ArrayList<>()), SortedKeys.of(new ArrayList<>()));
+    }
+
+    private record Entry(String key, Artifact artifact) {
+    }
+
+    /**
+     * Cặp mảng song song (khóa đã sắp xếp, artifact tương ứng).
+     */
+    private static final class SortedKeys {
+        private final String[] keys;
+        private final Artifact[] artifacts;
+
+        private SortedKeys(String[] keys, Artifact[] artifacts) {
+            this.keys = keys;
+            this.artifacts = artifacts;
+        }
+
+        private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key)
+                .thenComparing(entry -> entry.artifact().getId());
+
+        private static SortedKeys of(List<Entry> entries) {
+            entries.sort(ORDER);
+            String[] keys = new String[entries.size()];
+            Artifact[] artifacts = new Artifact[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).key();
+                artifacts[i] = entries.get(i).artifact();
+            }
+            return new SortedKeys(keys, artifacts);
+        }
+
+        /**
+         * Tạo bản sao: bỏ các khóa của artifact cũ (nếu có) và chèn (merge) các khóa mới,
+         * O(n) sao chép mảng thay vì sắp xếp lại toàn bộ.
+         *
+         * @param previous Artifact cũ (hoặc null)
+         * @param added    Các khóa mới
+         * @return Bản sao đã cập nhật
+         */
+        private SortedKeys replace(Artifact previous, List<Entry> added) {
+            added.sort(ORDER);
+            int removed = 0;
+            if (previous != null) {
+                for (Artifact artifact : artifacts) {
+                    if (artifact == previous) {
+                        removed++;
+                    }
+                }
+            }
+            String[] newKeys = new String[keys.length - removed + added.size()];
+            Artifact[] newArtifacts = new Artifact[newKeys.length];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < keys.length || j < added.size()) {
+                if (i < keys.length && artifacts[i] == previous) {
+                    i++;
+                    continue;
+                }
+                boolean takeAdded = j < added.size() && (i >= keys.length
+                        || compare(added.get(j), keys[i], artifacts[i]) < 0);
+                if (takeAdded) {
+                    newKeys[k] = added.get(j).key();
+                    newArtifacts[k++] = added.get(j++).artifact();
+                } else {
+                    newKeys[k] = keys[i];
+                    newArtifacts[k++] = artifacts[i++];
+                }
+            }
+            return new SortedKeys(newKeys, newArtifacts);
+        }
+
+        private static int compare(Entry entry, String key, Artifact artifact) {
+            int byKey = entry.key().compareTo(key);
+            return byKey != 0 ? byKey : entry.artifact().getId().compareTo(artifact.getId());
+        }
+
+        /**
+         * Thêm (theo thứ tự khóa) các artifact có khóa bắt đầu bằng prefix.
+         * Khóa ngắn hơn đứng trước, nên khớp chính xác luôn được xếp đầu.
+         */
+        private void collect(String prefix, int limit, Set<Artifact> out) {
+            /**
+             * Tìm nhị phân cận dưới (lower bound): khóa đầu tiên >= prefix
+             */
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < keys.length && out.size() < limit && keys[i].startsWith(prefix); i++) {
+                out.add(artifacts[i]);
+            }
+        }
+    }
+}
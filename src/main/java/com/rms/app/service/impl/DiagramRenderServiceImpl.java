@@ -48,6 +48,23 @@ public class DiagramRenderServiceImpl implements IDiagramRenderService {
 //        logger.info(plantUmlCode);
         logger.info("--- Mã PlantUML được sinh ra (kết thúc) ---");
 
+        byte[] pngData = renderPng(plantUmlCode);
+        try (ByteArrayInputStream inStream = new ByteArrayInputStream(pngData)) {
+            BufferedImage image = ImageIO.read(inStream);
+
+            if (image == null) {
+                throw new IOException(ERROR_MESSAGE);
+            }
+            return image;
+        }
+    }
+
+    @Override
+    public byte[] renderPng(String plantUmlCode) throws IOException {
+        if (plantUmlCode == null || plantUmlCode.isEmpty()) {
+            throw new IOException("Mã PlantUML không được rỗng.");
+        }
+
         try (ByteArrayOutputStream pngStream = new ByteArrayOutputStream()) {
 
             SourceStringReader reader = new SourceStringReader(plantUmlCode);
@@ -63,15 +80,7 @@ public class DiagramRenderServiceImpl implements IDiagramRenderService {
             if (pngData == null || pngData.length == 0) {
                 throw new IOException("PlantUML đã tạo ra một stream rỗng (empty stream).");
             }
-
-            try (ByteArrayInputStream inStream = new ByteArrayInputStream(pngData)) {
-                BufferedImage image = ImageIO.read(inStream);
-
-                if (image == null) {
-                    throw new IOException(ERROR_MESSAGE);
-                }
-                return image;
-            }
+            return pngData;
 
         } catch (IOException e) {
             logger.error("Lỗi I/O khi render PlantUML: {}", e.getMessage());
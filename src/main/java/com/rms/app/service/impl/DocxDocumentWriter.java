@@ -0,0 +1,554 @@
+package com.rms.app.service.impl;
+
+import com.rms.app.model.FlowStep;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.util.Units;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.UnderlinePatterns;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFHyperlinkRun;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFStyles;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPPrGeneral;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STStyleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Trình ghi tài liệu .docx trực tiếp bằng Apache POI (XWPF), không cần Pandoc.
+ * Bố cục giống Markdown trung gian của luồng Pandoc: tiêu đề tài liệu, Heading 1 cho chương,
+ * Heading 2 cho artifact, Heading 3 cho trường, bảng cho Flow Builder;
+ * Markdown của chương tĩnh và định dạng inline trong trường / ô bảng được chuyển thành định dạng Word.
+ * Các style "Title", "Heading1..3" được khai báo thật (có outline level),
+ * nên Navigation Pane và mục lục (TOC) của Word hoạt động.
+ * Chỉ dùng trên MỘT luồng (luồng tiêu thụ của OrderedTaskPipeline).
+ */
+final class DocxDocumentWriter implements AutoCloseable {
+
+    /**
+     * Một khối nội dung đã chuẩn bị xong (trên luồng của pipeline),
+     * được ghi vào tài liệu trên luồng tiêu thụ.
+     */
+    @FunctionalInterface
+    interface Block {
+        void writeTo(DocxDocumentWriter writer) throws IOException;
+    }
+
+    /**
+     * Chiều rộng tối đa của ảnh sơ đồ (pixel ở 96 DPI, ~6.25 inch: vừa lề trang A4/Letter)
+     */
+    private static final int MAX_IMAGE_WIDTH_PX = 600;
+    private static final int NESTED_STEP_INDENT_TWIPS = 360;
+    private static final String MONOSPACE_FONT = "Courier New";
+    private static final String LINK_COLOR = "0563C1";
+    private static final String CODE_FENCE = "```";
+    /**
+     * Các ký tự Markdown có thể được thoát bằng "\\"
+     */
+    private static final String MARKDOWN_ESCAPABLE = "\\`*_[]()#+-.!|";
+    private static final Pattern NUMBERED_ITEM = Pattern.compile("\\d{1,3}[.)] .*");
+    private static final Pattern TABLE_SEPARATOR = Pattern.compile("\\|?\\s*:?-+:?\\s*(\\|\\s*:?-+:?\\s*)*\\|?");
+
+    private final XWPFDocument document = new XWPFDocument();
+
+    DocxDocumentWriter() {
+        XWPFStyles styles = document.createStyles();
+        addParagraphStyle(styles, "Title", "Title", -1, 52);
+        addParagraphStyle(styles, "Heading1", "heading 1", 0, 32);
+        addParagraphStyle(styles, "Heading2", "heading 2", 1, 28);
+        addParagraphStyle(styles, "Heading3", "heading 3", 2, 24);
+    }
+
+    /**
+     * Khai báo một style đoạn văn (in đậm, cỡ chữ cố định).
+     *
+     * @param outlineLevel Cấp đề mục (0 = Heading 1), hoặc -1 nếu không phải đề mục
+     * @param halfPoints   Cỡ chữ (đơn vị nửa point)
+     */
+    private static void addParagraphStyle(XWPFStyles styles, String styleId, String name, int outlineLevel, int halfPoints) {
+        CTStyle ctStyle = CTStyle.Factory.newInstance();
+        ctStyle.setStyleId(styleId);
+        ctStyle.setType(STStyleType.PARAGRAPH);
+        ctStyle.addNewName().setVal(name);
+        ctStyle.addNewQFormat();
+
+        CTPPrGeneral pPr = ctStyle.addNewPPr();
+        pPr.addNewKeepNext();
+        if (outlineLevel >= 0) {
+            pPr.addNewOutlineLvl().setVal(BigInteger.valueOf(outlineLevel));
+        }
+        CTRPr rPr = ctStyle.addNewRPr();
+        rPr.addNewB();
+        rPr.addNewSz().setVal(BigInteger.valueOf(halfPoints));
+
+        styles.addStyle(new XWPFStyle(ctStyle, styles));
+    }
+
+    /**
+     * Tiêu đề tài liệu (style "Title").
+     */
+    void title(String text) {
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.setStyle("Title");
+        paragraph.setAlignment(ParagraphAlignment.CENTER);
+        paragraph.createRun().setText(text);
+    }
+
+    /**
+     * Đề mục (Heading 1..3; cấp lớn hơn 3 dùng Heading 3).
+     */
+    void heading(String text, int level) {
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.setStyle("Heading" + Math.max(1, Math.min(3, level)));
+        paragraph.createRun().setText(text);
+    }
+
+    /**
+     * Văn bản thường: mỗi dòng là một đoạn văn (định dạng inline Markdown được áp dụng, xem appendInline).
+     */
+    void text(String text) {
+        for (String line : text.split("\r?\n", -1)) {
+            appendInline(document.createParagraph(), line, false, false);
+        }
+    }
+
+    /**
+     * Văn bản in nghiêng (ghi chú, "N/A", thông báo lỗi).
+     */
+    void emphasis(String text) {
+        XWPFRun run = document.createParagraph().createRun();
+        run.setItalic(true);
+        run.setText(text);
+    }
+
+    /**
+     * Văn bản phông đơn cách, giữ nguyên từng dòng (ví dụ: BPMN XML).
+     */
+    void preformatted(String text) {
+        for (String line : text.split("\r?\n", -1)) {
+            XWPFParagraph paragraph = document.createParagraph();
+            paragraph.setSpacingAfter(0);
+            XWPFRun run = paragraph.createRun();
+            run.setFontFamily(MONOSPACE_FONT);
+            run.setFontSize(8);
+            run.setText(line);
+        }
+    }
+
+    /**
+     * Nội dung của chương tĩnh (Markdown do người dùng viết), theo cách Pandoc hiểu các cấu trúc thường gặp:
+     * đề mục "#", gạch đầu dòng "- " / "* " / "+ ", danh sách đánh số "1. ", khối mã "```",
+     * bảng dạng ống "| a | b |" (dòng thứ hai là "|---|---|"), và đoạn văn (các dòng liền nhau được nối lại).
+     * Định dạng inline (đậm, nghiêng, mã, liên kết) được áp dụng trong mọi khối, trừ khối mã.
+     *
+     * @param markdown Nội dung Markdown
+     */
+    void markdownBlock(String markdown) {
+        String[] lines = markdown.split("\r?\n");
+        StringBuilder paragraph = new StringBuilder();
+        int i = 0;
+        while (i < lines.length) {
+            String trimmed = lines[i].strip();
+            if (!trimmed.isEmpty() && !isBlockStart(lines, i)) {
+                if (!paragraph.isEmpty()) {
+                    paragraph.append(' ');
+                }
+                paragraph.append(trimmed);
+                i++;
+                continue;
+            }
+            flushParagraph(paragraph);
+            if (trimmed.isEmpty()) {
+                i++;
+            } else if (trimmed.startsWith(CODE_FENCE)) {
+                i = codeBlock(lines, i + 1);
+            } else if (isTableStart(lines, i)) {
+                i = pipeTable(lines, i);
+            } else {
+                blockLine(trimmed);
+                i++;
+            }
+        }
+        flushParagraph(paragraph);
+    }
+
+    /**
+     * @return true nếu dòng i mở đầu một khối riêng (không nối vào đoạn văn đang dựng)
+     */
+    private static boolean isBlockStart(String[] lines, int i) {
+        String trimmed = lines[i].strip();
+        return headingLevel(trimmed) > 0 || bulletOf(trimmed) != null || NUMBERED_ITEM.matcher(trimmed).matches()
+                || trimmed.startsWith(CODE_FENCE) || isTableStart(lines, i);
+    }
+
+    private void flushParagraph(StringBuilder paragraph) {
+        if (!paragraph.isEmpty()) {
+            appendInline(document.createParagraph(), paragraph.toString(), false, false);
+            paragraph.setLength(0);
+        }
+    }
+
+    /**
+     * Một dòng đề mục hoặc mục danh sách.
+     */
+    private void blockLine(String trimmed) {
+        int level = headingLevel(trimmed);
+        if (level > 0) {
+            XWPFParagraph paragraph = document.createParagraph();
+            paragraph.setStyle("Heading" + Math.min(3, level));
+            appendInline(paragraph, trimmed.substring(level + 1).strip(), false, false);
+            return;
+        }
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.setIndentationLeft(NESTED_STEP_INDENT_TWIPS);
+        String bullet = bulletOf(trimmed);
+        if (bullet != null) {
+            paragraph.createRun().setText("• ");
+            appendInline(paragraph, bullet, false, false);
+        } else {
+            /**
+             * Danh sách đánh số: giữ nguyên số do người dùng viết
+             */
+            int digits = 0;
+            while (Character.isDigit(trimmed.charAt(digits))) {
+                digits++;
+            }
+            paragraph.createRun().setText(trimmed.substring(0, digits + 2));
+            appendInline(paragraph, trimmed.substring(digits + 2), false, false);
+        }
+    }
+
+    /**
+     * @return Cấp đề mục của dòng "# ...", hoặc 0 nếu không phải đề mục
+     */
+    private static int headingLevel(String trimmed) {
+        int hashes = 0;
+        while (hashes < trimmed.length() && trimmed.charAt(hashes) == '#') {
+            hashes++;
+        }
+        return (hashes > 0 && hashes < trimmed.length() && trimmed.charAt(hashes) == ' ') ? hashes : 0;
+    }
+
+    /**
+     * @return Nội dung của mục gạch đầu dòng, hoặc null nếu không phải
+     */
+    private static String bulletOf(String trimmed) {
+        if (trimmed.length() > 2 && (trimmed.startsWith("- ") || trimmed.startsWith("* ") || trimmed.startsWith("+ "))) {
+            return trimmed.substring(2).strip();
+        }
+        return null;
+    }
+
+    /**
+     * Khối mã "```": ghi nguyên văn bằng phông đơn cách, tới dấu "```" đóng (hoặc hết nội dung).
+     *
+     * @param start Dòng đầu tiên sau dấu "```" mở
+     * @return Dòng kế tiếp sau khối mã
+     */
+    private int codeBlock(String[] lines, int start) {
+        int end = start;
+        while (end < lines.length && !lines[end].strip().startsWith(CODE_FENCE)) {
+            end++;
+        }
+        if (end > start) {
+            preformatted(String.join("\n", Arrays.copyOfRange(lines, start, end)));
+        }
+        return Math.min(end + 1, lines.length);
+    }
+
+    /**
+     * Bảng dạng ống: dòng i là hàng tiêu đề, dòng i + 1 là dòng phân cách "|---|:---:|".
+     */
+    private static boolean isTableStart(String[] lines, int i) {
+        return i + 1 < lines.length && lines[i].strip().startsWith("|")
+                && TABLE_SEPARATOR.matcher(lines[i + 1].strip()).matches();
+    }
+
+    /**
+     * @param start Dòng tiêu đề của bảng
+     * @return Dòng kế tiếp sau bảng
+     */
+    private int pipeTable(String[] lines, int start) {
+        String[] header = tableCells(lines[start]);
+        List<String[]> rows = new ArrayList<>();
+        int i = start + 2;
+        while (i < lines.length && lines[i].strip().startsWith("|")) {
+            rows.add(tableCells(lines[i]));
+            i++;
+        }
+        table(header, rows);
+        return i;
+    }
+
+    /**
+     * Tách các ô của một hàng "| a | b |" (bỏ qua "\|" đã được thoát).
+     */
+    private static String[] tableCells(String line) {
+        String row = line.strip();
+        if (row.startsWith("|")) {
+            row = row.substring(1);
+        }
+        if (row.endsWith("|") && !row.endsWith("\\|")) {
+            row = row.substring(0, row.length() - 1);
+        }
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (c == '\\' && i + 1 < row.length() && row.charAt(i + 1) == '|') {
+                cell.append('|');
+                i++;
+            } else if (c == '|') {
+                cells.add(cell.toString().strip());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().strip());
+        return cells.toArray(new String[0]);
+    }
+
+    /**
+     * Ghi một dòng văn bản vào đoạn văn, chuyển định dạng inline Markdown thành các run:
+     * "**đậm**" / "__đậm__", "*nghiêng*" / "_nghiêng_", "`mã`", "[nhãn](url)" (liên kết thật),
+     * và "\*" (ký tự được thoát). Dấu "_" giữa một từ (ten_bien) không được coi là định dạng, như Pandoc.
+     *
+     * @param paragraph Đoạn văn đích
+     * @param text      Văn bản (một dòng)
+     * @param bold      In đậm sẵn (hàng tiêu đề, bước IF/ELSE)
+     * @param italic    In nghiêng sẵn (bước lồng)
+     */
+    private static void appendInline(XWPFParagraph paragraph, String text, boolean bold, boolean italic) {
+        StringBuilder buffer = new StringBuilder();
+        boolean strong = false;
+        boolean emphasis = false;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < n && MARKDOWN_ESCAPABLE.indexOf(text.charAt(i + 1)) >= 0) {
+                buffer.append(text.charAt(i + 1));
+                i += 2;
+                continue;
+            }
+            if (c == '`') {
+                int end = text.indexOf('`', i + 1);
+                if (end > i + 1) {
+                    flushRun(paragraph, buffer, bold || strong, italic || emphasis);
+                    XWPFRun run = paragraph.createRun();
+                    run.setFontFamily(MONOSPACE_FONT);
+                    run.setText(text.substring(i + 1, end));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            if (c == '[') {
+                int labelEnd = text.indexOf("](", i + 1);
+                int urlEnd = (labelEnd > i) ? text.indexOf(')', labelEnd + 2) : -1;
+                if (urlEnd > labelEnd + 2) {
+                    flushRun(paragraph, buffer, bold || strong, italic || emphasis);
+                    XWPFHyperlinkRun link = paragraph.createHyperlinkRun(text.substring(labelEnd + 2, urlEnd).strip());
+                    link.setText(text.substring(i + 1, labelEnd));
+                    link.setUnderline(UnderlinePatterns.SINGLE);
+                    link.setColor(LINK_COLOR);
+                    link.setBold(bold || strong);
+                    link.setItalic(italic || emphasis);
+                    i = urlEnd + 1;
+                    continue;
+                }
+            }
+            if (c == '*' || c == '_') {
+                boolean doubled = i + 1 < n && text.charAt(i + 1) == c;
+                int width = doubled ? 2 : 1;
+                boolean open = doubled ? !strong : !emphasis;
+                if (isDelimiter(text, i, width, open)) {
+                    flushRun(paragraph, buffer, bold || strong, italic || emphasis);
+                    if (doubled) {
+                        strong = !strong;
+                    } else {
+                        emphasis = !emphasis;
+                    }
+                    i += width;
+                    continue;
+                }
+            }
+            buffer.append(c);
+            i++;
+        }
+        flushRun(paragraph, buffer, bold || strong, italic || emphasis);
+    }
+
+    /**
+     * Dấu "*"/"_" tại vị trí i có phải dấu mở/đóng định dạng không:
+     * dấu mở phải đứng trước một ký tự khác khoảng trắng và có dấu đóng phía sau;
+     * dấu đóng phải đứng sau một ký tự khác khoảng trắng. Với "_", không được nằm giữa một từ.
+     */
+    private static boolean isDelimiter(String text, int i, int width, boolean open) {
+        char c = text.charAt(i);
+        String marker = text.substring(i, i + width);
+        int after = i + width;
+        if (open) {
+            if (after >= text.length() || Character.isWhitespace(text.charAt(after))) {
+                return false;
+            }
+            if (c == '_' && i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+                return false;
+            }
+            return text.indexOf(marker, after + 1) > 0;
+        }
+        if (i == 0 || Character.isWhitespace(text.charAt(i - 1))) {
+            return false;
+        }
+        return c != '_' || after >= text.length() || !Character.isLetterOrDigit(text.charAt(after));
+    }
+
+    private static void flushRun(XWPFParagraph paragraph, StringBuilder buffer, boolean bold, boolean italic) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        XWPFRun run = paragraph.createRun();
+        run.setBold(bold);
+        run.setItalic(italic);
+        run.setText(buffer.toString());
+        buffer.setLength(0);
+    }
+
+    /**
+     * Bảng có hàng tiêu đề in đậm.
+     *
+     * @param header Tiêu đề các cột
+     * @param rows   Các hàng (cùng số cột với header)
+     */
+    void table(String[] header, List<String[]> rows) {
+        XWPFTable table = document.createTable(rows.size() + 1, header.length);
+        table.setWidth("100%");
+        for (int col = 0; col < header.length; col++) {
+            setCell(table.getRow(0).getCell(col), header[col], true, false, 0);
+        }
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            for (int col = 0; col < header.length; col++) {
+                setCell(table.getRow(r + 1).getCell(col), col < row.length ? row[col] : "", false, false, 0);
+            }
+        }
+        document.createParagraph();
+    }
+
+    /**
+     * Bảng các bước của Flow Builder, giống bảng Markdown "| Actor / Logic | Action / Condition |":
+     * bước IF/ELSE in đậm, các bước lồng bên trong in nghiêng và thụt lề.
+     */
+    void flowTable(List<FlowStep> steps) {
+        XWPFTable table = document.createTable(1, 2);
+        table.setWidth("100%");
+        setCell(table.getRow(0).getCell(0), "Actor / Logic", true, false, 0);
+        setCell(table.getRow(0).getCell(1), "Action / Condition", true, false, 0);
+
+        for (FlowStep step : steps) {
+            boolean branch = "IF".equalsIgnoreCase(step.getLogicType()) || "ELSE".equalsIgnoreCase(step.getLogicType());
+            XWPFTableRow row = table.createRow();
+            setCell(row.getCell(0), step.getActor(), branch, false, 0);
+            setCell(row.getCell(1), step.getAction(), branch, false, 0);
+            if (branch && step.getNestedSteps() != null) {
+                for (FlowStep nestedStep : step.getNestedSteps()) {
+                    XWPFTableRow nestedRow = table.createRow();
+                    setCell(nestedRow.getCell(0), nestedStep.getActor(), false, true, NESTED_STEP_INDENT_TWIPS);
+                    setCell(nestedRow.getCell(1), nestedStep.getAction(), false, true, 0);
+                }
+            }
+        }
+        document.createParagraph();
+    }
+
+    private static void setCell(XWPFTableCell cell, String text, boolean bold, boolean italic, int indentTwips) {
+        XWPFParagraph paragraph = cell.getParagraphs().get(0);
+        if (indentTwips > 0) {
+            paragraph.setIndentationLeft(indentTwips);
+        }
+        appendInline(paragraph, text != null ? text : "", bold, italic);
+    }
+
+    /**
+     * Nhúng một ảnh PNG (sơ đồ PlantUML), thu nhỏ theo tỉ lệ nếu rộng hơn MAX_IMAGE_WIDTH_PX.
+     *
+     * @param png  Nội dung file PNG
+     * @param name Tên ảnh (trong gói .docx)
+     * @throws IOException Nếu dữ liệu không phải PNG hợp lệ
+     */
+    void picture(byte[] png, String name) throws IOException {
+        if (png.length < 24) {
+            throw new IOException("Ảnh PNG không hợp lệ: " + name);
+        }
+        /**
+         * Kích thước lấy thẳng từ header IHDR (byte 16-23), không cần giải mã ảnh
+         */
+        int width = readInt(png, 16);
+        int height = readInt(png, 20);
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Ảnh PNG không hợp lệ: " + name);
+        }
+        if (width > MAX_IMAGE_WIDTH_PX) {
+            height = (int) ((long) height * MAX_IMAGE_WIDTH_PX / width);
+            width = MAX_IMAGE_WIDTH_PX;
+        }
+
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.setAlignment(ParagraphAlignment.CENTER);
+        try {
+            paragraph.createRun().addPicture(new ByteArrayInputStream(png), Document.PICTURE_TYPE_PNG, name,
+                    Units.pixelToEMU(width), Units.pixelToEMU(Math.max(1, height)));
+        } catch (InvalidFormatException e) {
+            throw new IOException("Không thể nhúng ảnh " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Ghi tài liệu ra file đích: ghi vào file tạm cùng thư mục rồi đổi tên,
+     * nên file đích cũ chỉ bị thay thế khi ghi thành công.
+     *
+     * @param outputFile File .docx (Đích)
+     * @throws IOException Nếu lỗi I/O
+     */
+    void save(File outputFile) throws IOException {
+        Path target = outputFile.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), ".export-", ".docx.tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                document.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
@@ -1,31 +1,39 @@
 package com.rms.app.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.rms.app.model.Artifact;
 import com.rms.app.model.ArtifactTemplate;
+import com.rms.app.model.CompressedText;
+import com.rms.app.model.DocxExportEngine;
 import com.rms.app.model.ExportTemplate;
 import com.rms.app.model.ExportTemplateSection;
+import com.rms.app.model.FlowStep;
+import com.rms.app.model.ProjectConfig;
+import com.rms.app.model.StoredDocument;
 import com.rms.app.service.*;
 import javafx.application.Platform; // [THÊM MỚI] Import
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -38,18 +46,66 @@ public class ExportServiceImpl implements IExportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExportServiceImpl.class);
 
+    /**
+     * Số hàng tối đa của mỗi Sheet được giữ trong bộ nhớ khi xuất Excel
+     */
+    private static final int EXCEL_ROW_WINDOW = 200;
+
+    /**
+     * Thời gian chạy tối đa của một lần gọi Pandoc
+     */
+    private static final Duration PANDOC_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * Dung lượng bộ đệm đoạn Markdown của các chương động (số ký tự)
+     */
+    private static final long SECTION_CACHE_CAPACITY_CHARS = 16L * 1024 * 1024;
+
+    /**
+     * Số chương được dựng song song khi xuất tài liệu
+     * (mỗi chương còn đọc song song các file .md của nó)
+     */
+    private static final int SECTION_WINDOW = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Dải phân cách giữa các artifact ở dạng "FullContent"
+     */
+    private static final String ARTIFACT_SEPARATOR = "\n\n---\n\n";
+    /**
+     * Số sơ đồ PlantUML (PNG) được đệm cho luồng xuất .docx, theo mã PlantUML
+     */
+    private static final int DIAGRAM_CACHE_ENTRIES = 256;
+
     private final ITemplateService templateService;
     private final IArtifactRepository artifactRepository;
     private final ISqliteIndexRepository indexRepository;
     private final IProjectStateService projectStateService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ISerializationService serializationService;
+    private final IPandocRunner pandocRunner;
+    private final IDiagramRenderService diagramRenderService;
+    private final IProjectService projectService;
+    private final SectionRenderCache sectionCache = new SectionRenderCache(SECTION_CACHE_CAPACITY_CHARS);
+    private final Map<String, byte[]> diagramCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > DIAGRAM_CACHE_ENTRIES;
+        }
+    });
 
     @Inject
     public ExportServiceImpl(ITemplateService templateService,
                              IArtifactRepository artifactRepository,
                              ISqliteIndexRepository indexRepository,
-                             IProjectStateService projectStateService) {
+                             IProjectStateService projectStateService,
+                             ISerializationService serializationService,
+                             IPandocRunner pandocRunner,
+                             IDiagramRenderService diagramRenderService,
+                             IProjectService projectService) {
         this.templateService = templateService;
+        this.projectService = projectService;
+        this.pandocRunner = pandocRunner;
+        this.diagramRenderService = diagramRenderService;
+        this.serializationService = serializationService;
         this.artifactRepository = artifactRepository;
         this.indexRepository = indexRepository;
         this.projectStateService = projectStateService;
@@ -72,7 +128,12 @@ public class ExportServiceImpl implements IExportService {
         Platform.runLater(() -> projectStateService.setStatusMessage("Đang xuất ra Excel..."));
         logger.info("Bắt đầu xuất Excel (UC-PUB-02) ra file: {}", outputFile.getAbsolutePath());
 
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        /**
+         * SXSSF (streaming): chỉ EXCEL_ROW_WINDOW hàng gần nhất của mỗi Sheet nằm trong bộ nhớ,
+         * các hàng cũ hơn được đẩy ra file tạm, nên heap không tăng theo số artifact.
+         */
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        try {
             for (String templateName : templateNamesToExport) {
                 try {
                     /**
@@ -87,7 +148,7 @@ public class ExportServiceImpl implements IExportService {
                     /**
                      * Bước 7.3 (UC-PUB-02): Tạo Sheet (Trang tính)
                      */
-                    XSSFSheet sheet = workbook.createSheet(templateName);
+                    SXSSFSheet sheet = workbook.createSheet(templateName);
 
                     /**
                      * Bước 7.4 & 7.5 (UC-PUB-02): Tạo Hàng Tiêu đề (Header Row)
@@ -112,39 +173,8 @@ public class ExportServiceImpl implements IExportService {
                     /**
                      * Bước 7.7 (UC-PUB-02): Ghi dữ liệu (từ Source of Truth)
                      */
-                    int rowNum = 1;
-                    for (Artifact summaryArtifact : artifacts) {
-                        /**
-                         * Tải (load) toàn bộ file .json (Source of Truth)
-                         * [SỬA LỖI] Sử dụng relativePath từ CSDL Chỉ mục
-                         */
-                        Artifact fullArtifact = artifactRepository.load(summaryArtifact.getRelativePath());
-
-
-                        Row row = sheet.createRow(rowNum++);
-
-                        /**
-                         * Ghi các cột cố định
-                         */
-                        row.createCell(0).setCellValue(fullArtifact.getId());
-                        row.createCell(1).setCellValue(fullArtifact.getName());
-
-                        /**
-                         * Ghi các cột động (từ template)
-                         */
-                        Map<String, Object> fields = fullArtifact.getFields();
-                        for (int i = 0; i < template.getFields().size(); i++) {
-                            String fieldName = template.getFields().get(i).getName();
-                            Object value = fields.get(fieldName);
-                            Cell cell = row.createCell(i + 2);
-
-                            /**
-                             * Tuân thủ BR-EXPORT-01
-                             */
-                            writeCellValue(cell, value);
-                        }
-                    }
-                    logger.info("Đã xử lý xong Sheet: {}", templateName);
+                    writeArtifactRows(sheet, template, artifacts);
+                    logger.info("Đã xử lý xong Sheet: {} ({} hàng)", templateName, artifacts.size());
 
                 } catch (IOException | SQLException e) {
                     logger.error("Lỗi khi xử lý template '{}': {}", templateName, e.getMessage());
@@ -174,6 +204,69 @@ public class ExportServiceImpl implements IExportService {
              */
             Platform.runLater(() -> projectStateService.setStatusMessage("Lỗi: " + e.getMessage()));
             throw new IOException("Lỗi khi ghi file Excel: " + e.getMessage(), e);
+        } finally {
+            /**
+             * Xóa các file tạm của SXSSF
+             */
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Ghi các hàng dữ liệu của một Sheet.
+     * File .json được tải và parse song song (OrderedTaskPipeline, số tác vụ đang chạy bị giới hạn),
+     * còn các hàng được ghi tuần tự, đúng thứ tự của danh sách, trên luồng gọi
+     * (SXSSF chỉ cho phép ghi hàng tăng dần từ một luồng).
+     *
+     * @param sheet     Sheet (streaming)
+     * @param template  Form template (quyết định các cột động)
+     * @param artifacts Danh sách artifact tóm tắt (từ CSDL Chỉ mục)
+     * @throws IOException Nếu không tải được một artifact
+     */
+    private void writeArtifactRows(SXSSFSheet sheet, ArtifactTemplate template, List<Artifact> artifacts) throws IOException {
+        int[] rowNum = {1};
+        try (OrderedTaskPipeline<Artifact> pipeline = new OrderedTaskPipeline<>(
+                OrderedTaskPipeline.defaultWindow(), fullArtifact -> {
+            Row row = sheet.createRow(rowNum[0]++);
+
+            /**
+             * Ghi các cột cố định
+             */
+            row.createCell(0).setCellValue(fullArtifact.getId());
+            row.createCell(1).setCellValue(fullArtifact.getName());
+
+            /**
+             * Ghi các cột động (từ template)
+             */
+            Map<String, Object> fields = fullArtifact.getFields();
+            for (int i = 0; i < template.getFields().size(); i++) {
+                String fieldName = template.getFields().get(i).getName();
+                Object value = fields.get(fieldName);
+                Cell cell = row.createCell(i + 2);
+
+                /**
+                 * Tuân thủ BR-EXPORT-01
+                 */
+                writeCellValue(cell, value);
+            }
+        })) {
+            for (Artifact summaryArtifact : artifacts) {
+                /**
+                 * Tải (load) toàn bộ file .json (Source of Truth)
+                 * [SỬA LỖI] Sử dụng relativePath từ CSDL Chỉ mục
+                 */
+                String relativePath = summaryArtifact.getRelativePath();
+                pipeline.submit(() -> artifactRepository.load(relativePath));
+            }
+            pipeline.drain();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Xuất Excel bị gián đoạn.", e);
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
         }
     }
 
@@ -187,14 +280,15 @@ public class ExportServiceImpl implements IExportService {
     private void writeCellValue(Cell cell, Object value) {
         if (value == null) {
             cell.setCellValue("");
-        } else if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+        } else if (value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof CompressedText) {
             cell.setCellValue(value.toString());
         } else {
             /**
              * Làm phẳng (Flatten) FlowStep, List, v.v. thành chuỗi JSON.
              */
             try {
-                cell.setCellValue(objectMapper.writeValueAsString(value));
+                cell.setCellValue(serializationService.writeCompactString(value));
             } catch (Exception e) {
                 logger.warn("Không thể serialize trường (field) sang JSON: {}", e.getMessage());
                 cell.setCellValue("[Lỗi Chuyển đổi]");
@@ -207,8 +301,8 @@ public class ExportServiceImpl implements IExportService {
      *
      * @param markdownContent Chuỗi nội dung Markdown (Nguồn)
      * @param outputFile      File .pdf (Đích)
-     * @throws IOException          Nếu lỗi I/O (ghi file temp) hoặc lỗi Pandoc
-     * @throws InterruptedException Nếu luồng (thread) Pandoc bị gián đoạn
+     * @throws IOException          Nếu lỗi Pandoc hoặc Pandoc chạy quá thời gian
+     * @throws InterruptedException Nếu luồng gọi bị gián đoạn (tiến trình Pandoc bị dừng)
      */
     @Override
     public void exportMarkdownToPdf(String markdownContent, File outputFile) throws IOException, InterruptedException {
@@ -220,79 +314,41 @@ public class ExportServiceImpl implements IExportService {
         Platform.runLater(() -> projectStateService.setStatusMessage("Đang tạo file PDF..."));
 
         /**
-         * Bước 8.0 (UC-PUB-01): Lưu file Markdown trung gian (temp)
+         * Bước 8.0 & 9.0 (UC-PUB-01): Gọi Pandoc, Markdown được đẩy thẳng vào stdin
+         * (không còn file temp_srs.md dùng chung trong .config)
          */
-        File projectRoot = projectStateService.getCurrentProjectDirectory();
-        if (projectRoot == null) {
-            throw new IOException("Không có dự án nào đang mở.");
-        }
-        File configDir = new File(projectRoot, ProjectServiceImpl.CONFIG_DIR);
-        Path tempMdPath = new File(configDir, "temp_srs.md").toPath();
-
+        CompletableFuture<Void> conversion = pandocRunner.convert(
+                markdownContent, outputFile, List.of("--pdf-engine=xelatex"), PANDOC_TIMEOUT);
         try {
+            conversion.get();
+        } catch (InterruptedException e) {
             /**
-             * Ghi file với UTF-8 (để hỗ trợ Tiếng Việt)
-             */
-            Files.writeString(tempMdPath, markdownContent, StandardCharsets.UTF_8);
-            logger.info("Đã tạo file Markdown trung gian tại: {}", tempMdPath);
-
-            /**
-             * Bước 9.0 (UC-PUB-01): Gọi Pandoc
-             */
-            ProcessBuilder pb = new ProcessBuilder(
-                    "pandoc",
-                    tempMdPath.toAbsolutePath().toString(),
-                    "-o",
-                    outputFile.getAbsolutePath(),
-                    "--pdf-engine=xelatex"
-            );
-
-            logger.info("Đang thực thi lệnh: {}", String.join(" ", pb.command()));
-
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                /**
-                 * Xử lý Exception 1.0.E1 (UC-PUB-01)
-                 */
-                String error = new String(process.getErrorStream().readAllBytes());
-                logger.error("Pandoc thất bại (Exit Code {}): {}", exitCode, error);
-                if (error.contains("pandoc: command not found") || error.contains("No such file")) {
-                    throw new IOException("Lỗi: Không tìm thấy Pandoc. Vui lòng cài đặt Pandoc và thêm vào PATH hệ thống. (UC-PUB-01, 1.0.E1)");
-                }
-                /**
-                 * Bắt lỗi (catch) nếu xelatex cũng bị thiếu
-                 */
-                if (error.contains("xelatex not found")) {
-                    throw new IOException("Lỗi: Không tìm thấy XeLaTeX. Vui lòng cài đặt (basictex) và cấu hình PATH. (UC-PUB-01, 1.0.E1)");
-                }
-                throw new IOException("Pandoc thất bại: " + error);
-            }
-
-            logger.info("Tạo file PDF thành công: {}", outputFile.getAbsolutePath());
-            /**
-             * ========================================================================
-             * ĐÃ SỬA LỖI (DÒNG NÀY)
-             * ========================================================================
-             */
-            Platform.runLater(() -> projectStateService.setStatusMessage("Xuất PDF thành công: " + outputFile.getName()));
-
-        } finally {
-            /**
-             * Bước 11.0 (UC-PUB-01): Luôn xóa file temp
+             * Task xuất bản bị hủy: dừng tiến trình Pandoc
              */
-            try {
-                Files.deleteIfExists(tempMdPath);
-            } catch (IOException e) {
-                logger.warn("Không thể xóa file temp: {}", tempMdPath, e);
+            conversion.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
+            throw new IOException("Pandoc thất bại: " + cause.getMessage(), cause);
         }
+
+        logger.info("Tạo file PDF thành công: {}", outputFile.getAbsolutePath());
+        /**
+         * ========================================================================
+         * ĐÃ SỬA LỖI (DÒNG NÀY)
+         * ========================================================================
+         */
+        Platform.runLater(() -> projectStateService.setStatusMessage("Xuất PDF thành công: " + outputFile.getName()));
     }
 
     /**
      * Điều phối (orchestrate) toàn bộ quá trình xuất bản PDF/DOCX.
      * Tuân thủ UC-PUB-01.
+     * File .docx mặc định được dựng trực tiếp bằng Apache POI (xem exportToDocx());
+     * dự án chọn docxExportEngine = PANDOC thì .docx đi qua Pandoc như PDF.
      *
      * @param outputFile         File .pdf hoặc .docx (Đích)
      * @param exportTemplateName Tên của Template Xuất bản (ví dụ: "SRS Template Chuẩn")
@@ -318,6 +374,12 @@ public class ExportServiceImpl implements IExportService {
             throw new IOException("Không tìm thấy Template Xuất bản: " + exportTemplateName);
         }
 
+        if (outputFile.getName().toLowerCase().endsWith(".docx") && getDocxExportEngine() == DocxExportEngine.NATIVE) {
+            exportToDocx(outputFile, template, releaseIdFilter);
+            Platform.runLater(() -> projectStateService.setStatusMessage("Xuất tài liệu thành công: " + outputFile.getName()));
+            return;
+        }
+
         /**
          * Bước 7.2 & 7.3 (UC-PUB-01): Xây dựng chuỗi Markdown trung gian
          */
@@ -327,42 +389,32 @@ public class ExportServiceImpl implements IExportService {
         mdBuilder.append("author: BA Workbench Export\n");
         mdBuilder.append("--- \n\n");
 
-        for (ExportTemplateSection section : template.getSections()) {
-            mdBuilder.append("# ").append(section.getTitle()).append("\n\n");
-
-            if ("Static".equals(section.getType())) {
-                mdBuilder.append(section.getContent()).append("\n\n");
-            } else if ("Dynamic".equals(section.getType())) {
-                /**
-                 * Bước 7.4 (UC-PUB-01): Thực thi "Trình tạo Truy vấn" (Query Builder)
-                 */
-                Map<String, String> query = section.getQuery();
-                String artifactType = query.get("artifactType");
-                String status = query.get("status");
-
-                if (artifactType == null || artifactType.isEmpty()) {
-                    logger.warn("Bỏ qua chương động '{}': Loại Artifact (artifactType) bị thiếu.", section.getTitle());
-                    continue;
-                }
-
-                String effectiveReleaseId = releaseIdFilter;
-
-                try {
-                    List<Artifact> artifacts = indexRepository.queryArtifactsByCriteria(artifactType, status, effectiveReleaseId);
-                    logger.info("Chương '{}' tìm thấy {} artifacts.", section.getTitle(), artifacts.size());
-
-                    /**
-                     * Bước 7.5 (UC-PUB-01): Nối vào chuỗi Markdown
-                     */
-                    appendArtifactsToMarkdown(mdBuilder, artifacts, section.getDisplayFormat());
-
-                } catch (SQLException e) {
-                    logger.error("Lỗi SQL khi thực thi query cho chương '{}': {}", section.getTitle(), e.getMessage());
-                    mdBuilder.append("*Lỗi khi tải dữ liệu cho chương này.*\n\n");
-                }
+        /**
+         * Các chương độc lập với nhau: được dựng song song (tối đa SECTION_WINDOW chương cùng lúc),
+         * rồi được nối vào tài liệu đúng theo thứ tự của template
+         */
+        int[] sectionCounts = new int[2]; // {số chương động, số chương phải dựng lại}
+        try (OrderedTaskPipeline<RenderedSection> pipeline = new OrderedTaskPipeline<>(SECTION_WINDOW, rendered -> {
+            mdBuilder.append(rendered.markdown());
+            if (rendered.dynamic()) {
+                sectionCounts[0]++;
+            }
+            if (rendered.rebuilt()) {
+                sectionCounts[1]++;
             }
+        })) {
+            for (ExportTemplateSection section : template.getSections()) {
+                pipeline.submit(() -> renderSection(section, releaseIdFilter));
+            }
+            pipeline.drain();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
         }
 
+        logger.info("Đã dựng lại {}/{} chương động (số còn lại lấy từ bộ đệm).", sectionCounts[1], sectionCounts[0]);
+
         /**
          * Bước 8.0 & 9.0 (UC-PUB-01): Gọi Pandoc (từ Ngày 31)
          */
@@ -375,15 +427,279 @@ public class ExportServiceImpl implements IExportService {
         Platform.runLater(() -> projectStateService.setStatusMessage("Xuất tài liệu thành công: " + outputFile.getName()));
     }
 
+    /**
+     * Cách dựng .docx của dự án đang mở (mặc định: NATIVE).
+     */
+    private DocxExportEngine getDocxExportEngine() {
+        ProjectConfig config = projectService.getCurrentProjectConfig();
+        if (config == null || config.getDocxExportEngine() == null) {
+            return DocxExportEngine.NATIVE;
+        }
+        return config.getDocxExportEngine();
+    }
+
+    /**
+     * Xuất .docx trực tiếp (không qua Markdown + Pandoc):
+     * đọc artifact và render sơ đồ PlantUML song song trên pipeline,
+     * các khối được ghi vào XWPFDocument đúng theo thứ tự của template.
+     *
+     * @param outputFile      File .docx (Đích)
+     * @param template        Template Xuất bản
+     * @param releaseIdFilter ID của Release (hoặc null)
+     * @throws IOException          Nếu lỗi I/O
+     * @throws InterruptedException Nếu luồng xuất bản bị gián đoạn
+     */
+    private void exportToDocx(File outputFile, ExportTemplate template, String releaseIdFilter) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        try (DocxDocumentWriter writer = new DocxDocumentWriter();
+             OrderedTaskPipeline<DocxDocumentWriter.Block> pipeline = new OrderedTaskPipeline<>(
+                     OrderedTaskPipeline.defaultWindow(), block -> block.writeTo(writer))) {
+            writer.title(template.getTemplateName());
+            for (ExportTemplateSection section : template.getSections()) {
+                submitDocxSection(pipeline, section, releaseIdFilter);
+            }
+            pipeline.drain();
+
+            Platform.runLater(() -> projectStateService.setStatusMessage("Đang ghi file DOCX..."));
+            writer.save(outputFile);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        logger.info("Tạo file DOCX thành công ({} ms): {}", (System.nanoTime() - startNanos) / 1_000_000, outputFile.getAbsolutePath());
+    }
+
+    /**
+     * Đưa các khối của một chương vào pipeline (truy vấn CSDL Chỉ mục chạy trên luồng gọi).
+     */
+    private void submitDocxSection(OrderedTaskPipeline<DocxDocumentWriter.Block> pipeline,
+                                   ExportTemplateSection section, String releaseIdFilter) throws Exception {
+        String title = section.getTitle();
+        pipeline.submit(() -> writer -> writer.heading(title, 1));
+
+        if ("Static".equals(section.getType())) {
+            String content = (section.getContent() != null) ? section.getContent() : "";
+            pipeline.submit(() -> writer -> writer.markdownBlock(content));
+        } else if ("Dynamic".equals(section.getType())) {
+            Map<String, String> query = section.getQuery();
+            String artifactType = query.get("artifactType");
+            if (artifactType == null || artifactType.isEmpty()) {
+                logger.warn("Bỏ qua chương động '{}': Loại Artifact (artifactType) bị thiếu.", title);
+                return;
+            }
+
+            List<Artifact> artifacts;
+            try {
+                artifacts = indexRepository.queryArtifactsByCriteria(artifactType, query.get("status"), releaseIdFilter);
+            } catch (SQLException e) {
+                logger.error("Lỗi SQL khi thực thi query cho chương '{}': {}", title, e.getMessage());
+                pipeline.submit(() -> writer -> writer.emphasis("Lỗi khi tải dữ liệu cho chương này."));
+                return;
+            }
+            logger.info("Chương '{}' tìm thấy {} artifacts.", title, artifacts.size());
+
+            if ("Table".equalsIgnoreCase(section.getDisplayFormat())) {
+                List<String[]> rows = new ArrayList<>(artifacts.size());
+                for (Artifact artifact : artifacts) {
+                    rows.add(new String[]{artifact.getId(), artifact.getName()});
+                }
+                pipeline.submit(() -> writer -> writer.table(new String[]{"ID", "Name"}, rows));
+            } else {
+                for (Artifact artifact : artifacts) {
+                    pipeline.submit(() -> prepareDocxArtifact(artifact));
+                }
+            }
+        }
+    }
+
+    /**
+     * Đọc một artifact và chuẩn bị mọi thứ tốn thời gian (giải nén trường, render sơ đồ)
+     * trên luồng của pipeline; khối trả về chỉ còn việc ghi vào tài liệu.
+     * Các trường được trình bày giống file .md (MarkdownMirror), cộng thêm sơ đồ cho Flow Builder.
+     *
+     * @param summary Artifact tóm tắt (từ CSDL Chỉ mục)
+     * @return Khối nội dung của artifact (hoặc thông báo lỗi)
+     */
+    private DocxDocumentWriter.Block prepareDocxArtifact(Artifact summary) {
+        String relativePath = summary.getRelativePath();
+        if (relativePath == null || relativePath.isEmpty()) {
+            logger.error("Không thể tải (load) artifact {}: relativePath là null. Bỏ qua.", summary.getId());
+            return writer -> writer.emphasis("Lỗi: Không tìm thấy đường dẫn (path) cho " + summary.getId());
+        }
+        Artifact artifact;
+        try {
+            artifact = artifactRepository.load(relativePath);
+        } catch (IOException e) {
+            logger.error("Không thể đọc artifact: {}. Bỏ qua.", relativePath, e);
+            artifact = null;
+        }
+        if (artifact == null) {
+            return writer -> writer.emphasis("Lỗi: Không tìm thấy " + relativePath);
+        }
+
+        List<DocxDocumentWriter.Block> fieldBlocks = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : artifact.getFields().entrySet()) {
+            String fieldName = entry.getKey();
+            Object value = entry.getValue();
+            fieldBlocks.add(writer -> writer.heading(fieldName, 3));
+
+            List<FlowStep> steps = flowStepsOf(value);
+            if (steps != null) {
+                byte[] diagram = renderFlowDiagram(artifact.getId(), steps);
+                String pictureName = artifact.getId() + "-" + fieldName + ".png";
+                fieldBlocks.add(writer -> {
+                    writer.flowTable(steps);
+                    if (diagram != null) {
+                        writer.picture(diagram, pictureName);
+                    }
+                });
+            } else if (value == null) {
+                fieldBlocks.add(writer -> writer.emphasis("N/A"));
+            } else {
+                String text = value.toString();
+                if (text.startsWith("<?xml")) {
+                    fieldBlocks.add(writer -> writer.preformatted(text));
+                } else {
+                    fieldBlocks.add(writer -> writer.text(text));
+                }
+            }
+        }
+
+        String heading = artifact.getId() + ": " + artifact.getName();
+        return writer -> {
+            writer.heading(heading, 2);
+            for (DocxDocumentWriter.Block block : fieldBlocks) {
+                block.writeTo(writer);
+            }
+        };
+    }
+
+    /**
+     * Nhận diện giá trị của trường Flow Builder (cùng quy tắc với MarkdownMirror).
+     *
+     * @return Danh sách bước, hoặc null nếu giá trị không phải một luồng
+     */
+    private List<FlowStep> flowStepsOf(Object value) {
+        if (!(value instanceof List<?> list) || list.isEmpty()) {
+            return null;
+        }
+        try {
+            List<FlowStep> steps = serializationService.toFlowSteps(list);
+            if (steps != null && !steps.isEmpty() && (steps.get(0).getActor() != null || steps.get(0).getAction() != null)) {
+                return steps;
+            }
+        } catch (Exception e) {
+            logger.warn("Không thể convert List sang FlowStep, in ra giá trị thô: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Render sơ đồ PlantUML (PNG) của một luồng; sơ đồ đã render được đệm theo mã PlantUML,
+     * nên lần xuất sau chỉ render lại các luồng đã thay đổi.
+     *
+     * @return Nội dung PNG, hoặc null nếu không render được (bảng các bước vẫn được xuất)
+     */
+    private byte[] renderFlowDiagram(String artifactId, List<FlowStep> steps) {
+        String plantUmlCode = diagramRenderService.generatePlantUmlCode(steps);
+        byte[] png = diagramCache.get(plantUmlCode);
+        if (png != null) {
+            return png;
+        }
+        try {
+            png = diagramRenderService.renderPng(plantUmlCode);
+        } catch (IOException e) {
+            logger.warn("Không thể render sơ đồ cho {}: {}", artifactId, e.getMessage());
+            return null;
+        }
+        diagramCache.put(plantUmlCode, png);
+        return png;
+    }
+
+    /**
+     * Kết quả dựng một chương.
+     *
+     * @param markdown Đoạn Markdown (kể cả tiêu đề chương), không sao chép thêm trước khi nối
+     * @param dynamic  Chương động (có truy vấn)
+     * @param rebuilt  Đã phải dựng lại (không có trong bộ đệm)
+     */
+    private record RenderedSection(CharSequence markdown, boolean dynamic, boolean rebuilt) {
+    }
+
+    /**
+     * Dựng một chương của Template Xuất bản (chạy trên luồng của pipeline).
+     *
+     * @param section         Chương
+     * @param releaseIdFilter ID của Release (hoặc null)
+     * @return Đoạn Markdown của chương
+     * @throws IOException Nếu lỗi đọc file .md
+     */
+    private RenderedSection renderSection(ExportTemplateSection section, String releaseIdFilter) throws IOException {
+        StringBuilder mdBuilder = new StringBuilder();
+        mdBuilder.append("# ").append(section.getTitle()).append("\n\n");
+
+        if ("Static".equals(section.getType())) {
+            mdBuilder.append(section.getContent()).append("\n\n");
+        } else if ("Dynamic".equals(section.getType())) {
+            /**
+             * Bước 7.4 (UC-PUB-01): Thực thi "Trình tạo Truy vấn" (Query Builder)
+             */
+            Map<String, String> query = section.getQuery();
+            String artifactType = query.get("artifactType");
+            String status = query.get("status");
+
+            if (artifactType == null || artifactType.isEmpty()) {
+                logger.warn("Bỏ qua chương động '{}': Loại Artifact (artifactType) bị thiếu.", section.getTitle());
+                return new RenderedSection(mdBuilder, false, false);
+            }
+
+            String effectiveReleaseId = releaseIdFilter;
+
+            try {
+                List<Artifact> artifacts = indexRepository.queryArtifactsByCriteria(artifactType, status, effectiveReleaseId);
+                logger.info("Chương '{}' tìm thấy {} artifacts.", section.getTitle(), artifacts.size());
+
+                /**
+                 * Dùng lại đoạn Markdown đã dựng nếu chương và mọi artifact của nó không đổi
+                 */
+                String cacheKey = sectionCacheKey(section, effectiveReleaseId, artifacts);
+                String fragment = (cacheKey != null) ? sectionCache.get(cacheKey) : null;
+                boolean rebuilt = (fragment == null);
+                if (rebuilt) {
+                    /**
+                     * Bước 7.5 (UC-PUB-01): Nối vào chuỗi Markdown
+                     */
+                    StringBuilder sectionBuilder = new StringBuilder();
+                    boolean complete = appendArtifactsToMarkdown(sectionBuilder, artifacts, section.getDisplayFormat());
+                    fragment = sectionBuilder.toString();
+                    if (complete && cacheKey != null) {
+                        sectionCache.put(cacheKey, fragment);
+                    }
+                }
+                mdBuilder.append(fragment);
+                return new RenderedSection(mdBuilder, true, rebuilt);
+
+            } catch (SQLException e) {
+                logger.error("Lỗi SQL khi thực thi query cho chương '{}': {}", section.getTitle(), e.getMessage());
+                mdBuilder.append("*Lỗi khi tải dữ liệu cho chương này.*\n\n");
+                return new RenderedSection(mdBuilder, true, true);
+            }
+        }
+        return new RenderedSection(mdBuilder, false, false);
+    }
+
     /**
      * Helper (hàm phụ) để render danh sách Artifacts sang Markdown.
      *
      * @param mdBuilder     StringBuilder
      * @param artifacts     Danh sách artifacts (từ CSDL)
      * @param displayFormat "Table" hoặc "FullContent"
+     * @return false nếu có artifact không đọc được (đoạn chứa thông báo lỗi, không được đệm)
      * @throws IOException Nếu lỗi đọc file .md
      */
-    private void appendArtifactsToMarkdown(StringBuilder mdBuilder, List<Artifact> artifacts, String displayFormat) throws IOException {
+    private boolean appendArtifactsToMarkdown(StringBuilder mdBuilder, List<Artifact> artifacts, String displayFormat) throws IOException {
+        boolean complete = true;
         if ("Table".equalsIgnoreCase(displayFormat)) {
             mdBuilder.append("| ID | Name |\n");
             mdBuilder.append("|:---|:---|\n");
@@ -395,37 +711,105 @@ public class ExportServiceImpl implements IExportService {
             /**
              * Mặc định là "FullContent"
              * Bước 7.5 (UC-PUB-01): Đọc file .md (đã auto-gen)
+             * Các file .md được đọc song song, nối vào theo đúng thứ tự của truy vấn
              */
-            for (Artifact artifact : artifacts) {
-                /**
-                 * ========================================================================
-                 * ĐÃ SỬA LỖI (KHỐI NÀY)
-                 * ========================================================================
-                 */
-                // [SỬA LỖI] Lấy (Get) đường dẫn (path) .json từ CSDL Chỉ mục (Index DB)
-                String jsonRelativePath = artifact.getRelativePath();
-                if (jsonRelativePath == null || jsonRelativePath.isEmpty()) {
-                    logger.error("Không thể tải (load) artifact {}: relativePath là null. Bỏ qua.", artifact.getId());
-                    mdBuilder.append("*Lỗi: Không tìm thấy đường dẫn (path) cho ").append(artifact.getId()).append("*\n\n---\n\n");
-                    continue;
+            AtomicBoolean allLoaded = new AtomicBoolean(true);
+            try (OrderedTaskPipeline<String> pipeline = new OrderedTaskPipeline<>(
+                    OrderedTaskPipeline.defaultWindow(), md -> mdBuilder.append(md).append(ARTIFACT_SEPARATOR))) {
+                for (Artifact artifact : artifacts) {
+                    pipeline.submit(() -> loadArtifactMarkdown(artifact, allLoaded));
                 }
+                pipeline.drain();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Xuất tài liệu bị gián đoạn.", e);
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            complete = allLoaded.get();
+        }
+        return complete;
+    }
 
-                // [SỬA LỖI] Thay thế (Replace) đuôi (extension) .json thành .md
-                String relativePath = jsonRelativePath.replace(".json", ".md");
-                /**
-                 * ========================================================================
-                 * HẾT PHẦN SỬA LỖI
-                 * ========================================================================
-                 */
-                try {
-                    String mdContent = artifactRepository.loadMarkdown(relativePath);
-                    mdBuilder.append(mdContent);
-                    mdBuilder.append("\n\n---\n\n"); // Thêm dải phân cách
-                } catch (IOException e) {
-                    logger.error("Không thể đọc file .md: {}. Bỏ qua.", relativePath, e);
-                    mdBuilder.append("*Lỗi: Không tìm thấy ").append(relativePath).append("*\n\n---\n\n");
+    /**
+     * Đọc file .md của một artifact, hoặc thông báo lỗi nếu không đọc được.
+     *
+     * @param artifact  Artifact tóm tắt (từ CSDL Chỉ mục)
+     * @param allLoaded Bị đặt về false nếu không đọc được
+     * @return Đoạn Markdown
+     */
+    private String loadArtifactMarkdown(Artifact artifact, AtomicBoolean allLoaded) {
+        /**
+         * ========================================================================
+         * ĐÃ SỬA LỖI (KHỐI NÀY)
+         * ========================================================================
+         */
+        // [SỬA LỖI] Lấy (Get) đường dẫn (path) .json từ CSDL Chỉ mục (Index DB)
+        String jsonRelativePath = artifact.getRelativePath();
+        if (jsonRelativePath == null || jsonRelativePath.isEmpty()) {
+            logger.error("Không thể tải (load) artifact {}: relativePath là null. Bỏ qua.", artifact.getId());
+            allLoaded.set(false);
+            return "*Lỗi: Không tìm thấy đường dẫn (path) cho " + artifact.getId() + "*";
+        }
+
+        // [SỬA LỖI] Thay thế (Replace) đuôi (extension) .json thành .md
+        String relativePath = jsonRelativePath.replace(".json", ".md");
+        /**
+         * ========================================================================
+         * HẾT PHẦN SỬA LỖI
+         * ========================================================================
+         */
+        try {
+            return artifactRepository.loadMarkdown(relativePath);
+        } catch (IOException e) {
+            logger.error("Không thể đọc file .md: {}. Bỏ qua.", relativePath, e);
+            allLoaded.set(false);
+            return "*Lỗi: Không tìm thấy " + relativePath + "*";
+        }
+    }
+
+    /**
+     * Khóa bộ đệm của một chương động: dự án, định nghĩa chương (query, displayFormat),
+     * bộ lọc Release, và với từng artifact (theo thứ tự): ID, tên, đường dẫn;
+     * ở dạng "FullContent" thêm phiên bản của file .json (kích thước + mtime),
+     * vì file .md được sinh ra từ file .json.
+     *
+     * @return Khóa, hoặc null nếu không xác định được phiên bản (chương luôn được dựng lại)
+     */
+    private String sectionCacheKey(ExportTemplateSection section, String releaseId, List<Artifact> artifacts) {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            return null;
+        }
+        boolean fullContent = !"Table".equalsIgnoreCase(section.getDisplayFormat());
+        SectionRenderCache.KeyBuilder key = new SectionRenderCache.KeyBuilder()
+                .add(projectRoot.getAbsolutePath())
+                .add(fullContent ? "FullContent" : "Table")
+                .add(releaseId);
+        Map<String, String> query = (section.getQuery() != null) ? new TreeMap<>(section.getQuery()) : Map.of();
+        for (Map.Entry<String, String> criterion : query.entrySet()) {
+            key.add(criterion.getKey()).add(criterion.getValue());
+        }
+        key.add(artifacts.size());
+        try {
+            for (Artifact artifact : artifacts) {
+                key.add(artifact.getId()).add(artifact.getName()).add(artifact.getRelativePath());
+                if (fullContent) {
+                    StoredDocument version = (artifact.getRelativePath() != null)
+                            ? artifactRepository.stat(artifact.getRelativePath())
+                            : null;
+                    if (version == null) {
+                        return null;
+                    }
+                    key.add(version.getSize()).add(version.getLastModified());
                 }
             }
+        } catch (IOException e) {
+            logger.warn("Không xác định được phiên bản artifact cho chương '{}': {}", section.getTitle(), e.getMessage());
+            return null;
         }
+        return key.build();
     }
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package com.rms.app.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.ArtifactStorageMode;
+import com.rms.app.model.IndexedFileState;
 import com.rms.app.model.ProjectFolder;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.repository.RoutingArtifactRepository;
+import com.rms.app.service.IArtifactDocumentStore;
+import com.rms.app.service.IAutocompleteService;
+import com.rms.app.service.IFieldBlobStore;
+import com.rms.app.service.IIndexIngestSession;
 import com.rms.app.service.IIndexService;
+import com.rms.app.service.IProjectService;
+import com.rms.app.service.IProjectSnapshotRepository;
 import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISerializationService;
 import com.rms.app.service.ISqliteIndexRepository;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -15,11 +27,23 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.regex.Matcher;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -33,54 +57,117 @@ public class IndexServiceImpl implements IIndexService {
     private static final Logger logger = LoggerFactory.getLogger(IndexServiceImpl.class);
     private final IProjectStateService projectStateService;
     private final ISqliteIndexRepository indexRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IAutocompleteService autocompleteService;
+    private final ISerializationService serializationService;
+    private final IProjectSnapshotRepository snapshotRepository;
+    private final IArtifactDocumentStore documentStore;
+    private final IFieldBlobStore blobStore;
+    /**
+     * Provider (tra cứu trễ): ProjectServiceImpl phụ thuộc IIndexService, nên không inject trực tiếp
+     */
+    private final Provider<IProjectService> projectServiceProvider;
 
-    private static final Pattern LINK_PATTERN = Pattern.compile("@([A-Za-z0-9_\\-]+)");
+    static final Pattern LINK_PATTERN = Pattern.compile("@([A-Za-z0-9_\\-]+)");
     private Path projectRootPath;
+    /**
+     * true nếu dự án đang lập chỉ mục dùng chế độ lưu trữ SQLITE (xác định ở đầu mỗi lượt quét).
+     */
+    private boolean indexDocumentStore;
     private long fileCount = 0;
     private long linkCount = 0;
 
+    /**
+     * Tuần tự hóa các lượt quét (Tái lập, đồng bộ khi mở, đồng bộ từ Project Watcher)
+     * để chúng không chạy chồng lên nhau.
+     */
+    private final ReentrantLock indexLock = new ReentrantLock();
+
     @Inject
-    public IndexServiceImpl(IProjectStateService projectStateService, ISqliteIndexRepository indexRepository) {
+    public IndexServiceImpl(IProjectStateService projectStateService, ISqliteIndexRepository indexRepository,
+                            IAutocompleteService autocompleteService, ISerializationService serializationService,
+                            IProjectSnapshotRepository snapshotRepository, IArtifactDocumentStore documentStore,
+                            IFieldBlobStore blobStore, Provider<IProjectService> projectServiceProvider) {
         this.projectStateService = projectStateService;
+        this.documentStore = documentStore;
+        this.blobStore = blobStore;
+        this.projectServiceProvider = projectServiceProvider;
+        this.snapshotRepository = snapshotRepository;
+        this.serializationService = serializationService;
         this.indexRepository = indexRepository;
+        this.autocompleteService = autocompleteService;
     }
 
     @Override
     public void validateAndRebuildIndex() {
+        startIndexingTask(false);
+    }
+
+    @Override
+    public void syncIndex() {
+        startIndexingTask(true);
+    }
+
+    /**
+     * Khởi chạy tác vụ lập chỉ mục trên luồng nền.
+     *
+     * @param incremental true: chỉ xử lý các file đã thêm/sửa/xóa (nếu chỉ mục đã có dữ liệu);
+     *                    false: Tái lập toàn bộ (UC-PM-04)
+     */
+    private void startIndexingTask(boolean incremental) {
         File projectRoot = projectStateService.getCurrentProjectDirectory();
         if (projectRoot == null) {
             logger.warn("Không thể lập chỉ mục: Chưa mở dự án.");
             return;
         }
-        this.projectRootPath = projectRoot.toPath();
-        this.fileCount = 0;
-        this.linkCount = 0;
-
         File configDir = new File(projectRoot, ProjectServiceImpl.CONFIG_DIR);
 
         Task<Void> indexingTask = new Task<>() {
             @Override
             protected Void call() throws Exception {
+                indexLock.lock();
                 try {
-                    logger.info("Bắt đầu Tái lập Chỉ mục (luồng nền)...");
+                    projectRootPath = projectRoot.toPath();
+                    indexDocumentStore = usesDocumentStore();
+                    fileCount = 0;
+                    linkCount = 0;
                     Platform.runLater(() -> projectStateService.setStatusMessage("Đang quét và lập chỉ mục..."));
 
                     indexRepository.initializeDatabase(configDir);
-                    indexRepository.clearIndex();
-
+                    int imported = indexDocumentStore ? importFilesIntoDocumentStore() : 0;
                     /**
-                     * [SỬA LỖI] Gọi hàm đệ quy mới với inheritedScope = null
+                     * Nạp Autocomplete ngay từ chỉ mục đã lưu (trước khi quét xong)
                      */
-                    scanDirectoryRecursive(projectRootPath, null, null);
+                    autocompleteService.rebuild();
 
-                    String status = String.format("Hoàn tất. Đã lập chỉ mục %d đối tượng, %d liên kết.", fileCount, linkCount);
-                    logger.info(status);
-                    Platform.runLater(() -> projectStateService.setStatusMessage(status));
+                    String status;
+                    Map<String, IndexedFileState> knownStates = (incremental && imported == 0)
+                            ? indexRepository.getIndexedFileStates()
+                            : Collections.emptyMap();
+
+                    if (incremental && !knownStates.isEmpty()) {
+                        logger.info("Bắt đầu đồng bộ Chỉ mục tăng dần (luồng nền)...");
+                        status = runIncrementalSync(knownStates);
+                    } else {
+                        logger.info("Bắt đầu Tái lập Chỉ mục (luồng nền)...");
+                        runFullRebuild();
+                        status = String.format("Hoàn tất. Đã lập chỉ mục %d đối tượng, %d liên kết.", fileCount, linkCount);
+                    }
+                    String finalStatus = (imported > 0)
+                            ? String.format("Đã chuyển %d artifact từ file .json vào kho lưu trữ một-file. ", imported) + status
+                            : status;
+
+                    autocompleteService.rebuild();
+                    logger.info(finalStatus);
+                    Platform.runLater(() -> projectStateService.setStatusMessage(finalStatus));
+                    if (!indexDocumentStore) {
+                        refreshSnapshot();
+                    }
 
                 } catch (Exception e) {
                     logger.error("Lỗi nghiêm trọng khi Tái lập Chỉ mục", e);
                     Platform.runLater(() -> projectStateService.setStatusMessage("Lỗi: Không thể lập chỉ mục dự án."));
+                } finally {
+                    indexLock.unlock();
                 }
                 return null;
             }
@@ -89,15 +176,150 @@ public class IndexServiceImpl implements IIndexService {
         new Thread(indexingTask).start();
     }
 
+    /**
+     * @return true nếu dự án đang mở lưu artifact trong kho lưu trữ một-file (SQLITE)
+     */
+    private boolean usesDocumentStore() {
+        return RoutingArtifactRepository.storageModeOf(projectServiceProvider.get().getCurrentProjectConfig())
+                == ArtifactStorageMode.SQLITE;
+    }
+
+    /**
+     * Chuyển dự án sang chế độ SQLITE (một lần): nếu kho lưu trữ một-file còn trống nhưng
+     * thư mục dự án vẫn có file .json (storageMode vừa được đổi trên một dự án FILES),
+     * chép các artifact (và blob) vào kho trước khi quét, thay vì lập chỉ mục một dự án rỗng.
+     * Mọi artifact được ghi trong MỘT giao dịch: lỗi giữa chừng để kho trống, lần mở sau thử lại.
+     * Các file .json gốc được giữ nguyên (chế độ SQLITE không đọc chúng nữa).
+     *
+     * @return Số artifact đã chép (0 nếu không cần chuyển)
+     * @throws IOException Nếu lỗi đọc file hoặc lỗi kho lưu trữ
+     */
+    private int importFilesIntoDocumentStore() throws IOException {
+        if (!documentStore.isEmpty()) {
+            return 0;
+        }
+        List<Path> files = new ArrayList<>();
+        collectArtifactFiles(projectRootPath, files);
+        if (files.isEmpty()) {
+            return 0;
+        }
+        logger.warn("Kho lưu trữ một-file trống nhưng dự án có {} file .json: chuyển sang chế độ SQLITE.", files.size());
+        Platform.runLater(() -> projectStateService.setStatusMessage(
+                "Đang chuyển " + files.size() + " artifact vào kho lưu trữ một-file..."));
+
+        /**
+         * Blob trước, để mọi tham chiếu {"$blob"} trong tài liệu đọc được ngay
+         */
+        int blobs = blobStore.importFileBlobs();
+        List<StoredDocument> documents = new ArrayList<>(files.size());
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            documents.add(new StoredDocument(projectRootPath.relativize(file).toString(), content.length,
+                    Files.getLastModifiedTime(file).toMillis(), content));
+        }
+        documentStore.writeAll(documents);
+        logger.info("Đã chuyển {} artifact và {} blob vào kho lưu trữ một-file.", documents.size(), blobs);
+        return documents.size();
+    }
+
+    /**
+     * Thu thập các file artifact (.json) theo cùng quy tắc bỏ qua như khi quét ở chế độ FILES.
+     */
+    private static void collectArtifactFiles(Path directory, List<Path> files) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path path : stream.toList()) {
+                String fileName = path.getFileName().toString();
+                if (isIgnored(fileName)) {
+                    continue;
+                }
+                if (Files.isDirectory(path)) {
+                    collectArtifactFiles(path, files);
+                } else if (fileName.endsWith(".json")) {
+                    files.add(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Làm mới snapshot nhị phân của dự án theo chỉ mục vừa cập nhật.
+     * Lỗi ở đây không ảnh hưởng chỉ mục: khi snapshot cũ/thiếu, việc đọc artifact dùng file nguồn.
+     */
+    private void refreshSnapshot() {
+        try {
+            snapshotRepository.refresh(indexRepository.getIndexedFileStates());
+        } catch (Exception e) {
+            logger.warn("Không thể làm mới snapshot dự án: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tái lập toàn bộ chỉ mục.
+     *
+     * @throws IOException Nếu lỗi đọc file
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private void runFullRebuild() throws Exception {
+        /**
+         * Nạp hàng loạt vào bộ bảng bóng (shadow) rồi hoán đổi nguyên tử,
+         * thay cho clearIndex() + chèn từng dòng (autocommit).
+         * Cây dự án trên UI vẫn giữ dữ liệu cũ trong lúc quét.
+         * Đọc + parse JSON chạy song song trong pipeline; luồng hiện tại
+         * (duyệt thư mục) là luồng ghi DUY NHẤT vào phiên nạp, theo đúng thứ tự.
+         */
+        try (IIndexIngestSession session = indexRepository.beginBulkIngest();
+             OrderedTaskPipeline<ParsedFile> pipeline = new OrderedTaskPipeline<>(
+                     OrderedTaskPipeline.defaultWindow(), parsed -> ingestParsedFile(session, parsed))) {
+            /**
+             * [SỬA LỖI] Gọi hàm đệ quy mới với inheritedScope = null
+             */
+            scanDirectoryRecursive(session, pipeline, projectRootPath, null, null);
+            pipeline.drain();
+            session.commit();
+        }
+    }
+
+    /**
+     * Kiểm tra tên file/thư mục có bị bỏ qua khi quét hay không
+     * (thư mục cấu hình, build, và ẩn).
+     *
+     * @param fileName Tên file hoặc thư mục
+     * @return true nếu bị bỏ qua
+     */
+    static boolean isIgnored(String fileName) {
+        return fileName.equals(ProjectServiceImpl.CONFIG_DIR) || fileName.equals("target") || fileName.startsWith(".");
+    }
+
+    /**
+     * Tạo đối tượng ProjectFolder mới (UUID mới) cho một thư mục vật lý.
+     *
+     * @param fileName       Tên thư mục
+     * @param relativePath   Đường dẫn tương đối
+     * @param parentFolderId ID của thư mục cha (null nếu là cấp 1)
+     * @param scope          Phạm vi (scope) đã xác định
+     * @return ProjectFolder
+     */
+    private static ProjectFolder newFolder(String fileName, String relativePath, String parentFolderId, String scope) {
+        ProjectFolder folder = new ProjectFolder();
+        folder.setId(UUID.randomUUID().toString());
+        folder.setName(fileName);
+        folder.setParentId(parentFolderId);
+        folder.setRelativePath(relativePath);
+        folder.setArtifactTypeScope(scope); // Gán scope (kế thừa hoặc tự định nghĩa)
+        return folder;
+    }
+
     /**
      * [MỚI] Hàm đệ quy được sửa đổi để truyền (pass) scope kế thừa.
-     * * @param directory Thư mục hiện tại
+     * * @param session Phiên nạp hàng loạt (bulk-ingest) nhận các dòng thư mục
+     * @param pipeline Pipeline đọc + parse song song các file artifact
+     * @param directory Thư mục hiện tại
      * @param parentFolderId ID (UUID) của thư mục cha trong CSDL
      * @param inheritedScope Scope được kế thừa từ thư mục cha (hoặc null nếu thư mục gốc)
-     * @throws IOException Nếu lỗi đọc file
-     * @throws SQLException Nếu lỗi CSDL
+     * @throws Exception Nếu lỗi đọc thư mục hoặc lỗi CSDL
      */
-    private void scanDirectoryRecursive(Path directory, String parentFolderId, String inheritedScope) throws IOException, SQLException {
+    private void scanDirectoryRecursive(IIndexIngestSession session, OrderedTaskPipeline<ParsedFile> pipeline,
+                                        Path directory, String parentFolderId, String inheritedScope) throws Exception {
         try (Stream<Path> stream = Files.list(directory)) {
             for (Path path : stream.toList()) {
                 String fileName = path.getFileName().toString();
@@ -105,83 +327,613 @@ public class IndexServiceImpl implements IIndexService {
                 /**
                  * Bỏ qua (Ignore) các thư mục cấu hình, build, và ẩn
                  */
-                if (fileName.equals(ProjectServiceImpl.CONFIG_DIR) || fileName.equals("target") || fileName.startsWith(".")) {
+                if (isIgnored(fileName)) {
                     continue;
                 }
 
                 String relativePath = projectRootPath.relativize(path).toString();
-                String currentScope = inheritedScope; // Mặc định kế thừa scope của cha
 
                 if (Files.isDirectory(path)) {
                     /**
                      * 1. Đây là một THƯ MỤC
-                     */
-                    ProjectFolder folder = new ProjectFolder();
-                    folder.setId(UUID.randomUUID().toString());
-                    folder.setName(fileName);
-                    folder.setParentId(parentFolderId);
-                    folder.setRelativePath(relativePath);
-
-                    /**
                      * [SỬA LỖI] Logic (Logic) gán Phạm vi (Scope)
                      * Nếu là thư mục cấp 1, nó tự định nghĩa scope.
                      * Nếu không, nó kế thừa scope từ cha.
                      */
-                    if (parentFolderId == null) {
-                        currentScope = fileName; // Ví dụ: "UC", "BR"
-                    }
-                    folder.setArtifactTypeScope(currentScope); // Gán scope (kế thừa hoặc tự định nghĩa)
-
-                    indexRepository.insertFolder(folder);
+                    String currentScope = (parentFolderId == null) ? fileName : inheritedScope;
+                    ProjectFolder folder = newFolder(fileName, relativePath, parentFolderId, currentScope);
+                    session.addFolder(folder);
 
                     /**
                      * Quét (Scan) đệ quy vào thư mục con
                      * [SỬA LỖI] Truyền (Pass) scope hiện tại vào hàm đệ quy.
                      */
-                    scanDirectoryRecursive(path, folder.getId(), currentScope);
+                    scanDirectoryRecursive(session, pipeline, path, folder.getId(), currentScope);
 
-                } else if (fileName.endsWith(".json")) {
+                } else if (!indexDocumentStore && fileName.endsWith(".json")) {
                     /**
-                     * 2. Đây là một file JSON (Artifact)
+                     * 2. Đây là một file JSON (Artifact): đọc + parse trên worker
                      */
-                    try {
-                        Artifact artifact = objectMapper.readValue(path.toFile(), Artifact.class);
-                        if (artifact == null || artifact.getId() == null) {
-                            continue;
-                        }
-
-                        /**
-                         * Cập nhật (Update) thông tin đường dẫn (path) và folderId
-                         */
-                        artifact.setRelativePath(relativePath);
-                        /**
-                         * [SỬA LỖI ĐÃ THỰC HIỆN TRƯỚC] Gán ID của thư mục cha (parent)
-                         */
-                        artifact.setFolderId(parentFolderId);
-
-                        indexRepository.insertArtifact(artifact);
-                        fileCount++;
-
-                        /**
-                         * Lập chỉ mục (Index) các liên kết (link)
-                         */
-                        String fieldsAsString = artifact.getFields().toString();
-                        Matcher matcher = LINK_PATTERN.matcher(fieldsAsString);
-
-                        while (matcher.find()) {
-                            String toId = matcher.group(1);
-                            indexRepository.insertLink(artifact.getId(), toId);
-                            linkCount++;
-                        }
-
-                    } catch (Exception e) {
-                        logger.error("Lỗi khi lập chỉ mục file {}: {}", fileName, e.getMessage());
+                    pipeline.submit(() -> parseFile(path, relativePath, parentFolderId, null));
+                }
+            }
+        }
+
+        if (indexDocumentStore) {
+            /**
+             * Chế độ SQLITE: artifact của thư mục này nằm trong kho lưu trữ một-file
+             */
+            for (StoredDocument document : documentStore.list(projectRootPath.relativize(directory).toString())) {
+                pipeline.submit(() -> parseDocument(document, parentFolderId, null));
+            }
+        }
+    }
+
+    /**
+     * Giai đoạn ghi (single-writer) của Tái lập toàn bộ:
+     * đưa kết quả parse vào phiên nạp hàng loạt.
+     *
+     * @param session Phiên nạp hàng loạt
+     * @param parsed  Kết quả parse
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private void ingestParsedFile(IIndexIngestSession session, ParsedFile parsed) throws SQLException {
+        if (parsed.header == null) {
+            return;
+        }
+        session.addArtifact(parsed.header);
+        session.addFileState(parsed.state);
+        fileCount++;
+
+        /**
+         * Lập chỉ mục (Index) các liên kết (link)
+         */
+        for (String toId : parsed.header.getLinks()) {
+            session.addLink(parsed.header.getId(), toId);
+            linkCount++;
+        }
+    }
+
+    /**
+     * Đồng bộ chỉ mục tăng dần: so sánh kích thước + mtime (và hash nếu cần)
+     * của từng file với trạng thái đã lưu, chỉ phân tích (parse) lại
+     * các file đã thêm hoặc thay đổi, và xóa các mục của file đã bị xóa.
+     *
+     * @param knownStates Trạng thái file đã lập chỉ mục {relativePath -> state}
+     * @return Thông điệp trạng thái (bắt đầu bằng "Hoàn tất." để làm mới cây)
+     * @throws Exception Nếu lỗi đọc thư mục hoặc lỗi CSDL
+     */
+    private String runIncrementalSync(Map<String, IndexedFileState> knownStates) throws Exception {
+        Map<String, ProjectFolder> knownFolders = loadKnownFolders();
+
+        IndexDelta delta = new IndexDelta();
+        syncSubtree(delta, projectRootPath, knownStates, knownFolders);
+        delta.finish();
+
+        return String.format("Hoàn tất. Đồng bộ chỉ mục: %d thêm/sửa, %d xóa, %d không đổi.",
+                delta.changedCount, delta.removedCount, delta.unchangedCount);
+    }
+
+    @Override
+    public void syncDirectories(Collection<Path> directories) {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null || directories == null || directories.isEmpty()) {
+            return;
+        }
+
+        indexLock.lock();
+        try {
+            projectRootPath = projectRoot.toPath().toAbsolutePath().normalize();
+            indexDocumentStore = usesDocumentStore();
+            indexRepository.initializeDatabase(new File(projectRoot, ProjectServiceImpl.CONFIG_DIR));
+
+            Map<String, IndexedFileState> knownStates = indexRepository.getIndexedFileStates();
+            Map<String, ProjectFolder> knownFolders = loadKnownFolders();
+            IndexDelta delta = new IndexDelta();
+            for (Path root : resolveSyncRoots(directories, knownFolders)) {
+                syncSubtree(delta, root, knownStates, knownFolders);
+            }
+            delta.finish();
+            if (delta.changedCount > 0 || delta.removedCount > 0) {
+                autocompleteService.rebuild();
+            }
+
+            if (delta.hasStructuralChanges()) {
+                /**
+                 * Chỉ MỘT thông điệp "Hoàn tất." (làm mới cây dự án) cho cả loạt thay đổi
+                 */
+                String status = String.format("Hoàn tất. Đồng bộ thay đổi từ ổ đĩa: %d thêm/sửa, %d xóa.",
+                        delta.changedCount, delta.removedCount);
+                logger.info(status);
+                Platform.runLater(() -> projectStateService.setStatusMessage(status));
+            } else if (delta.changedCount > 0) {
+                logger.info("Đã đồng bộ chỉ mục cho {} file thay đổi từ ổ đĩa.", delta.changedCount);
+            }
+        } catch (Exception e) {
+            logger.error("Lỗi khi đồng bộ chỉ mục với thay đổi từ ổ đĩa", e);
+            Platform.runLater(() -> projectStateService.setStatusMessage("Lỗi: Không thể cập nhật CSDL chỉ mục."));
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Tải các thư mục đã lập chỉ mục.
+     *
+     * @return Map (Ánh xạ) {relativePath -> ProjectFolder}
+     * @throws SQLException Nếu lỗi CSDL
+     */
+    private Map<String, ProjectFolder> loadKnownFolders() throws SQLException {
+        Map<String, ProjectFolder> knownFolders = new HashMap<>();
+        for (ProjectFolder folder : indexRepository.getAllFolders()) {
+            knownFolders.put(folder.getRelativePath(), folder);
+        }
+        return knownFolders;
+    }
+
+    /**
+     * Rút gọn danh sách thư mục cần đồng bộ: mỗi thư mục được thay bằng tổ tiên gần nhất
+     * đã có trong chỉ mục (thư mục mới/bị xóa được xử lý từ thư mục cha),
+     * và bỏ các thư mục nằm trong một thư mục khác của danh sách.
+     *
+     * @param directories  Các thư mục có sự kiện thay đổi
+     * @param knownFolders Các thư mục đã lập chỉ mục {relativePath -> ProjectFolder}
+     * @return Các thư mục gốc (root) của những cây con cần đồng bộ
+     */
+    private List<Path> resolveSyncRoots(Collection<Path> directories, Map<String, ProjectFolder> knownFolders) {
+        Set<Path> candidates = new HashSet<>();
+        for (Path directory : directories) {
+            Path current = directory.toAbsolutePath().normalize();
+            if (!current.startsWith(projectRootPath)) {
+                continue;
+            }
+            while (!current.equals(projectRootPath)
+                    && (!Files.isDirectory(current) || !knownFolders.containsKey(projectRootPath.relativize(current).toString()))) {
+                current = current.getParent();
+            }
+            candidates.add(current);
+        }
+
+        List<Path> roots = new ArrayList<>();
+        for (Path candidate : candidates) {
+            boolean nested = false;
+            for (Path other : candidates) {
+                if (!other.equals(candidate) && candidate.startsWith(other)) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested) {
+                roots.add(candidate);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Đồng bộ tăng dần một cây con (subtree) của dự án: quét thư mục,
+     * rồi đánh dấu xóa các file/thư mục đã lập chỉ mục trong cây con nhưng không còn trên đĩa.
+     *
+     * @param delta        Delta đang tích lũy
+     * @param directory    Thư mục gốc của cây con (thư mục dự án, hoặc một thư mục đã lập chỉ mục)
+     * @param knownStates  Trạng thái file đã lập chỉ mục {relativePath -> state}
+     * @param knownFolders Các thư mục đã lập chỉ mục {relativePath -> ProjectFolder}
+     * @throws Exception Nếu lỗi đọc thư mục hoặc lỗi CSDL
+     */
+    private void syncSubtree(IndexDelta delta, Path directory,
+                             Map<String, IndexedFileState> knownStates,
+                             Map<String, ProjectFolder> knownFolders) throws Exception {
+        String rootRelativePath = projectRootPath.relativize(directory).toString();
+        String parentFolderId = null;
+        String scope = null;
+        if (!rootRelativePath.isEmpty()) {
+            ProjectFolder rootFolder = knownFolders.get(rootRelativePath);
+            parentFolderId = rootFolder.getId();
+            scope = rootFolder.getArtifactTypeScope();
+        }
+
+        try (OrderedTaskPipeline<ParsedFile> pipeline = new OrderedTaskPipeline<>(
+                OrderedTaskPipeline.defaultWindow(), parsed -> applyParsedFile(delta, parsed))) {
+            syncDirectoryRecursive(delta, pipeline, directory, parentFolderId, scope, knownStates, knownFolders);
+            pipeline.drain();
+        }
+
+        /**
+         * Các file/thư mục không còn trên đĩa: xóa khỏi chỉ mục
+         */
+        for (IndexedFileState state : knownStates.values()) {
+            if (isWithin(state.getRelativePath(), rootRelativePath)
+                    && !delta.seenFiles.contains(state.getRelativePath())) {
+                delta.removedFiles.add(state);
+            }
+        }
+        for (ProjectFolder folder : knownFolders.values()) {
+            if (isWithin(folder.getRelativePath(), rootRelativePath)
+                    && !delta.seenFolders.contains(folder.getRelativePath())) {
+                delta.removedFolderIds.add(folder.getId());
+                delta.folderChangeCount++;
+            }
+        }
+    }
+
+    /**
+     * @return true nếu relativePath nằm (thực sự) bên trong thư mục rootRelativePath
+     *         ("" là thư mục dự án)
+     */
+    private static boolean isWithin(String relativePath, String rootRelativePath) {
+        return rootRelativePath.isEmpty() || relativePath.startsWith(rootRelativePath + File.separator);
+    }
+
+    /**
+     * Hàm đệ quy cho đồng bộ tăng dần. Thư mục đã có trong chỉ mục giữ nguyên ID
+     * (tra theo relativePath) để các artifact không thay đổi vẫn trỏ đúng thư mục cha.
+     * File có kích thước + mtime khớp được bỏ qua ngay (không đọc nội dung);
+     * các file còn lại được hash + parse song song trong pipeline.
+     */
+    private void syncDirectoryRecursive(IndexDelta delta, OrderedTaskPipeline<ParsedFile> pipeline,
+                                        Path directory, String parentFolderId, String inheritedScope,
+                                        Map<String, IndexedFileState> knownStates,
+                                        Map<String, ProjectFolder> knownFolders) throws Exception {
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path path : stream.toList()) {
+                String fileName = path.getFileName().toString();
+                if (isIgnored(fileName)) {
+                    continue;
+                }
+
+                String relativePath = projectRootPath.relativize(path).toString();
+
+                if (Files.isDirectory(path)) {
+                    String currentScope = (parentFolderId == null) ? fileName : inheritedScope;
+                    ProjectFolder folder = knownFolders.get(relativePath);
+                    if (folder == null) {
+                        folder = newFolder(fileName, relativePath, parentFolderId, currentScope);
+                        delta.newFolders.add(folder);
+                        delta.folderChangeCount++;
+                    }
+                    delta.seenFolders.add(relativePath);
+                    syncDirectoryRecursive(delta, pipeline, path, folder.getId(), currentScope, knownStates, knownFolders);
+
+                } else if (!indexDocumentStore && fileName.endsWith(".json")) {
+                    IndexedFileState known = knownStates.get(relativePath);
+                    if (known != null && isUnchanged(path, known)) {
+                        delta.seenFiles.add(relativePath);
+                        delta.seenArtifactIds.add(known.getArtifactId());
+                        delta.unchangedCount++;
+                    } else {
+                        pipeline.submit(() -> parseFile(path, relativePath, parentFolderId, known));
+                    }
+                }
+            }
+        }
+
+        if (indexDocumentStore) {
+            for (StoredDocument document : documentStore.list(projectRootPath.relativize(directory).toString())) {
+                IndexedFileState known = knownStates.get(document.getRelativePath());
+                if (known != null && known.getFileSize() == document.getSize()
+                        && known.getLastModified() == document.getLastModified()) {
+                    delta.seenFiles.add(document.getRelativePath());
+                    delta.seenArtifactIds.add(known.getArtifactId());
+                    delta.unchangedCount++;
+                } else {
+                    pipeline.submit(() -> parseDocument(document, parentFolderId, known));
+                }
+            }
+        }
+    }
+
+    /**
+     * So sánh nhanh kích thước + mtime của file với trạng thái đã lưu (không đọc nội dung).
+     */
+    private static boolean isUnchanged(Path path, IndexedFileState known) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return known.getFileSize() == attrs.size()
+                    && known.getLastModified() == attrs.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            logger.warn("Không thể đọc thuộc tính file {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Giai đoạn ghi (single-writer) của đồng bộ tăng dần:
+     * ghi nhận kết quả hash/parse vào delta.
+     * Thứ tự kiểm tra: hash nội dung khớp (chỉ mtime thay đổi, ví dụ sau git checkout)
+     * thì chỉ cập nhật trạng thái file, không ghi lại artifact.
+     *
+     * @param delta  Delta đang tích lũy
+     * @param parsed Kết quả hash/parse
+     * @throws SQLException Nếu lỗi CSDL khi đẩy một khối
+     */
+    private void applyParsedFile(IndexDelta delta, ParsedFile parsed) throws SQLException {
+        if (parsed.state == null) {
+            if (parsed.unreadable && parsed.known != null) {
+                /**
+                 * File đang được ghi dở (editor cắt cụt rồi ghi lại, git checkout, ...):
+                 * giữ nguyên mục đã lập chỉ mục; trạng thái không được cập nhật,
+                 * nên lần đồng bộ sau sẽ đọc lại file
+                 */
+                delta.seenFiles.add(parsed.relativePath);
+                if (parsed.known.getArtifactId() != null) {
+                    delta.seenArtifactIds.add(parsed.known.getArtifactId());
+                }
+                delta.unchangedCount++;
+            }
+            return;
+        }
+        delta.seenFiles.add(parsed.relativePath);
+
+        if (parsed.header == null) {
+            delta.seenArtifactIds.add(parsed.known.getArtifactId());
+            delta.touchedStates.add(parsed.state);
+            delta.unchangedCount++;
+            delta.flushIfFull();
+            return;
+        }
+
+        delta.seenArtifactIds.add(parsed.header.getId());
+        IndexedFileState known = parsed.known;
+        if (known != null && known.getArtifactId() != null && !known.getArtifactId().equals(parsed.header.getId())) {
+            /**
+             * ID trong file đã bị đổi: xóa mục cũ
+             */
+            delta.removedArtifactIds.add(known.getArtifactId());
+        }
+        delta.changedFiles.add(parsed);
+        delta.touchedStates.add(parsed.state);
+        delta.changedCount++;
+        if (known == null) {
+            delta.addedCount++;
+        }
+        delta.flushIfFull();
+    }
+
+    /**
+     * Kết quả đọc + hash + parse một file artifact (tạo trên worker thread).
+     * - state == null: file đã biến mất / không phải artifact hợp lệ (bỏ qua);
+     *   nếu unreadable (lỗi đọc hoặc JSON lỗi) thì mục đã lập chỉ mục (nếu có) được giữ nguyên.
+     * - header == null, state != null: nội dung không đổi so với known.
+     * - header != null: artifact mới hoặc đã thay đổi. Chỉ giữ header (cột chỉ mục,
+     *   liên kết và văn bản FTS), không giữ 'fields', nên bộ nhớ của cửa sổ pipeline
+     *   không phụ thuộc vào kích thước artifact (Flow, BPMN XML, ...).
+     */
+    private static final class ParsedFile {
+        private final String relativePath;
+        private final IndexedFileState known;
+        private final IndexedFileState state;
+        private final ArtifactHeader header;
+        private final boolean unreadable;
+
+        private ParsedFile(String relativePath, IndexedFileState known, IndexedFileState state,
+                           ArtifactHeader header) {
+            this(relativePath, known, state, header, false);
+        }
+
+        private ParsedFile(String relativePath, IndexedFileState known, IndexedFileState state,
+                           ArtifactHeader header, boolean unreadable) {
+            this.relativePath = relativePath;
+            this.known = known;
+            this.state = state;
+            this.header = header;
+            this.unreadable = unreadable;
+        }
+    }
+
+    /**
+     * Đọc, hash và parse một file artifact. Chạy trên worker thread của pipeline
+     * (ISerializationService an toàn cho đọc đồng thời).
+     *
+     * @param path           Đường dẫn tuyệt đối
+     * @param relativePath   Đường dẫn tương đối
+     * @param parentFolderId ID thư mục cha
+     * @param known          Trạng thái đã lưu (null nếu file mới hoặc Tái lập toàn bộ)
+     * @return Kết quả (không bao giờ null)
+     */
+    private ParsedFile parseFile(Path path, String relativePath, String parentFolderId, IndexedFileState known) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            byte[] content = Files.readAllBytes(path);
+            return parseContent(relativePath, content, attrs.size(), attrs.lastModifiedTime().toMillis(),
+                    parentFolderId, known);
+        } catch (NoSuchFileException e) {
+            /**
+             * File bị xóa giữa lúc liệt kê và lúc đọc
+             */
+            return new ParsedFile(relativePath, known, null, null);
+        } catch (Exception e) {
+            logger.error("Lỗi khi lập chỉ mục file {}: {}", path.getFileName(), e.getMessage());
+            return new ParsedFile(relativePath, known, null, null, true);
+        }
+    }
+
+    /**
+     * Như parseFile, cho một tài liệu trong kho lưu trữ một-file (chế độ SQLITE).
+     *
+     * @param document       Thông tin tài liệu (từ list())
+     * @param parentFolderId ID thư mục cha
+     * @param known          Trạng thái đã lưu (null nếu tài liệu mới hoặc Tái lập toàn bộ)
+     * @return Kết quả (không bao giờ null)
+     */
+    private ParsedFile parseDocument(StoredDocument document, String parentFolderId, IndexedFileState known) {
+        String relativePath = document.getRelativePath();
+        try {
+            StoredDocument stored = documentStore.read(relativePath);
+            if (stored == null) {
+                return new ParsedFile(relativePath, known, null, null);
+            }
+            return parseContent(relativePath, stored.getContent(), stored.getSize(), stored.getLastModified(),
+                    parentFolderId, known);
+        } catch (Exception e) {
+            logger.error("Lỗi khi lập chỉ mục tài liệu {}: {}", relativePath, e.getMessage());
+            return new ParsedFile(relativePath, known, null, null, true);
+        }
+    }
+
+    /**
+     * Hash + parse nội dung một artifact (chung cho file và tài liệu).
+     */
+    private ParsedFile parseContent(String relativePath, byte[] content, long size, long lastModified,
+                                    String parentFolderId, IndexedFileState known) throws IOException {
+        String hash = sha256Hex(content);
+
+        if (known != null && hash.equals(known.getContentHash())) {
+            return new ParsedFile(relativePath, known,
+                    buildFileState(relativePath, known.getArtifactId(), size, lastModified, hash), null);
+        }
+
+        ArtifactHeader header = parseArtifactHeader(content, relativePath, parentFolderId);
+        if (header == null) {
+            return new ParsedFile(relativePath, known, null, null);
+        }
+        return new ParsedFile(relativePath, known,
+                buildFileState(relativePath, header.getId(), size, lastModified, hash), header);
+    }
+
+    /**
+     * Tập hợp các thay đổi (delta) phát hiện được khi đồng bộ tăng dần.
+     * Thêm/sửa được áp dụng vào CSDL theo khối, mỗi khối trong một giao dịch.
+     * Các thao tác xóa chỉ được áp dụng ở khối cuối (finish), sau khi đã biết
+     * toàn bộ ID còn tồn tại, để một artifact bị di chuyển (đổi đường dẫn)
+     * không bị xóa nhầm.
+     */
+    private final class IndexDelta {
+        private static final int FLUSH_THRESHOLD = 500;
+
+        private final Set<String> seenFiles = new HashSet<>();
+        private final Set<String> seenFolders = new HashSet<>();
+        private final Set<String> seenArtifactIds = new HashSet<>();
+        private final List<ProjectFolder> newFolders = new ArrayList<>();
+        private final List<ParsedFile> changedFiles = new ArrayList<>();
+        private final List<IndexedFileState> touchedStates = new ArrayList<>();
+        private final List<String> removedArtifactIds = new ArrayList<>();
+        private final List<IndexedFileState> removedFiles = new ArrayList<>();
+        private final List<String> removedFolderIds = new ArrayList<>();
+
+        private int changedCount = 0;
+        private int removedCount = 0;
+        private int unchangedCount = 0;
+        private int addedCount = 0;
+        private int folderChangeCount = 0;
+
+        /**
+         * @return true nếu cây dự án cần làm mới (file/thư mục được thêm hoặc xóa)
+         */
+        private boolean hasStructuralChanges() {
+            return addedCount > 0 || removedCount > 0 || folderChangeCount > 0;
+        }
+
+        private void flushIfFull() throws SQLException {
+            if (changedFiles.size() + touchedStates.size() >= FLUSH_THRESHOLD) {
+                flush(false);
+            }
+        }
+
+        private void finish() throws SQLException {
+            flush(true);
+        }
+
+        private void flush(boolean applyRemovals) throws SQLException {
+            boolean hasRemovals = !removedArtifactIds.isEmpty() || !removedFiles.isEmpty() || !removedFolderIds.isEmpty();
+            if (newFolders.isEmpty() && changedFiles.isEmpty() && touchedStates.isEmpty()
+                    && !(applyRemovals && hasRemovals)) {
+                return;
+            }
+            indexRepository.executeInTransaction(() -> {
+                for (ProjectFolder folder : newFolders) {
+                    indexRepository.insertFolder(folder);
+                }
+                for (ParsedFile parsed : changedFiles) {
+                    indexRepository.insertArtifact(parsed.header);
+                    indexRepository.deleteLinksForArtifact(parsed.header.getId());
+                    for (String toId : parsed.header.getLinks()) {
+                        indexRepository.insertLink(parsed.header.getId(), toId);
                     }
                 }
+                for (IndexedFileState state : touchedStates) {
+                    indexRepository.upsertFileState(state);
+                }
+                if (!applyRemovals) {
+                    return;
+                }
+                for (String artifactId : removedArtifactIds) {
+                    if (!seenArtifactIds.contains(artifactId)) {
+                        indexRepository.deleteArtifact(artifactId);
+                        indexRepository.deleteLinksForArtifact(artifactId);
+                    }
+                }
+                for (IndexedFileState state : removedFiles) {
+                    String artifactId = state.getArtifactId();
+                    if (artifactId != null && !seenArtifactIds.contains(artifactId)) {
+                        indexRepository.deleteArtifact(artifactId);
+                        indexRepository.deleteLinksForArtifact(artifactId);
+                    }
+                    indexRepository.deleteFileState(state.getRelativePath());
+                }
+                for (String folderId : removedFolderIds) {
+                    indexRepository.deleteFolder(folderId);
+                }
+            });
+            newFolders.clear();
+            changedFiles.clear();
+            touchedStates.clear();
+            if (applyRemovals) {
+                removedCount += removedFiles.size();
+                removedArtifactIds.clear();
+                removedFiles.clear();
+                removedFolderIds.clear();
             }
         }
     }
 
+    /**
+     * Đọc header của artifact (một lần duyệt token, kèm liên kết và văn bản FTS)
+     * và gán thông tin vị trí.
+     *
+     * @param content        Nội dung file
+     * @param relativePath   Đường dẫn tương đối
+     * @param parentFolderId ID thư mục cha
+     * @return Header, hoặc null nếu file không phải artifact hợp lệ (thiếu ID)
+     * @throws IOException Nếu JSON không hợp lệ
+     */
+    private ArtifactHeader parseArtifactHeader(byte[] content, String relativePath, String parentFolderId) throws IOException {
+        ArtifactHeader header = serializationService.readArtifactForIndex(content);
+        if (header.getId() == null) {
+            return null;
+        }
+        /**
+         * Cập nhật (Update) thông tin đường dẫn (path) và folderId
+         */
+        header.setRelativePath(relativePath);
+        header.setFolderId(parentFolderId);
+        return header;
+    }
+
+    private static IndexedFileState buildFileState(String relativePath, String artifactId,
+                                                   long size, long lastModified, String hash) {
+        IndexedFileState state = new IndexedFileState();
+        state.setRelativePath(relativePath);
+        state.setArtifactId(artifactId);
+        state.setFileSize(size);
+        state.setLastModified(lastModified);
+        state.setContentHash(hash);
+        return state;
+    }
+
+    /**
+     * Tính hash SHA-256 (hex) của nội dung file.
+     *
+     * @param content Nội dung
+     * @return Chuỗi hex
+     */
+    private static String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM không hỗ trợ SHA-256", e);
+        }
+    }
+
 
     /**
      * [CŨ] Hàm đệ quy ban đầu được giữ lại để tương thích.
@@ -196,34 +948,43 @@ public class IndexServiceImpl implements IIndexService {
     // ... Phần còn lại của lớp không thay đổi ...
 
     @Override
-    public void updateArtifactInIndex(Artifact artifact) {
+    public void updateArtifactInIndex(Artifact artifact, StoredDocument stored) {
         if (artifact == null || artifact.getId() == null) {
             return;
         }
 
         try {
             /**
-             * [CẬP NHẬT] Đảm bảo artifact có folderId chính xác
-             * (Logic này giờ đã được gán bởi
-             * ArtifactViewModel khi lưu từ UI,
-             * và bởi scanDirectoryRecursive khi tái lập chỉ mục)
+             * Header, liên kết @ID và văn bản FTS được trích từ đúng các byte vừa ghi,
+             * bằng cùng bộ trích xuất với Tái lập / đồng bộ (chỉ quét giá trị, không quét tên trường),
+             * nên một artifact luôn có cùng liên kết dù được lập chỉ mục theo đường nào.
+             * Vị trí (relativePath, folderId) lấy từ artifact (đã được ArtifactViewModel gán).
              */
-            // artifact.setFolderId(findFolderId(artifact.getRelativePath())); // Đã bị loại bỏ trong file gốc
+            ArtifactHeader header = serializationService.readArtifactForIndex(stored.getContent());
+            header.setId(artifact.getId());
+            header.setRelativePath(artifact.getRelativePath());
+            header.setFolderId(artifact.getFolderId());
 
-            indexRepository.insertArtifact(artifact);
-            indexRepository.deleteLinksForArtifact(artifact.getId());
-
-            String fieldsAsString = artifact.getFields().toString();
-            Matcher matcher = LINK_PATTERN.matcher(fieldsAsString);
+            /**
+             * Ghi nhận luôn trạng thái (kích thước, mtime, SHA-256) của file vừa ghi,
+             * để lần đồng bộ tăng dần kế tiếp coi file này là "không đổi" thay vì parse lại.
+             */
+            IndexedFileState fileState = buildFileState(Path.of(stored.getRelativePath()).normalize().toString(),
+                    header.getId(), stored.getSize(), stored.getLastModified(), sha256Hex(stored.getContent()));
 
-            while (matcher.find()) {
-                String toId = matcher.group(1);
-                indexRepository.insertLink(artifact.getId(), toId);
-            }
+            indexRepository.executeInTransaction(() -> {
+                indexRepository.insertArtifact(header);
+                indexRepository.deleteLinksForArtifact(header.getId());
+                for (String toId : header.getLinks()) {
+                    indexRepository.insertLink(header.getId(), toId);
+                }
+                indexRepository.upsertFileState(fileState);
+            });
+            autocompleteService.put(artifact);
             logger.debug("Đã cập nhật chỉ mục cho {}", artifact.getId());
 
-        } catch (SQLException e) {
-            logger.error("Lỗi SQL khi cập nhật chỉ mục cho {}: {}", artifact.getId(), e.getMessage());
+        } catch (SQLException | IOException e) {
+            logger.error("Lỗi khi cập nhật chỉ mục cho {}: {}", artifact.getId(), e.getMessage());
             Platform.runLater(() -> projectStateService.setStatusMessage("Lỗi: Không thể cập nhật CSDL chỉ mục."));
         }
     }
@@ -238,6 +999,7 @@ public class IndexServiceImpl implements IIndexService {
         try {
             indexRepository.deleteArtifact(artifactId);
             indexRepository.deleteLinksForArtifact(artifactId);
+            autocompleteService.remove(artifactId);
             logger.debug("Đã xóa chỉ mục cho {}", artifactId);
         } catch (SQLException e) {
             logger.error("Lỗi SQL khi xóa chỉ mục cho {}: {}", artifactId, e.getMessage());
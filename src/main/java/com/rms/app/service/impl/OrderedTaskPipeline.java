@@ -0,0 +1,111 @@
+package com.rms.app.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Đường ống (pipeline) xử lý song song nhưng tiêu thụ kết quả THEO THỨ TỰ.
+ * Các tác vụ (ví dụ: đọc + parse JSON) chạy trên virtual thread;
+ * luồng gọi submit() là luồng tiêu thụ DUY NHẤT (single-writer),
+ * nhận kết quả đúng thứ tự đã submit.
+ * Số tác vụ đang chạy bị giới hạn bởi "cửa sổ" (window) để bộ nhớ không tăng vô hạn.
+ *
+ * @param <T> Kiểu kết quả của mỗi tác vụ
+ */
+final class OrderedTaskPipeline<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedTaskPipeline.class);
+
+    /**
+     * Nơi tiêu thụ kết quả (chạy trên luồng gọi submit()/drain()).
+     *
+     * @param <T> Kiểu kết quả
+     */
+    @FunctionalInterface
+    interface ResultConsumer<T> {
+        void accept(T result) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Deque<Future<T>> inFlight = new ArrayDeque<>();
+    private final int window;
+    private final ResultConsumer<T> consumer;
+
+    /**
+     * @param window   Số tác vụ tối đa đang chạy cùng lúc
+     * @param consumer Nơi tiêu thụ kết quả theo thứ tự
+     */
+    OrderedTaskPipeline(int window, ResultConsumer<T> consumer) {
+        this.window = Math.max(1, window);
+        this.consumer = consumer;
+    }
+
+    /**
+     * Cửa sổ mặc định: tỉ lệ với số nhân CPU.
+     *
+     * @return Kích thước cửa sổ
+     */
+    static int defaultWindow() {
+        return Runtime.getRuntime().availableProcessors() * 4;
+    }
+
+    /**
+     * Gửi một tác vụ. Nếu cửa sổ đã đầy, tiêu thụ kết quả cũ nhất trước.
+     *
+     * @param task Tác vụ
+     * @throws Exception Nếu tác vụ cũ nhất (hoặc nơi tiêu thụ) bị lỗi
+     */
+    void submit(Callable<T> task) throws Exception {
+        while (inFlight.size() >= window) {
+            consumeOldest();
+        }
+        inFlight.addLast(executor.submit(task));
+    }
+
+    /**
+     * Chờ và tiêu thụ mọi kết quả còn lại (theo thứ tự).
+     *
+     * @throws Exception Nếu một tác vụ (hoặc nơi tiêu thụ) bị lỗi
+     */
+    void drain() throws Exception {
+        while (!inFlight.isEmpty()) {
+            consumeOldest();
+        }
+    }
+
+    private void consumeOldest() throws Exception {
+        Future<T> future = inFlight.removeFirst();
+        T result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+        consumer.accept(result);
+    }
+
+    /**
+     * Hủy các tác vụ chưa được tiêu thụ và đóng executor.
+     */
+    @Override
+    public void close() {
+        if (!inFlight.isEmpty()) {
+            logger.warn("Hủy {} tác vụ chưa được xử lý trong pipeline.", inFlight.size());
+            inFlight.forEach(f -> f.cancel(true));
+            inFlight.clear();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,231 @@
+package com.rms.app.service.impl;
+
+import com.google.inject.Inject;
+import com.rms.app.service.IPandocRunner;
+import com.rms.app.service.IProjectStateService;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Triển khai trình chạy Pandoc bất đồng bộ.
+ * - Thư mục làm việc riêng cho mỗi lần chạy: .config/pandoc-XXXX (cũng là TMPDIR của tiến trình,
+ *   nên file phụ của xelatex không va chạm giữa các lần xuất), bị xóa khi tiến trình kết thúc.
+ * - Pandoc ghi ra một file trong thư mục làm việc; file đích chỉ được thay thế khi thành công.
+ * - stdin/stdout/stderr được xử lý trên virtual thread; stderr chỉ giữ lại STDERR_TAIL_LINES dòng cuối.
+ */
+public class PandocRunnerImpl implements IPandocRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PandocRunnerImpl.class);
+
+    private static final String PANDOC_COMMAND = "pandoc";
+    private static final String WORK_DIR_PREFIX = "pandoc-";
+    private static final int STDERR_TAIL_LINES = 200;
+
+    private final IProjectStateService projectStateService;
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Inject
+    public PandocRunnerImpl(IProjectStateService projectStateService) {
+        this.projectStateService = projectStateService;
+    }
+
+    @Override
+    public CompletableFuture<Void> convert(String markdownContent, File outputFile, List<String> options, Duration timeout) {
+        File projectRoot = projectStateService.getCurrentProjectDirectory();
+        if (projectRoot == null) {
+            return CompletableFuture.failedFuture(new IOException("Không có dự án nào đang mở."));
+        }
+
+        Path workDir = null;
+        Path tempOutput;
+        Process process;
+        try {
+            Path configDir = new File(projectRoot, ProjectServiceImpl.CONFIG_DIR).toPath();
+            Files.createDirectories(configDir);
+            workDir = Files.createTempDirectory(configDir, WORK_DIR_PREFIX);
+            tempOutput = workDir.resolve("output" + extensionOf(outputFile));
+
+            List<String> command = new ArrayList<>();
+            command.add(PANDOC_COMMAND);
+            command.add("--from=markdown");
+            command.add("--resource-path=" + projectRoot.getAbsolutePath());
+            command.add("-o");
+            command.add(tempOutput.toString());
+            command.addAll(options);
+
+            ProcessBuilder pb = new ProcessBuilder(command).directory(workDir.toFile());
+            pb.environment().put("TMPDIR", workDir.toString());
+            pb.environment().put("TMP", workDir.toString());
+            pb.environment().put("TEMP", workDir.toString());
+
+            logger.info("Đang thực thi lệnh: {}", String.join(" ", command));
+            process = pb.start();
+        } catch (IOException e) {
+            deleteRecursively(workDir);
+            /**
+             * Xử lý Exception 1.0.E1 (UC-PUB-01): không khởi chạy được tiến trình
+             */
+            return CompletableFuture.failedFuture(new IOException(
+                    "Lỗi: Không tìm thấy Pandoc. Vui lòng cài đặt Pandoc và thêm vào PATH hệ thống. (UC-PUB-01, 1.0.E1)", e));
+        }
+        reportStatus("Đang chạy Pandoc: " + outputFile.getName() + "...");
+
+        Deque<String> stderrTail = new ArrayDeque<>();
+        CompletableFuture.runAsync(() -> writeStdin(process, markdownContent), ioExecutor);
+        CompletableFuture<Void> stdout = CompletableFuture.runAsync(() -> drain(process.getInputStream(), null), ioExecutor);
+        CompletableFuture<Void> stderr = CompletableFuture.runAsync(() -> drain(process.getErrorStream(), stderrTail), ioExecutor);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        process.onExit()
+                .thenCompose(exited -> CompletableFuture.allOf(stdout, stderr).thenApply(ignored -> exited))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((exited, error) -> {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        result.completeExceptionally(new IOException("Pandoc vượt quá thời gian cho phép (" + timeout.toSeconds() + " giây)."));
+                    } else if (cause != null) {
+                        result.completeExceptionally(cause);
+                    } else if (exited.exitValue() != 0) {
+                        String errorText;
+                        synchronized (stderrTail) {
+                            errorText = String.join("\n", stderrTail);
+                        }
+                        result.completeExceptionally(pandocError(exited.exitValue(), errorText));
+                    } else {
+                        try {
+                            Files.move(tempOutput, outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                            result.complete(null);
+                        } catch (IOException e) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+                });
+
+        final Path finalWorkDir = workDir;
+        result.whenComplete((ignored, error) -> {
+            if (process.isAlive()) {
+                /**
+                 * Hủy hoặc quá thời gian: dừng cả các tiến trình con (xelatex) trước
+                 */
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+            if (result.isCancelled()) {
+                reportStatus("Đã hủy xuất tài liệu: " + outputFile.getName());
+            } else if (error != null) {
+                logger.error("Pandoc thất bại: {}", error.getMessage());
+            } else {
+                logger.info("Pandoc hoàn tất: {}", outputFile.getAbsolutePath());
+            }
+            process.onExit().whenComplete((exited, exitError) -> deleteRecursively(finalWorkDir));
+        });
+        return result;
+    }
+
+    /**
+     * Đẩy Markdown vào stdin rồi đóng lại (Pandoc đọc tới EOF).
+     */
+    private static void writeStdin(Process process, String markdownContent) {
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(markdownContent.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            /**
+             * Tiến trình đã thoát sớm (pipe bị đóng): mã thoát và stderr sẽ cho biết lý do
+             */
+            logger.debug("Không thể ghi vào stdin của Pandoc: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đọc hết một luồng ra của tiến trình.
+     *
+     * @param stream Luồng (stdout/stderr)
+     * @param tail   Nơi giữ các dòng cuối (null = bỏ qua nội dung)
+     */
+    private static void drain(InputStream stream, Deque<String> tail) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (tail == null) {
+                    continue;
+                }
+                logger.debug("pandoc: {}", line);
+                synchronized (tail) {
+                    if (tail.size() == STDERR_TAIL_LINES) {
+                        tail.removeFirst();
+                    }
+                    tail.addLast(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static IOException pandocError(int exitCode, String error) {
+        logger.error("Pandoc thất bại (Exit Code {}): {}", exitCode, error);
+        /**
+         * Bắt lỗi (catch) nếu xelatex bị thiếu
+         */
+        if (error.contains("xelatex not found")) {
+            return new IOException("Lỗi: Không tìm thấy XeLaTeX. Vui lòng cài đặt (basictex) và cấu hình PATH. (UC-PUB-01, 1.0.E1)");
+        }
+        return new IOException("Pandoc thất bại: " + error);
+    }
+
+    private void reportStatus(String message) {
+        Platform.runLater(() -> projectStateService.setStatusMessage(message));
+    }
+
+    private static String extensionOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Không thể xóa file tạm: {}", path);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Không thể dọn thư mục làm việc của Pandoc: {}", dir, e);
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.rms.app.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.rms.app.model.Artifact;
 import com.rms.app.model.ProjectConfig;
 import com.rms.app.model.ProjectFolder;
 import com.rms.app.service.IIndexService;
 import com.rms.app.service.IProjectService;
 import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISerializationService;
 import com.rms.app.service.ISqliteIndexRepository; // [MỚI] Import
 import javafx.scene.control.TreeItem;
 import org.slf4j.Logger;
@@ -31,7 +30,7 @@ import com.google.inject.Inject;
 public class ProjectServiceImpl implements IProjectService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectServiceImpl.class);
-    private final ObjectMapper objectMapper;
+    private final ISerializationService serializationService;
     private final IIndexService indexService;
     private final IProjectStateService projectStateService;
     private final ISqliteIndexRepository indexRepository; // [MỚI]
@@ -101,8 +100,9 @@ public class ProjectServiceImpl implements IProjectService {
     @Inject
     public ProjectServiceImpl(IIndexService indexService,
                               IProjectStateService projectStateService,
-                              ISqliteIndexRepository indexRepository) { // [MỚI] Inject
-        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                              ISqliteIndexRepository indexRepository, // [MỚI] Inject
+                              ISerializationService serializationService) {
+        this.serializationService = serializationService;
         this.indexService = indexService;
         this.projectStateService = projectStateService;
         this.indexRepository = indexRepository; // [MỚI]
@@ -122,7 +122,7 @@ public class ProjectServiceImpl implements IProjectService {
         config.setProjectName(projectName);
 
         File configFile = new File(configDir, CONFIG_FILE);
-        objectMapper.writeValue(configFile, config);
+        serializationService.writeProjectConfig(configFile, config);
 
         createGitIgnore(directory.toPath());
         this.currentProjectConfig = config;
@@ -146,7 +146,7 @@ public class ProjectServiceImpl implements IProjectService {
         if (!configFile.exists() || !configFile.isFile()) {
             throw new IOException("Thư mục đã chọn không phải là một dự án RMS hợp lệ.");
         }
-        ProjectConfig config = objectMapper.readValue(configFile, ProjectConfig.class);
+        ProjectConfig config = serializationService.readProjectConfig(configFile);
         this.currentProjectConfig = config;
         return config;
     }
@@ -158,7 +158,7 @@ public class ProjectServiceImpl implements IProjectService {
         }
         File configFile = getConfigFile();
         logger.info("Đang lưu cấu hình dự án (ví dụ: Releases) vào: {}", configFile.getPath());
-        objectMapper.writeValue(configFile, this.currentProjectConfig);
+        serializationService.writeProjectConfig(configFile, this.currentProjectConfig);
     }
 
     @Override
@@ -263,6 +263,8 @@ public class ProjectServiceImpl implements IProjectService {
                         "\n" +
                         "# [THÊM MỚI NGÀY 19] Bỏ qua file CSDL Chỉ mục (C-11)\n" +
                         "/.config/index.db\n" +
+                        "/.config/index.db-wal\n" +
+                        "/.config/index.db-shm\n" +
                         "\n" +
                         "# Dữ liệu .json là Source of Truth (Git-Friendly Mirror là .md)\n" +
                         "# Chúng ta nên commit cả hai, nhưng nếu chỉ muốn commit .md, ta có thể ignore .json\n" +
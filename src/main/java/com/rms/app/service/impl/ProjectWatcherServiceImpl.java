@@ -0,0 +1,244 @@
+package com.rms.app.service.impl;
+
+import com.google.inject.Inject;
+import com.rms.app.service.IIndexService;
+import com.rms.app.service.IProjectWatcherService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Triển khai Project Watcher dựa trên java.nio.file.WatchService.
+ * Các sự kiện được gom (coalesce) theo thư mục và chỉ được xử lý sau khi
+ * thư mục dự án "yên lặng" DEBOUNCE_MS (hoặc tối đa MAX_DELAY_MS kể từ sự kiện đầu tiên),
+ * nên một lần git checkout chạm 500 file chỉ dẫn tới MỘT lượt đồng bộ và MỘT lần làm mới cây.
+ */
+public class ProjectWatcherServiceImpl implements IProjectWatcherService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectWatcherServiceImpl.class);
+
+    /**
+     * Thời gian yên lặng (không có sự kiện mới) trước khi đồng bộ.
+     */
+    private static final long DEBOUNCE_MS = 500;
+    /**
+     * Thời gian chờ tối đa kể từ sự kiện đầu tiên của một loạt (khi sự kiện đến liên tục).
+     */
+    private static final long MAX_DELAY_MS = 5000;
+
+    private final IIndexService indexService;
+
+    private final Object pendingLock = new Object();
+    private final Set<Path> pendingDirectories = new LinkedHashSet<>();
+    private long firstPendingAt = 0;
+    private ScheduledFuture<?> pendingFlush = null;
+
+    private WatchService watchService = null;
+    private ScheduledExecutorService scheduler = null;
+    private Path projectRootPath = null;
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    @Inject
+    public ProjectWatcherServiceImpl(IIndexService indexService) {
+        this.indexService = indexService;
+    }
+
+    @Override
+    public synchronized void startWatching(File projectRoot) {
+        stopWatching();
+        if (projectRoot == null) {
+            return;
+        }
+
+        Path root = projectRoot.toPath().toAbsolutePath().normalize();
+        try {
+            WatchService newWatchService = FileSystems.getDefault().newWatchService();
+            this.watchService = newWatchService;
+            this.projectRootPath = root;
+            registerRecursive(root);
+
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "project-watcher-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            Thread watchThread = new Thread(() -> watchLoop(newWatchService), "project-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+            logger.info("Bắt đầu theo dõi thư mục dự án: {} ({} thư mục)", root, watchedDirectories.size());
+        } catch (IOException e) {
+            logger.error("Không thể theo dõi thư mục dự án {}: {}", root, e.getMessage());
+            stopWatching();
+        }
+    }
+
+    @Override
+    public synchronized void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Không thể đóng WatchService: {}", e.getMessage());
+            }
+            logger.info("Đã dừng theo dõi thư mục dự án: {}", projectRootPath);
+            watchService = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        watchedDirectories.clear();
+        synchronized (pendingLock) {
+            pendingDirectories.clear();
+            pendingFlush = null;
+        }
+        projectRootPath = null;
+    }
+
+    /**
+     * Đăng ký theo dõi một thư mục và mọi thư mục con (bỏ qua thư mục cấu hình, build, và ẩn).
+     */
+    private void registerRecursive(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(projectRootPath) && IndexServiceImpl.isIgnored(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Vòng lặp nhận sự kiện (chạy trên luồng "project-watcher" cho tới khi WatchService bị đóng).
+     */
+    private void watchLoop(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+
+            Path directory = watchedDirectories.get(key);
+            if (directory != null) {
+                handleEvents(directory, key);
+            }
+            if (!key.reset()) {
+                /**
+                 * Thư mục đã bị xóa hoặc không còn truy cập được
+                 */
+                watchedDirectories.remove(key);
+            }
+        }
+    }
+
+    private void handleEvents(Path directory, WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                /**
+                 * Mất sự kiện: đồng bộ lại toàn bộ dự án
+                 */
+                Path root = projectRootPath;
+                if (root != null) {
+                    schedule(root);
+                }
+                continue;
+            }
+
+            String fileName = event.context().toString();
+            if (IndexServiceImpl.isIgnored(fileName)) {
+                continue;
+            }
+            Path child = directory.resolve(fileName);
+
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                try {
+                    registerRecursive(child);
+                } catch (ClosedWatchServiceException e) {
+                    return;
+                } catch (IOException e) {
+                    logger.warn("Không thể theo dõi thư mục mới {}: {}", child, e.getMessage());
+                }
+                relevant = true;
+            } else if (fileName.endsWith(".json") || watchedDirectories.containsValue(child)) {
+                relevant = true;
+            }
+        }
+        if (relevant) {
+            schedule(directory);
+        }
+    }
+
+    /**
+     * Ghi nhận thư mục có thay đổi và (đặt lại) hẹn giờ đồng bộ.
+     */
+    private void schedule(Path directory) {
+        synchronized (pendingLock) {
+            ScheduledExecutorService currentScheduler = scheduler;
+            if (currentScheduler == null || currentScheduler.isShutdown()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (pendingDirectories.isEmpty()) {
+                firstPendingAt = now;
+            }
+            pendingDirectories.add(directory);
+
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+            }
+            long delay = Math.min(DEBOUNCE_MS, Math.max(0, firstPendingAt + MAX_DELAY_MS - now));
+            pendingFlush = currentScheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Đồng bộ toàn bộ loạt thay đổi đang chờ (chạy trên luồng "project-watcher-sync").
+     * Các sự kiện đến trong lúc đồng bộ được gom vào loạt tiếp theo.
+     */
+    private void flush() {
+        Set<Path> batch;
+        synchronized (pendingLock) {
+            if (pendingDirectories.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashSet<>(pendingDirectories);
+            pendingDirectories.clear();
+            pendingFlush = null;
+        }
+        logger.debug("Đồng bộ chỉ mục cho {} thư mục thay đổi từ ổ đĩa", batch.size());
+        indexService.syncDirectories(batch);
+    }
+}
@@ -8,7 +8,7 @@ import com.rms.app.model.FlowStep;
 import com.rms.app.model.ProjectConfig;
 import com.rms.app.service.IRenderService;
 import com.rms.app.service.IProjectService;
-import com.rms.app.service.ISearchService;
+import com.rms.app.service.IAutocompleteService;
 import com.rms.app.view.BPMNEditorControl; // [THÊM MỚI] Import
 import com.rms.app.view.FlowBuilderControl;
 import com.rms.app.viewmodel.ArtifactViewModel;
@@ -44,8 +44,9 @@ public class RenderServiceImpl implements IRenderService {
 
     private static final Logger logger = LoggerFactory.getLogger(RenderServiceImpl.class);
     private final Injector injector;
-    private final ISearchService searchService;
+    private final IAutocompleteService autocompleteService;
     private final ContextMenu autocompletePopup;
+    private static final int AUTOCOMPLETE_LIMIT = 10;
 
     /**
      * Inject IProjectService để lấy danh sách Release (UC-MGT-03).
@@ -62,7 +63,7 @@ public class RenderServiceImpl implements IRenderService {
     @Inject
     public RenderServiceImpl(Injector injector, IProjectService projectService, MainViewModel mainViewModel) {
         this.injector = injector;
-        this.searchService = injector.getInstance(ISearchService.class);
+        this.autocompleteService = injector.getInstance(IAutocompleteService.class);
         this.projectService = projectService;
         this.mainViewModel = mainViewModel; // [THÊM MỚI]
         this.autocompletePopup = new ContextMenu();
@@ -293,7 +294,10 @@ public class RenderServiceImpl implements IRenderService {
                 return;
             }
 
-            List<Artifact> results = searchService.search(queryPart);
+            /**
+             * Tra cứu chỉ mục Autocomplete trong bộ nhớ (không truy vấn SQLite trên FX thread)
+             */
+            List<Artifact> results = autocompleteService.suggest(queryPart, AUTOCOMPLETE_LIMIT);
             if (results.isEmpty()) {
                 autocompletePopup.hide();
                 return;
@@ -2,7 +2,8 @@ package com.rms.app.service.impl;
 
 import com.google.inject.Inject;
 import com.rms.app.model.Artifact;
-import com.rms.app.service.IArtifactRepository;
+import com.rms.app.model.SearchHit;
+import com.rms.app.service.IArtifactPersistenceService;
 import com.rms.app.service.ISearchService;
 import com.rms.app.service.ISqliteIndexRepository;
 import org.slf4j.Logger;
@@ -15,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Triển khai ISearchService.
@@ -27,15 +29,15 @@ public class SearchServiceImpl implements ISearchService {
     private final ISqliteIndexRepository indexRepository;
 
     /**
-     * Inject IArtifactRepository để hỗ trợ việc Load/Save (Triple-Write)
-     * khi cập nhật trạng thái từ Kanban.
+     * Hàng đợi ghi artifact: việc Load/Save (Triple-Write) khi cập nhật trạng thái từ Kanban
+     * chạy trên luồng ghi, cùng thứ tự với auto-save của trình soạn thảo.
      */
-    private final IArtifactRepository artifactRepository;
+    private final IArtifactPersistenceService persistenceService;
 
     @Inject
-    public SearchServiceImpl(ISqliteIndexRepository indexRepository, IArtifactRepository artifactRepository) {
+    public SearchServiceImpl(ISqliteIndexRepository indexRepository, IArtifactPersistenceService persistenceService) {
         this.indexRepository = indexRepository;
-        this.artifactRepository = artifactRepository;
+        this.persistenceService = persistenceService;
     }
 
     /**
@@ -66,6 +68,63 @@ public class SearchServiceImpl implements ISearchService {
         }
     }
 
+    /**
+     * Tìm kiếm Toàn văn trên toàn dự án (FTS5).
+     * Mỗi từ trong truy vấn được đặt trong ngoặc kép (tránh lỗi cú pháp FTS5)
+     * và khớp theo tiền tố; các từ được kết hợp bằng AND.
+     *
+     * @param query Từ khóa (ví dụ: "đăng nhập UC0")
+     * @param limit Số kết quả tối đa
+     * @return Danh sách kết quả (liên quan nhất trước)
+     */
+    @Override
+    public List<SearchHit> searchFullText(String query, int limit) {
+        String matchExpression = buildFtsMatchExpression(query);
+        if (matchExpression.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return indexRepository.searchFullText(matchExpression, limit);
+        } catch (SQLException e) {
+            logger.error("Lỗi SQL khi tìm kiếm toàn văn cho '{}': {}", query, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Chuyển truy vấn của người dùng thành biểu thức FTS5:
+     * "đăng nhập" -> "\"đăng\"* AND \"nhập\"*". Bỏ qua tiền tố '@' (cú pháp liên kết).
+     * Từ có chữ "d" được mở rộng thành ("d..."* OR "đ..."*).
+     *
+     * @param query Truy vấn gốc
+     * @return Biểu thức FTS5 (rỗng nếu không có từ nào hợp lệ)
+     */
+    private static String buildFtsMatchExpression(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder expression = new StringBuilder();
+        for (String term : query.trim().split("\\s+")) {
+            String cleaned = term.replace("@", "").replace("\"", "");
+            if (!cleaned.codePoints().anyMatch(Character::isLetterOrDigit)) {
+                continue;
+            }
+            if (!expression.isEmpty()) {
+                expression.append(" AND ");
+            }
+            /**
+             * remove_diacritics không gộp "đ" thành "d": gõ "dang" cũng phải khớp "đăng"
+             */
+            String withStrokeD = cleaned.replace('d', 'đ').replace('D', 'Đ');
+            if (withStrokeD.equals(cleaned)) {
+                expression.append('"').append(cleaned).append("\"*");
+            } else {
+                expression.append("(\"").append(cleaned).append("\"* OR \"").append(withStrokeD).append("\"*)");
+            }
+        }
+        return expression.toString();
+    }
+
     /**
      * Tìm kiếm CSDL chỉ mục (SQLite) cho backlinks.
      * Tham chiếu (F-MOD-03)
@@ -93,24 +152,15 @@ public class SearchServiceImpl implements ISearchService {
      */
     @Override
     public Map<String, List<Artifact>> getArtifactsGroupedByStatus() {
-        Map<String, List<Artifact>> resultMap = new HashMap<>();
         try {
             /**
-             * 1. Lấy tất cả các cột (Status)
+             * Một truy vấn duy nhất, các dòng được chia vào từng cột (Status) khi đọc
              */
-            List<String> statuses = indexRepository.getDefinedStatuses();
-
-            /**
-             * 2. Với mỗi cột, lấy các artifact (thẻ)
-             */
-            for (String status : statuses) {
-                List<Artifact> artifacts = indexRepository.getArtifactsByStatus(status);
-                resultMap.put(status, artifacts);
-            }
+            return indexRepository.getArtifactsGroupedByStatus();
         } catch (SQLException e) {
             logger.error("Lỗi SQL khi nhóm (grouping) artifacts cho Kanban: {}", e.getMessage());
+            return new HashMap<>();
         }
-        return resultMap;
     }
 
     /**
@@ -143,19 +193,25 @@ public class SearchServiceImpl implements ISearchService {
         logger.info("Đang cập nhật trạng thái cho: {}", relativePath);
 
         /**
-         * 2. Tải (Load) toàn bộ artifact (Source of Truth)
+         * 2. Tải (Load) toàn bộ artifact (Source of Truth), thay đổi (Mutate) trạng thái
+         * và lưu (Save, kích hoạt Triple-Write): cả ba bước chạy trên luồng ghi của hàng đợi,
+         * sau mọi lần lưu đang chờ của file này
          */
-        Artifact fullArtifact = artifactRepository.load(relativePath);
-
-        /**
-         * 3. Thay đổi (Mutate) trạng thái
-         */
-        fullArtifact.getFields().put("Trạng thái", newStatus);
-
-        /**
-         * 4. Lưu (Save) (Kích hoạt Triple-Write)
-         */
-        artifactRepository.save(fullArtifact);
+        try {
+            persistenceService.enqueueUpdate(relativePath, fullArtifact -> {
+                fullArtifact.getFields().put("Trạng thái", newStatus);
+                return fullArtifact;
+            }).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Không thể cập nhật trạng thái của " + artifact.getId() + ": " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị gián đoạn khi cập nhật trạng thái của " + artifact.getId(), e);
+        }
         logger.info("Đã cập nhật trạng thái của {} thành {}", artifact.getId(), newStatus);
     }
 
@@ -0,0 +1,98 @@
+package com.rms.app.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bộ đệm (cache) LRU các đoạn Markdown đã dựng của từng chương động (Dynamic section) khi xuất bản,
+ * giới hạn theo tổng số ký tự.
+ * Khóa là băm SHA-256 của mọi thứ quyết định nội dung đoạn (xem KeyBuilder):
+ * định nghĩa chương, bộ lọc Release, và phiên bản của từng artifact liên quan.
+ * Vì vậy một mục không bao giờ cần bị xóa chủ động: artifact thay đổi thì khóa thay đổi,
+ * mục cũ chỉ đơn giản là không còn được dùng và bị đẩy ra theo LRU.
+ */
+final class SectionRenderCache {
+
+    private final long capacityChars;
+    private final LinkedHashMap<String, String> fragments = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeChars = 0;
+
+    /**
+     * @param capacityChars Tổng số ký tự tối đa được đệm
+     */
+    SectionRenderCache(long capacityChars) {
+        this.capacityChars = capacityChars;
+    }
+
+    /**
+     * @param key Khóa (từ KeyBuilder)
+     * @return Đoạn Markdown đã đệm, hoặc null
+     */
+    synchronized String get(String key) {
+        return fragments.get(key);
+    }
+
+    /**
+     * Đệm một đoạn Markdown. Đoạn lớn hơn 1/4 dung lượng không được đệm.
+     */
+    synchronized void put(String key, String fragment) {
+        if (fragment.length() > capacityChars / 4) {
+            return;
+        }
+        String previous = fragments.put(key, fragment);
+        if (previous != null) {
+            sizeChars -= previous.length();
+        }
+        sizeChars += fragment.length();
+
+        Iterator<Map.Entry<String, String>> eldest = fragments.entrySet().iterator();
+        while (sizeChars > capacityChars && eldest.hasNext()) {
+            sizeChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Dựng khóa: mỗi phần được băm kèm độ dài, nên ranh giới giữa các phần không thể bị nhầm lẫn.
+     */
+    static final class KeyBuilder {
+
+        private final MessageDigest digest;
+
+        KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 không khả dụng", e);
+            }
+        }
+
+        KeyBuilder add(String part) {
+            if (part == null) {
+                digest.update((byte) 0);
+                return this;
+            }
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            add(bytes.length);
+            digest.update(bytes);
+            return this;
+        }
+
+        KeyBuilder add(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                digest.update((byte) (value >>> shift));
+            }
+            return this;
+        }
+
+        String build() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.rms.app.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.inject.Inject;
+import com.rms.app.model.Artifact;
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.model.ArtifactTemplate;
+import com.rms.app.model.CompressedText;
+import com.rms.app.model.ExportTemplate;
+import com.rms.app.model.FlowStep;
+import com.rms.app.model.ProjectConfig;
+import com.rms.app.service.IFieldBlobStore;
+import com.rms.app.service.ISerializationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * Triển khai Service tuần tự hóa JSON dùng chung (một ObjectMapper cho toàn ứng dụng).
+ * ObjectReader/ObjectWriter là bất biến và thread-safe, nên được tạo sẵn một lần cho mỗi kiểu.
+ */
+public class SerializationServiceImpl implements ISerializationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializationServiceImpl.class);
+
+    private static final TypeReference<List<FlowStep>> FLOW_STEP_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader artifactReader;
+    private final ObjectWriter artifactWriter;
+    private final ObjectReader artifactTemplateReader;
+    private final ObjectWriter artifactTemplateWriter;
+    private final ObjectReader exportTemplateReader;
+    private final ObjectWriter exportTemplateWriter;
+    private final ObjectReader projectConfigReader;
+    private final ObjectWriter projectConfigWriter;
+    private final ObjectWriter compactWriter;
+    /**
+     * Kho blob của các giá trị trường lớn (null = không nén được, giá trị luôn được ghi dạng thường)
+     */
+    private final IFieldBlobStore blobStore;
+
+    public SerializationServiceImpl() {
+        this(null);
+    }
+
+    @Inject
+    public SerializationServiceImpl(IFieldBlobStore blobStore) {
+        this.blobStore = blobStore;
+        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.objectMapper.findAndRegisterModules();
+
+        this.artifactReader = objectMapper.readerFor(Artifact.class);
+        this.artifactWriter = objectMapper.writerFor(Artifact.class);
+        this.artifactTemplateReader = objectMapper.readerFor(ArtifactTemplate.class);
+        this.artifactTemplateWriter = objectMapper.writerFor(ArtifactTemplate.class);
+        this.exportTemplateReader = objectMapper.readerFor(ExportTemplate.class);
+        this.exportTemplateWriter = objectMapper.writerFor(ExportTemplate.class);
+        this.projectConfigReader = objectMapper.readerFor(ProjectConfig.class);
+        this.projectConfigWriter = objectMapper.writerFor(ProjectConfig.class);
+        this.compactWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Override
+    public Artifact readArtifact(byte[] content) throws IOException {
+        return restoreCompressedFields(artifactReader.readValue(content), blobLoader());
+    }
+
+    @Override
+    public Artifact readArtifact(File file) throws IOException {
+        return restoreCompressedFields(artifactReader.readValue(file), blobLoader());
+    }
+
+    @Override
+    public byte[] writeArtifact(Artifact artifact) throws IOException {
+        return artifactWriter.writeValueAsBytes(artifact);
+    }
+
+    @Override
+    public byte[] writeArtifact(Artifact artifact, int compressionThreshold) throws IOException {
+        if (artifact.getFields() == null) {
+            return writeArtifact(artifact);
+        }
+        boolean compress = compressionThreshold > 0 && blobStore != null;
+        Map<String, Object> fields = null;
+        try {
+            for (Map.Entry<String, Object> entry : artifact.getFields().entrySet()) {
+                Object replacement = null;
+                if (entry.getValue() instanceof String text && compress && text.length() > compressionThreshold) {
+                    CompressedText compressed = CompressedText.compress(text);
+                    blobStore.store(compressed);
+                    replacement = compressed;
+                } else if (entry.getValue() instanceof CompressedText compressed) {
+                    if (compress) {
+                        /**
+                         * Giá trị chưa sửa kể từ lúc đọc: bảo đảm blob có trong dự án đang mở
+                         * (ví dụ: giá trị nhúng dạng cũ {"$gzip": ...} được chuyển ra blob)
+                         */
+                        blobStore.store(compressed);
+                    } else {
+                        /**
+                         * Đã tắt nén: giá trị còn ở dạng nén (chưa sửa kể từ lúc đọc) được ghi lại dạng thường
+                         */
+                        replacement = compressed.getText();
+                    }
+                }
+                if (replacement != null) {
+                    if (fields == null) {
+                        fields = new LinkedHashMap<>(artifact.getFields());
+                    }
+                    fields.put(entry.getKey(), replacement);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (fields == null) {
+            return writeArtifact(artifact);
+        }
+
+        /**
+         * Ghi một bản sao nông (shallow copy): artifact của người gọi vẫn giữ chuỗi gốc
+         */
+        Artifact copy = new Artifact();
+        copy.setId(artifact.getId());
+        copy.setName(artifact.getName());
+        copy.setArtifactType(artifact.getArtifactType());
+        copy.setRelativePath(artifact.getRelativePath());
+        copy.setFolderId(artifact.getFolderId());
+        copy.setTemplateId(artifact.getTemplateId());
+        copy.setFields(fields);
+        return writeArtifact(copy);
+    }
+
+    /**
+     * Nơi đọc blob của dự án đang mở.
+     */
+    private CompressedText.BlobLoader blobLoader() {
+        if (blobStore == null) {
+            return hash -> {
+                throw new IOException("Không có kho blob để đọc " + hash);
+            };
+        }
+        return blobStore.loaderForCurrentProject();
+    }
+
+    /**
+     * Thay các giá trị {"$blob": "..."} / {"$gzip": "..."} (ở mức trường) bằng CompressedText:
+     * blob chưa được đọc và giải nén cho tới khi trường được dùng tới.
+     */
+    private static Artifact restoreCompressedFields(Artifact artifact, CompressedText.BlobLoader loader) {
+        if (artifact.getFields() != null) {
+            for (Map.Entry<String, Object> entry : artifact.getFields().entrySet()) {
+                CompressedText compressed = CompressedText.fromRawValue(entry.getValue(), loader);
+                if (compressed != null) {
+                    entry.setValue(compressed);
+                }
+            }
+        }
+        return artifact;
+    }
+
+    @Override
+    public ArtifactHeader readArtifactForIndex(byte[] content) throws IOException {
+        ArtifactHeader header = new ArtifactHeader();
+        List<String> links = new ArrayList<>();
+        StringBuilder searchText = new StringBuilder();
+        try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Nội dung không phải một đối tượng JSON (artifact).");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String property = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (property) {
+                    case "id" -> header.setId(textOrNull(parser, value));
+                    case "name" -> header.setName(textOrNull(parser, value));
+                    case "artifactType" -> header.setArtifactType(textOrNull(parser, value));
+                    case "templateId" -> header.setTemplateId(textOrNull(parser, value));
+                    case "fields" -> scanFields(parser, value, header, links, searchText);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        header.setLinks(links);
+        header.setSearchText(searchText.toString());
+        return header;
+    }
+
+    /**
+     * Duyệt đối tượng 'fields' theo từng token: đọc trạng thái, và với mọi giá trị
+     * vô hướng (kể cả lồng trong Flow) thì quét @ID và nối vào văn bản FTS.
+     * Tên trường không được đưa vào văn bản (giống cách làm phẳng của CSDL Chỉ mục).
+     */
+    private void scanFields(JsonParser parser, JsonToken value, ArtifactHeader header,
+                            List<String> links, StringBuilder searchText) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken fieldValue = parser.nextToken();
+            if (ArtifactHeader.STATUS_FIELD.equals(field) && fieldValue.isScalarValue()
+                    && fieldValue != JsonToken.VALUE_NULL) {
+                header.setStatus(parser.getValueAsString());
+            }
+            scanValue(parser, fieldValue, links, searchText);
+        }
+    }
+
+    private void scanValue(JsonParser parser, JsonToken token,
+                           List<String> links, StringBuilder searchText) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            scanObject(parser, links, searchText);
+        } else if (token == JsonToken.START_ARRAY) {
+            scanUntilClosed(parser, parser.nextToken(), links, searchText);
+        } else if (token != null && token.isScalarValue()) {
+            appendScalar(parser, token, links, searchText);
+        }
+    }
+
+    /**
+     * Giá trị là đối tượng: nếu là giá trị nén ({"$blob": "..."} hoặc dạng cũ {"$gzip": "..."})
+     * thì đọc chuỗi gốc, để liên kết @ID và văn bản FTS giống hệt khi trường được lưu không nén.
+     */
+    private void scanObject(JsonParser parser, List<String> links, StringBuilder searchText) throws IOException {
+        JsonToken next = parser.nextToken();
+        if (next == JsonToken.FIELD_NAME && (CompressedText.JSON_KEY.equals(parser.currentName())
+                || CompressedText.LEGACY_JSON_KEY.equals(parser.currentName()))) {
+            boolean blob = CompressedText.JSON_KEY.equals(parser.currentName());
+            next = parser.nextToken();
+            if (next == JsonToken.VALUE_STRING) {
+                String payload = parser.getText();
+                next = parser.nextToken();
+                if (next == JsonToken.END_OBJECT) {
+                    appendText(compressedText(blob, payload), true, links, searchText);
+                    return;
+                }
+                appendText(payload, true, links, searchText);
+            }
+        }
+        scanUntilClosed(parser, next, links, searchText);
+    }
+
+    /**
+     * Chuỗi gốc của một giá trị nén khi lập chỉ mục.
+     * Blob thiếu (ví dụ: .json đã được kéo về nhưng blob thì chưa) chỉ làm mất phần văn bản
+     * của trường đó trong chỉ mục, không làm hỏng cả artifact.
+     */
+    private String compressedText(boolean blob, String payload) throws IOException {
+        try {
+            return blob
+                    ? CompressedText.reference(payload, blobLoader()).getText()
+                    : CompressedText.fromEncoded(payload).getText();
+        } catch (UncheckedIOException e) {
+            if (blob) {
+                logger.warn("Bỏ qua giá trị nén khi lập chỉ mục: {}", e.getCause().getMessage());
+                return null;
+            }
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Duyệt tới hết cấu trúc (đối tượng/mảng) đang mở, bắt đầu từ token 'next' (đã đọc).
+     * Đếm độ sâu thay vì đệ quy, để JSON lồng sâu không làm tràn stack.
+     */
+    private static void scanUntilClosed(JsonParser parser, JsonToken next,
+                                        List<String> links, StringBuilder searchText) throws IOException {
+        int depth = 1;
+        JsonToken nested = next;
+        while (true) {
+            if (nested == null) {
+                throw new IOException("JSON của artifact bị cắt cụt.");
+            }
+            if (nested.isStructStart()) {
+                depth++;
+            } else if (nested.isStructEnd()) {
+                if (--depth == 0) {
+                    return;
+                }
+            } else if (nested.isScalarValue()) {
+                appendScalar(parser, nested, links, searchText);
+            }
+            nested = parser.nextToken();
+        }
+    }
+
+    private static void appendScalar(JsonParser parser, JsonToken token,
+                                     List<String> links, StringBuilder searchText) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        appendText(parser.getValueAsString(), token == JsonToken.VALUE_STRING, links, searchText);
+    }
+
+    private static void appendText(String text, boolean isString,
+                                   List<String> links, StringBuilder searchText) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        if (isString && text.indexOf('@') >= 0) {
+            Matcher matcher = IndexServiceImpl.LINK_PATTERN.matcher(text);
+            while (matcher.find()) {
+                links.add(matcher.group(1));
+            }
+        }
+        if (!searchText.isEmpty()) {
+            searchText.append('\n');
+        }
+        searchText.append(text);
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    @Override
+    public ArtifactTemplate readArtifactTemplate(File file) throws IOException {
+        return artifactTemplateReader.readValue(file);
+    }
+
+    @Override
+    public ArtifactTemplate readArtifactTemplate(byte[] content) throws IOException {
+        return artifactTemplateReader.readValue(content);
+    }
+
+    @Override
+    public void writeArtifactTemplate(File file, ArtifactTemplate template) throws IOException {
+        artifactTemplateWriter.writeValue(file, template);
+    }
+
+    @Override
+    public ExportTemplate readExportTemplate(File file) throws IOException {
+        return exportTemplateReader.readValue(file);
+    }
+
+    @Override
+    public void writeExportTemplate(File file, ExportTemplate template) throws IOException {
+        exportTemplateWriter.writeValue(file, template);
+    }
+
+    @Override
+    public ProjectConfig readProjectConfig(File file) throws IOException {
+        return projectConfigReader.readValue(file);
+    }
+
+    @Override
+    public void writeProjectConfig(File file, ProjectConfig config) throws IOException {
+        projectConfigWriter.writeValue(file, config);
+    }
+
+    @Override
+    public List<FlowStep> toFlowSteps(Object rawValue) {
+        return objectMapper.convertValue(rawValue, FLOW_STEP_LIST);
+    }
+
+    @Override
+    public <T> T convertValue(Object value, Class<T> type) {
+        return objectMapper.convertValue(value, type);
+    }
+
+    @Override
+    public String writeCompactString(Object value) throws IOException {
+        return compactWriter.writeValueAsString(value);
+    }
+
+    @Override
+    public byte[] compactJson(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        try (JsonParser parser = objectMapper.getFactory().createParser(content);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (parser.nextToken() == null) {
+                throw new IOException("Nội dung JSON rỗng.");
+            }
+            generator.copyCurrentStructure(parser);
+            if (parser.nextToken() != null) {
+                throw new IOException("Nội dung JSON có dữ liệu thừa sau giá trị gốc.");
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,11 +1,11 @@
 package com.rms.app.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.inject.Inject;
 import com.rms.app.model.ArtifactTemplate;
 import com.rms.app.model.ExportTemplate;
+import com.rms.app.service.IProjectSnapshotRepository;
 import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISerializationService;
 import com.rms.app.service.ITemplateService;
 import com.rms.app.viewmodel.MainViewModel;
 import org.slf4j.Logger;
@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -28,16 +29,19 @@ import java.util.stream.Stream;
 public class TemplateServiceImpl implements ITemplateService {
 
     private static final Logger logger = LoggerFactory.getLogger(TemplateServiceImpl.class);
-    private final ObjectMapper objectMapper;
+    private final ISerializationService serializationService;
     private final IProjectStateService projectStateService;
+    private final IProjectSnapshotRepository snapshotRepository;
 
-    private static final String FORM_TEMPLATE_SUFFIX = ".form.template.json";
+    public static final String FORM_TEMPLATE_SUFFIX = ".form.template.json";
     private static final String EXPORT_TEMPLATE_SUFFIX = ".export.template.json";
 
     @Inject
-    public TemplateServiceImpl(IProjectStateService projectStateService) {
+    public TemplateServiceImpl(IProjectStateService projectStateService, ISerializationService serializationService,
+                               IProjectSnapshotRepository snapshotRepository) {
         this.projectStateService = projectStateService;
-        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.snapshotRepository = snapshotRepository;
+        this.serializationService = serializationService;
     }
 
     /**
@@ -85,6 +89,28 @@ public class TemplateServiceImpl implements ITemplateService {
         }
     }
 
+    /**
+     * Đọc một file Form template, ưu tiên snapshot nhị phân của dự án
+     * nếu file không đổi kể từ lúc chụp.
+     *
+     * @param templateFile File template
+     * @return Template
+     * @throws IOException Nếu lỗi đọc/parse
+     */
+    private ArtifactTemplate readFormTemplate(Path templateFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(templateFile, BasicFileAttributes.class);
+        byte[] content = snapshotRepository.readTemplate(templateFile.getFileName().toString(),
+                attributes.size(), attributes.lastModifiedTime().toMillis());
+        if (content != null) {
+            try {
+                return serializationService.readArtifactTemplate(content);
+            } catch (IOException e) {
+                logger.warn("Mục snapshot của {} không đọc được, dùng file nguồn: {}", templateFile.getFileName(), e.getMessage());
+            }
+        }
+        return serializationService.readArtifactTemplate(templateFile.toFile());
+    }
+
     // --- Form Template (UC-CFG-01) ---
 
     @Override
@@ -97,7 +123,7 @@ public class TemplateServiceImpl implements ITemplateService {
         File templateFile = new File(configDir, fileName);
 
         logger.info("Đang lưu Form template: {}", templateFile.getPath());
-        objectMapper.writeValue(templateFile, template);
+        serializationService.writeArtifactTemplate(templateFile, template);
     }
 
     @Override
@@ -110,7 +136,7 @@ public class TemplateServiceImpl implements ITemplateService {
             throw new IOException("Template file không tồn tại: " + templateFile.getPath());
         }
 
-        return objectMapper.readValue(templateFile, ArtifactTemplate.class);
+        return readFormTemplate(templateFile.toPath());
     }
 
     /**
@@ -124,7 +150,7 @@ public class TemplateServiceImpl implements ITemplateService {
 
         for (Path templateFile : templateFiles) {
             try {
-                ArtifactTemplate template = objectMapper.readValue(templateFile.toFile(), ArtifactTemplate.class);
+                ArtifactTemplate template = readFormTemplate(templateFile);
                 if (template != null && template.getTemplateName() != null) {
                     templateNames.add(template.getTemplateName());
                 }
@@ -157,7 +183,7 @@ public class TemplateServiceImpl implements ITemplateService {
 
         for (Path templateFile : templateFiles) {
             try {
-                ArtifactTemplate template = objectMapper.readValue(templateFile.toFile(), ArtifactTemplate.class);
+                ArtifactTemplate template = readFormTemplate(templateFile);
                 if (template != null && filterValue.equals(filterFunction.apply(template))) {
                     if (latestTemplate == null || template.getVersion() > latestTemplate.getVersion()) {
                         latestTemplate = template;
@@ -194,7 +220,7 @@ public class TemplateServiceImpl implements ITemplateService {
         File templateFile = new File(configDir, fileName);
 
         logger.info("Đang lưu Export template: {}", templateFile.getPath());
-        objectMapper.writeValue(templateFile, template);
+        serializationService.writeExportTemplate(templateFile, template);
     }
 
     @Override
@@ -207,7 +233,7 @@ public class TemplateServiceImpl implements ITemplateService {
             throw new IOException("Export Template file không tồn tại: " + templateFile.getPath());
         }
 
-        return objectMapper.readValue(templateFile, ExportTemplate.class);
+        return serializationService.readExportTemplate(templateFile);
     }
 
     @Override
@@ -217,7 +243,7 @@ public class TemplateServiceImpl implements ITemplateService {
 
         for (Path templateFile : templateFiles) {
             try {
-                ExportTemplate template = objectMapper.readValue(templateFile.toFile(), ExportTemplate.class);
+                ExportTemplate template = serializationService.readExportTemplate(templateFile.toFile());
                 if (template != null && template.getTemplateName() != null) {
                     templateNames.add(template.getTemplateName());
                 }
@@ -3,7 +3,8 @@ package com.rms.app.view;
 import com.google.inject.Inject;
 import com.rms.app.model.Artifact;
 import com.rms.app.viewmodel.DashboardViewModel;
-import javafx.collections.MapChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
@@ -44,9 +45,7 @@ public class DashboardView {
         /**
          * Lắng nghe sự thay đổi dữ liệu (data) trên ViewModel.
          */
-        viewModel.getArtifactsByStatus().addListener((MapChangeListener<String, List<Artifact>>) change -> {
-            renderKanbanBoard();
-        });
+        viewModel.artifactsByStatusProperty().addListener((obs, oldData, newData) -> renderKanbanBoard());
 
         /**
          * Kích hoạt tải dữ liệu lần đầu tiên.
@@ -60,7 +59,7 @@ public class DashboardView {
      */
     private void renderKanbanBoard() {
         kanbanContainer.getChildren().clear();
-        Map<String, List<Artifact>> data = viewModel.getArtifactsByStatus();
+        Map<String, ObservableList<Artifact>> data = viewModel.artifactsByStatusProperty().get();
 
         createColumn(data, "Draft");
         createColumn(data, "In Review");
@@ -78,12 +77,12 @@ public class DashboardView {
      * @param data Map (ánh xạ) dữ liệu
      * @param status Tên của trạng thái (ví dụ: "Draft")
      */
-    private void createColumn(Map<String, List<Artifact>> data, String status) {
+    private void createColumn(Map<String, ObservableList<Artifact>> data, String status) {
         if (!data.containsKey(status)) {
             return;
         }
 
-        List<Artifact> artifacts = data.get(status);
+        ObservableList<Artifact> artifacts = data.get(status);
         VBox column = new VBox(5);
         column.setMinWidth(280);
         column.setPrefWidth(280);
@@ -106,13 +105,32 @@ public class DashboardView {
         VBox cardsContainer = new VBox(8);
         cardsContainer.setPadding(new Insets(5));
 
-        for (Artifact artifact : artifacts) {
-            cardsContainer.getChildren().add(createCard(artifact));
-        }
+        /**
+         * Chỉ render trang đầu; các trang tiếp theo được render khi cuộn tới cuối cột
+         */
+        appendNextPage(cardsContainer, status);
 
         ScrollPane scrollPane = new ScrollPane(cardsContainer);
         scrollPane.setFitToWidth(true);
         scrollPane.setStyle("-fx-background-color: transparent; -fx-background-insets: 0;");
+        scrollPane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            if (newValue.doubleValue() >= scrollPane.getVmax() * 0.9) {
+                appendNextPage(cardsContainer, status);
+            }
+        });
+
+        /**
+         * Kéo-thả chỉ thay đổi danh sách của hai cột liên quan:
+         * render lại riêng cột này (giữ số thẻ đã hiển thị), không render lại cả bảng.
+         */
+        artifacts.addListener((ListChangeListener<Artifact>) change -> {
+            title.setText(status + " (" + artifacts.size() + ")");
+            int rendered = Math.max(cardsContainer.getChildren().size(), DashboardViewModel.KANBAN_PAGE_SIZE);
+            cardsContainer.getChildren().clear();
+            for (Artifact artifact : artifacts.subList(0, Math.min(rendered, artifacts.size()))) {
+                cardsContainer.getChildren().add(createCard(artifact));
+            }
+        });
         column.getChildren().add(scrollPane);
 
         setupDropTarget(column);
@@ -120,6 +138,19 @@ public class DashboardView {
         kanbanContainer.getChildren().add(column);
     }
 
+    /**
+     * Render trang thẻ (card) tiếp theo của một cột (nếu còn).
+     *
+     * @param cardsContainer Container chứa các thẻ của cột
+     * @param status         Trạng thái (cột)
+     */
+    private void appendNextPage(VBox cardsContainer, String status) {
+        List<Artifact> page = viewModel.getCardPage(status, cardsContainer.getChildren().size());
+        for (Artifact artifact : page) {
+            cardsContainer.getChildren().add(createCard(artifact));
+        }
+    }
+
     /**
      * Helper tạo một Thẻ (Card) (VBox) cho một Artifact.
      *
@@ -1,7 +1,5 @@
 package com.rms.app.viewmodel;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.rms.app.model.Artifact;
 import com.rms.app.model.ArtifactTemplate;
@@ -30,6 +28,7 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,9 +43,9 @@ import java.util.Map;
 public class ArtifactViewModel {
     private static final Logger logger = LoggerFactory.getLogger(ArtifactViewModel.class);
 
-    private final IArtifactRepository artifactRepository;
+    private final IArtifactPersistenceService persistenceService;
     private final IProjectStateService projectStateService;
-    private final ObjectMapper objectMapper;
+    private final ISerializationService serializationService;
     private final IDiagramRenderService diagramRenderService;
     private final IApiService apiService;
     private final IProjectService projectService;
@@ -79,19 +78,18 @@ public class ArtifactViewModel {
 
 
     @Inject
-    public ArtifactViewModel(IArtifactRepository artifactRepository,
+    public ArtifactViewModel(IArtifactPersistenceService persistenceService,
                              IProjectStateService projectStateService,
                              IDiagramRenderService diagramRenderService,
                              IApiService apiService,
-                             IProjectService projectService) {
-        this.artifactRepository = artifactRepository;
+                             IProjectService projectService,
+                             ISerializationService serializationService) {
+        this.persistenceService = persistenceService;
         this.projectStateService = projectStateService;
         this.diagramRenderService = diagramRenderService;
         this.apiService = apiService;
         this.projectService = projectService;
-        this.objectMapper = new ObjectMapper();
-
-        this.objectMapper.findAndRegisterModules();
+        this.serializationService = serializationService;
 
         this.id = new SimpleStringProperty("Đang chờ lưu...");
         this.name = new SimpleStringProperty();
@@ -133,7 +131,7 @@ public class ArtifactViewModel {
             this.parentFolderId = (String) creationData.get("parentFolderId");
 
             this.artifact = new Artifact();
-            this.artifact.setFields(new HashMap<>());
+            this.artifact.setFields(new LinkedHashMap<>());
             this.artifact.setArtifactType(template.getPrefixId());
             this.artifact.setTemplateId(template.getTemplateId());
 
@@ -202,7 +200,7 @@ public class ArtifactViewModel {
             // --- (Dự phòng) TẠO ARTIFACT MỚI ---
             this.template = template;
             this.artifact = new Artifact();
-            this.artifact.setFields(new HashMap<>());
+            this.artifact.setFields(new LinkedHashMap<>());
             this.artifact.setArtifactType(template.getPrefixId());
             this.artifact.setTemplateId(template.getTemplateId());
             logger.warn("ArtifactViewModel được khởi tạo (MỚI) mà không có dữ liệu Tab. RelativePath sẽ là null.");
@@ -245,8 +243,12 @@ public class ArtifactViewModel {
      */
     public StringProperty getStringProperty(String fieldName) {
         return (StringProperty) dynamicFields.computeIfAbsent(fieldName, key -> {
+            /**
+             * Giá trị lớn được lưu nén (CompressedText) chỉ được giải nén tại đây,
+             * khi trường thực sự được render
+             */
             Object initialValue = artifact.getFields().get(key);
-            StringProperty property = new SimpleStringProperty((String) initialValue);
+            StringProperty property = new SimpleStringProperty(initialValue != null ? initialValue.toString() : null);
             property.addListener((obs, oldV, newV) -> triggerAutoSave());
             return property;
         });
@@ -270,7 +272,7 @@ public class ArtifactViewModel {
                 }
             } else if (initialValueRaw != null) {
                 try {
-                    initialValue = objectMapper.convertValue(initialValueRaw, LocalDate.class);
+                    initialValue = serializationService.convertValue(initialValueRaw, LocalDate.class);
                 } catch (Exception e) {
                     logger.error("Không thể convert giá trị ngày: {}", initialValueRaw, e);
                 }
@@ -301,10 +303,7 @@ public class ArtifactViewModel {
 
         if (rawData instanceof List) {
             try {
-                initialSteps = objectMapper.convertValue(
-                        rawData,
-                        new TypeReference<List<FlowStep>>() {}
-                );
+                initialSteps = serializationService.toFlowSteps(rawData);
             } catch (Exception e) {
                 logger.error("Không thể convert FlowStep data khi load", e);
             }
@@ -330,7 +329,9 @@ public class ArtifactViewModel {
     }
 
     /**
-     * Logic nghiệp vụ để lưu Artifact xuống đĩa (qua Repository).
+     * Logic nghiệp vụ để lưu Artifact xuống đĩa.
+     * Trên luồng UI chỉ chụp (snapshot) trạng thái form; việc ghi (Triple-Write)
+     * do hàng đợi lưu nền (IArtifactPersistenceService) thực hiện.
      */
     private void saveArtifact() {
         logger.debug("Kích hoạt Auto-save...");
@@ -378,31 +379,63 @@ public class ArtifactViewModel {
                 }
             }
 
-            artifactRepository.save(artifact);
+            final String savedId = artifact.getId();
+            persistenceService.enqueueSave(createSnapshot()).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    projectStateService.setStatusMessage("Lỗi Auto-save: " + error.getMessage());
+                } else if (isNewArtifact) {
+                    /**
+                     * [SỬA LỖI] Gửi (Fire) một tin nhắn
+                     * (message) trạng thái (status)
+                     * khác nhau cho TẠO MỚI (NEW)
+                     * và CẬP NHẬT (UPDATE).
+                     * (Chỉ gửi sau khi file đã thực sự được ghi, để cây thư mục thấy file mới)
+                     */
+                    projectStateService.setStatusMessage("Đã TẠO MỚI " + savedId);
+                } else {
+                    projectStateService.setStatusMessage("Đã lưu " + savedId);
+                }
+            }));
 
             if (myTab != null && myTab.getUserData() instanceof Map) {
                 myTab.setText(artifact.getId());
                 myTab.setUserData(artifact.getId());
             }
 
-            /**
-             * [SỬA LỖI] Gửi (Fire) một tin nhắn
-             * (message) trạng thái (status)
-             * khác nhau cho TẠO MỚI (NEW)
-             * và CẬP NHẬT (UPDATE).
-             */
-            if (isNewArtifact) {
-                projectStateService.setStatusMessage("Đã TẠO MỚI " + artifact.getId());
-            } else {
-                projectStateService.setStatusMessage("Đã lưu " + artifact.getId());
-            }
-
         } catch (IOException e) {
             logger.error("Lỗi Auto-save", e);
             projectStateService.setStatusMessage("Lỗi Auto-save: " + e.getMessage());
         }
     }
 
+    /**
+     * Tạo bản chụp (snapshot) độc lập của artifact để luồng ghi nền
+     * không thấy các thay đổi tiếp theo trên form.
+     * Các FlowStep được sao chép sâu (deep copy) vì Flow Builder sửa chúng tại chỗ.
+     * Thứ tự các trường được giữ nguyên (LinkedHashMap, như khi Jackson đọc file), để lưu lại
+     * một artifact không sửa gì không làm xáo trộn .json / .md.
+     *
+     * @return Bản sao của artifact
+     */
+    private Artifact createSnapshot() {
+        Artifact snapshot = new Artifact();
+        snapshot.setId(artifact.getId());
+        snapshot.setName(artifact.getName());
+        snapshot.setArtifactType(artifact.getArtifactType());
+        snapshot.setRelativePath(artifact.getRelativePath());
+        snapshot.setFolderId(artifact.getFolderId());
+        snapshot.setTemplateId(artifact.getTemplateId());
+
+        Map<String, Object> fields = new LinkedHashMap<>(artifact.getFields());
+        for (Map.Entry<String, Property<?>> entry : dynamicFields.entrySet()) {
+            if (entry.getValue() instanceof SimpleListProperty) {
+                fields.put(entry.getKey(), serializationService.toFlowSteps(fields.get(entry.getKey())));
+            }
+        }
+        snapshot.setFields(fields);
+        return snapshot;
+    }
+
     /**
      * [THÊM MỚI] Kích hoạt (trigger) lưu (save)
      * một cách thủ công (manually)
@@ -4,15 +4,24 @@ import com.google.inject.Inject;
 import com.rms.app.model.Artifact;
 import com.rms.app.service.IProjectStateService;
 import com.rms.app.service.ISearchService;
-import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableMap;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * "Brain" - Logic UI cho DashboardView (Kanban).
@@ -25,10 +34,38 @@ public class DashboardViewModel {
     private final IProjectStateService projectStateService;
 
     /**
-     * Map (ánh xạ) có thể quan sát (Observable) lưu trữ
-     * Trạng thái (String) -> Danh sách Artifacts (List<Artifact>).
+     * Số thẻ (card) được render mỗi lần cho một cột;
+     * các trang tiếp theo được render khi cuộn (scroll) tới cuối cột.
      */
-    private final ObservableMap<String, List<Artifact>> artifactsByStatus = FXCollections.observableHashMap();
+    public static final int KANBAN_PAGE_SIZE = 50;
+
+    /**
+     * Dữ liệu Kanban: Trạng thái (String) -> Danh sách Artifacts (ObservableList<Artifact>, sắp theo ID).
+     * Map được thay thế nguyên khối mỗi lần tải, nên View chỉ render lại MỘT lần
+     * (thay vì một lần cho mỗi thao tác clear/put trên ObservableMap).
+     * Khi kéo-thả, chỉ hai danh sách bị ảnh hưởng thay đổi (View chỉ render lại hai cột đó).
+     */
+    private final ObjectProperty<Map<String, ObservableList<Artifact>>> artifactsByStatus =
+            new SimpleObjectProperty<>(Collections.emptyMap());
+
+    private static final Comparator<Artifact> CARD_ORDER = Comparator.comparing(Artifact::getId);
+
+    /**
+     * Luồng lưu (save) tuần tự: các lần kéo-thả liên tiếp được ghi xuống đĩa đúng thứ tự.
+     * Luồng tự kết thúc khi rảnh.
+     */
+    private final ExecutorService saveExecutor = createSaveExecutor();
+
+    private static ExecutorService createSaveExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "kanban-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     @Inject
     public DashboardViewModel(ISearchService searchService, IProjectStateService projectStateService) {
@@ -41,66 +78,136 @@ public class DashboardViewModel {
      * từ Lớp Chỉ mục (thông qua SearchService).
      */
     public void loadKanbanData() {
-        try {
-            /**
-             * Gọi Service để lấy dữ liệu đã được xử lý (F-MGT-02)
-             */
-            Map<String, List<Artifact>> groupedData = searchService.getArtifactsGroupedByStatus();
+        Task<Map<String, List<Artifact>>> loadTask = new Task<>() {
+            @Override
+            protected Map<String, List<Artifact>> call() {
+                /**
+                 * Gọi Service để lấy dữ liệu đã được xử lý (F-MGT-02)
+                 */
+                return searchService.getArtifactsGroupedByStatus();
+            }
+        };
 
-            /**
-             * Cập nhật Map (trên luồng UI)
-             */
-            Platform.runLater(() -> {
-                artifactsByStatus.clear();
-                artifactsByStatus.putAll(groupedData);
-                logger.info("Đã tải dữ liệu Kanban cho {} trạng thái.", groupedData.size());
-            });
-
-        } catch (Exception e) {
-            logger.error("Lỗi nghiêm trọng khi tải dữ liệu Kanban", e);
-            Platform.runLater(artifactsByStatus::clear);
-        }
+        /**
+         * Cập nhật dữ liệu (trên luồng UI)
+         */
+        loadTask.setOnSucceeded(event -> {
+            Map<String, List<Artifact>> groupedData = loadTask.getValue();
+            Map<String, ObservableList<Artifact>> columns = new LinkedHashMap<>();
+            groupedData.forEach((status, cards) -> columns.put(status, FXCollections.observableArrayList(cards)));
+            artifactsByStatus.set(columns);
+            logger.info("Đã tải dữ liệu Kanban cho {} trạng thái.", groupedData.size());
+        });
+        loadTask.setOnFailed(event -> {
+            logger.error("Lỗi nghiêm trọng khi tải dữ liệu Kanban", loadTask.getException());
+            artifactsByStatus.set(Collections.emptyMap());
+        });
+
+        Thread loadThread = new Thread(loadTask);
+        loadThread.setDaemon(true);
+        loadThread.start();
     }
 
     /**
      * [THÊM MỚI NGÀY 29]
      * Logic nghiệp vụ (F-MGT-03) khi BA thả một thẻ (card) vào cột mới.
+     * Thẻ được chuyển NGAY giữa hai cột (trên luồng UI), việc lưu (Triple-Write)
+     * chạy trên luồng nền; nếu lưu thất bại, thẻ được trả về cột cũ.
+     * PHẢI gọi từ luồng UI (FX thread).
      *
      * @param artifact  Artifact đã được thả
      * @param newStatus Trạng thái (Status) của cột
      */
     public void updateArtifactStatus(Artifact artifact, String newStatus) {
-        projectStateService.setStatusMessage("Đang cập nhật " + artifact.getId() + "...");
-        try {
-            /**
-             * 1. Gọi Service để thực hiện Triple-Write
-             */
-            searchService.updateArtifactStatus(artifact, newStatus);
+        Map<String, ObservableList<Artifact>> columns = artifactsByStatus.get();
+        ObservableList<Artifact> targetColumn = columns.get(newStatus);
 
-            /**
-             * 2. Tải lại (Refresh) toàn bộ bảng Kanban
-             * (Việc này sẽ tự động cập nhật UI vì View đang lắng nghe Map)
-             */
-            loadKanbanData();
-            projectStateService.setStatusMessage("Đã cập nhật " + artifact.getId() + " sang " + newStatus);
+        /**
+         * Tìm thẻ theo ID (đối tượng từ Dragboard có thể là bản sao)
+         */
+        String oldStatus = null;
+        Artifact card = null;
+        int oldIndex = -1;
+        for (Map.Entry<String, ObservableList<Artifact>> column : columns.entrySet()) {
+            List<Artifact> cards = column.getValue();
+            for (int i = 0; i < cards.size(); i++) {
+                if (cards.get(i).getId().equals(artifact.getId())) {
+                    oldStatus = column.getKey();
+                    card = cards.get(i);
+                    oldIndex = i;
+                    break;
+                }
+            }
+            if (card != null) {
+                break;
+            }
+        }
+        if (card == null || targetColumn == null || newStatus.equals(oldStatus)) {
+            return;
+        }
+
+        /**
+         * 1. Chuyển thẻ giữa hai cột (chỉ hai cột này được render lại)
+         */
+        ObservableList<Artifact> sourceColumn = columns.get(oldStatus);
+        sourceColumn.remove(oldIndex);
+        int insertIndex = Collections.binarySearch(targetColumn, card, CARD_ORDER);
+        targetColumn.add(insertIndex < 0 ? -insertIndex - 1 : insertIndex, card);
+        projectStateService.setStatusMessage("Đang cập nhật " + card.getId() + "...");
+
+        /**
+         * 2. Lưu (Triple-Write) trên luồng nền
+         */
+        final Artifact movedCard = card;
+        final String previousStatus = oldStatus;
+        final int previousIndex = oldIndex;
+        Task<Void> saveTask = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                searchService.updateArtifactStatus(movedCard, newStatus);
+                return null;
+            }
+        };
+        saveTask.setOnSucceeded(event ->
+                projectStateService.setStatusMessage("Đã cập nhật " + movedCard.getId() + " sang " + newStatus));
+        saveTask.setOnFailed(event -> {
+            Throwable error = saveTask.getException();
+            logger.error("Lỗi khi cập nhật trạng thái Kanban cho {}", movedCard.getId(), error);
+            projectStateService.setStatusMessage("Lỗi: " + error.getMessage());
 
-        } catch (IOException e) {
-            logger.error("Lỗi khi cập nhật trạng thái Kanban cho {}", artifact.getId(), e);
-            projectStateService.setStatusMessage("Lỗi: " + e.getMessage());
             /**
-             * Tải lại (refresh) bảng để khôi phục trạng thái cũ
+             * 3. Khôi phục (rollback): trả thẻ về cột cũ, nếu bảng chưa được tải lại
              */
-            loadKanbanData();
-        }
+            if (artifactsByStatus.get() == columns && targetColumn.remove(movedCard)) {
+                sourceColumn.add(Math.min(previousIndex, sourceColumn.size()), movedCard);
+                logger.info("Đã trả thẻ {} về cột {}", movedCard.getId(), previousStatus);
+            }
+        });
+        saveExecutor.execute(saveTask);
     }
 
 
     /**
      * Cung cấp dữ liệu (Map) cho View (DashboardView)
      *
-     * @return Map có thể quan sát (ObservableMap)
+     * @return Property chứa Map {Status -> ObservableList<Artifact>} hiện tại
      */
-    public ObservableMap<String, List<Artifact>> getArtifactsByStatus() {
+    public ReadOnlyObjectProperty<Map<String, ObservableList<Artifact>>> artifactsByStatusProperty() {
         return artifactsByStatus;
     }
+
+    /**
+     * Lấy một trang (page) thẻ của một cột.
+     *
+     * @param status    Trạng thái (cột)
+     * @param fromIndex Vị trí bắt đầu
+     * @return Tối đa KANBAN_PAGE_SIZE artifact (rỗng nếu đã hết)
+     */
+    public List<Artifact> getCardPage(String status, int fromIndex) {
+        List<Artifact> cards = artifactsByStatus.get().getOrDefault(status, FXCollections.emptyObservableList());
+        if (fromIndex >= cards.size()) {
+            return Collections.emptyList();
+        }
+        return cards.subList(fromIndex, Math.min(cards.size(), fromIndex + KANBAN_PAGE_SIZE));
+    }
 }
\ No newline at end of file
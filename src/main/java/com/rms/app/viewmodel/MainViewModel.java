@@ -54,6 +54,8 @@ public class MainViewModel {
     private final IIndexService indexService;
     private final IExportService exportService;
     private final ISqliteIndexRepository sqliteIndexRepository;
+    private final IProjectWatcherService projectWatcherService;
+    private final IArtifactPersistenceService persistenceService;
 
     private final ObjectProperty<TreeItem<String>> projectRoot;
     private final ObjectProperty<ProjectConfig> currentProject;
@@ -71,7 +73,9 @@ public class MainViewModel {
                          ISearchService searchService,
                          IIndexService indexService,
                          IExportService exportService,
-                         ISqliteIndexRepository sqliteIndexRepository) {
+                         ISqliteIndexRepository sqliteIndexRepository,
+                         IProjectWatcherService projectWatcherService,
+                         IArtifactPersistenceService persistenceService) {
         this.projectService = projectService;
         this.templateService = templateService;
         this.viewManager = viewManager;
@@ -81,6 +85,8 @@ public class MainViewModel {
         this.indexService = indexService;
         this.exportService = exportService;
         this.sqliteIndexRepository = sqliteIndexRepository;
+        this.projectWatcherService = projectWatcherService;
+        this.persistenceService = persistenceService;
 
         this.projectRoot = new SimpleObjectProperty<>(new TreeItem<>("Chưa mở dự án"));
         this.currentProject = new SimpleObjectProperty<>(null);
@@ -372,6 +378,7 @@ public class MainViewModel {
          * 2. Nếu không tìm thấy, tạo tab mới
          */
         try {
+            persistenceService.flush(relativePath); // (Đọc lại bản đã lưu nền mới nhất)
             Artifact artifact = artifactRepository.load(relativePath);
             if (artifact == null) {
                 throw new IOException("Không tìm thấy artifact: " + relativePath);
@@ -555,6 +562,7 @@ public class MainViewModel {
              * Gọi Repository (Repository tự kiểm tra backlink,
              * xóa file .json, .md, và xóa CSDL)
              */
+            persistenceService.flush(relativePath); // (Tránh lần ghi nền tạo lại file sau khi xóa)
             artifactRepository.delete(relativePath);
 
             /**
@@ -574,6 +582,13 @@ public class MainViewModel {
             String relativePath = item.getRelativePath();
             Path folderPath = projectRoot.toPath().resolve(relativePath);
 
+            /**
+             * Chờ mọi lần ghi nền đang xếp hàng hoàn tất trước khi xóa:
+             * một lần lưu chạy sau khi xóa sẽ tạo lại thư mục và file .json (chế độ FILES)
+             * hoặc chèn lại tài liệu (chế độ SQLITE)
+             */
+            persistenceService.flushAll();
+
             /**
              * 2a. Xóa khỏi CSDL Chỉ mục (Index DB)
              */
@@ -584,7 +599,15 @@ public class MainViewModel {
             }
 
             /**
-             * 2b. Xóa thư mục vật lý (physical folder)
+             * 2b. Xóa các artifact của thư mục khỏi nơi lưu trữ
+             * (chế độ SQLITE: chúng không nằm trong thư mục vật lý)
+             */
+            for (String artifactId : artifactRepository.deleteFolderArtifacts(relativePath)) {
+                closeTabById(artifactId);
+            }
+
+            /**
+             * 2c. Xóa thư mục vật lý (physical folder)
              */
             if (Files.exists(folderPath)) {
                 Files.walkFileTree(folderPath, new SimpleFileVisitor<Path>() {
@@ -636,21 +659,35 @@ public class MainViewModel {
      */
     public void openProject(File directory) {
         try {
+            /**
+             * Ghi hết hàng đợi lưu nền vào dự án cũ trước khi đổi thư mục dự án
+             */
+            persistenceService.flushAll();
             if (mainTabPane != null) {
                 mainTabPane.getTabs().clear();
                 /** [ĐÃ SỬA] Xóa logic tab "Welcome" theo yêu cầu */
             }
             ProjectConfig config = projectService.openProject(directory);
+            /**
+             * Dừng theo dõi và đóng các kết nối CSDL Chỉ mục của dự án cũ (nếu có)
+             */
+            projectWatcherService.stopWatching();
+            sqliteIndexRepository.closeDatabase();
             currentProject.set(config);
             projectStateService.setCurrentProjectDirectory(directory);
-            indexService.validateAndRebuildIndex(); // Kích hoạt quét (scan) đệ quy
+            int recovered = artifactRepository.recoverPendingWrites(); // (Triple-Write bị gián đoạn lần trước)
+            if (recovered > 0) {
+                logger.warn("Đã khôi phục {} thao tác ghi bị gián đoạn từ nhật ký.", recovered);
+            }
+            indexService.syncIndex(); // Kích hoạt quét (scan) tăng dần (chỉ file thay đổi)
+            projectWatcherService.startWatching(directory); // Đồng bộ thay đổi từ bên ngoài (git pull, ...)
 
             /** [ĐÃ THÊM] Tự động mở Graph View sau khi mở dự án */
             openGraphViewTab();
 
             /**
              * refreshProjectTree() sẽ được gọi tự động
-             * bởi listener khi indexService.validateAndRebuildIndex()
+             * bởi listener khi indexService.syncIndex()
              * hoàn tất và setStatusMessage.
              */
         } catch (IOException e) {
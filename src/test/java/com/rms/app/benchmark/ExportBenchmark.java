@@ -0,0 +1,249 @@
+package com.rms.app.benchmark;
+
+import com.rms.app.model.Artifact;
+import com.rms.app.model.ExportTemplate;
+import com.rms.app.model.ExportTemplateSection;
+import com.rms.app.model.StoredDocument;
+import com.rms.app.service.IArtifactRepository;
+import com.rms.app.service.IDiagramRenderService;
+import com.rms.app.service.IPandocRunner;
+import com.rms.app.service.IProjectService;
+import com.rms.app.service.IProjectStateService;
+import com.rms.app.service.ISqliteIndexRepository;
+import com.rms.app.service.ITemplateService;
+import com.rms.app.service.impl.ExportServiceImpl;
+import com.rms.app.service.impl.SerializationServiceImpl;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark (chạy tay, không phải unit test) cho việc dựng Markdown khi Xuất bản tài liệu (UC-PUB-01):
+ * so sánh cách dựng tuần tự (từng chương, từng file .md một) với ExportServiceImpl.exportToDocument
+ * (các chương được dựng song song và nối lại theo thứ tự template) trên một template 200 chương được sinh ra.
+ *
+ * - Template: cứ 10 chương có 1 chương tĩnh (Static), 1 chương dạng bảng (Table), còn lại là FullContent.
+ * - Mỗi chương động có N artifact, mỗi artifact có một file .md thật trên đĩa (thư mục tạm).
+ * - CSDL Chỉ mục và kho artifact được giả lập; có thể thêm độ trễ cho mỗi lần đọc .md / mỗi truy vấn
+ *   để mô phỏng ổ đĩa mạng hoặc ổ đĩa chậm. Pandoc được thay bằng một runner chỉ giữ lại Markdown.
+ * - Mỗi lần chạy dùng một ExportServiceImpl mới (bộ đệm chương rỗng).
+ *
+ * Cần môi trường chạy được JavaFX (ExportServiceImpl cập nhật thanh trạng thái qua Platform.runLater).
+ * Chạy:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.rms.app.benchmark.ExportBenchmark \
+ *      [số chương] [số artifact mỗi chương] [độ trễ đọc .md (µs)] [độ trễ truy vấn (µs)] [số lần chạy]
+ * </pre>
+ */
+public final class ExportBenchmark {
+
+    private static final int DEFAULT_SECTIONS = 200;
+    private static final int DEFAULT_ARTIFACTS_PER_SECTION = 25;
+    private static final int DEFAULT_RUNS = 5;
+    private static final String TEMPLATE_NAME = "SRS Benchmark";
+    private static final String ARTIFACT_SEPARATOR = "\n\n---\n\n";
+
+    private ExportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sectionCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECTIONS;
+        int artifactsPerSection = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ARTIFACTS_PER_SECTION;
+        long mdLatencyMicros = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        long sqlLatencyMicros = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int runs = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_RUNS;
+
+        Platform.startup(() -> {
+        });
+        try {
+            Path projectRoot = Files.createTempDirectory("rms-export-bench");
+            ExportTemplate template = generateTemplate(sectionCount);
+            generateMarkdownFiles(projectRoot, sectionCount, artifactsPerSection);
+
+            IArtifactRepository artifactRepository = artifactRepository(projectRoot, mdLatencyMicros);
+            ISqliteIndexRepository indexRepository = indexRepository(artifactsPerSection, sqlLatencyMicros);
+            System.out.printf("Template sinh ra: %d chương x %d artifact, độ trễ .md = %d µs, độ trễ truy vấn = %d µs%n",
+                    sectionCount, artifactsPerSection, mdLatencyMicros, sqlLatencyMicros);
+
+            String serialMarkdown = null;
+            long serialBest = Long.MAX_VALUE;
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                serialMarkdown = renderSerially(template, artifactRepository, indexRepository);
+                serialBest = Math.min(serialBest, System.nanoTime() - start);
+            }
+
+            String[] captured = new String[1];
+            IPandocRunner pandocRunner = (markdown, outputFile, options, timeout) -> {
+                captured[0] = markdown;
+                return CompletableFuture.completedFuture(null);
+            };
+            ITemplateService templateService = stub(ITemplateService.class,
+                    (proxy, method, methodArgs) -> "loadExportTemplate".equals(method.getName()) ? template : null);
+            IProjectStateService projectStateService = stub(IProjectStateService.class,
+                    (proxy, method, methodArgs) -> "getCurrentProjectDirectory".equals(method.getName()) ? projectRoot.toFile() : null);
+            File outputFile = projectRoot.resolve("benchmark.pdf").toFile();
+
+            long parallelBest = Long.MAX_VALUE;
+            for (int run = 0; run < runs; run++) {
+                ExportServiceImpl exportService = new ExportServiceImpl(templateService, artifactRepository, indexRepository,
+                        projectStateService, new SerializationServiceImpl(), pandocRunner,
+                        stub(IDiagramRenderService.class, (proxy, method, methodArgs) -> null),
+                        stub(IProjectService.class, (proxy, method, methodArgs) -> null));
+                long start = System.nanoTime();
+                exportService.exportToDocument(outputFile, TEMPLATE_NAME, null);
+                parallelBest = Math.min(parallelBest, System.nanoTime() - start);
+            }
+
+            System.out.printf("%-30s | tốt nhất %d lần: %8.1f ms%n", "Tuần tự", runs, serialBest / 1e6);
+            System.out.printf("%-30s | tốt nhất %d lần: %8.1f ms (x%.1f)%n", "exportToDocument (song song)",
+                    runs, parallelBest / 1e6, (double) serialBest / parallelBest);
+            System.out.printf("Markdown giống hệt bản tuần tự: %b (%d ký tự)%n",
+                    serialMarkdown.equals(captured[0]), captured[0].length());
+        } finally {
+            Platform.exit();
+        }
+    }
+
+    /**
+     * Cách dựng trước khi các chương được dựng song song: mỗi chương một truy vấn,
+     * rồi đọc từng file .md một theo thứ tự, trên luồng gọi.
+     */
+    private static String renderSerially(ExportTemplate template, IArtifactRepository artifactRepository,
+                                         ISqliteIndexRepository indexRepository) throws Exception {
+        StringBuilder mdBuilder = new StringBuilder();
+        mdBuilder.append("--- \n");
+        mdBuilder.append("title: ").append(template.getTemplateName()).append("\n");
+        mdBuilder.append("author: BA Workbench Export\n");
+        mdBuilder.append("--- \n\n");
+
+        for (ExportTemplateSection section : template.getSections()) {
+            mdBuilder.append("# ").append(section.getTitle()).append("\n\n");
+            if ("Static".equals(section.getType())) {
+                mdBuilder.append(section.getContent()).append("\n\n");
+                continue;
+            }
+            List<Artifact> artifacts = indexRepository.queryArtifactsByCriteria(
+                    section.getQuery().get("artifactType"), section.getQuery().get("status"), null);
+            if ("Table".equalsIgnoreCase(section.getDisplayFormat())) {
+                mdBuilder.append("| ID | Name |\n");
+                mdBuilder.append("|:---|:---|\n");
+                for (Artifact artifact : artifacts) {
+                    mdBuilder.append("| ").append(artifact.getId()).append(" | ").append(artifact.getName()).append(" |\n");
+                }
+                mdBuilder.append("\n");
+            } else {
+                for (Artifact artifact : artifacts) {
+                    mdBuilder.append(artifactRepository.loadMarkdown(artifact.getRelativePath().replace(".json", ".md")))
+                            .append(ARTIFACT_SEPARATOR);
+                }
+            }
+        }
+        return mdBuilder.toString();
+    }
+
+    /**
+     * Sinh template: chương i % 10 == 0 là Static, i % 10 == 5 là Table, còn lại là FullContent.
+     * Chương động thứ i truy vấn loại artifact "T{i}".
+     */
+    private static ExportTemplate generateTemplate(int sectionCount) {
+        List<ExportTemplateSection> sections = new ArrayList<>(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            ExportTemplateSection section = new ExportTemplateSection();
+            section.setTitle("Chương " + (i + 1));
+            if (i % 10 == 0) {
+                section.setType("Static");
+                section.setContent("Giới thiệu chương " + (i + 1) + ".\n\n- Phạm vi\n- Thuật ngữ");
+            } else {
+                section.setType("Dynamic");
+                section.setDisplayFormat(i % 10 == 5 ? "Table" : "FullContent");
+                section.setQuery(Map.of("artifactType", "T" + i));
+            }
+            sections.add(section);
+        }
+        ExportTemplate template = new ExportTemplate();
+        template.setTemplateName(TEMPLATE_NAME);
+        template.setSections(sections);
+        return template;
+    }
+
+    /**
+     * Sinh file .json (chỉ để có mtime cho bộ đệm chương) và .md cho mọi artifact của mọi chương.
+     */
+    private static void generateMarkdownFiles(Path projectRoot, int sectionCount, int artifactsPerSection) throws IOException {
+        String body = "Nội dung chi tiết của yêu cầu, gồm mô tả, tiền điều kiện và luồng sự kiện. ".repeat(40);
+        for (int s = 0; s < sectionCount; s++) {
+            for (int i = 0; i < artifactsPerSection; i++) {
+                String id = artifactId(s, i);
+                Files.writeString(projectRoot.resolve(id + ".json"), "{\"id\":\"" + id + "\"}");
+                Files.writeString(projectRoot.resolve(id + ".md"), "# " + id + "\n\n" + body);
+            }
+        }
+    }
+
+    private static String artifactId(int section, int index) {
+        return "T" + section + "-" + (index + 1);
+    }
+
+    /**
+     * Kho artifact giả lập: stat() và loadMarkdown() đọc file thật, loadMarkdown() có thêm độ trễ tùy chọn.
+     */
+    private static IArtifactRepository artifactRepository(Path projectRoot, long mdLatencyMicros) {
+        return stub(IArtifactRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "stat" -> {
+                Path file = projectRoot.resolve((String) args[0]);
+                yield Files.exists(file)
+                        ? new StoredDocument((String) args[0], Files.size(file), Files.getLastModifiedTime(file).toMillis(), null)
+                        : null;
+            }
+            case "loadMarkdown" -> {
+                sleepMicros(mdLatencyMicros);
+                yield Files.readString(projectRoot.resolve((String) args[0]));
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * CSDL Chỉ mục giả lập: queryArtifactsByCriteria("T{s}") trả về N artifact của chương s.
+     */
+    private static ISqliteIndexRepository indexRepository(int artifactsPerSection, long sqlLatencyMicros) {
+        return stub(ISqliteIndexRepository.class, (proxy, method, args) -> {
+            if (!"queryArtifactsByCriteria".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            sleepMicros(sqlLatencyMicros);
+            int section = Integer.parseInt(((String) args[0]).substring(1));
+            List<Artifact> artifacts = new ArrayList<>(artifactsPerSection);
+            for (int i = 0; i < artifactsPerSection; i++) {
+                Artifact artifact = new Artifact();
+                artifact.setId(artifactId(section, i));
+                artifact.setName("Yêu cầu " + (i + 1) + " của chương " + (section + 1));
+                artifact.setRelativePath(artifact.getId() + ".json");
+                artifacts.add(artifact);
+            }
+            return artifacts;
+        });
+    }
+
+    private static void sleepMicros(long micros) throws InterruptedException {
+        if (micros > 0) {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        }
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ExportBenchmark.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
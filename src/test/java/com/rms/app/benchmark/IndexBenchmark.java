@@ -0,0 +1,266 @@
+package com.rms.app.benchmark;
+
+import com.rms.app.model.ArtifactHeader;
+import com.rms.app.repository.SqliteConnectionManager;
+import com.rms.app.repository.SqliteIndexRepository;
+import com.rms.app.service.IIndexIngestSession;
+import com.rms.app.service.impl.AutocompleteServiceImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark (chạy tay, không phải unit test) cho tầng kết nối của CSDL Chỉ mục:
+ * so sánh thời gian Tái lập Chỉ mục và độ trễ Autocomplete trên một dự án được sinh ngẫu nhiên.
+ *
+ * - "Trước": mỗi lệnh SQL mở rồi đóng một kết nối DriverManager riêng
+ *   (đúng cách SqliteIndexRepository làm trước khi có SqliteConnectionManager).
+ * - "Sau": SqliteIndexRepository với kết nối writer dùng chung, pool reader và cache PreparedStatement,
+ *   đo cả chèn từng dòng, nạp hàng loạt (beginBulkIngest, đường Tái lập hiện tại) và AutocompleteServiceImpl.
+ *
+ * Chạy:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.rms.app.benchmark.IndexBenchmark [số artifact] [số truy vấn]
+ * </pre>
+ */
+public final class IndexBenchmark {
+
+    private static final int DEFAULT_ARTIFACTS = 20_000;
+    private static final int DEFAULT_QUERIES = 2_000;
+    private static final int SUGGESTION_LIMIT = 10;
+    private static final long SEED = 42L;
+
+    private static final String[] TYPES = {"UC", "BR", "FR", "NFR"};
+    private static final String[] STATUSES = {"Draft", "Review", "Approved"};
+    private static final String[] WORDS = {
+            "Đăng", "nhập", "quản", "lý", "người", "dùng", "báo", "cáo", "thanh", "toán",
+            "đơn", "hàng", "kho", "phê", "duyệt", "tìm", "kiếm", "xuất", "nhập", "hồ", "sơ"
+    };
+
+    /**
+     * Lược đồ (schema) của CSDL Chỉ mục trước khi có SqliteConnectionManager, cho phép đo "Trước".
+     */
+    private static final String[] LEGACY_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS artifacts (id TEXT PRIMARY KEY, name TEXT NOT NULL, type TEXT, status TEXT, "
+                    + "folderId TEXT, relativePath TEXT NOT NULL UNIQUE);",
+            "CREATE TABLE IF NOT EXISTS links (fromId TEXT NOT NULL, toId TEXT NOT NULL, PRIMARY KEY (fromId, toId));"
+    };
+
+    private IndexBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int artifactCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ARTIFACTS;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUERIES;
+
+        Random random = new Random(SEED);
+        List<ArtifactHeader> artifacts = generateArtifacts(artifactCount, random);
+        List<String> queries = generateQueries(artifacts, queryCount, random);
+        Path workDir = Files.createTempDirectory("rms-index-bench");
+
+        System.out.printf("Dự án sinh ngẫu nhiên: %d artifact, %d liên kết, %d truy vấn autocomplete%n",
+                artifacts.size(), artifacts.stream().mapToInt(a -> a.getLinks().size()).sum(), queries.size());
+
+        runLegacy(workDir.resolve("before"), artifacts, queries);
+        runPooled(workDir.resolve("after"), artifacts, queries);
+    }
+
+    /**
+     * "Trước": một kết nối DriverManager cho mỗi lệnh SQL.
+     */
+    private static void runLegacy(Path dir, List<ArtifactHeader> artifacts, List<String> queries)
+            throws IOException, SQLException {
+        Files.createDirectories(dir);
+        String url = "jdbc:sqlite:" + dir.resolve("index.db").toAbsolutePath();
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            for (String ddl : LEGACY_SCHEMA) {
+                stmt.execute(ddl);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (ArtifactHeader artifact : artifacts) {
+            try (Connection conn = DriverManager.getConnection(url);
+                 PreparedStatement pstmt = conn.prepareStatement(
+                         "INSERT OR REPLACE INTO artifacts (id, name, type, status, folderId, relativePath) VALUES(?,?,?,?,?,?);")) {
+                pstmt.setString(1, artifact.getId());
+                pstmt.setString(2, artifact.getName());
+                pstmt.setString(3, artifact.getArtifactType());
+                pstmt.setString(4, artifact.getStatus());
+                pstmt.setString(5, artifact.getFolderId());
+                pstmt.setString(6, artifact.getRelativePath());
+                pstmt.executeUpdate();
+            }
+            for (String toId : artifact.getLinks()) {
+                try (Connection conn = DriverManager.getConnection(url);
+                     PreparedStatement pstmt = conn.prepareStatement("INSERT OR IGNORE INTO links (fromId, toId) VALUES(?,?);")) {
+                    pstmt.setString(1, artifact.getId());
+                    pstmt.setString(2, toId);
+                    pstmt.executeUpdate();
+                }
+            }
+        }
+        report("Trước", "Tái lập (từng dòng, kết nối mới mỗi lệnh)", System.nanoTime() - start);
+
+        reportLatencies("Trước", "Autocomplete (SQL LIKE, kết nối mới mỗi truy vấn)", measureQueries(queries, query -> {
+            try (Connection conn = DriverManager.getConnection(url);
+                 PreparedStatement pstmt = conn.prepareStatement(
+                         "SELECT id, name, type, relativePath FROM artifacts WHERE id LIKE ? OR name LIKE ? LIMIT 10;")) {
+                String wildcard = "%" + query + "%";
+                pstmt.setString(1, wildcard);
+                pstmt.setString(2, wildcard);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString("id");
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * "Sau": SqliteIndexRepository trên SqliteConnectionManager.
+     */
+    private static void runPooled(Path dir, List<ArtifactHeader> artifacts, List<String> queries)
+            throws IOException, SQLException {
+        Files.createDirectories(dir);
+        File configDir = dir.toFile();
+        SqliteIndexRepository repository = new SqliteIndexRepository(new SqliteConnectionManager());
+        repository.initializeDatabase(configDir);
+        try {
+            long start = System.nanoTime();
+            for (ArtifactHeader artifact : artifacts) {
+                repository.insertArtifact(artifact);
+                for (String toId : artifact.getLinks()) {
+                    repository.insertLink(artifact.getId(), toId);
+                }
+            }
+            report("Sau", "Tái lập (từng dòng, kết nối dùng chung)", System.nanoTime() - start);
+
+            repository.clearIndex();
+            start = System.nanoTime();
+            try (IIndexIngestSession session = repository.beginBulkIngest()) {
+                for (ArtifactHeader artifact : artifacts) {
+                    session.addArtifact(artifact);
+                    for (String toId : artifact.getLinks()) {
+                        session.addLink(artifact.getId(), toId);
+                    }
+                }
+                session.commit();
+            }
+            report("Sau", "Tái lập (beginBulkIngest)", System.nanoTime() - start);
+
+            reportLatencies("Sau", "Autocomplete (queryArtifacts, pool reader)",
+                    measureQueries(queries, query -> repository.queryArtifacts("@" + query)));
+
+            AutocompleteServiceImpl autocomplete = new AutocompleteServiceImpl(repository);
+            start = System.nanoTime();
+            autocomplete.rebuild();
+            report("Sau", "Dựng chỉ mục Autocomplete trong bộ nhớ", System.nanoTime() - start);
+            reportLatencies("Sau", "Autocomplete (AutocompleteServiceImpl.suggest)",
+                    measureQueries(queries, query -> autocomplete.suggest(query, SUGGESTION_LIMIT)));
+        } finally {
+            repository.closeDatabase();
+        }
+    }
+
+    /**
+     * Một truy vấn autocomplete cần đo.
+     */
+    @FunctionalInterface
+    private interface QueryRunner {
+        void run(String query) throws SQLException;
+    }
+
+    /**
+     * Chạy toàn bộ truy vấn một lượt để làm nóng (JIT, cache trang SQLite), rồi đo độ trễ của lượt thứ hai.
+     *
+     * @return Độ trễ (ns) của từng truy vấn
+     */
+    private static long[] measureQueries(List<String> queries, QueryRunner runner) throws SQLException {
+        for (String query : queries) {
+            runner.run(query);
+        }
+        long[] latencies = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            runner.run(queries.get(i));
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    /**
+     * Sinh danh sách artifact: ID theo loại, tên 2-5 từ, 0-3 liên kết tới artifact bất kỳ.
+     */
+    private static List<ArtifactHeader> generateArtifacts(int count, Random random) {
+        List<ArtifactHeader> artifacts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String type = TYPES[i % TYPES.length];
+            ArtifactHeader header = new ArtifactHeader();
+            header.setId(type + "-" + (i / TYPES.length + 1));
+            header.setArtifactType(type);
+            header.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            header.setRelativePath(type + "/" + header.getId() + ".json");
+
+            StringBuilder name = new StringBuilder();
+            int words = 2 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    name.append(' ');
+                }
+                name.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            header.setName(name.toString());
+            header.setSearchText(name.toString());
+            artifacts.add(header);
+        }
+        for (ArtifactHeader header : artifacts) {
+            List<String> links = new ArrayList<>();
+            int linkCount = random.nextInt(4);
+            for (int l = 0; l < linkCount; l++) {
+                links.add(artifacts.get(random.nextInt(count)).getId());
+            }
+            header.setLinks(links);
+        }
+        return artifacts;
+    }
+
+    /**
+     * Sinh các tiền tố (prefix) như khi người dùng gõ "@...": một phần ID hoặc phần đầu một từ trong tên.
+     */
+    private static List<String> generateQueries(List<ArtifactHeader> artifacts, int count, Random random) {
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ArtifactHeader target = artifacts.get(random.nextInt(artifacts.size()));
+            String source = (i % 2 == 0) ? target.getId() : target.getName().split(" ")[0];
+            queries.add(source.substring(0, 1 + random.nextInt(source.length())));
+        }
+        return queries;
+    }
+
+    private static void report(String phase, String label, long nanos) {
+        System.out.printf("%-5s | %-52s | %10.1f ms%n", phase, label, nanos / 1e6);
+    }
+
+    private static void reportLatencies(String phase, String label, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1e3;
+        double p95 = sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.round(sorted.length * 0.95))] / 1e3;
+        System.out.printf("%-5s | %-52s | trung bình %8.1f µs, p95 %8.1f µs%n", phase, label, mean, p95);
+    }
+}